@@ -7,6 +7,15 @@ import java.util.Collection;
 import java.util.Set;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents an abstract MultiSet based on a {@link Map}. 
@@ -507,6 +516,56 @@ public abstract class AbstractMultiSet<MAP extends Map<T, Multiplicity>, T>
 	return getMaxObjWithMult().getValue().get();
     }
 
+    /**
+     * Returns the <code>k</code> elements with highest multiplicities 
+     * in descending order of multiplicities, 
+     * or all elements if there are less than <code>k</code>. 
+     * Among elements with equal multiplicities, the order is not specified. 
+     * This implementation requires a pass through {@link #obj2mult} 
+     * maintaining a heap of size <code>k</code>. 
+     *
+     * @param k 
+     *    the maximal number of elements to be returned. 
+     * @return 
+     *    a list of <code>min(k, size())</code> elements 
+     *    with highest multiplicities in descending order. 
+     * @throws IllegalArgumentException 
+     *    if <code>k</code> is negative. 
+     */
+    public final List<T> topK(int k) {
+	if (k < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative number; found " + k + ". ");
+	}
+	int num = Math.min(k, size());
+	List<T> res = new ArrayList<T>(num);
+	if (num == 0) {
+	    return res;
+	}
+	// heap of entries with least multiplicity on top 
+	PriorityQueue<Map.Entry<T, Multiplicity>> heap =
+	    new PriorityQueue<Map.Entry<T, Multiplicity>>
+	    (num, new Comparator<Map.Entry<T, Multiplicity>>() {
+		    public int compare(Map.Entry<T, Multiplicity> entry1,
+				       Map.Entry<T, Multiplicity> entry2) {
+			return entry1.getValue().get() - entry2.getValue().get();
+		    }
+		});
+	for (Map.Entry<T, Multiplicity> cand : this.obj2mult.entrySet()) {
+	    if (heap.size() < num) {
+		heap.add(cand);
+	    } else if (heap.peek().getValue().get() < cand.getValue().get()) {
+		heap.poll();
+		heap.add(cand);
+	    }
+	}
+	while (!heap.isEmpty()) {
+	    res.add(heap.poll().getKey());
+	}
+	Collections.reverse(res);
+	return res;
+    }
+
     /**
      * Returns the multiplicity 
      * with which the given object occurs within this set. 
@@ -592,6 +651,38 @@ public abstract class AbstractMultiSet<MAP extends Map<T, Multiplicity>, T>
 	return new MultiSetIteratorImpl<T>(this);
     }
 
+    /**
+     * Returns a spliterator over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * This is the spliterator of the key set of {@link #obj2mult} 
+     * which splits the underlying map. 
+     *
+     * @return 
+     *    a <code>Spliterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    public final Spliterator<T> spliterator() {
+	return this.obj2mult.keySet().spliterator();
+    }
+
+    public final Stream<T> stream() {
+	return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a sequential stream of the entries of {@link #obj2mult} 
+     * mapping each element to its multiplicity. 
+     *
+     * @return 
+     *    a sequential <code>Stream</code> 
+     *    over the entries of this set with multiplicities. 
+     */
+    public final Stream<Map.Entry<T, Multiplicity>> entryStream() {
+	return StreamSupport.stream(this.obj2mult.entrySet().spliterator(),
+				    false);
+    }
+
     /**
      * Returns an array containing all of the elements 
      * in this <code>MultiSet</code> exactly once, ignoring its multiplicity. 
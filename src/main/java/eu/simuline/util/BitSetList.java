@@ -3,6 +3,9 @@ package eu.simuline.util;
 import java.util.AbstractList;
 import java.util.Collection;
 import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
 
 /**
  * Implements a list of integers <code>0</code> and <code>1</code> 
@@ -11,6 +14,16 @@ import java.util.BitSet;
  * Implementational note: <code>E</code> extends <code>Integer</code> 
  * which in turn is final. 
  * This means <code>E</code> is nothing but <code>Integer</code>. 
+ * <p>
+ * Besides the methods of {@link java.util.List} 
+ * which box each bit into an <code>Integer</code>, 
+ * this class offers primitive access to single bits, 
+ * e.g. {@link #getBit(int)} and {@link #bitIterator()}, 
+ * and bulk operations working on runs of equal bits 
+ * of the underlying {@link BitSet} rather than on single bits, 
+ * e.g. {@link #getBits(int, int)}, {@link #addBits(long, int)}, 
+ * {@link #appendAll(BitSetList)} and {@link #and(BitSetList, int, int)}. 
+ * Bits beyond {@link #size()} are always cleared. 
  *
  *
  * Created: Mon May 29 19:37:38 2006
@@ -21,6 +34,16 @@ import java.util.BitSet;
 public final class BitSetList extends AbstractList<Integer> 
     implements Cloneable {
 
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The number of words {@link #bitIterator()} copies at once 
+     * from the underlying {@link BitSet}. 
+     */
+    private static final int ITER_BLOCK_WORDS = 64;
+
     /* -------------------------------------------------------------------- *
      * fields.                                                              *
      * -------------------------------------------------------------------- */
@@ -139,6 +162,362 @@ public final class BitSetList extends AbstractList<Integer>
 	this.wrapped.set(index);
     }
 
+    /* -------------------------------------------------------------------- *
+     * methods: primitive and bulk access                                   *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Checks that <code>bit</code> is <code>0</code> or <code>1</code>. 
+     *
+     * @throws IllegalArgumentException 
+     *    if <code>bit</code> is neither <code>0</code> nor <code>1</code>. 
+     */
+    private static boolean checkBit(int bit) {
+	if (bit != 0 && bit != 1) {
+	    throw new IllegalArgumentException
+		("Expected bit 0 or 1; found " + bit + ". ");
+	}
+	return bit == 1;
+    }
+
+    /**
+     * Checks that <code>0 &lt;= fromIndex &lt;= toIndex &lt;= size</code>. 
+     *
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within <code>0</code> and <code>size</code>. 
+     */
+    private static void checkRange(int fromIndex, int toIndex, int size) {
+	if (fromIndex < 0 || fromIndex > toIndex || toIndex > size) {
+	    throw new IndexOutOfBoundsException
+		("Range [" + fromIndex + ", " + toIndex + 
+		 ") not within size " + size + ". ");
+	}
+    }
+
+    /**
+     * Replaces the bits starting at <code>index</code> 
+     * by the first <code>nBits</code> bits of <code>bits</code> 
+     * which may not be {@link #wrapped}. 
+     * This works on runs of ones rather than on single bits. 
+     */
+    private void putBits(int index, BitSet bits, int nBits) {
+	this.wrapped.clear(index, index + nBits);
+	int lo = bits.nextSetBit(0);
+	int hi;
+	while (lo >= 0 && lo < nBits) {
+	    hi = Math.min(bits.nextClearBit(lo), nBits);
+	    this.wrapped.set(index + lo, index + hi);
+	    lo = bits.nextSetBit(hi);
+	}
+    }
+
+    /**
+     * Returns the bit at position <code>index</code> 
+     * like {@link #get(int)} but without boxing. 
+     *
+     * @param index 
+     *    an index in <code>[0, size())</code>. 
+     * @return 
+     *    the bit at <code>index</code>, 
+     *    either <code>0</code> or <code>1</code>. 
+     * @throws IndexOutOfBoundsException 
+     *    if <code>index</code> is out of range. 
+     */
+    public int getBit(int index) {
+	if (index < 0 || index >= size()) {
+	    throw new IndexOutOfBoundsException();
+	}
+	return this.wrapped.get(index) ? 1 : 0;
+    }
+
+    /**
+     * Returns <code>nBits</code> bits starting at <code>index</code> 
+     * as a word: the bit at <code>index + i</code> 
+     * is bit <code>i</code> of the result 
+     * and the bits from <code>nBits</code> on are cleared. 
+     *
+     * @param index 
+     *    the index of the first bit to be read. 
+     * @param nBits 
+     *    the number of bits to be read between <code>0</code> and 64. 
+     * @return 
+     *    the bits read as a word. 
+     * @throws IllegalArgumentException 
+     *    if <code>nBits</code> is not in <code>[0, 64]</code>. 
+     * @throws IndexOutOfBoundsException 
+     *    if the bits to be read are not within this list. 
+     */
+    // BitSet does not expose its words without copying them; 
+    // so the runs of ones are read without allocating anything. 
+    public long getBits(int index, int nBits) {
+	if (nBits < 0 || nBits > Long.SIZE) {
+	    throw new IllegalArgumentException
+		("Expected between 0 and 64 bits; found " + nBits + ". ");
+	}
+	checkRange(index, index + nBits, size());
+	int end = index + nBits;
+	long word = 0L;
+	int lo = this.wrapped.nextSetBit(index);
+	int hi;
+	while (lo >= 0 && lo < end) {
+	    hi = Math.min(this.wrapped.nextClearBit(lo), end) - index;
+	    // set the bits from lo - index to hi exclusively 
+	    word |= (hi == Long.SIZE ? -1L : (1L << hi) - 1)
+		& (-1L << (lo - index));
+	    lo = this.wrapped.nextSetBit(index + hi);
+	}
+	return word;
+    }
+
+    /**
+     * Sets the bit at position <code>index</code> 
+     * like {@link #set(int, Integer)} but without boxing. 
+     *
+     * @param index 
+     *    an index in <code>[0, size())</code>. 
+     * @param bit 
+     *    the new bit, either <code>0</code> or <code>1</code>. 
+     * @throws IndexOutOfBoundsException 
+     *    if <code>index</code> is out of range. 
+     * @throws IllegalArgumentException 
+     *    if <code>bit</code> is neither <code>0</code> nor <code>1</code>. 
+     */
+    public void setBit(int index, int bit) {
+	if (index < 0 || index >= size()) {
+	    throw new IndexOutOfBoundsException();
+	}
+	this.wrapped.set(index, checkBit(bit));
+    }
+
+    /**
+     * Sets all bits in the range 
+     * from <code>fromIndex</code> inclusively 
+     * to <code>toIndex</code> exclusively to <code>bit</code>. 
+     *
+     * @param fromIndex 
+     *    the first index of the range. 
+     * @param toIndex 
+     *    the index after the range. 
+     * @param bit 
+     *    the new bit, either <code>0</code> or <code>1</code>. 
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list. 
+     * @throws IllegalArgumentException 
+     *    if <code>bit</code> is neither <code>0</code> nor <code>1</code>. 
+     */
+    public void setBits(int fromIndex, int toIndex, int bit) {
+	checkRange(fromIndex, toIndex, size());
+	this.wrapped.set(fromIndex, toIndex, checkBit(bit));
+    }
+
+    /**
+     * Appends the lowest <code>nBits</code> bits of <code>word</code>, 
+     * bit <code>0</code> first. 
+     * The other bits of <code>word</code> are ignored. 
+     *
+     * @param word 
+     *    the bits to be appended. 
+     * @param nBits 
+     *    the number of bits to be appended between <code>0</code> and 64. 
+     * @throws IllegalArgumentException 
+     *    if <code>nBits</code> is not in <code>[0, 64]</code>. 
+     */
+    public void addBits(long word, int nBits) {
+	if (nBits < 0 || nBits > Long.SIZE) {
+	    throw new IllegalArgumentException
+		("Expected between 0 and 64 bits; found " + nBits + ". ");
+	}
+	long rest = nBits == Long.SIZE ? word : word & ((1L << nBits) - 1);
+	int lo;
+	int hi;
+	// set the runs of ones 
+	while (rest != 0) {
+	    lo = Long.numberOfTrailingZeros(rest);
+	    hi = lo + Long.numberOfTrailingZeros(~(rest >>> lo));
+	    this.wrapped.set(this.size + lo, this.size + hi);
+	    rest = hi == Long.SIZE ? 0 : rest & (-1L << hi);
+	}
+	this.size += nBits;
+	this.modCount++;
+    }
+
+    /**
+     * Appends all bits of <code>other</code> 
+     * which may also be this list. 
+     *
+     * @param other 
+     *    the list of bits to be appended. 
+     */
+    public void appendAll(BitSetList other) {
+	int nBits = other.size;
+	BitSet bits = other == this
+	    ? this.wrapped.get(0, nBits) : other.wrapped;
+	putBits(this.size, bits, nBits);
+	this.size += nBits;
+	this.modCount++;
+    }
+
+    /**
+     * Returns a copy of the bits of <code>other</code> 
+     * in the range from <code>fromIndex</code> to <code>toIndex</code> 
+     * shifted by <code>fromIndex</code>, 
+     * i.e. the bit at <code>fromIndex + i</code> is bit <code>i</code>. 
+     * Copying first allows <code>other</code> to be this list. 
+     *
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list and <code>other</code>. 
+     */
+    private BitSet rangeOf(BitSetList other, int fromIndex, int toIndex) {
+	checkRange(fromIndex, toIndex, Math.min(size(), other.size()));
+	return other.wrapped.get(fromIndex, toIndex);
+    }
+
+    /**
+     * Replaces each bit of this list in the given range 
+     * by the conjunction with the bit of <code>other</code> 
+     * at the same index. 
+     *
+     * @param other 
+     *    another list of bits which may also be this one. 
+     * @param fromIndex 
+     *    the first index of the range. 
+     * @param toIndex 
+     *    the index after the range. 
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list and <code>other</code>. 
+     */
+    public void and(BitSetList other, int fromIndex, int toIndex) {
+	BitSet bits = rangeOf(other, fromIndex, toIndex);
+	int nBits = toIndex - fromIndex;
+	int lo = bits.nextClearBit(0);
+	int hi;
+	// clear the runs of zeros of other 
+	while (lo < nBits) {
+	    hi = bits.nextSetBit(lo);
+	    hi = hi < 0 ? nBits : hi;
+	    this.wrapped.clear(fromIndex + lo, fromIndex + hi);
+	    lo = bits.nextClearBit(hi);
+	}
+    }
+
+    /**
+     * Replaces each bit of this list in the given range 
+     * by the disjunction with the bit of <code>other</code> 
+     * at the same index. 
+     *
+     * @param other 
+     *    another list of bits which may also be this one. 
+     * @param fromIndex 
+     *    the first index of the range. 
+     * @param toIndex 
+     *    the index after the range. 
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list and <code>other</code>. 
+     */
+    public void or(BitSetList other, int fromIndex, int toIndex) {
+	BitSet bits = rangeOf(other, fromIndex, toIndex);
+	int lo = bits.nextSetBit(0);
+	int hi;
+	// set the runs of ones of other 
+	while (lo >= 0) {
+	    hi = bits.nextClearBit(lo);
+	    this.wrapped.set(fromIndex + lo, fromIndex + hi);
+	    lo = bits.nextSetBit(hi);
+	}
+    }
+
+    /**
+     * Replaces each bit of this list in the given range 
+     * by the exclusive disjunction with the bit of <code>other</code> 
+     * at the same index. 
+     *
+     * @param other 
+     *    another list of bits which may also be this one. 
+     * @param fromIndex 
+     *    the first index of the range. 
+     * @param toIndex 
+     *    the index after the range. 
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list and <code>other</code>. 
+     */
+    public void xor(BitSetList other, int fromIndex, int toIndex) {
+	BitSet bits = rangeOf(other, fromIndex, toIndex);
+	int lo = bits.nextSetBit(0);
+	int hi;
+	// flip the runs of ones of other 
+	while (lo >= 0) {
+	    hi = bits.nextClearBit(lo);
+	    this.wrapped.flip(fromIndex + lo, fromIndex + hi);
+	    lo = bits.nextSetBit(hi);
+	}
+    }
+
+    /**
+     * Flips each bit of this list in the given range. 
+     *
+     * @param fromIndex 
+     *    the first index of the range. 
+     * @param toIndex 
+     *    the index after the range. 
+     * @throws IndexOutOfBoundsException 
+     *    if the range is not within this list. 
+     */
+    public void not(int fromIndex, int toIndex) {
+	checkRange(fromIndex, toIndex, size());
+	this.wrapped.flip(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns an iterator over the bits of this list without boxing 
+     * which copies the words of the underlying {@link BitSet} 
+     * {@link #ITER_BLOCK_WORDS} at a time 
+     * and reads the bits from these words. 
+     * Thus bits changed by {@link #setBit(int, int)} and alike 
+     * during iteration may be returned with their old value. 
+     * The iterator does not support removal 
+     * and is fail-fast for structural modifications. 
+     *
+     * @return 
+     *    an iterator returning the bits of this list via 
+     *    {@link PrimitiveIterator.OfInt#nextInt()}. 
+     */
+    public PrimitiveIterator.OfInt bitIterator() {
+	return new PrimitiveIterator.OfInt() {
+	    private final int expModCount = BitSetList.this.modCount;
+	    private int index = 0;
+	    private long[] words;
+	    private long word;
+
+	    public boolean hasNext() {
+		return this.index < size();
+	    }
+
+	    public int nextInt() {
+		if (this.expModCount != BitSetList.this.modCount) {
+		    throw new ConcurrentModificationException();
+		}
+		if (!hasNext()) {
+		    throw new NoSuchElementException();
+		}
+		int blockIdx = this.index % (ITER_BLOCK_WORDS * Long.SIZE);
+		if (blockIdx == 0) {
+		    // trailing words which are zero are omitted 
+		    this.words = BitSetList.this.wrapped
+			.get(this.index,
+			     Math.min(this.index + ITER_BLOCK_WORDS * Long.SIZE,
+				      size()))
+			.toLongArray();
+		}
+		if ((this.index % Long.SIZE) == 0) {
+		    int wordIdx = blockIdx / Long.SIZE;
+		    this.word = wordIdx < this.words.length
+			? this.words[wordIdx] : 0L;
+		}
+		return (int) (this.word >>> (this.index++ % Long.SIZE)) & 1;
+	    }
+	};
+    }
+
 /*
     public Integer set(int index) {
 	Integer ret = getW(index);
@@ -206,9 +585,10 @@ public final class BitSetList extends AbstractList<Integer>
     @SuppressWarnings("checkstyle:magicnumber")
     public int hashCode() {
 	int hashCode = 1;
-	for (Integer cand : this) {
+	PrimitiveIterator.OfInt iter = bitIterator();
+	while (iter.hasNext()) {
 	    // hashCode = 31*hashCode + (e==null ? 0 : e.hashCode());
-	    hashCode = 31 * hashCode + cand;
+	    hashCode = 31 * hashCode + iter.nextInt();
 	}
 	return hashCode;
     }
@@ -306,16 +686,13 @@ public final class BitSetList extends AbstractList<Integer>
 	    default:
 		throw new IllegalArgumentException();
 	}
-	this.size++;
-
 //  	this.test.add(index,integer);
 
-	// **** not quite optimal ****
-	for (int i = size(); i > index; i--) {
-	    this.wrapped.set(i, this.wrapped.get(i - 1));
-	}
-
+	// shift the tail by one 
+	putBits(index + 1, this.wrapped.get(index, size()), size() - index);
 	this.wrapped.set(index, int2bool(integer));
+	this.size++;
+	this.modCount++;
 
 // 	assert this.test.equals(this);
     }
@@ -327,6 +704,7 @@ public final class BitSetList extends AbstractList<Integer>
     public void clear() {
 	this.wrapped.clear();
 	this.size = 0;
+	this.modCount++;
 
 // 	this.test.clear();
 // 	assert this.test.equals(this);
@@ -423,11 +801,8 @@ public final class BitSetList extends AbstractList<Integer>
      */
     public Integer get(final int index) {
 // 	assert this.test.size() == this.size;
-	if (index < 0 || index >= size()) {
-	    throw new IndexOutOfBoundsException();
-	}
-
-	int ret = bool2int(this.wrapped.get(index));
+	// may throw IndexOutOfBoundsException 
+	int ret = getBit(index);
 /*
 System.out.println("this.test"+this.test);
 System.out.println("this"+this.wrapped);
@@ -538,13 +913,11 @@ System.out.println("ret"+ret);
 	    throw new IndexOutOfBoundsException();
 	}
 	Integer ret = bool2int(this.wrapped.get(index));
-	// **** not quite optimal ****
-	for (int i = index; i < size() - 1; i++) {
-	    this.wrapped.set(i, this.wrapped.get(i + 1));
-	}
-
-//	this.wrapped.clear(this.wrapped.length()-1);
+	// shift the tail by one and clear the bit no longer used 
+	putBits(index, this.wrapped.get(index + 1, size()), size() - index - 1);
+	this.wrapped.clear(size() - 1);
 	this.size--;
+	this.modCount++;
 
 // 	this.test.remove(index);
 // 	assert this.test.equals(this);
@@ -0,0 +1,392 @@
+
+package eu.simuline.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list stored in a B+-tree of small arrays 
+ * intended as storage for large {@link ListSet}s 
+ * with insertions and removals at arbitrary positions. 
+ * The leaves of the tree hold up to {@link #CAPACITY} elements each 
+ * and each inner node holds up to {@link #CAPACITY} children 
+ * together with the number of elements in its subtree. 
+ * Thus <code>get</code>, <code>set</code>, <code>add</code> 
+ * and <code>remove</code> run in logarithmic time, 
+ * whereas for an {@link java.util.ArrayList} 
+ * adding and removing at arbitrary positions requires linear time. 
+ * This class permits all elements including <code>null</code>. 
+ * <p>
+ * Nodes are split if they overflow 
+ * and merged with a neighbor if they get small, 
+ * but only if the result fits into a single node. 
+ * All leaves have the same depth. 
+ * <p>
+ * Sublists, iterators and the like are inherited from {@link AbstractList} 
+ * and are based on positional access. 
+ * Like these, this implementation is not synchronized. 
+ *
+ * @param <E>
+ *    the class of the elements of this list. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class ChunkedList<E> extends AbstractList<E>
+    implements RandomAccess {
+
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * A node of the tree. 
+     */
+    private abstract static class Node {
+
+	/**
+	 * The number of elements in the subtree given by this node. 
+	 */
+	int size;
+
+	/**
+	 * Returns whether this node is so small 
+	 * that it shall be merged with a neighbor. 
+	 */
+	abstract boolean isSmall();
+    } // class Node 
+
+    /**
+     * A leaf of the tree 
+     * holding the elements <code>elems[0], ..., elems[size - 1]</code>. 
+     */
+    private static final class Leaf extends Node {
+
+	/**
+	 * The elements of this leaf 
+	 * with <code>null</code> beyond {@link #size}. 
+	 */
+	final Object[] elems = new Object[CAPACITY];
+
+	boolean isSmall() {
+	    return this.size < CAPACITY / 4;
+	}
+    } // class Leaf 
+
+    /**
+     * An inner node of the tree 
+     * with children <code>children[0], ..., children[numChildren - 1]</code> 
+     * all of which have the same depth. 
+     */
+    private static final class Inner extends Node {
+
+	/**
+	 * The children of this node 
+	 * with <code>null</code> beyond {@link #numChildren}. 
+	 */
+	final Node[] children = new Node[CAPACITY];
+
+	/**
+	 * The number of children of this node. 
+	 */
+	int numChildren;
+
+	boolean isSmall() {
+	    return this.numChildren < CAPACITY / 4;
+	}
+
+	/**
+	 * Sets {@link #size} to the sum of the sizes of the children. 
+	 */
+	void updateSize() {
+	    this.size = 0;
+	    for (int i = 0; i < this.numChildren; i++) {
+		this.size += this.children[i].size;
+	    }
+	}
+    } // class Inner 
+
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The maximal number of elements of a leaf 
+     * and the maximal number of children of an inner node. 
+     */
+    private static final int CAPACITY = 64;
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The root of the tree which is a leaf for small lists. 
+     */
+    private Node root;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates an empty list. 
+     */
+    public ChunkedList() {
+	this.root = new Leaf();
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    private void checkIndex(int idx, int sup) {
+	if (idx < 0 || idx >= sup) {
+	    throw new IndexOutOfBoundsException
+		("Index " + idx + " not within size " + size() + ". ");
+	}
+    }
+
+    /**
+     * Returns the index of the child of <code>node</code> 
+     * containing the element with index <code>idx[0]</code> 
+     * and replaces <code>idx[0]</code> by the index within that child. 
+     * If <code>isInsert</code> is set, 
+     * an index at the end of a child refers to that child. 
+     */
+    private static int findChild(Inner node, int[] idx, boolean isInsert) {
+	int last = node.numChildren - 1;
+	int childSize;
+	for (int ci = 0; ci < last; ci++) {
+	    childSize = node.children[ci].size;
+	    if (idx[0] < childSize || (isInsert && idx[0] == childSize)) {
+		return ci;
+	    }
+	    idx[0] -= childSize;
+	}
+	return last;
+    }
+
+    /**
+     * Returns the leaf containing the element with index <code>idx[0]</code> 
+     * and replaces <code>idx[0]</code> by the index within that leaf. 
+     */
+    private Leaf findLeaf(int[] idx) {
+	Node node = this.root;
+	while (node instanceof Inner) {
+	    Inner inner = (Inner) node;
+	    node = inner.children[findChild(inner, idx, false)];
+	}
+	return (Leaf) node;
+    }
+
+    public int size() {
+	return this.root.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int idx) {
+	checkIndex(idx, size());
+	int[] rel = {idx};
+	return (E) findLeaf(rel).elems[rel[0]];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E set(int idx, E elem) {
+	checkIndex(idx, size());
+	int[] rel = {idx};
+	Leaf leaf = findLeaf(rel);
+	E res = (E) leaf.elems[rel[0]];
+	leaf.elems[rel[0]] = elem;
+	return res;
+    }
+
+    public void add(int idx, E elem) {
+	checkIndex(idx, size() + 1);
+	Node split = insert(this.root, idx, elem);
+	if (split != null) {
+	    // the tree grows by one level 
+	    Inner newRoot = new Inner();
+	    newRoot.children[0] = this.root;
+	    newRoot.children[1] = split;
+	    newRoot.numChildren = 2;
+	    newRoot.updateSize();
+	    this.root = newRoot;
+	}
+	this.modCount++;
+    }
+
+    /**
+     * Inserts <code>elem</code> at index <code>idx</code> 
+     * into the subtree given by <code>node</code> 
+     * and returns the new right neighbor of <code>node</code> 
+     * if <code>node</code> had to be split 
+     * and <code>null</code> otherwise. 
+     */
+    private static Node insert(Node node, int idx, Object elem) {
+	if (node instanceof Leaf) {
+	    Leaf leaf = (Leaf) node;
+	    if (leaf.size < CAPACITY) {
+		insertElem(leaf, idx, elem);
+		return null;
+	    }
+	    // split leaf 
+	    Leaf right = new Leaf();
+	    int half = CAPACITY / 2;
+	    System.arraycopy(leaf.elems, half, right.elems, 0, CAPACITY - half);
+	    Arrays.fill(leaf.elems, half, CAPACITY, null);
+	    right.size = CAPACITY - half;
+	    leaf.size = half;
+	    if (idx <= half) {
+		insertElem(leaf, idx, elem);
+	    } else {
+		insertElem(right, idx - half, elem);
+	    }
+	    return right;
+	}
+
+	Inner inner = (Inner) node;
+	int[] rel = {idx};
+	int ci = findChild(inner, rel, true);
+	Node split = insert(inner.children[ci], rel[0], elem);
+	if (split == null) {
+	    inner.size++;
+	    return null;
+	}
+	if (inner.numChildren < CAPACITY) {
+	    insertChild(inner, ci + 1, split);
+	    inner.size++;
+	    return null;
+	}
+	// split inner node 
+	Inner right = new Inner();
+	int half = CAPACITY / 2;
+	System.arraycopy(inner.children, half, right.children, 0,
+			 CAPACITY - half);
+	Arrays.fill(inner.children, half, CAPACITY, null);
+	right.numChildren = CAPACITY - half;
+	inner.numChildren = half;
+	if (ci < half) {
+	    insertChild(inner, ci + 1, split);
+	} else {
+	    insertChild(right, ci + 1 - half, split);
+	}
+	inner.updateSize();
+	right.updateSize();
+	return right;
+    }
+
+    /**
+     * Inserts <code>elem</code> into <code>leaf</code> 
+     * which is not full. 
+     */
+    private static void insertElem(Leaf leaf, int idx, Object elem) {
+	System.arraycopy(leaf.elems, idx, leaf.elems, idx + 1, leaf.size - idx);
+	leaf.elems[idx] = elem;
+	leaf.size++;
+    }
+
+    /**
+     * Inserts <code>child</code> into <code>inner</code> 
+     * which has less than {@link #CAPACITY} children 
+     * without updating the size of <code>inner</code>. 
+     */
+    private static void insertChild(Inner inner, int ci, Node child) {
+	System.arraycopy(inner.children, ci, inner.children, ci + 1,
+			 inner.numChildren - ci);
+	inner.children[ci] = child;
+	inner.numChildren++;
+    }
+
+    /**
+     * Removes the child with index <code>ci</code> from <code>inner</code> 
+     * without updating the size of <code>inner</code>. 
+     */
+    private static void removeChild(Inner inner, int ci) {
+	inner.numChildren--;
+	System.arraycopy(inner.children, ci + 1, inner.children, ci,
+			 inner.numChildren - ci);
+	inner.children[inner.numChildren] = null;
+    }
+
+    public E remove(int idx) {
+	checkIndex(idx, size());
+	E res = remove(this.root, idx);
+	// the tree shrinks if the root has a single child 
+	while (this.root instanceof Inner
+	       && ((Inner) this.root).numChildren <= 1) {
+	    Inner inner = (Inner) this.root;
+	    this.root = inner.numChildren == 0 ? new Leaf() : inner.children[0];
+	}
+	this.modCount++;
+	return res;
+    }
+
+    /**
+     * Removes the element at index <code>idx</code> 
+     * from the subtree given by <code>node</code> and returns it. 
+     * If a child of <code>node</code> gets empty it is removed, 
+     * and if it gets small it is merged with a neighbor if possible. 
+     */
+    @SuppressWarnings("unchecked")
+    private E remove(Node node, int idx) {
+	node.size--;
+	if (node instanceof Leaf) {
+	    Leaf leaf = (Leaf) node;
+	    E res = (E) leaf.elems[idx];
+	    System.arraycopy(leaf.elems, idx + 1, leaf.elems, idx,
+			     leaf.size - idx);
+	    leaf.elems[leaf.size] = null;
+	    return res;
+	}
+
+	Inner inner = (Inner) node;
+	int[] rel = {idx};
+	int ci = findChild(inner, rel, false);
+	Node child = inner.children[ci];
+	E res = remove(child, rel[0]);
+	if (child.size == 0) {
+	    removeChild(inner, ci);
+	} else if (child.isSmall() && inner.numChildren > 1) {
+	    merge(inner, ci == inner.numChildren - 1 ? ci - 1 : ci);
+	}
+	return res;
+    }
+
+    /**
+     * Merges the children of <code>inner</code> 
+     * with indices <code>ci</code> and <code>ci + 1</code> 
+     * if the result fits into a single node. 
+     */
+    private static void merge(Inner inner, int ci) {
+	Node left  = inner.children[ci];
+	Node right = inner.children[ci + 1];
+	if (left instanceof Leaf) {
+	    Leaf lLeaf = (Leaf) left;
+	    Leaf rLeaf = (Leaf) right;
+	    if (lLeaf.size + rLeaf.size > CAPACITY) {
+		return;
+	    }
+	    System.arraycopy(rLeaf.elems, 0, lLeaf.elems, lLeaf.size,
+			     rLeaf.size);
+	} else {
+	    Inner lInner = (Inner) left;
+	    Inner rInner = (Inner) right;
+	    if (lInner.numChildren + rInner.numChildren > CAPACITY) {
+		return;
+	    }
+	    System.arraycopy(rInner.children, 0,
+			     lInner.children, lInner.numChildren,
+			     rInner.numChildren);
+	    lInner.numChildren += rInner.numChildren;
+	}
+	left.size += right.size;
+	removeChild(inner, ci + 1);
+    }
+
+    public void clear() {
+	this.root = new Leaf();
+	this.modCount++;
+    }
+}
@@ -4,7 +4,7 @@ import java.lang.reflect.Array;
 
 import java.util.List;
 import java.util.Iterator;
-import java.util.Spliterator; // for javadoc only 
+import java.util.Spliterator;
 import java.util.ListIterator;
 import java.util.Collections;
 import java.util.Collection;
@@ -16,12 +16,16 @@ import java.util.Comparator;
 import java.util.WeakHashMap;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.AbstractMap;
+import java.util.Objects;
 
-import java.util.stream.Stream; // for javadoc only 
+import java.util.stream.Stream;
 
 import java.util.function.Predicate;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
 import java.util.NavigableMap;
 
 /**
@@ -36,6 +40,11 @@ import java.util.NavigableMap;
  * Finally, there are methods {@link #getUnique(Collection)} 
  * to retrieve the unique element and {@link #reverse(List)}
  * reverses a list. 
+ * <p>
+ * For multi-sets, there are the operations 
+ * {@link #sum(MultiSet, MultiSet)}, {@link #union(MultiSet, MultiSet)}, 
+ * {@link #intersection(MultiSet, MultiSet)} 
+ * and {@link #difference(MultiSet, MultiSet)}. 
  *
  * @param <E>
  *    the class of the elements of collections under consideration. 
@@ -1116,6 +1125,10 @@ public abstract class CollectionsExt<E> {
 	    return new NonModifyingCyclicIterator<E>(tbWrapped);
 	}
 
+	public void forEachFrom(int index, Consumer<? super E> action) {
+	    this.wrapped.forEachFrom(index, action);
+	}
+
 	public Object[] toArray(int index) {
 	    throw new NotYetImplementedException();
 	}
@@ -1395,6 +1408,10 @@ public abstract class CollectionsExt<E> {
 	    return unrestricted().getMaxMult();
 	}
 
+	public List<E> topK(int k) {
+	    return unrestricted().topK(k);
+	}
+
 	public int getMultiplicity(Object obj) {
 	    return unrestricted().getMultiplicity(obj);
 	}
@@ -1419,6 +1436,30 @@ public abstract class CollectionsExt<E> {
 	    return new ImmutableMultiplicity(res0, this.allowedModifications());
 	}
 
+	public Spliterator<E> spliterator() {
+	    // spliterators cannot modify the underlying multi-set 
+	    return unrestricted().spliterator();
+	}
+
+	public Stream<E> stream() {
+	    return unrestricted().stream();
+	}
+
+	public Stream<Map.Entry<E, Multiplicity>> entryStream() {
+	    return unrestricted().entryStream()
+		.map(new Function<Map.Entry<E, Multiplicity>,
+		     Map.Entry<E, Multiplicity>>() {
+			public Map.Entry<E, Multiplicity>
+			    apply(Map.Entry<E, Multiplicity> entry) {
+			    return new AbstractMap.SimpleImmutableEntry
+				<E, Multiplicity>
+				(entry.getKey(),
+				 new ImmutableMultiplicity
+				 (entry.getValue(), allowedModifications()));
+			}
+		    });
+	}
+
 	public MultiSetIterator<E> iterator() {
 	    return new MultiSetIterator<E>() {
 		private MultiSetIterator<E> wrapped = 
@@ -1793,7 +1834,60 @@ public abstract class CollectionsExt<E> {
      * class fields.                                                        *
      * -------------------------------------------------------------------- */
 
+    /**
+     * Multiplicity of an element in the sum of two multi-sets 
+     * given its multiplicities in the summands. 
+     *
+     * @see #sum(MultiSet, MultiSet) 
+     */
+    private static final IntBinaryOperator SUM = new IntBinaryOperator() {
+	    public int applyAsInt(int mult1, int mult2) {
+		int res = mult1 + mult2;
+		if (res < 0) {
+		    throw new IllegalArgumentException
+			("Resulting multiplicity " + 
+			 mult1 + " + " + mult2 + 
+			 " should be non-negative. ");
+		}
+		return res;
+	    }
+	};
 
+    /**
+     * Multiplicity of an element in the union of two multi-sets. 
+     *
+     * @see #union(MultiSet, MultiSet) 
+     */
+    private static final IntBinaryOperator UNION = new IntBinaryOperator() {
+	    public int applyAsInt(int mult1, int mult2) {
+		return Math.max(mult1, mult2);
+	    }
+	};
+
+    /**
+     * Multiplicity of an element in the intersection of two multi-sets. 
+     *
+     * @see #intersection(MultiSet, MultiSet) 
+     */
+    private static final IntBinaryOperator INTERSECTION =
+	new IntBinaryOperator() {
+	    public int applyAsInt(int mult1, int mult2) {
+		return Math.min(mult1, mult2);
+	    }
+	};
+
+    /**
+     * Multiplicity of an element in the difference of two multi-sets 
+     * which may be negative, signifying that it is not in the difference. 
+     *
+     * @see #difference(MultiSet, MultiSet) 
+     */
+    private static final IntBinaryOperator DIFFERENCE =
+	new IntBinaryOperator() {
+	    public int applyAsInt(int mult1, int mult2) {
+		return mult1 - mult2;
+	    }
+	};
 
     /* -------------------------------------------------------------------- *
      * class methods.                                                       *
@@ -1863,6 +1957,178 @@ public abstract class CollectionsExt<E> {
 
 
 
+    /**
+     * Returns whether <code>ms1</code> and <code>ms2</code> 
+     * are both {@link TreeMultiSet}s with the same comparator 
+     * and can thus be merged 
+     * by {@link TreeMultiSet#merge(TreeMultiSet, TreeMultiSet, 
+     *IntBinaryOperator)}.
+     */
+    private static boolean isMergeable(MultiSet<?> ms1, MultiSet<?> ms2) {
+	return ms1 instanceof TreeMultiSet
+	    && ms2 instanceof TreeMultiSet
+	    && Objects.equals(((TreeMultiSet<?>) ms1).comparator(),
+			      ((TreeMultiSet<?>) ms2).comparator());
+    }
+
+    /**
+     * Returns the sum of the given multi-sets: 
+     * the multiplicity of each element is the sum of its multiplicities 
+     * in <code>ms1</code> and in <code>ms2</code>. 
+     * If both are {@link TreeMultiSet}s with the same comparator, 
+     * they are merged in linear time and the result is a 
+     * {@link TreeMultiSet} with that comparator; 
+     * otherwise the result is a {@link HashMultiSet} 
+     * sized in advance to avoid rehashing. 
+     * The arguments are not modified. 
+     *
+     * @param ms1 
+     *    a multi-set. 
+     * @param ms2 
+     *    another multi-set. 
+     * @return 
+     *    a new multi-set 
+     *    which is the sum of <code>ms1</code> and <code>ms2</code>. 
+     * @throws IllegalArgumentException 
+     *    if a multiplicity would overflow. 
+     */
+    public static <E> MultiSet<E> sum(MultiSet<E> ms1, MultiSet<E> ms2) {
+	if (isMergeable(ms1, ms2)) {
+	    return TreeMultiSet.merge((TreeMultiSet<E>) ms1,
+				      (TreeMultiSet<E>) ms2, SUM);
+	}
+	MultiSet<E> small = ms1.size() <= ms2.size() ? ms1 : ms2;
+	MultiSet<E> large = small == ms1 ? ms2 : ms1;
+	MultiSet<E> res = new HashMultiSet<E>(ms1.size() + ms2.size());
+	res.addAll(large);
+	res.addAll(small);
+	return res;
+    }
+
+    /**
+     * Returns the union of the given multi-sets: 
+     * the multiplicity of each element is the maximum of its multiplicities 
+     * in <code>ms1</code> and in <code>ms2</code>. 
+     * Only the smaller one is traversed after copying the larger one. 
+     * For the kind of the result see {@link #sum(MultiSet, MultiSet)}. 
+     *
+     * @param ms1 
+     *    a multi-set. 
+     * @param ms2 
+     *    another multi-set. 
+     * @return 
+     *    a new multi-set 
+     *    which is the union of <code>ms1</code> and <code>ms2</code>. 
+     */
+    public static <E> MultiSet<E> union(MultiSet<E> ms1, MultiSet<E> ms2) {
+	if (isMergeable(ms1, ms2)) {
+	    return TreeMultiSet.merge((TreeMultiSet<E>) ms1,
+				      (TreeMultiSet<E>) ms2, UNION);
+	}
+	MultiSet<E> small = ms1.size() <= ms2.size() ? ms1 : ms2;
+	MultiSet<E> large = small == ms1 ? ms2 : ms1;
+	MultiSet<E> res = new HashMultiSet<E>(ms1.size() + ms2.size());
+	res.addAll(large);
+	MultiSetIterator<E> iter = small.iterator();
+	E elem;
+	int mult;
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    mult = iter.getMult();
+	    if (large.getMultiplicity(elem) < mult) {
+		res.setMultiplicity(elem, mult);
+	    }
+	}
+	return res;
+    }
+
+    /**
+     * Returns the intersection of the given multi-sets: 
+     * the multiplicity of each element is the minimum of its multiplicities 
+     * in <code>ms1</code> and in <code>ms2</code>. 
+     * Only the smaller one is traversed 
+     * looking up the multiplicities in the larger one, 
+     * except for {@link TreeMultiSet}s with the same comparator 
+     * of similar size, which are merged in linear time. 
+     * For the kind of the result see {@link #sum(MultiSet, MultiSet)}. 
+     *
+     * @param ms1 
+     *    a multi-set. 
+     * @param ms2 
+     *    another multi-set. 
+     * @return 
+     *    a new multi-set 
+     *    which is the intersection of <code>ms1</code> and <code>ms2</code>. 
+     */
+    public static <E> MultiSet<E> intersection(MultiSet<E> ms1,
+					       MultiSet<E> ms2) {
+	MultiSet<E> small = ms1.size() <= ms2.size() ? ms1 : ms2;
+	MultiSet<E> large = small == ms1 ? ms2 : ms1;
+	boolean isMergeable = isMergeable(ms1, ms2);
+	if (isMergeable) {
+	    // merging costs ms1.size()+ms2.size(), 
+	    // lookups cost small.size()*log(large.size()) 
+	    int logLarge = 32 - Integer.numberOfLeadingZeros(large.size());
+	    if ((long) small.size() * logLarge >= ms1.size() + ms2.size()) {
+		return TreeMultiSet.merge((TreeMultiSet<E>) ms1,
+					  (TreeMultiSet<E>) ms2, INTERSECTION);
+	    }
+	}
+	MultiSet<E> res = isMergeable
+	    ? new TreeMultiSet<E>(((TreeMultiSet<E>) small).comparator())
+	    : new HashMultiSet<E>(small.size());
+	MultiSetIterator<E> iter = small.iterator();
+	E elem;
+	int mult;
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    mult = Math.min(iter.getMult(), large.getMultiplicity(elem));
+	    if (mult != 0) {
+		res.addWithMult(elem, mult);
+	    }
+	}
+	return res;
+    }
+
+    /**
+     * Returns the difference of the given multi-sets: 
+     * the multiplicity of each element is its multiplicity 
+     * in <code>ms1</code> minus the one in <code>ms2</code> 
+     * if this is positive; otherwise the element is not contained. 
+     * Just <code>ms1</code> is traversed 
+     * looking up the multiplicities in <code>ms2</code>, 
+     * except for {@link TreeMultiSet}s with the same comparator, 
+     * which are merged in linear time. 
+     * For the kind of the result see {@link #sum(MultiSet, MultiSet)}. 
+     *
+     * @param ms1 
+     *    a multi-set. 
+     * @param ms2 
+     *    the multi-set to be subtracted from <code>ms1</code>. 
+     * @return 
+     *    a new multi-set 
+     *    which is the difference of <code>ms1</code> and <code>ms2</code>. 
+     */
+    public static <E> MultiSet<E> difference(MultiSet<E> ms1,
+					     MultiSet<E> ms2) {
+	if (isMergeable(ms1, ms2)) {
+	    return TreeMultiSet.merge((TreeMultiSet<E>) ms1,
+				      (TreeMultiSet<E>) ms2, DIFFERENCE);
+	}
+	MultiSet<E> res = new HashMultiSet<E>(ms1.size());
+	MultiSetIterator<E> iter = ms1.iterator();
+	E elem;
+	int mult;
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    mult = iter.getMult() - ms2.getMultiplicity(elem);
+	    if (mult > 0) {
+		res.addWithMult(elem, mult);
+	    }
+	}
+	return res;
+    }
+
     /**
      * Retuns a weak hash set, i.e. a hash set of weak references. 
      *
@@ -139,11 +139,11 @@ public abstract class Comparators<E> { // NOPMD
 		// If neither object is in seq, returns 0=-1-(-1) 
 		// If obj1 is in seq whereas obj2 is not, returns <0 
 		// If obj2 is in seq whereas obj1 is not, returns >0 
-		return this.seq.indexOf(obj2) - this.seq.indexOf(obj1);
+		return idx2 - idx1;
 	    } else {
 		// Here, both obj1 and obj2 are in seq. 
 		// Returns the signed difference of the indices. 
-		return this.seq.indexOf(obj1) - this.seq.indexOf(obj2);
+		return idx1 - idx2;
 	    }
 	}
     } // class AsListed<E> 
@@ -198,4 +198,16 @@ public abstract class Comparators<E> { // NOPMD
     public static <E> Comparator<E> getAsListed(List<E> seq) {
 	return new AsListed<E>(seq);
     }
+
+    /**
+     * Returns whether <code>cmp</code> 
+     * was created by {@link #getAsListed(List)}. 
+     * For such comparators, 
+     * the position of an element in the underlying list 
+     * is more easily found by {@link List#indexOf(Object)} 
+     * than by a binary search. 
+     */
+    static boolean isAsListed(Comparator<?> cmp) {
+	return cmp instanceof AsListed;
+    }
 } // Comparators
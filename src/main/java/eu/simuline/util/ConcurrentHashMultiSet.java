@@ -0,0 +1,1226 @@
+
+package eu.simuline.util;
+
+import eu.simuline.util.MultiSet.Multiplicity;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.Map;
+import java.util.AbstractSet;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Represents a set with multiplicities which is thread-safe 
+ * without locking the set as a whole. 
+ * The elements are the keys of a {@link ConcurrentHashMap} 
+ * mapping each element to an atomic counter. 
+ * Changing the multiplicity of an element already present 
+ * is a compare-and-set on its counter 
+ * and involves neither the map nor any lock; 
+ * adding a new element or removing one 
+ * locks a single bin of the map only. 
+ * <p>
+ * A counter which dropped to zero is dead: 
+ * it is never revived but replaced by a fresh one 
+ * if its element is added again. 
+ * So an increment can never get lost in a counter 
+ * which has just been removed from the map. 
+ * <p>
+ * The iterators and the views are weakly consistent 
+ * as the ones of {@link ConcurrentHashMap}: 
+ * they never throw a {@link java.util.ConcurrentModificationException} 
+ * and reflect the elements present at creation 
+ * and may or may not reflect later modifications. 
+ * Likewise, {@link #sizeWithMult()}, {@link #getMaxMult()}, 
+ * {@link #topK(int)}, {@link #equals(Object)} and so on 
+ * are not atomic snapshots under concurrent modification. 
+ * <p>
+ * If many threads count into this set, 
+ * each of them may collect its counts in a {@link Batch} first 
+ * which is not thread-safe and thus cheap, 
+ * and merge it into this set invoking {@link Batch#flush()}. 
+ * <p>
+ * Note that this kind of set does not support <code>null</code> elements. 
+ *
+ * @param <T>
+ *    the class of the elements of this multi-set. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class ConcurrentHashMultiSet<T> implements MultiSet<T> {
+
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The multiplicity of an element of a {@link ConcurrentHashMultiSet} 
+     * as an atomic counter. 
+     * The value <code>0</code> signifies a dead counter 
+     * which is no longer associated with its element. 
+     */
+    private static final class Counter implements Multiplicity {
+
+	/* ---------------------------------------------------------------- *
+	 * fields.                                                          *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * The wrapped multiplicity which is non-negative. 
+	 */
+	private final AtomicInteger mult;
+
+	/* ---------------------------------------------------------------- *
+	 * constructors.                                                    *
+	 * ---------------------------------------------------------------- */
+
+	Counter(int mult) {
+	    assert mult > 0;
+	    this.mult = new AtomicInteger(mult);
+	}
+
+	/* ---------------------------------------------------------------- *
+	 * methods.                                                         *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * Adds <code>mult</code> which may well be negative 
+	 * to the wrapped multiplicity if this counter is alive 
+	 * and returns the new multiplicity. 
+	 *
+	 * @return 
+	 *    the new multiplicity 
+	 *    or <code>0</code> if this counter is dead. 
+	 * @throws IllegalArgumentException 
+	 *    if the resulting multiplicity would not be strictly positive. 
+	 *    In particular, this is thrown on overflow. 
+	 */
+	int addIfAlive(int mult) {
+	    int oldMult;
+	    int newMult;
+	    do {
+		oldMult = this.mult.get();
+		if (oldMult == 0) {
+		    return 0;
+		}
+		newMult = oldMult + mult;
+		if (newMult <= 0) {
+		    throw new IllegalArgumentException
+			("Resulting multiplicity " + 
+			 oldMult + " + " + mult + 
+			 " should be non-negative. ");
+		}
+	    } while (!this.mult.compareAndSet(oldMult, newMult));
+	    return newMult;
+	}
+
+	/**
+	 * Sets the wrapped multiplicity to <code>mult</code> 
+	 * if this counter is alive and returns the old multiplicity. 
+	 *
+	 * @param mult 
+	 *    a strictly positive multiplicity. 
+	 * @return 
+	 *    the old multiplicity 
+	 *    or <code>0</code> if this counter is dead. 
+	 */
+	int setIfAlive(int mult) {
+	    assert mult > 0;
+	    int oldMult;
+	    do {
+		oldMult = this.mult.get();
+		if (oldMult == 0) {
+		    return 0;
+		}
+	    } while (!this.mult.compareAndSet(oldMult, mult));
+	    return oldMult;
+	}
+
+	/**
+	 * Subtracts <code>mult</code> from the wrapped multiplicity 
+	 * if this counter is alive and returns the old multiplicity. 
+	 * If the result is <code>0</code>, this counter is dead afterwards. 
+	 *
+	 * @param mult 
+	 *    a non-negative multiplicity. 
+	 * @return 
+	 *    the old multiplicity 
+	 *    or <code>0</code> if this counter is dead. 
+	 * @throws IllegalArgumentException 
+	 *    if <code>mult</code> exceeds the wrapped multiplicity. 
+	 */
+	int removeIfAlive(int mult) {
+	    assert mult >= 0;
+	    int oldMult;
+	    do {
+		oldMult = this.mult.get();
+		if (oldMult == 0) {
+		    return 0;
+		}
+		if (oldMult < mult) {
+		    throw new IllegalArgumentException
+			("Resulting multiplicity " + 
+			 oldMult + " - " + mult + 
+			 " should be non-negative. ");
+		}
+	    } while (!this.mult.compareAndSet(oldMult, oldMult - mult));
+	    return oldMult;
+	}
+
+	/**
+	 * Makes this counter dead and returns the old multiplicity 
+	 * which is <code>0</code> if it was dead already. 
+	 */
+	int kill() {
+	    return this.mult.getAndSet(0);
+	}
+
+	/**
+	 * Sets the wrapped multiplicity to the specified value. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    if <code>mult</code> is not strictly positive. 
+	 * @throws IllegalStateException 
+	 *    if the element has been removed from its multi-set. 
+	 */
+	public int set(int mult) {
+	    if (mult <= 0) {
+		throw new IllegalArgumentException
+		    ("Expected non-negative multiplicity; found " + 
+		     mult + ". ");
+	    }
+	    int oldMult = setIfAlive(mult);
+	    if (oldMult == 0) {
+		throw new IllegalStateException
+		    ("Element is no longer in this MultiSet. ");
+	    }
+	    return oldMult;
+	}
+
+	/**
+	 * Adds the specified multiplicity (which may well be negative) 
+	 * to the wrapped multiplicity. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    if the resulting multiplicity is not strictly positive. 
+	 * @throws IllegalStateException 
+	 *    if the element has been removed from its multi-set. 
+	 */
+	public int add(int mult) {
+	    int newMult = addIfAlive(mult);
+	    if (newMult == 0) {
+		throw new IllegalStateException
+		    ("Element is no longer in this MultiSet. ");
+	    }
+	    return newMult;
+	}
+
+	public int get() {
+	    return this.mult.get();
+	}
+
+	public int compareTo(Multiplicity mult) {
+	    return this.get() - mult.get();
+	}
+
+	public String toString() {
+	    return "Multiplicity " + get();
+	}
+
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Multiplicity)) {
+		return false;
+	    }
+	    return ((Multiplicity) obj).get() == this.get();
+	}
+
+	public int hashCode() {
+	    return get();
+	}
+    } // class Counter 
+
+    /**
+     * A weakly consistent iterator over the elements of the enclosing set 
+     * supporting all modifying methods. 
+     */
+    private final class MultiSetIteratorImpl implements MultiSetIterator<T> {
+
+	/* ---------------------------------------------------------------- *
+	 * fields.                                                          *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * The weakly consistent iterator of {@link #obj2mult} 
+	 * this one is based on. 
+	 */
+	private final Iterator<Map.Entry<T, Counter>> wrapped;
+
+	/**
+	 * The next entry to be returned or <code>null</code> 
+	 * if there is no such entry. 
+	 * The counter of this entry was alive when reading it. 
+	 */
+	private Map.Entry<T, Counter> next;
+
+	/**
+	 * The entry returned last by {@link #next()} or <code>null</code> 
+	 * if {@link #next()} has not yet been invoked 
+	 * or the element has been removed 
+	 * invoking a method of this iterator (instance). 
+	 */
+	private Map.Entry<T, Counter> last;
+
+	/* ---------------------------------------------------------------- *
+	 * constructors.                                                    *
+	 * ---------------------------------------------------------------- */
+
+	MultiSetIteratorImpl() {
+	    this.wrapped = ConcurrentHashMultiSet.this.obj2mult
+		.entrySet().iterator();
+	    this.next = nextAlive();
+	    this.last = null;
+	}
+
+	/* ---------------------------------------------------------------- *
+	 * methods.                                                         *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * Returns the next entry of {@link #wrapped} with a living counter 
+	 * or <code>null</code> if there is no such entry. 
+	 */
+	private Map.Entry<T, Counter> nextAlive() {
+	    Map.Entry<T, Counter> entry;
+	    while (this.wrapped.hasNext()) {
+		entry = this.wrapped.next();
+		if (entry.getValue().get() != 0) {
+		    return entry;
+		}
+	    }
+	    return null;
+	}
+
+	public boolean hasNext() {
+	    return this.next != null;
+	}
+
+	public T next() {
+	    if (this.next == null) {
+		throw new NoSuchElementException();
+	    }
+	    this.last = this.next;
+	    this.next = nextAlive();
+	    return this.last.getKey();
+	}
+
+	/**
+	 * Returns the counter of the element returned last by {@link #next()}. 
+	 *
+	 * @throws IllegalStateException 
+	 *    if there is no such element as described for {@link #last} 
+	 *    or if it has been removed concurrently. 
+	 */
+	private Counter lastCounter() {
+	    if (this.last == null || this.last.getValue().get() == 0) {
+		// no message as for method remove() 
+		throw new IllegalStateException();
+	    }
+	    return this.last.getValue();
+	}
+
+	public void remove() {
+	    // throws IllegalStateException if no longer present 
+	    Counter counter = lastCounter();
+	    removeCounter(this.last.getKey(), counter);
+	    this.last = null;
+	}
+
+	public int getMult() {
+	    int mult = lastCounter().get();
+	    if (mult == 0) {
+		throw new IllegalStateException();
+	    }
+	    return mult;
+	}
+
+	public Multiplicity getMultObj() {
+	    return lastCounter();
+	}
+
+	public int setMult(int mult) {
+	    // may throw IllegalStateException 
+	    Counter counter = lastCounter();
+	    if (mult == 0) {
+		int oldMult = removeCounter(this.last.getKey(), counter);
+		this.last = null;
+		return oldMult;
+	    }
+	    // may throw IllegalArgumentException or IllegalStateException 
+	    return counter.set(mult);
+	}
+
+	public int removeMult(int mult) {
+	    // may throw IllegalStateException 
+	    Counter counter = lastCounter();
+	    if (mult < 0) {
+		// may throw IllegalArgumentException on overflow 
+		return counter.add(-mult) + mult;
+	    }
+	    // may throw IllegalArgumentException 
+	    int oldMult = counter.removeIfAlive(mult);
+	    if (oldMult == 0) {
+		throw new IllegalStateException();
+	    }
+	    if (oldMult == mult) {
+		ConcurrentHashMultiSet.this.obj2mult
+		    .remove(this.last.getKey(), counter);
+		this.last = null;
+	    }
+	    return oldMult;
+	}
+    } // class MultiSetIteratorImpl 
+
+    /**
+     * The view returned by {@link ConcurrentHashMultiSet#getSet()}. 
+     */
+    private final class SetView extends AbstractSet<T> {
+
+	public Iterator<T> iterator() {
+	    return ConcurrentHashMultiSet.this.iterator();
+	}
+
+	public int size() {
+	    return ConcurrentHashMultiSet.this.size();
+	}
+
+	public boolean contains(Object obj) {
+	    return ConcurrentHashMultiSet.this.contains(obj);
+	}
+
+	public boolean remove(Object obj) {
+	    return ConcurrentHashMultiSet.this.remove(obj);
+	}
+
+	public void clear() {
+	    ConcurrentHashMultiSet.this.clear();
+	}
+    } // class SetView 
+
+    /**
+     * The view returned by {@link ConcurrentHashMultiSet#getSetWithMults()}. 
+     */
+    private final class EntrySetView
+	extends AbstractSet<Map.Entry<T, Multiplicity>> {
+
+	public Iterator<Map.Entry<T, Multiplicity>> iterator() {
+	    final MultiSetIterator<T> iter =
+		ConcurrentHashMultiSet.this.iterator();
+	    return new Iterator<Map.Entry<T, Multiplicity>>() {
+		public boolean hasNext() {
+		    return iter.hasNext();
+		}
+		public Map.Entry<T, Multiplicity> next() {
+		    T key = iter.next();
+		    return new AbstractMap.SimpleImmutableEntry
+			<T, Multiplicity>(key, iter.getMultObj());
+		}
+		public void remove() {
+		    iter.remove();
+		}
+	    };
+	}
+
+	public int size() {
+	    return ConcurrentHashMultiSet.this.size();
+	}
+
+	public void clear() {
+	    ConcurrentHashMultiSet.this.clear();
+	}
+    } // class EntrySetView 
+
+    /**
+     * The view returned by {@link ConcurrentHashMultiSet#getMap()}. 
+     */
+    private final class MapView extends AbstractMap<T, Multiplicity> {
+
+	public Set<Map.Entry<T, Multiplicity>> entrySet() {
+	    return new EntrySetView();
+	}
+
+	public int size() {
+	    return ConcurrentHashMultiSet.this.size();
+	}
+
+	public boolean containsKey(Object key) {
+	    return ConcurrentHashMultiSet.this.contains(key);
+	}
+
+	public Multiplicity get(Object key) {
+	    return ConcurrentHashMultiSet.this.getMultiplicityObj(key);
+	}
+
+	public Multiplicity remove(Object key) {
+	    int oldMult = ConcurrentHashMultiSet.this.getMultiplicity(key);
+	    ConcurrentHashMultiSet.this.remove(key);
+	    return oldMult == 0
+		? null : AbstractMultiSet.MultiplicityImpl.create(oldMult);
+	}
+    } // class MapView 
+
+    /**
+     * Collects multiplicities within a single thread 
+     * to be merged into the enclosing set at once by {@link #flush()}. 
+     * This avoids contention on the counters 
+     * of frequent elements of the enclosing set 
+     * if many threads count the same elements. 
+     * <p>
+     * Instances are not thread-safe: 
+     * each thread shall use its own batch. 
+     */
+    public final class Batch {
+
+	/* ---------------------------------------------------------------- *
+	 * fields.                                                          *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * The multiplicities collected since the last flush. 
+	 */
+	private final OpenHashMultiSet<T> local;
+
+	/* ---------------------------------------------------------------- *
+	 * constructors.                                                    *
+	 * ---------------------------------------------------------------- */
+
+	Batch() {
+	    this.local = new OpenHashMultiSet<T>();
+	}
+
+	/* ---------------------------------------------------------------- *
+	 * methods.                                                         *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * Adds <code>obj</code> to this batch. 
+	 *
+	 * @throws NullPointerException 
+	 *    if the specified element is <code>null</code>. 
+	 */
+	public void add(T obj) {
+	    // throws NullPointerException for obj==null 
+	    this.local.addWithMult(obj, 1);
+	}
+
+	/**
+	 * Adds <code>obj</code> with multiplicity <code>addMult</code> 
+	 * to this batch. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    for <code>addMult &lt; 0</code> 
+	 *    and if the multiplicity in this batch would overflow. 
+	 * @throws NullPointerException 
+	 *    for <code>obj==null</code> provided <code>addMult &ge; 0</code>. 
+	 */
+	public void addWithMult(T obj, int addMult) {
+	    this.local.addWithMult(obj, addMult);
+	}
+
+	/**
+	 * Adds all multiplicities collected in this batch 
+	 * to the enclosing set and clears this batch. 
+	 * Each element is added to the enclosing set atomically, 
+	 * but the batch as a whole is not. 
+	 */
+	public void flush() {
+	    ConcurrentHashMultiSet.this.addAll(this.local);
+	    this.local.clear();
+	}
+    } // class Batch 
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Maps the elements of this set to their counters. 
+     * Dead counters are removed soon after having died, 
+     * but may be contained for a short time. 
+     */
+    private final ConcurrentMap<T, Counter> obj2mult;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates a new empty <code>ConcurrentHashMultiSet</code> 
+     * for about <code>expSize</code> elements. 
+     *
+     * @param expSize 
+     *    the expected number of pairwise different elements. 
+     * @throws IllegalArgumentException 
+     *    if <code>expSize</code> is negative. 
+     */
+    public ConcurrentHashMultiSet(int expSize) {
+	this.obj2mult = new ConcurrentHashMap<T, Counter>(expSize);
+    }
+
+    /**
+     * Creates a new empty <code>ConcurrentHashMultiSet</code>. 
+     */
+    public ConcurrentHashMultiSet() {
+	this.obj2mult = new ConcurrentHashMap<T, Counter>();
+    }
+
+    /**
+     * Copy constructor. 
+     * The multiplicities are copied, not shared with <code>other</code>. 
+     *
+     * @param other 
+     *    another <code>MultiSet</code> instance. 
+     */
+    public ConcurrentHashMultiSet(MultiSet<? extends T> other) {
+	this(other.size());
+	addAll(other);
+    }
+
+    /**
+     * Creates a multi set with the elements of <code>sSet</code> 
+     * and all elements with multiplicity <code>1</code>. 
+     *
+     * @param sSet 
+     *    some set of objects. 
+     */
+    public ConcurrentHashMultiSet(Set<? extends T> sSet) {
+	this(sSet.size());
+	addAll(sSet);
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Returns a new batch to collect multiplicities in a single thread 
+     * before merging them into this set. 
+     *
+     * @return 
+     *    a new empty {@link Batch} for this set. 
+     */
+    public Batch newBatch() {
+	return new Batch();
+    }
+
+    /**
+     * Removes <code>counter</code> as the counter of <code>obj</code> 
+     * and returns its multiplicity before. 
+     *
+     * @return 
+     *    the multiplicity of <code>obj</code> before removal 
+     *    or <code>0</code> if <code>counter</code> was dead already. 
+     */
+    private int removeCounter(Object obj, Counter counter) {
+	int oldMult = counter.kill();
+	this.obj2mult.remove(obj, counter);
+	return oldMult;
+    }
+
+    /**
+     * Returns the number of pairwise different elements 
+     * in this <code>MultiSet</code>. 
+     * Under concurrent modification, this is an estimate only. 
+     *
+     * @return 
+     *    the number of elements in this <code>MultiSet</code> 
+     *    each multiple element counted as a single one. 
+     * @see #sizeWithMult() 
+     */
+    public int size() {
+	return this.obj2mult.size();
+    }
+
+    /**
+     * Returns the number of elements 
+     * in this <code>MultiSet</code> counted with multiplicities. 
+     * Under concurrent modification, this is an estimate only. 
+     *
+     * @return 
+     *    the number of elements in this <code>MultiSet</code> 
+     *    counted with multiplicities, 
+     *    provided this does not exceed {@link Integer#MAX_VALUE}; 
+     *    otherwise just {@link Integer#MAX_VALUE}. 
+     * @see #size() 
+     */
+    public int sizeWithMult() {
+	long result = 0;
+	for (Counter counter : this.obj2mult.values()) {
+	    result += counter.get();
+	}
+	return (int) Math.min(result, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+	return this.obj2mult.isEmpty();
+    }
+
+    /**
+     * Returns one of the elements in this multiple set 
+     * with maximal multiplicity. 
+     * The return value is <code>null</code> 
+     * if and only if this set is empty. 
+     *
+     * @return 
+     *    a <code>Object o != null</code> with maximal multiplicity 
+     *    or <code>null</code> if this multiple set is empty. 
+     * @see #isEmpty 
+     */
+    public T getObjWithMaxMult() {
+	T result = null;
+	int maxMult = 0;
+	int mult;
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    mult = entry.getValue().get();
+	    if (maxMult < mult) {
+		maxMult = mult;
+		result = entry.getKey();
+	    }
+	}
+	return result;
+    }
+
+    public int getMaxMult() {
+	int maxMult = 0;
+	for (Counter counter : this.obj2mult.values()) {
+	    maxMult = Math.max(maxMult, counter.get());
+	}
+	return maxMult;
+    }
+
+    /**
+     * Returns the <code>k</code> elements with highest multiplicities 
+     * in descending order of multiplicities, 
+     * or all elements if there are less than <code>k</code>. 
+     * Among elements with equal multiplicities, the order is not specified. 
+     * This is computed on a snapshot of the multiplicities 
+     * which is not atomic under concurrent modification. 
+     *
+     * @param k 
+     *    the maximal number of elements to be returned. 
+     * @return 
+     *    a list of at most <code>k</code> elements 
+     *    with highest multiplicities in descending order. 
+     * @throws IllegalArgumentException 
+     *    if <code>k</code> is negative. 
+     */
+    public List<T> topK(int k) {
+	// the heap in topK requires multiplicities not to change 
+	OpenHashMultiSet<T> snapshot = new OpenHashMultiSet<T>(size());
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    snapshot.addWithMult(entry.getKey(), entry.getValue().get());
+	}
+	return snapshot.topK(k);
+    }
+
+    /**
+     * Returns the multiplicity 
+     * with which the given object occurs within this set. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is the mutliplicity of the given element in this set. 
+     *    In particular this is <code>0</code> if and only if 
+     *    <code>obj</code> is an instance which is not in this set. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     * @see #setMultiplicity(Object, int) 
+     * @see #getMultiplicityObj(Object) 
+     */
+    public int getMultiplicity(Object obj) {
+	// throws NullPointerException for obj==null 
+	Counter counter = this.obj2mult.get(obj);
+	return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Returns the multiplicity object of the given object in this set 
+     * or <code>null</code>. 
+     * This is the counter of the element itself: 
+     * modifications are reflected in this set and vice versa 
+     * until the element is removed. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    If <code>obj</code> is an instance which is in this set, 
+     *    a multiplicity object wrapping the multiplicity is returned. 
+     *    If <code>obj</code> is an instance which is not in this set, 
+     *    <code>null</code> is returned. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     * @see #getMultiplicity(Object) 
+     */
+    public Multiplicity getMultiplicityObj(Object obj) {
+	// throws NullPointerException for obj==null 
+	Counter counter = this.obj2mult.get(obj);
+	return counter == null || counter.get() == 0 ? null : counter;
+    }
+
+    public boolean contains(Object obj) {
+	// throws NullPointerException for obj==null 
+	return getMultiplicity(obj) != 0;
+    }
+
+    /**
+     * Returns a weakly consistent iterator 
+     * over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * There are no guarantees concerning the order 
+     * in which the elements are returned. 
+     * The iterator supports all modifying methods 
+     * and never throws a {@link java.util.ConcurrentModificationException}. 
+     *
+     * @return 
+     *    an <code>Iterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    public MultiSetIterator<T> iterator() {
+	return new MultiSetIteratorImpl();
+    }
+
+    /**
+     * Returns a weakly consistent spliterator 
+     * over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * This is the spliterator of the key set of {@link #obj2mult} 
+     * which reports {@link Spliterator#CONCURRENT}. 
+     * Elements removed concurrently may be emitted. 
+     *
+     * @return 
+     *    a <code>Spliterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    public Spliterator<T> spliterator() {
+	return this.obj2mult.keySet().spliterator();
+    }
+
+    public Stream<T> stream() {
+	return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a weakly consistent sequential stream 
+     * of the entries of this <code>MultiSet</code> 
+     * mapping each element to its counter. 
+     * Elements removed before they are reached are skipped. 
+     *
+     * @return 
+     *    a sequential <code>Stream</code> 
+     *    over the entries of this set with multiplicities. 
+     */
+    public Stream<Map.Entry<T, Multiplicity>> entryStream() {
+	return StreamSupport.stream(this.obj2mult.entrySet().spliterator(),
+				    false)
+	    .filter(new Predicate<Map.Entry<T, Counter>>() {
+		    public boolean test(Map.Entry<T, Counter> entry) {
+			return entry.getValue().get() != 0;
+		    }
+		})
+	    .map(new Function<Map.Entry<T, Counter>,
+		 Map.Entry<T, Multiplicity>>() {
+		    public Map.Entry<T, Multiplicity>
+			apply(Map.Entry<T, Counter> entry) {
+			return new AbstractMap.SimpleImmutableEntry
+			    <T, Multiplicity>(entry.getKey(), entry.getValue());
+		    }
+		});
+    }
+
+    public Object[] toArray() {
+	return getSet().toArray();
+    }
+
+    public T[] toArray(T[] arr) {
+	return getSet().toArray(arr);
+    }
+
+    // Modification Operations 
+
+    /**
+     * Adds <code>obj</code> to this <code>MultiSet</code> 
+     * and returns the new multiplicity of this object. 
+     * In other words, increments the multiplicity of <code>obj</code> by one. 
+     *
+     * @param obj 
+     *    a <code>Object</code>. 
+     *    Note that this object may not be <code>null</code>. 
+     * @return 
+     *    a strictly positive <code>int</code> value: 
+     *    the new multiplicity of <code>obj</code>. 
+     * @throws NullPointerException 
+     *    if the specified element is null. 
+     */
+    public int addWithMult(T obj) {
+	// throws NullPointerException for obj==null 
+	return addWithMult(obj, 1);
+    }
+
+    /**
+     * Increases the multiplicity of <code>obj</code> 
+     * in this <code>MultiSet</code> 
+     * by the specified value <code>addMult</code> 
+     * and returns the new multiplicity of this object. 
+     * If <code>obj</code> is already present, 
+     * this is a compare-and-set on its counter. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param addMult 
+     *    a non-negative integer specifying the multiplicity 
+     *    with which <code>obj</code> is to be added. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the new multiplicity of <code>obj</code>. 
+     * @throws IllegalArgumentException 
+     *    for <code>addMult &lt; 0</code> 
+     *    and if the new multiplicity would overflow. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code> provided <code>addMult &ge; 0</code>. 
+     */
+    public int addWithMult(T obj, int addMult) {
+	if (addMult < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative multiplicity; found " + 
+		 addMult + ". ");
+	}
+	if (addMult == 0) {
+	    // throws NullPointerException for obj==null 
+	    return getMultiplicity(obj);
+	}
+
+	// throws NullPointerException for obj==null 
+	Counter counter = this.obj2mult.get(obj);
+	int newMult;
+	while (true) {
+	    if (counter == null) {
+		counter = this.obj2mult.putIfAbsent(obj, new Counter(addMult));
+		if (counter == null) {
+		    return addMult;
+		}
+	    }
+	    // may throw IllegalArgumentException 
+	    newMult = counter.addIfAlive(addMult);
+	    if (newMult != 0) {
+		return newMult;
+	    }
+	    // Here, counter is dead: replace it 
+	    if (this.obj2mult.replace(obj, counter, new Counter(addMult))) {
+		return addMult;
+	    }
+	    counter = this.obj2mult.get(obj);
+	}
+    }
+
+    /**
+     * Adds <code>obj</code> to this <code>MultiSet</code>. 
+     * In other words, increments the multiplicity of <code>obj</code> by one. 
+     *
+     * @param obj 
+     *    element the multiplicity of which in this <code>MultiSet</code> 
+     *    is to be increased by one. 
+     *    Note that this may not be <code>null</code>. 
+     * @return 
+     *    <code>true</code> if and only if 
+     *    the multiplicity of the specified element 
+     *    was <code>0</code> before the call of this method. 
+     * @throws NullPointerException 
+     *    if the specified element is <code>null</code>. 
+     */
+    public boolean add(T obj) {
+	// throws NullPointerException for obj==null 
+	return addWithMult(obj, 1) == 1;
+    }
+
+    public int removeWithMult(Object obj) {
+	// throws NullPointerException for obj==null 
+	return removeWithMult(obj, 1);
+    }
+
+    /**
+     * Decreases the multiplicity of <code>obj</code> 
+     * in this <code>MultiSet</code> 
+     * by the specified value <code>removeMult</code> if possible 
+     * and returns the <em>old</em> multiplicity of <code>obj</code>. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param removeMult 
+     *    a non-negative integer specifying the multiplicity 
+     *    with which <code>obj</code> is to be removed. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the old multiplicity of <code>obj</code> 
+     *    before a potential modification of this <code>MultiSet</code>. 
+     * @throws NullPointerException 
+     *    for <code>obj == null</code>. 
+     * @throws IllegalArgumentException 
+     *    for <code>removeMult &lt; 0</code> and also if 
+     *    <code>removeMult - obj.getMultiplicity() &lt; 0</code>. 
+     */
+    public int removeWithMult(Object obj, int removeMult) {
+	if (removeMult < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative multiplicity; found " + 
+		 removeMult + ". ");
+	}
+
+	// throws NullPointerException for obj==null 
+	Counter counter = this.obj2mult.get(obj);
+	// may throw IllegalArgumentException 
+	int oldMult = counter == null ? 0 : counter.removeIfAlive(removeMult);
+	if (oldMult == 0) {
+	    if (removeMult != 0) {
+		throw new IllegalArgumentException
+		    ("Tried to remove object " + obj + 
+		     " which is not in this MultiSet. ");
+	    }
+	    return 0;
+	}
+	if (oldMult == removeMult) {
+	    this.obj2mult.remove(obj, counter);
+	}
+	return oldMult;
+    }
+
+    /**
+     * Removes <em>all</em> instances of the specified element from this 
+     * <code>MultiSet</code>, if it is present with nontrivial multiplicity. 
+     *
+     * @param obj 
+     *    element which is to be removed from this <code>MultiSet</code>. 
+     * @return 
+     *    <code>true</code> if and only if this <code>MultiSet</code> changed 
+     *    as a result of the call. 
+     * @throws NullPointerException 
+     *    if the specified element is <code>null</code>. 
+     */
+    public boolean remove(Object obj) {
+	// throws NullPointerException for obj==null 
+	Counter counter = this.obj2mult.get(obj);
+	return counter != null && removeCounter(obj, counter) != 0;
+    }
+
+    /**
+     * Sets the multiplicity of <code>obj</code> to the value 
+     * specified by <code>mult</code>. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param newMult 
+     *    a non-negative <code>int</code> value. 
+     * @return 
+     *    the old multiplicity of <code>obj</code> 
+     *    as a non-negative <code>int</code> value. 
+     * @throws IllegalArgumentException 
+     *   if either <code>obj == null</code> or <code>mult &le; 0</code>. 
+     * @see #getMultiplicity(Object) 
+     */
+    public int setMultiplicity(T obj, int newMult) {
+	if (obj == null) {
+	    throw new IllegalArgumentException
+		("Found null element. ");
+	}
+	if (newMult < 0) {
+	    throw new IllegalArgumentException
+		("Found negative multiplicity " + newMult + ". ");
+	}
+	Counter counter = this.obj2mult.get(obj);
+	if (newMult == 0) {
+	    return counter == null ? 0 : removeCounter(obj, counter);
+	}
+
+	int oldMult;
+	while (true) {
+	    if (counter == null) {
+		counter = this.obj2mult.putIfAbsent(obj, new Counter(newMult));
+		if (counter == null) {
+		    return 0;
+		}
+	    }
+	    oldMult = counter.setIfAlive(newMult);
+	    if (oldMult != 0) {
+		return oldMult;
+	    }
+	    // Here, counter is dead: replace it 
+	    if (this.obj2mult.replace(obj, counter, new Counter(newMult))) {
+		return 0;
+	    }
+	    counter = this.obj2mult.get(obj);
+	}
+    }
+
+    // Bulk Operations 
+
+    public boolean containsAll(Collection<?> coll) {
+	for (Object cand : coll) {
+	    // throws NullPointerException if cand == null 
+	    if (!contains(cand)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Adds <code>mvs</code> elementwise to this multi set 
+     * increasing multiplicities 
+     * and returns whether this caused a change 
+     * of the underlying set. 
+     * Each element is added atomically, but not <code>mvs</code> as a whole. 
+     *
+     * @param mvs 
+     *    a <code>MultiSet</code> object. 
+     * @return 
+     *    returns whether adding changed this <code>MultiSet</code> 
+     *    interpreted as a set. 
+     */
+    public boolean addAll(MultiSet<? extends T> mvs) {
+	boolean result = false;
+	MultiSetIterator<? extends T> iter = mvs.iterator();
+	int mult;
+	while (iter.hasNext()) {
+	    T obj = iter.next();
+	    mult = iter.getMult();
+	    result |= addWithMult(obj, mult) == mult;
+	}
+	return result;
+    }
+
+    public boolean addAll(Set<? extends T> set) {
+	boolean result = false;
+	for (T cand : set) {
+	    result |= add(cand);
+	}
+	return result;
+    }
+
+    public boolean removeAll(Collection<?> coll) {
+	boolean thisChanged = false;
+	for (Object cand : coll) {
+	    // throws NullPointerException if cand == null 
+	    thisChanged |= remove(cand);
+	}
+	return thisChanged;
+    }
+
+    public boolean retainAll(Collection<?> coll) {
+	boolean result = false;
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    if (!coll.contains(entry.getKey())) {
+		result |= removeCounter(entry.getKey(), entry.getValue()) != 0;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Removes all of the elements from this <code>MultiSet</code>. 
+     * Elements added concurrently may survive. 
+     */
+    public void clear() {
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    removeCounter(entry.getKey(), entry.getValue());
+	}
+    }
+
+    /**
+     * Returns a weakly consistent view 
+     * of the underlying set of this <code>MultiSet</code>. 
+     * The set supports removal but no adding of elements. 
+     */
+    public Set<T> getSet() {
+	return new SetView();
+    }
+
+    /**
+     * Returns a weakly consistent view of the underlying map 
+     * of this <code>MultiSet</code> 
+     * as a map mapping each entry to its multiplicity. 
+     * The values are the counters of the elements in this multi-set. 
+     */
+    public Map<T, Multiplicity> getMap() {
+	return new MapView();
+    }
+
+    /**
+     * Returns a weakly consistent set view of the mapping 
+     * from the element of this <code>MultiSet</code> 
+     * to the according multiplicities. 
+     * For details see {@link MultiSet#getSetWithMults()}. 
+     */
+    public Set<Map.Entry<T, Multiplicity>> getSetWithMults() {
+	return new EntrySetView();
+    }
+
+    public String toString() {
+	return "<MultiSet>" + getMap() + "</MultiSet>";
+    }
+
+    /**
+     * Returns <code>true</code> if and only if <code>obj</code> 
+     * is also a <code>MultiSet</code> 
+     * and contains the same elements with the same multiplicities 
+     * as this one. 
+     *
+     * @param obj 
+     *    an <code>Object</code>, possibly <code>null</code>. 
+     * @return 
+     *    a <code>true</code> if and only if <code>obj</code> 
+     *    is also a <code>MultiSet</code> 
+     *    and contains the same elements with the same multiplicities 
+     *    as this one. 
+     */
+    public boolean equals(Object obj) {
+	if (!(obj instanceof MultiSet)) {
+	    return false;
+	}
+	MultiSet<?> other = (MultiSet<?>) obj;
+	if (other.size() != size()) {
+	    return false;
+	}
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    if (other.getMultiplicity(entry.getKey())
+		!= entry.getValue().get()) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    public int hashCode() {
+	int result = 0;
+	for (Map.Entry<T, Counter> entry : this.obj2mult.entrySet()) {
+	    result += entry.getKey().hashCode() * entry.getValue().get();
+	}
+	return result;
+    }
+}
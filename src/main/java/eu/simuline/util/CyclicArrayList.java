@@ -2,12 +2,15 @@
 package eu.simuline.util;
 
 import java.util.List;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
 
 /**
  * Resizable-array implementation of the <code>CyclicList</code> interface. 
@@ -23,6 +26,19 @@ import java.util.Objects;
  * The <code>add</code> operation runs in <i>amortized constant time</i>, 
  * that is, adding n elements requires O(n) time. 
  * All of the other operations run in linear time (roughly speaking). 
+ * <p>
+ * The elements are stored in a ring buffer, 
+ * i.e. in an array with an offset which may be traversed in either direction. 
+ * Thus {@link #cycle(int)} and {@link #getInverse()} run in constant time 
+ * returning lists which share the array with this one 
+ * until one of them is modified: 
+ * then the modified one copies the array first (copy on write). 
+ * Likewise, {@link #asList(int)} runs in constant time 
+ * returning an unmodifiable view. 
+ * To force a compact copy of its own, use {@link #materialize()}. 
+ * Inserting and removing elements 
+ * moves only the elements on the shorter side of the position given, 
+ * so that adding to both ends of the list runs in amortized constant time. 
  * <!--The constant factor is low compared 
  * to that for the <code>LinkedList</code> implementation. -->
  *<p>
@@ -740,94 +756,89 @@ public final class CyclicArrayList<E>
 
     } // class CyclicArrayIterator 
 
-    // ***** required for reimplementation of method {@link #cycle(int) 
-    // static abstract class CycledList<E> implements CyclicList<E>, Cloneable {
-    // 	CyclicList<E> wrapped;
-    // 	int numCycled;
-
-    // 	public int size() {
-    // 	    return this.wrapped.size();
-    // 	}
-    // 	public boolean isEmpty() {
-    // 	    return this.wrapped.isEmpty();
-    // 	}
-    // 	public CyclicList<E> getInverse() {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public boolean contains(Object obj) {
-    // 	    return this.wrapped.contains(obj);
-    // 	}
-    // 	// public Iterator<E> iterator() {
-    // 	//     throw new NotYetImplementedException();
-    // 	// }
-    // 	public CyclicIterator<E> cyclicIterator(int index) {
-    // 	    return this.wrapped.cyclicIterator(index+this.numCycled);
-    // 	}
-    // 	public Object[] toArray(int index) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public <E> E[] toArray(int index,E[] array) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public List<E> asList(int index) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	// 	public 
-    // 	// //List<E> asList() {
-    // 	// 	    throw new NotYetImplementedException();
-    // 	// 	}
-    // 	public CyclicList<E> cycle(int num) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public void clear() {
-    // 	    this.wrapped.clear();
-    // 	}
-    // 	public boolean equals(Object obj) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public int hashCode() {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public  E set(int index, E element) {
-    // 	    return this.wrapped.set(index+this.numCycled, element);
-    // 	}
-    // 	public void replace(int index, Iterator<E> iter) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public void replace(int index, List<E> list) {
-    // 	    this.wrapped.replace(index+this.numCycled, list);
-    // 	}
-    // 	public void add(int index, E element) {
-    // 	    this.wrapped.add(index+this.numCycled, element);
-    // 	}
-    // 	public void addAll(int index, Iterator<E> iter) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public void addAll(int index, List<? extends E> list) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    // 	public E remove(int index) throws EmptyCyclicListException {
-    // 	    return this.wrapped.remove(index+this.numCycled);
-    // 	}
-    // 	public int getIndexOf(int idx, Object obj) {
-    // 	    return this.wrapped.getIndexOf(idx+this.numCycled, obj);
-    // 	}
-    // 	public CyclicList<E> getCopy(int len) {
-    // 	    throw new NotYetImplementedException();
-    // 	}
-    //} // class CycledList 
+    /**
+     * An unmodifiable view on a cyclic array list 
+     * as a list starting with a given index. 
+     * This is returned by {@link #asList(int)}. 
+     * Changes of the underlying cyclic list are visible in this view. 
+     */
+    private final class CycledList extends AbstractList<E>
+	implements RandomAccess {
+
+	/**
+	 * The index of the underlying cyclic list 
+	 * which is the first one in this list. 
+	 */
+	private final int start;
+
+	CycledList(int start) {
+	    this.start = start;
+	}
+
+	public int size() {
+	    return CyclicArrayList.this.size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public E get(int idx) {
+	    if (idx < 0 || idx >= size()) {
+		throw new IndexOutOfBoundsException
+		    ("Index " + idx + " not within size " + size() + ". ");
+	    }
+	    return CyclicArrayList.this.get(this.start + idx);
+	}
+    } // class CycledList 
+
+    /*----------------------------------------------------------------------*/
+    /* Class constants                                                      */
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * The capacity of a cyclic list created by {@link #CyclicArrayList()}. 
+     */
+    private static final int DEFAULT_CAPACITY = 10;
 
     /*----------------------------------------------------------------------*/
     /* Fields                                                               */
     /*----------------------------------------------------------------------*/
 
     /**
-     * The array this implementation of CyclicList is based on. 
-     * it satisfies <code>this.get(i) == list.get(i)</code> 
-     * for all indices <code>i</code> for which the right hand side is valid. 
+     * The ring buffer this implementation of CyclicList is based on. 
+     * The element with index <code>i</code> 
+     * for <code>0 &lt;= i &lt; size</code> 
+     * is stored at position {@link #phys(int) phys(i)}. 
+     * Positions not occupied by an element are <code>null</code> 
+     * unless this array is {@link #shared}. 
      */
-    private final List<E> list;
+    private Object[] elems;
 
+    /**
+     * The position of the element with index <code>0</code> 
+     * in {@link #elems}. 
+     */
+    private int head;
+
+    /**
+     * The number of elements of this list. 
+     */
+    private int size;
+
+    /**
+     * Whether the elements are stored in {@link #elems} 
+     * in descending positions rather than in ascending ones. 
+     * This is set by {@link #getInverse()} 
+     * and is reset by each structural modification. 
+     */
+    private boolean inverted;
+
+    /**
+     * Whether {@link #elems} may be shared with other cyclic lists 
+     * and must thus be copied before any modification. 
+     *
+     * @see #cycle(int) 
+     * @see #getInverse() 
+     */
+    private boolean shared;
 
     /*----------------------------------------------------------------------*/
     /* Constructors                                                         */
@@ -837,7 +848,7 @@ public final class CyclicArrayList<E>
      * Creates a new empty <code>CyclicArrayList</code>. 
      */
     public CyclicArrayList() {
-	this(new ArrayList<E>());
+	this.elems = new Object[DEFAULT_CAPACITY];
     }
 
     /**
@@ -849,7 +860,8 @@ public final class CyclicArrayList<E>
      *    some array of objects. 
      */
     public CyclicArrayList(E[] list) {
-	this(Arrays.asList(list));
+	this.elems = Arrays.copyOf(list, list.length, Object[].class);
+	this.size = list.length;
     }
 
     /**
@@ -861,17 +873,151 @@ public final class CyclicArrayList<E>
      *    some list of objects. 
      */
     public CyclicArrayList(List<? extends E> list) {
-	this.list = new ArrayList<E>(list);
+	this.elems = list.toArray(new Object[list.size()]);
+	this.size = this.elems.length;
     }
 
     /**
      * Copy constructor. 
+     * If <code>other</code> is a <code>CyclicArrayList</code> 
+     * this runs in constant time 
+     * because the storage is shared until one of the lists is modified. 
      *
      * @param other 
      *    some cyclic list of objects. 
      */
     public CyclicArrayList(CyclicList<? extends E> other) {
-	this(other.asList());
+	if (other instanceof CyclicArrayList) {
+	    CyclicArrayList<? extends E> cal =
+		(CyclicArrayList<? extends E>) other;
+	    share(cal, cal.head, cal.inverted);
+	} else {
+	    this.elems = other.asList().toArray();
+	    this.size = this.elems.length;
+	}
+    }
+
+    /**
+     * Creates a new <code>CyclicArrayList</code> 
+     * sharing the storage of <code>other</code> 
+     * with the element with index <code>0</code> at position <code>head</code> 
+     * and with the given orientation. 
+     */
+    private CyclicArrayList(CyclicArrayList<E> other,
+			    int head,
+			    boolean inverted) {
+	share(other, head, inverted);
+    }
+
+    /**
+     * Lets this list share the storage of <code>other</code> 
+     * with the element with index <code>0</code> at position <code>head</code> 
+     * and with the given orientation. 
+     */
+    private void share(CyclicArrayList<?> other, int head, boolean inverted) {
+	this.elems = other.elems;
+	this.size = other.size;
+	this.head = head;
+	this.inverted = inverted;
+	this.shared = true;
+	other.shared = true;
+    }
+
+    /*----------------------------------------------------------------------*/
+    /* methods concerning the storage                                       */
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Returns the position in {@link #elems} 
+     * of the element with index <code>idx</code> 
+     * for <code>0 &lt;= idx &lt;= elems.length</code>. 
+     */
+    private int phys(int idx) {
+	return wrap(this.inverted ? this.head - idx : this.head + idx);
+    }
+
+    /**
+     * Returns the position in {@link #elems} 
+     * equivalent with <code>pos</code> 
+     * for <code>-elems.length &lt;= pos &lt; 2 * elems.length</code>. 
+     */
+    private int wrap(int pos) {
+	int cap = this.elems.length;
+	if (pos >= cap) {
+	    return pos - cap;
+	}
+	return pos < 0 ? pos + cap : pos;
+    }
+
+    /**
+     * Copies the elements of this list in ascending order 
+     * into a new array with the given capacity 
+     * which becomes the unshared storage of this list. 
+     */
+    private void detach(int capacity) {
+	assert capacity >= this.size;
+	Object[] res = new Object[capacity];
+	if (this.inverted) {
+	    for (int i = 0; i < this.size; i++) {
+		res[i] = this.elems[phys(i)];
+	    }
+	} else {
+	    int first = Math.min(this.size, this.elems.length - this.head);
+	    System.arraycopy(this.elems, this.head, res, 0, first);
+	    System.arraycopy(this.elems, 0, res, first, this.size - first);
+	}
+	this.elems = res;
+	this.head = 0;
+	this.inverted = false;
+	this.shared = false;
+    }
+
+    /**
+     * Prepares a structural modification: 
+     * Afterwards the storage of this list is not shared, 
+     * its orientation is ascending 
+     * and its capacity is at least <code>minCapacity</code>. 
+     */
+    private void prepareStructural(int minCapacity) {
+	int cap = this.elems.length;
+	if (minCapacity > cap) {
+	    detach(Math.max(minCapacity, cap + (cap >> 1)));
+	} else if (this.shared || this.inverted) {
+	    detach(cap);
+	}
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, 
+     * to ensure that it can hold at least the number of elements 
+     * specified by the minimum capacity argument. 
+     *
+     * @param minCapacity 
+     *    the desired minimum capacity. 
+     */
+    public void ensureCapacity(int minCapacity) {
+	if (minCapacity > this.elems.length) {
+	    detach(minCapacity);
+	}
+    }
+
+    /**
+     * Copies the elements of this list into storage of its own, 
+     * if it shares its storage with other lists, 
+     * and trims the capacity to the size of this list. 
+     * This is useful for lists obtained by {@link #cycle(int)} 
+     * or by {@link #getInverse()} which are intended to be kept 
+     * for a longer time than the list they originate from 
+     * or which are modified extensively. 
+     *
+     * @return 
+     *    this list. 
+     */
+    public CyclicArrayList<E> materialize() {
+	if (this.shared || this.inverted || this.size < this.elems.length) {
+	    detach(this.size);
+	}
+	return this;
     }
 
     /*----------------------------------------------------------------------*/
@@ -887,7 +1033,7 @@ public final class CyclicArrayList<E>
      *    the number of elements in this list. 
      */
     public int size() {
-	return this.list.size();
+	return this.size;
     }
 
     /**
@@ -902,16 +1048,33 @@ public final class CyclicArrayList<E>
     /**
      * Returns the inverse of this cyclic list: 
      * the list with inverse order. 
+     * This runs in constant time: 
+     * The list returned shares the storage with this list 
+     * until one of them is modified. 
      *
      * @return 
      *    The list with the same entries but inverse order. 
      */
-    public CyclicList<E> getInverse() {
-	CyclicList<E> result = new CyclicArrayList<E>();
-	for (int i = this.size() - 1; i >= 0; i--) {
-	    result.add(this.get(i));
+    public CyclicArrayList<E> getInverse() {
+	if (isEmpty()) {
+	    return new CyclicArrayList<E>();
 	}
-	return result;
+	return new CyclicArrayList<E>(this,
+				      phys(this.size - 1),
+				      !this.inverted);
+    }
+
+    /**
+     * Returns the least index of <code>obj</code> in this list 
+     * or <code>-1</code> if there is no such index. 
+     */
+    private int indexOf(Object obj) {
+	for (int i = 0; i < this.size; i++) {
+	    if (Objects.equals(this.elems[phys(i)], obj)) {
+		return i;
+	    }
+	}
+	return -1;
     }
 
     /**
@@ -928,11 +1091,16 @@ public final class CyclicArrayList<E>
      *    <code>true</code> if this list contains the specified element.
      */
     public boolean contains(Object obj) {
-	return this.list.contains(obj);
+	return indexOf(obj) >= 0;
     }
 
     public boolean containsAll(Collection<?> coll) {
-	return this.list.containsAll(coll);
+	for (Object obj : coll) {
+	    if (!contains(obj)) {
+		return false;
+	    }
+	}
+	return true;
     }
 
     /**
@@ -960,6 +1128,39 @@ public final class CyclicArrayList<E>
 	return new CyclicArrayIterator<E>(this, index);
     }
 
+    public void forEachFrom(int index, Consumer<? super E> action) {
+	if (isEmpty()) {
+	    return;
+	}
+	index = shiftIndex(index);
+	forEachIn(index, this.size, action);
+	forEachIn(0,     index,     action);
+    }
+
+    /**
+     * Performs the given action for each element 
+     * with index <code>from, ..., to-1</code>. 
+     */
+    @SuppressWarnings("unchecked")
+    private void forEachIn(int from, int to, Consumer<? super E> action) {
+	if (from == to) {
+	    return;
+	}
+	int last = this.elems.length - 1;
+	int pos = phys(from);
+	if (this.inverted) {
+	    for (int i = from; i < to; i++) {
+		action.accept((E) this.elems[pos]);
+		pos = pos == 0 ? last : pos - 1;
+	    }
+	} else {
+	    for (int i = from; i < to; i++) {
+		action.accept((E) this.elems[pos]);
+		pos = pos == last ? 0 : pos + 1;
+	    }
+	}
+    }
+
     // api-docs provided by Collection 
     public Iterator<E> iterator() {
     	return cyclicIterator(0);
@@ -1017,19 +1218,49 @@ public final class CyclicArrayList<E>
      *    of every element in this list. 
      */
     public <T> T[] toArray(int index, T[] ret) {
-			return cycle(index).list.toArray(ret);
+	return asList(index).toArray(ret);
     }
 
+    /**
+     * Returns an unmodifiable view on this cyclic list 
+     * as a list starting with the element with the given index. 
+     * This runs in constant time. 
+     * Modifications of this cyclic list are visible in the view; 
+     * to obtain an independent copy, 
+     * use <code>new ArrayList&lt;E&gt;(asList(index))</code>. 
+     *
+     * @param index 
+     *    index of the element in the cyclic list 
+     *    which comes first in the List returned. 
+     *    This is interpreted modulo the length of this cyclic list. 
+     *    Any index (even negative ones) are valid. 
+     * @return 
+     *    an unmodifiable view on all of the elements in this cyclic list 
+     *    in proper sequence. 
+     */
     public List<E> asList(int index) {
-	return cycle(index).asList();
+	return new CycledList(isEmpty() ? 0 : shiftIndex(index));
     }
 
+    /**
+     * Returns an unmodifiable view on this cyclic list 
+     * as a list starting with the element with index <code>0</code>. 
+     *
+     * @return 
+     *    <code>asList(0)</code>. 
+     * @see #asList(int) 
+     */
     public List<E> asList() {
-	return new ArrayList<E>(this.list);
+	return asList(0);
     }
 
     /**
      * Returns a cyclic permutation <code>p</code> of this cyclic list. 
+     * Except if the capacity of this list exceeds its size, 
+     * this runs in constant time: 
+     * The list returned shares the storage with this list 
+     * until one of them is modified. 
+     * If this is not desired, use {@link #materialize()}. 
      *
      * @param index 
      *    index of the element in the cyclic list 
@@ -1042,17 +1273,17 @@ public final class CyclicArrayList<E>
      *    <code>p.get(i) == this.get(i+num)</code>. 
      */
     public CyclicArrayList<E> cycle(int index) {
-	// maybe better: a view. **** 
-	// to that end use inner class CycledList 
-	if (size() == 0) {
-	    return new CyclicArrayList<E>(this);
+	if (isEmpty()) {
+	    return new CyclicArrayList<E>();
 	}
-
-	index = shiftIndex(index);
-	ArrayList<E> ret = new ArrayList<E>(size());
-	ret.addAll(this.list.subList(index, size()));
-	ret.addAll(this.list.subList(0,     index));
-	return new CyclicArrayList<E>(ret);
+	// rotation is consistent with the ring buffer only if it is full. 
+	// This requires copying at most once for a series of rotations. 
+	if (this.size < this.elems.length) {
+	    materialize();
+	}
+	return new CyclicArrayList<E>(this,
+				      phys(shiftIndex(index)),
+				      this.inverted);
     }
 
     // Modification Operations
@@ -1063,9 +1294,18 @@ public final class CyclicArrayList<E>
      * (unless it throws an exception).
      */
     public void clear() {
-	this.list.clear();
+	if (this.shared) {
+	    this.elems = new Object[DEFAULT_CAPACITY];
+	    this.shared = false;
+	} else {
+	    Arrays.fill(this.elems, null);
+	}
+	this.head = 0;
+	this.size = 0;
+	this.inverted = false;
     }
 
+
     /**
      * Compares the specified object with this cyclic list for equality. 
      * Returns <code>true</code> 
@@ -1111,6 +1351,10 @@ public final class CyclicArrayList<E>
      * This definition ensures that the equals method works properly 
      * across different implementations 
      * of the <code>CyclicList</code> interface. 
+     * <p>
+     * This runs in linear time 
+     * provided <code>get</code> of the list returned by <code>asList</code> 
+     * of the specified object runs in constant time. 
      *
      * @param obj 
      *    the object to be compared for equality with this list. 
@@ -1136,17 +1380,39 @@ public final class CyclicArrayList<E>
 	}
 	// Here, the two lists of points have the same, positive size. 
 
-	CyclicIterator<?> thisIt;
-	CyclicIterator<?> otherIt;
-	for (int i = 0; i < this.size(); i++) {
-	    thisIt  = this .cyclicIterator(i);
-	    otherIt = other.cyclicIterator(0);
-	    if (thisIt.retEquals(otherIt)) {
-		return true;
+	// Search this list in the other one doubled 
+	// using the algorithm of Knuth, Morris and Pratt. 
+	// border[i] is the length of the longest proper border 
+	// of the first i+1 elements of this list. 
+	int[] border = new int[this.size];
+	int len = 0;
+	for (int i = 1; i < this.size; i++) {
+	    Object elem = this.elems[phys(i)];
+	    while (len > 0 && !Objects.equals(this.elems[phys(len)], elem)) {
+		len = border[len - 1];
+	    }
+	    if (Objects.equals(this.elems[phys(len)], elem)) {
+		len++;
+	    }
+	    border[i] = len;
+	}
+
+	List<?> otherList = other.asList();
+	len = 0;
+	for (int j = 0; j < 2 * this.size - 1; j++) {
+	    Object elem = otherList.get(j < this.size ? j : j - this.size);
+	    while (len > 0 && !Objects.equals(this.elems[phys(len)], elem)) {
+		len = border[len - 1];
+	    }
+	    if (Objects.equals(this.elems[phys(len)], elem)) {
+		len++;
+		if (len == this.size) {
+		    return true;
+		}
 	    }
 	}
-	// Here, no index was found that thisIt and otherIt 
-	//return the same sequence. 
+	// Here, no index was found that this and other 
+	// return the same sequence. 
 	return false;
     }
 
@@ -1183,10 +1449,37 @@ public final class CyclicArrayList<E>
 	return hashCode;
     }
 
+    /**
+     * Returns a hash code value for this cyclic list 
+     * which is invariant under cyclic permutation. 
+     * This is the sum of {@link CyclicList#mixHash(int)} 
+     * applied to <code>31*h(get(i))+h(get(i+1))</code> 
+     * over all indices <code>i</code>, 
+     * where <code>h</code> is the hash code of an object 
+     * or <code>0</code> for <code>null</code>. 
+     * Since neighbors are taken into account, 
+     * this distinguishes also lists with the same elements 
+     * in different orders. 
+     * This runs in linear time. 
+     *
+     * @return the "cyclic hash code" value for this list. 
+     * @see CyclicList#hashCodeCyclic() 
+     */
+    // Note that the magic number comes from the spec of List.hashCode 
+    @SuppressWarnings("checkstyle:magicnumber")
     public int hashCodeCyclic() {
 	int hashCode = 0;
-	for (E element : this.list) {
-	    hashCode += element == null ? 0 : element.hashCode();
+	if (isEmpty()) {
+	    return hashCode;
+	}
+	Object elem = this.elems[phys(this.size - 1)];
+	int hashPrev = elem == null ? 0 : elem.hashCode();
+	int hashNext;
+	for (int i = 0; i < this.size; i++) {
+	    elem = this.elems[phys(i)];
+	    hashNext = elem == null ? 0 : elem.hashCode();
+	    hashCode += CyclicList.mixHash(31 * hashPrev + hashNext);
+	    hashPrev = hashNext;
 	}
 	return hashCode;
     }
@@ -1213,6 +1506,10 @@ public final class CyclicArrayList<E>
     }
 
     public int shiftIndex(int index, int size) throws EmptyCyclicListException {
+	if (0 <= index && index < size) {
+	    // fast path avoiding division 
+	    return index;
+	}
 	if (size == 0) {
 	    throw new EmptyCyclicListException();
 	}
@@ -1238,8 +1535,9 @@ public final class CyclicArrayList<E>
      * @throws EmptyCyclicListException 
      *    if this list is empty. 
      */
+    @SuppressWarnings("unchecked")
     public E get(int index) throws EmptyCyclicListException {
-	return this.list.get(shiftIndex(index));
+	return (E) this.elems[phys(shiftIndex(index))];
     }
 
     /**
@@ -1262,7 +1560,14 @@ public final class CyclicArrayList<E>
      */
     public E set(int index, E element) throws EmptyCyclicListException {
 	index = shiftIndex(index);
-	return this.list.set(index, element);
+	if (this.shared) {
+	    detach(this.elems.length);
+	}
+	int pos = phys(index);
+	@SuppressWarnings("unchecked")
+	E res = (E) this.elems[pos];
+	this.elems[pos] = element;
+	return res;
     }
 
     /**
@@ -1280,6 +1585,7 @@ public final class CyclicArrayList<E>
      *    if this list is empty. 
      * @throws IllegalArgumentException 
      *    if the specified iterator is empty. 
+     * @see #addAll(int, Iterator)
      */
     public void replace(int index, Iterator<E> iter) {
 	// *** why not simply leave unchanged? 
@@ -1288,8 +1594,7 @@ public final class CyclicArrayList<E>
 		("Could not replace " + index + 
 		 "th element because of void iterator " + iter + ". ");
 	}
-	set(index++, iter.next());
-	addAll(index, iter);
+	replace(index, drain(iter));
     }
 
     public void replace(int index, List<E> list) {
@@ -1298,8 +1603,20 @@ public final class CyclicArrayList<E>
 		("Could not replace " + index + 
 		 "th element with empty list. ");
 	}
-	set(index++, list.get(0));
-	addAll(index, list.subList(1, list.size()));
+	index = shiftIndex(index);
+	set(index, list.get(0));
+	addAll(index + 1, list.subList(1, list.size()));
+    }
+
+    /**
+     * Returns a list with the elements returned by <code>iter</code>. 
+     */
+    private static <E> List<E> drain(Iterator<E> iter) {
+	List<E> res = new ArrayList<E>();
+	while (iter.hasNext()) {
+	    res.add(iter.next());
+	}
+	return res;
     }
 
     /**
@@ -1307,19 +1624,26 @@ public final class CyclicArrayList<E>
      * at the specified position in this list (optional operation). 
      * In contrast to {@link #replace(int, Iterator)}, 
      * the element currently at the specified position is not lost. 
+     * <p>
+     * The iterator is drained into a buffer first 
+     * so that the elements of this list are moved only once 
+     * as for {@link #addAll(int, List)}. 
+     * This also allows <code>iter</code> to iterate over this list. 
      *
      * @param index 
      *    index at which the specified list is to be inserted.
-     *    This is interpreted modulo the length of this cyclic list. 
-     *    Any index (even negative ones) are valid. 
+     *    This is interpreted modulo the length of this cyclic list plus one 
+     *    like for {@link #add(int, Object)}. 
      * @param iter 
      *    iterator delivering the elements to be inserted.
      */
     public void addAll(int index, Iterator<E> iter) {
-	// ***** very bad implementation. **** 
-	while (iter.hasNext()) {
-	    add(index++, iter.next());
+	List<E> added = drain(iter);
+	if (added.isEmpty()) {
+	    // nothing to do. 
+	    return;
 	}
+	addAll(shiftIndex(index, size() + 1), added);
     }
 
     /**
@@ -1351,28 +1675,22 @@ public final class CyclicArrayList<E>
      *    Any index (even negative ones) are valid. 
      * @param addList 
      *    the list to be inserted. 
-     * **** this is much more complicated! **** 
      */
     public void addAll(int index, List<? extends E> addList) {
-//	this.list.addAll(shiftIndex(index,size()+1), addList);
-
 	if (addList.isEmpty()) {
 	    // nothing to do. 
 	    return;
 	}
 	// Here, addList is not empty. 
 
-
-	List<E> oldList = new ArrayList<E>(this.list);
-	this.list.clear();
-//	this.list = new ArrayList<E>(size()+addList.size());
-	//System.out.println("oldList[0]: "+oldList[0]);
-	// since addList is not empty, size() != 0 
+	// copying first makes this work even for views on this list 
+	Object[] added = addList.toArray();
+	int numAdded = added.length;
+	// since addList is not empty, newSize != 0 
 	// and so shiftIndex is defined. 
-	int newSize = oldList.size() + addList.size();
+	int newSize = this.size + numAdded;
 	index = shiftIndex(index, newSize);
-	// System.out.println("newSize: " + newSize);
-	// System.out.println("index: " + index);
+	prepareStructural(newSize);
 
 	// Two cases: 
 	//
@@ -1383,41 +1701,39 @@ public final class CyclicArrayList<E>
 	//                 ind1          index
 	//                 ind1 = (index+addList.size())%size();
 
-	if (index + addList.size() <= newSize) {
-	    // Here, the second copy procedure works. 
+	if (index + numAdded <= newSize) {
 	    // | cyclic list part 1 | list | cyclic list part 2 
 	    //                        index
-
-
-	    this.list.addAll(oldList.subList(0, index));
-	    this.list.addAll(addList);
-	    this.list.addAll(oldList.subList(index, newSize - addList.size()));
-	    /*
-	      System.arraycopy(oldList,  0,    this.list, 0,    index);
-	      // copy indices index-1,...,index+addList.length-1 
-	      // (addList.length entries). 
-	      System.arraycopy(addList, 0,    this.list, index, addList.size());
-	      // copy indices the rest of the old entries 
-	      // (this.list.size()-index entries). 
-	      System.arraycopy(oldList, index, this.list, index+addList.size(),
-	      size()-index-addList.length);
-	    */
+	    // move the shorter one of the two parts 
+	    if (index < this.size - index) {
+		this.head = wrap(this.head - numAdded);
+		for (int i = 0; i < index; i++) {
+		    this.elems[phys(i)] = this.elems[phys(i + numAdded)];
+		}
+	    } else {
+		for (int i = this.size - 1; i >= index; i--) {
+		    this.elems[phys(i + numAdded)] = this.elems[phys(i)];
+		}
+	    }
+	    for (int i = 0; i < numAdded; i++) {
+		this.elems[phys(index + i)] = added[i];
+	    }
 	} else {
 	    // | list part 2 | cyclic list | list part 1 
 	    //                 ind1          index
-	    int ind1 = (index + addList.size()) % newSize;
-	    int addLen1 = addList.size() - ind1;
+	    // append part 1 and prepend part 2 without moving this list 
+	    int ind1 = index + numAdded - newSize;
+	    int addLen1 = numAdded - ind1;
 	    assert ind1 <= index;
-	    this.list.addAll(addList.subList(addLen1, addLen1 + ind1));
-	    this.list.addAll(oldList);
-	    this.list.addAll(addList.subList(0, addLen1));
-	    /*
-	      System.arraycopy(oldList,  0,      this.list, ind1,  
-	                                                       oldList.length);
-	      System.arraycopy(addList, 0,       this.list, index, addLen1);
-	      System.arraycopy(addList, addLen1, this.list, 0,     ind1);
-	    */
+	    for (int i = 0; i < addLen1; i++) {
+		this.elems[phys(this.size + i)] = added[i];
+	    }
+	    this.head = wrap(this.head - ind1);
+	    for (int i = 0; i < ind1; i++) {
+		this.elems[phys(i)] = added[addLen1 + i];
+	    }
 	}
+	this.size = newSize;
     }
 
     public boolean addAll(Collection<? extends E> coll) {
@@ -1432,6 +1748,9 @@ public final class CyclicArrayList<E>
      * the element currently at the specified position is not lost. 
      * Also note that this operation is allowed for empty cyclic lists. 
      * In this case, <code>index</code> is irrelevant. 
+     * <p>
+     * Of the elements before and after the specified position, 
+     * only the shorter part is moved. 
      *
      * @param index 
      *    index at which the specified element is to be inserted.
@@ -1443,11 +1762,27 @@ public final class CyclicArrayList<E>
      *    element to be inserted. 
      */
     public void add(int index, E element) {
-	this.list.add(shiftIndex(index, size() + 1), element);
-   }
+	index = shiftIndex(index, size() + 1);
+	prepareStructural(this.size + 1);
+	if (index < this.size - index) {
+	    this.head = wrap(this.head - 1);
+	    for (int i = 0; i < index; i++) {
+		this.elems[phys(i)] = this.elems[phys(i + 1)];
+	    }
+	} else {
+	    for (int i = this.size; i > index; i--) {
+		this.elems[phys(i)] = this.elems[phys(i - 1)];
+	    }
+	}
+	this.elems[phys(index)] = element;
+	this.size++;
+    }
 
     public boolean add(E element) {
-	return this.list.add(element); // always returns true. 
+	prepareStructural(this.size + 1);
+	this.elems[phys(this.size)] = element;
+	this.size++;
+	return true;
     }
 
     /**
@@ -1455,6 +1790,8 @@ public final class CyclicArrayList<E>
      * (optional operation). 
      * Returns the element that was removed from the list, 
      * provided this list is not empty. 
+     * Of the elements before and after the specified position, 
+     * only the shorter part is moved. 
      *
      *
      * @param index 
@@ -1468,11 +1805,33 @@ public final class CyclicArrayList<E>
      *    if this list is empty. 
      */
     public E remove(int index) throws EmptyCyclicListException {
-	return this.list.remove(shiftIndex(index));
+	index = shiftIndex(index);
+	prepareStructural(this.size);
+	@SuppressWarnings("unchecked")
+	E res = (E) this.elems[phys(index)];
+	if (index < this.size - 1 - index) {
+	    for (int i = index; i > 0; i--) {
+		this.elems[phys(i)] = this.elems[phys(i - 1)];
+	    }
+	    this.elems[this.head] = null;
+	    this.head = wrap(this.head + 1);
+	} else {
+	    for (int i = index; i < this.size - 1; i++) {
+		this.elems[phys(i)] = this.elems[phys(i + 1)];
+	    }
+	    this.elems[phys(this.size - 1)] = null;
+	}
+	this.size--;
+	return res;
     }
 
     public boolean remove(Object obj) {
-	return this.list.remove(obj);
+	int index = indexOf(obj);
+	if (index < 0) {
+	    return false;
+	}
+	remove(index);
+	return true;
     }
 
     public boolean removeAll(Collection<?> coll) {
@@ -1523,8 +1882,11 @@ public final class CyclicArrayList<E>
      *    if this list does not contain this element.
      */
     public int getIndexOf(int idx, Object obj) {
-	for (int i = idx; i < this.list.size() + idx; i++) {
-	    if (Objects.equals(this.list.get(i), obj)) {
+	if (isEmpty()) {
+	    return -1;
+	}
+	for (int i = idx; i < this.size + idx; i++) {
+	    if (Objects.equals(get(i), obj)) {
 		return i;
 	    }
 	}
@@ -1566,11 +1928,11 @@ public final class CyclicArrayList<E>
 	// Here, len >= 0 and !this.isEmpty(). 
 	
 	List<E> newList = new ArrayList<E>(len);
+	List<E> thisList = asList();
 	for (int i = 0; i < len / size(); i++) {
-	    newList.addAll(this.list);
-	    //System.arraycopy(this.list, 0, newList, i*size(), size());
+	    newList.addAll(thisList);
 	}
-	newList.addAll(this.list.subList(0, len % size()));
+	newList.addAll(thisList.subList(0, len % size()));
 	return new CyclicArrayList<E>(newList);
     }
 
@@ -1591,28 +1953,15 @@ public final class CyclicArrayList<E>
     // not supported by CyclicList interface either 
     /**
      * Returns a clone of this <code>CyclicArrayList</code>. 
-     * This includes copying<code>vertices</code>. 
+     * This includes copying<code>vertices</code>, 
+     * which is deferred until one of the lists is modified. 
      *
      * @return 
      *     a clone of this <code>CyclicArrayList</code>. 
      *     This includes copying <code>vertices</code>. 
      */
-    @SuppressWarnings("unchecked")
     public CyclicArrayList<E> clone() // NOPMD
 	throws CloneNotSupportedException {
-    // 	CyclicArrayList<E> res = (CyclicArrayList<E>)super.clone();
-    // 	res.list.clear();// = (List<E>)((ArrayList<E>)this.list).clone();
-    // 	res.list.addAll((List<E>)((ArrayList<E>)this.list).clone());
-    // 	return res;
-	return new CyclicArrayList<E>
-	    ((List<E>) ((ArrayList<E>) this.list).clone());
+	return new CyclicArrayList<E>(this);
     }
 }
-
-// CyclicArrayList.java:1608: warning: [unchecked] unchecked cast
-// 	    ((List<E>) ((ArrayList<E>)this.list).clone());
-// 	                                              ^
-//   required: List<E>
-//   found:    Object
-//   where E is a type-variable:
-//     E extends Object declared in class CyclicArrayList
@@ -0,0 +1,328 @@
+
+package eu.simuline.util;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A cyclic list of <code>double</code>s 
+ * which, unlike a {@link CyclicList} of <code>Double</code>s, 
+ * stores its elements without boxing in an array. 
+ * As for {@link CyclicList}, all indices are interpreted 
+ * modulo the size of the list and may thus also be negative. 
+ * Iteration is done by {@link #forEachFrom(int, DoubleConsumer)} 
+ * without creating any objects. 
+ * <p>
+ * The <code>size</code>, <code>isEmpty</code>, 
+ * <code>get</code> and <code>set</code> operations run in constant time. 
+ * The <code>add</code> operation runs in <i>amortized constant time</i>, 
+ * whereas inserting and removing at other positions 
+ * requires linear time. 
+ * This class is not synchronized. 
+ *
+ * @see CyclicIntList 
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class CyclicDoubleList {
+
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The capacity of a cyclic list created by {@link #CyclicDoubleList()}. 
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The elements of this list with index <code>0, ..., size-1</code>. 
+     */
+    private double[] elems;
+
+    /**
+     * The number of elements of this list. 
+     */
+    private int size;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates a new empty cyclic list. 
+     */
+    public CyclicDoubleList() {
+	this.elems = new double[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a new cyclic list with the given elements. 
+     *
+     * @param values 
+     *    the elements of the new list in proper sequence. 
+     *    This array is copied. 
+     */
+    public CyclicDoubleList(double... values) {
+	this.elems = values.clone();
+	this.size = values.length;
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Returns the number of elements in this list. 
+     *
+     * @return 
+     *    the number of elements in this list. 
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Returns <code>true</code> iff this list contains no elements. 
+     *
+     * @return 
+     *    <code>true</code> iff this list contains no elements. 
+     */
+    public boolean isEmpty() {
+	return this.size == 0;
+    }
+
+    /**
+     * Returns the number which equals <code>index</code> 
+     * modulo {@link #size this.size()}, 
+     * provided this list is not empty. 
+     *
+     * @param index 
+     *    Any index (even negative ones) are valid. 
+     * @return 
+     *    the number in <code>0, ..., size()-1</code> 
+     *    which equals <code>index</code> modulo {@link #size this.size()}. 
+     * @throws EmptyCyclicListException 
+     *    if this list is empty. 
+     */
+    public int shiftIndex(int index) {
+	if (0 <= index && index < this.size) {
+	    // fast path avoiding division 
+	    return index;
+	}
+	if (this.size == 0) {
+	    throw new EmptyCyclicListException();
+	}
+	index %= this.size;
+	return index < 0 ? index + this.size : index;
+    }
+
+    /**
+     * Returns the element at the specified position in this list. 
+     *
+     * @param index 
+     *    index of element to return modulo the size of this list. 
+     * @return 
+     *    the element at the specified position in this list. 
+     * @throws EmptyCyclicListException 
+     *    if this list is empty. 
+     */
+    public double get(int index) {
+	return this.elems[shiftIndex(index)];
+    }
+
+    /**
+     * Replaces the element at the specified position in this list 
+     * with the specified element. 
+     *
+     * @param index 
+     *    index of the element to replace modulo the size of this list. 
+     * @param value 
+     *    element to be stored at the specified position. 
+     * @return 
+     *    the element previously at the specified position. 
+     * @throws EmptyCyclicListException 
+     *    if this list is empty. 
+     */
+    public double set(int index, double value) {
+	index = shiftIndex(index);
+	double res = this.elems[index];
+	this.elems[index] = value;
+	return res;
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, 
+     * to ensure that it can hold at least the number of elements 
+     * specified by the minimum capacity argument. 
+     *
+     * @param minCapacity 
+     *    the desired minimum capacity. 
+     */
+    public void ensureCapacity(int minCapacity) {
+	int cap = this.elems.length;
+	if (minCapacity > cap) {
+	    this.elems = Arrays.copyOf(this.elems,
+				       Math.max(minCapacity, cap + (cap >> 1)));
+	}
+    }
+
+    /**
+     * Appends the specified element to this list, 
+     * i.e. inserts it before the element with index <code>0</code>. 
+     *
+     * @param value 
+     *    element to be appended. 
+     */
+    public void add(double value) {
+	ensureCapacity(this.size + 1);
+	this.elems[this.size++] = value;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this list. 
+     * Afterwards, <code>get(index)</code> yields <code>value</code>. 
+     *
+     * @param index 
+     *    index at which the specified element is to be inserted. 
+     *    This is interpreted modulo the size of this list plus one. 
+     * @param value 
+     *    element to be inserted. 
+     */
+    public void add(int index, double value) {
+	// the size of the list emerging after the insertion 
+	int newSize = this.size + 1;
+	index %= newSize;
+	if (index < 0) {
+	    index += newSize;
+	}
+	ensureCapacity(this.size + 1);
+	System.arraycopy(this.elems, index, this.elems, index + 1,
+			 this.size - index);
+	this.elems[index] = value;
+	this.size++;
+    }
+
+    /**
+     * Removes the element at the specified position in this list. 
+     *
+     * @param index 
+     *    the index of the element to removed modulo the size of this list. 
+     * @return 
+     *    the element previously at the specified position. 
+     * @throws EmptyCyclicListException 
+     *    if this list is empty. 
+     */
+    public double remove(int index) {
+	index = shiftIndex(index);
+	double res = this.elems[index];
+	this.size--;
+	System.arraycopy(this.elems, index + 1, this.elems, index,
+			 this.size - index);
+	return res;
+    }
+
+    /**
+     * Removes all of the elements from this list. 
+     */
+    public void clear() {
+	this.size = 0;
+    }
+
+    /**
+     * Performs the given action for each element of this cyclic list 
+     * in proper sequence starting with the element with the given index. 
+     * This does neither box the elements nor create any other object. 
+     * If this list is empty, the action is never performed. 
+     *
+     * @param index 
+     *    index of the first element the action is performed for 
+     *    modulo the size of this list. 
+     * @param action 
+     *    the action to be performed for each element. 
+     */
+    public void forEachFrom(int index, DoubleConsumer action) {
+	if (isEmpty()) {
+	    return;
+	}
+	index = shiftIndex(index);
+	for (int i = index; i < this.size; i++) {
+	    action.accept(this.elems[i]);
+	}
+	for (int i = 0; i < index; i++) {
+	    action.accept(this.elems[i]);
+	}
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list 
+     * in proper sequence starting with the element with the given index. 
+     *
+     * @param index 
+     *    index of the element which comes first in the array returned 
+     *    modulo the size of this list. 
+     * @return 
+     *    an array containing all of the elements in this list. 
+     */
+    public double[] toArray(int index) {
+	double[] res = new double[this.size];
+	if (isEmpty()) {
+	    return res;
+	}
+	index = shiftIndex(index);
+	System.arraycopy(this.elems, index, res, 0, this.size - index);
+	System.arraycopy(this.elems, 0, res, this.size - index, index);
+	return res;
+    }
+
+    /**
+     * Returns whether <code>obj</code> is a <code>CyclicDoubleList</code> 
+     * with the same elements in the same order, 
+     * where elements are compared like by {@link Double#equals(Object)}. 
+     *
+     * @param obj 
+     *    the object to be compared for equality with this list. 
+     * @return 
+     *    <code>true</code> if the specified object is equal to this list. 
+     */
+    public boolean equals(Object obj) {
+	if (!(obj instanceof CyclicDoubleList)) {
+	    return false;
+	}
+	CyclicDoubleList other = (CyclicDoubleList) obj;
+	if (this.size != other.size) {
+	    return false;
+	}
+	for (int i = 0; i < this.size; i++) {
+	    if (Double.doubleToLongBits(this.elems[i])
+		!= Double.doubleToLongBits(other.elems[i])) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    // Note that the magic number comes from the spec of List.hashCode 
+    @SuppressWarnings("checkstyle:magicnumber")
+    public int hashCode() {
+	int hashCode = 1;
+	for (int i = 0; i < this.size; i++) {
+	    hashCode = 31 * hashCode + Double.hashCode(this.elems[i]);
+	}
+	return hashCode;
+    }
+
+    public String toString() {
+	StringBuffer res = new StringBuffer();
+	res.append("<CyclicList>\n");
+	for (int i = 0; i < this.size; i++) {
+	    res.append("" + this.elems[i] + " ");
+	}
+	res.append("</CyclicList>\n");
+	return res.toString();
+    }
+}
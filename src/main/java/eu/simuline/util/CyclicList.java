@@ -4,6 +4,7 @@ package eu.simuline.util;
 import java.util.List;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 /**
  * An ordered cyclic list. 
@@ -154,6 +155,36 @@ public interface CyclicList<E> extends Collection<E> {
      *    starting at the specified position in this list. 
      */
     CyclicIterator<E> cyclicIterator(int index);
+
+    /**
+     * Performs the given action for each element of this cyclic list 
+     * in proper sequence starting with the element with the given index. 
+     * In contrast to iterating with {@link #cyclicIterator(int)}, 
+     * this does not create any object. 
+     * If this list is empty, the action is never performed. 
+     * The behavior is unspecified 
+     * if the action modifies this list structurally. 
+     *
+     * @param index 
+     *    index of the first element the action is performed for. 
+     *    This is interpreted modulo the length of this cyclic list. 
+     *    Any index (even a negative one) is valid. 
+     * @param action 
+     *    the action to be performed for each element. 
+     */
+    // default so that implementations outside need not provide it; 
+    // CyclicArrayList overrides it avoiding the index computations 
+    default void forEachFrom(int index, Consumer<? super E> action) {
+	int size = size();
+	if (size == 0) {
+	    return;
+	}
+	// reduce first so that index + i does not overflow 
+	int start = index % size;
+	for (int i = 0; i < size; i++) {
+	    action.accept(get(start + i));
+	}
+    }
  
     /**
      * Returns an array containing all of the elements in this cyclic list 
@@ -204,7 +235,8 @@ public interface CyclicList<E> extends Collection<E> {
     /**
      * Returns a List containing all of the elements in this cyclic list 
      * in proper sequence. 
-     * Modifying the return value does not modify this CyclicList. 
+     * Modifying the return value does not modify this CyclicList; 
+     * implementations may return an unmodifiable view, though. 
      *
      * @param index 
      *    index of the element in the cyclic list 
@@ -336,7 +368,16 @@ public interface CyclicList<E> extends Collection<E> {
      * and with {@link #equals(Object)}, 
      * i.e. equals objects have equal hash codes. 
      * The hash code of this cyclic list 
-     * is the hash code of the underlying set. 
+     * is the result of the following calculation: 
+     * <pre> 
+     *  hashCode = 0; 
+     *  for (int i = 0; i &lt; list.size(); i++) { 
+     *      hashCode += mixHash(31*h(list.get(i - 1)) + h(list.get(i))); 
+     *  } 
+     * </pre> 
+     * where <code>h(obj)</code> is <code>obj.hashCode()</code> 
+     * or <code>0</code> if <code>obj</code> is <code>null</code> 
+     * and <code>mixHash</code> is {@link #mixHash(int)}. 
      * This ensures that <code>list1.equalsCyclic(list2)</code> implies that 
      * <code>list1.hashCodeCyclic()==list2.hashCodeCyclic()</code> 
      * for any two lists <code>list1</code> and <code>list2</code>. 
@@ -347,6 +388,29 @@ public interface CyclicList<E> extends Collection<E> {
      */
     int hashCodeCyclic();
 
+    /**
+     * Returns the finalization step of the MurmurHash3 hash function 
+     * applied to <code>hash</code>, 
+     * which spreads the bits of <code>hash</code> 
+     * over the whole range of <code>int</code>s. 
+     * This is part of the contract of {@link #hashCodeCyclic()} 
+     * and may be used by all implementations. 
+     *
+     * @param hash 
+     *    some hash code. 
+     * @return 
+     *    the mixed hash code. 
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    static int mixHash(int hash) {
+	hash ^= hash >>> 16;
+	hash *= 0x85ebca6b;
+	hash ^= hash >>> 13;
+	hash *= 0xc2b2ae35;
+	hash ^= hash >>> 16;
+	return hash;
+    }
+
     // Positional Access Operations
 
     /**
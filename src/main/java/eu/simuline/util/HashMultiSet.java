@@ -35,14 +35,29 @@ public final class HashMultiSet<T>
 	this(new HashMap<T, Multiplicity>());
     }
 
+    /**
+     * Creates a new, empty <code>MultiSet</code> 
+     * which can hold <code>expSize</code> elements without rehashing. 
+     *
+     * @param expSize 
+     *    the expected number of pairwise different elements. 
+     * @throws IllegalArgumentException 
+     *    if <code>expSize</code> is negative. 
+     */
+    public HashMultiSet(int expSize) {
+	this(new HashMap<T, Multiplicity>(capacityFor(expSize)));
+    }
+
     /**
      * Copy constructor. 
+     * The multiplicities are copied, not shared with <code>other</code>. 
      *
      * @param other 
      *    another <code>MultiSet</code> instance. 
      */
     public HashMultiSet(MultiSet<? extends T> other) {
-	this(new HashMap<T, Multiplicity>(other.getMap()));
+	this();
+	addAll(other);
     }
 
     /**
@@ -61,6 +76,22 @@ public final class HashMultiSet<T>
      * methods.                                                             *
      * -------------------------------------------------------------------- */
 
+    /**
+     * Returns the initial capacity of a {@link HashMap} 
+     * with default load factor to hold <code>num</code> entries 
+     * without rehashing. 
+     *
+     * @throws IllegalArgumentException 
+     *    if <code>num</code> is negative. 
+     */
+    private static int capacityFor(int num) {
+	if (num < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative size; found " + num + ". ");
+	}
+	return (int) Math.min(num * 4L / 3 + 1, Integer.MAX_VALUE);
+    }
+
     /**
      * Returns a view of the underlying set of this <code>MultiSet</code>. 
      * For certain implementations, this set is immutable 
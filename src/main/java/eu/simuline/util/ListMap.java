@@ -23,6 +23,17 @@ import java.util.Objects;
  * given by the ordering by which the keys are added. 
  * This is the {@link Map} corresponding with {@link ListSet}. 
  * <p>
+ * The keys are kept in a list indexed by a hash map 
+ * as described for {@link ListSet#sortedAsAdded()}. 
+ * Thus {@link #get(Object)}, {@link #containsKey(Object)} 
+ * and adding new keys by {@link #put(Object, Object)} 
+ * run in constant time, 
+ * whereas {@link #remove(Object)} is linear 
+ * in the number of keys after the removed one. 
+ * This holds also for the views returned by {@link #headMap(Object)}, 
+ * {@link #tailMap(Object)} and {@link #subMap(Object, Object)} 
+ * which are created in constant time. 
+ * <p>
  * Did not use {@link java.util.AbstractMap}, 
  * e.g. because {@link #keySet()} shall return more than just a {@link Set}. 
  *
@@ -674,6 +685,26 @@ public final class ListMap<K, V> implements SortedMap<K, V> {
      * Methods.                                                             *
      * -------------------------------------------------------------------- */
 
+    /**
+     * Returns an immutable copy of this map 
+     * with the same key-value pairs, ordering and comparator. 
+     * Keys and values are stored in arrays 
+     * and the keys are indexed by a hash table 
+     * as described for {@link ListSet#freeze()}, 
+     * so that {@link #get(Object)} runs in constant time. 
+     * All methods modifying the copy or its views 
+     * throw an <code>UnsupportedOperationException</code> 
+     * if they would change it. 
+     *
+     * @return 
+     *    an immutable copy of this map. 
+     */
+    public ListMap<K, V> freeze() {
+	return new ListMap<K, V>(this.keys.freeze(),
+				 new ListSet.FrozenList<V>(this.values.toArray(),
+							   false));
+    }
+
     public void clear() {
 	this.keys  .clear();
 	this.values.clear();
@@ -5,14 +5,22 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Objects;
 import java.util.Collection;
 import java.util.Collections; // for javadoc only. 
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Comparator;
 import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
 import java.util.AbstractSet;
 
+import java.util.function.Supplier;
+
 /**
  * This class implements the Set interface, 
  * backed by a {@link java.util.ArrayList java.util.ArrayList}. 
@@ -23,7 +31,18 @@ import java.util.AbstractSet;
  * The size, isEmpty, and iterator operations run in constant time. 
  * The add operation runs in amortized constant time, that is, 
  * adding n elements requires O(n) time. 
+ * The contains operation runs in logarithmic time 
+ * finding the element by binary search, 
+ * and so does remove except for shifting the list behind the element. 
+ * The bulk operations containsAll, retainAll and removeAll 
+ * run in linear time in the sizes of both sets by merging, 
+ * if the argument is a sorted set with the same comparator. 
  * All of the other operations run in linear time (roughly speaking). 
+ * For large sets, 
+ * the constructor {@link #ListSet(Comparator, Supplier)} 
+ * allows to choose a {@link ChunkedList} as backing list, 
+ * so that adding and removing at arbitrary positions 
+ * run in logarithmic time. 
  * <p>
  * Each ListSet instance has a capacity. 
  * The capacity is the size of the array used 
@@ -74,6 +93,410 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      * inner classes.                                                       *
      * -------------------------------------------------------------------- */
 
+    /**
+     * A list with pairwise different elements 
+     * backed by an {@link ArrayList} 
+     * and by a hash map from the elements to their positions. 
+     * Thus {@link #contains(Object)}, {@link #indexOf(Object)} 
+     * and adding at the end run in constant time, 
+     * whereas adding and removing elsewhere 
+     * requires updating the positions of the elements behind. 
+     * This is the list backing the sets created by {@link #sortedAsAdded()} 
+     * and makes {@link Comparators#getAsListed(List)} 
+     * compare in constant time. 
+     * The views returned by {@link #subList(int, int)} 
+     * look up elements in the hash map as well. 
+     *
+     * @param <E>
+     *    The type of the entries. 
+     */
+    private static final class HashIndexedList<E>
+	extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * The elements of this list. 
+	 */
+	private final List<E> elems;
+
+	/**
+	 * Maps each element of {@link #elems} to its position. 
+	 */
+	private final Map<Object, Integer> positions;
+
+	HashIndexedList() {
+	    this.elems = new ArrayList<E>();
+	    this.positions = new HashMap<Object, Integer>();
+	}
+
+	/**
+	 * Updates the positions of the elements from index <code>idx</code> on. 
+	 */
+	private void renumber(int idx) {
+	    for (int i = idx; i < this.elems.size(); i++) {
+		this.positions.put(this.elems.get(i), i);
+	    }
+	}
+
+	/**
+	 * Throws an exception if <code>obj</code> is already in this list. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    if <code>obj</code> is already in this list. 
+	 */
+	private void checkAbsent(Object obj) {
+	    if (this.positions.containsKey(obj)) {
+		throw new IllegalArgumentException
+		    ("Element " + obj + " is already contained. ");
+	    }
+	}
+
+	public E get(int idx) {
+	    return this.elems.get(idx);
+	}
+
+	public int size() {
+	    return this.elems.size();
+	}
+
+	public boolean contains(Object obj) {
+	    return this.positions.containsKey(obj);
+	}
+
+	public int indexOf(Object obj) {
+	    Integer pos = this.positions.get(obj);
+	    return pos == null ? -1 : pos;
+	}
+
+	public int lastIndexOf(Object obj) {
+	    return indexOf(obj);
+	}
+
+	public E set(int idx, E elem) {
+	    E old = this.elems.get(idx);
+	    if (!Objects.equals(old, elem)) {
+		checkAbsent(elem);
+		this.positions.remove(old);
+		this.positions.put(elem, idx);
+	    }
+	    return this.elems.set(idx, elem);
+	}
+
+	public void add(int idx, E elem) {
+	    checkAbsent(elem);
+	    this.elems.add(idx, elem);
+	    renumber(idx);
+	    this.modCount++;
+	}
+
+	public E remove(int idx) {
+	    E old = this.elems.remove(idx);
+	    this.positions.remove(old);
+	    renumber(idx);
+	    this.modCount++;
+	    return old;
+	}
+
+	public boolean remove(Object obj) {
+	    int idx = indexOf(obj);
+	    if (idx < 0) {
+		return false;
+	    }
+	    remove(idx);
+	    return true;
+	}
+
+	public List<E> subList(int fromIdx, int toIdx) {
+	    HashIndexedSubList.checkRange(fromIdx, toIdx, size());
+	    return new HashIndexedSubList<E>(this, null,
+					     fromIdx, toIdx - fromIdx);
+	}
+
+	/**
+	 * Returns the modification count 
+	 * for use by {@link HashIndexedSubList}. 
+	 */
+	int modCount() {
+	    return this.modCount;
+	}
+
+	protected void removeRange(int fromIdx, int toIdx) {
+	    List<E> range = this.elems.subList(fromIdx, toIdx);
+	    for (E elem : range) {
+		this.positions.remove(elem);
+	    }
+	    range.clear();
+	    renumber(fromIdx);
+	    this.modCount++;
+	}
+
+	public void clear() {
+	    this.elems.clear();
+	    this.positions.clear();
+	    this.modCount++;
+	}
+    } // class HashIndexedList 
+
+    /**
+     * A view on a range of a {@link HashIndexedList} 
+     * returned by {@link HashIndexedList#subList(int, int)} 
+     * which looks up its elements in the hash map of the underlying list, 
+     * so that {@link #contains(Object)} and {@link #indexOf(Object)} 
+     * run in constant time. 
+     * Like the sublists of {@link java.util.AbstractList}, 
+     * the view becomes invalid if the underlying list is modified 
+     * structurally other than through this view or its subviews. 
+     *
+     * @param <E>
+     *    The type of the entries. 
+     */
+    private static final class HashIndexedSubList<E>
+	extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * The list this is a view of. 
+	 */
+	private final HashIndexedList<E> root;
+
+	/**
+	 * The view this is a subview of 
+	 * or <code>null</code> if this is a direct view of {@link #root}. 
+	 */
+	private final HashIndexedSubList<E> parent;
+
+	/**
+	 * The index in {@link #root} of the first element of this view. 
+	 */
+	private final int offset;
+
+	/**
+	 * The number of elements of this view. 
+	 */
+	private int size;
+
+	HashIndexedSubList(HashIndexedList<E> root,
+			   HashIndexedSubList<E> parent,
+			   int offset,
+			   int size) {
+	    this.root = root;
+	    this.parent = parent;
+	    this.offset = offset;
+	    this.size = size;
+	    this.modCount = root.modCount();
+	}
+
+	/**
+	 * Checks that <code>0 &lt;= fromIdx &lt;= toIdx &lt;= size</code> 
+	 * as required for {@link List#subList(int, int)}. 
+	 *
+	 * @throws IndexOutOfBoundsException 
+	 *    if <code>fromIdx</code> or <code>toIdx</code> is out of range. 
+	 * @throws IllegalArgumentException 
+	 *    if <code>fromIdx &gt; toIdx</code>. 
+	 */
+	static void checkRange(int fromIdx, int toIdx, int size) {
+	    if (fromIdx < 0 || toIdx > size) {
+		throw new IndexOutOfBoundsException
+		    ("Range [" + fromIdx + ", " + toIdx + 
+		     ") not within size " + size + ". ");
+	    }
+	    if (fromIdx > toIdx) {
+		throw new IllegalArgumentException
+		    ("Range [" + fromIdx + ", " + toIdx + ") is inverted. ");
+	    }
+	}
+
+	private void checkIndex(int idx, int sup) {
+	    if (idx < 0 || idx >= sup) {
+		throw new IndexOutOfBoundsException
+		    ("Index " + idx + " not within size " + this.size + ". ");
+	    }
+	}
+
+	private void checkForComodification() {
+	    if (this.root.modCount() != this.modCount) {
+		throw new ConcurrentModificationException();
+	    }
+	}
+
+	/**
+	 * Adds <code>delta</code> to the size of this view and its parents 
+	 * after a structural modification of {@link #root}. 
+	 */
+	private void updateSize(int delta) {
+	    HashIndexedSubList<E> view = this;
+	    do {
+		view.size += delta;
+		view.modCount = this.root.modCount();
+		view = view.parent;
+	    } while (view != null);
+	}
+
+	public E get(int idx) {
+	    checkIndex(idx, this.size);
+	    checkForComodification();
+	    return this.root.get(this.offset + idx);
+	}
+
+	public int size() {
+	    checkForComodification();
+	    return this.size;
+	}
+
+	public int indexOf(Object obj) {
+	    checkForComodification();
+	    int idx = this.root.indexOf(obj) - this.offset;
+	    return idx >= 0 && idx < this.size ? idx : -1;
+	}
+
+	public int lastIndexOf(Object obj) {
+	    return indexOf(obj);
+	}
+
+	public boolean contains(Object obj) {
+	    return indexOf(obj) >= 0;
+	}
+
+	public E set(int idx, E elem) {
+	    checkIndex(idx, this.size);
+	    checkForComodification();
+	    return this.root.set(this.offset + idx, elem);
+	}
+
+	public void add(int idx, E elem) {
+	    checkIndex(idx, this.size + 1);
+	    checkForComodification();
+	    this.root.add(this.offset + idx, elem);
+	    updateSize(1);
+	}
+
+	public E remove(int idx) {
+	    checkIndex(idx, this.size);
+	    checkForComodification();
+	    E res = this.root.remove(this.offset + idx);
+	    updateSize(-1);
+	    return res;
+	}
+
+	protected void removeRange(int fromIdx, int toIdx) {
+	    checkForComodification();
+	    this.root.removeRange(this.offset + fromIdx, this.offset + toIdx);
+	    updateSize(fromIdx - toIdx);
+	}
+
+	public List<E> subList(int fromIdx, int toIdx) {
+	    checkRange(fromIdx, toIdx, size());
+	    return new HashIndexedSubList<E>(this.root, this,
+					     this.offset + fromIdx,
+					     toIdx - fromIdx);
+	}
+    } // class HashIndexedSubList 
+
+    /**
+     * An immutable list backed by an array 
+     * returned by {@link ListSet#getList()} for sets created by 
+     * {@link ListSet#freeze()} and used also for the values 
+     * of maps created by {@link ListMap#freeze()}. 
+     * If the elements differ pairwise, 
+     * the list may be indexed by an open addressing hash table 
+     * with linear probing, 
+     * so that {@link #indexOf(Object)} and {@link #contains(Object)} 
+     * run in constant time. 
+     * Otherwise, these methods are linear as for {@link AbstractList}. 
+     *
+     * @param <E>
+     *    The type of the entries. 
+     */
+    static final class FrozenList<E>
+	extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * The elements of this list. 
+	 */
+	private final Object[] elems;
+
+	/**
+	 * The hash table mapping the elements to their positions 
+	 * or <code>null</code> if this list is not indexed. 
+	 * An entry is either <code>0</code> if it is free 
+	 * or a position in {@link #elems} plus one. 
+	 * The length is a power of two at least twice the size of this list. 
+	 */
+	private final int[] table;
+
+	/**
+	 * Creates a list with the given elements. 
+	 *
+	 * @param elems 
+	 *    the elements of this list 
+	 *    which are not copied and must not be modified afterwards. 
+	 * @param isIndexed 
+	 *    whether to build a hash table for the elements 
+	 *    which requires that they differ pairwise. 
+	 */
+	FrozenList(Object[] elems, boolean isIndexed) {
+	    this.elems = elems;
+	    if (!isIndexed) {
+		this.table = null;
+		return;
+	    }
+	    int len = Integer.highestOneBit(Math.max(2 * elems.length, 1)) << 1;
+	    this.table = new int[len];
+	    int slot;
+	    for (int i = 0; i < elems.length; i++) {
+		slot = hash(elems[i]);
+		while (this.table[slot] != 0) {
+		    slot = (slot + 1) & (len - 1);
+		}
+		this.table[slot] = i + 1;
+	    }
+	}
+
+	/**
+	 * Returns the first slot in {@link #table} to look for <code>obj</code>. 
+	 */
+	private int hash(Object obj) {
+	    int code = Objects.hashCode(obj);
+	    // spread high bits as HashMap does 
+	    return (code ^ (code >>> 16)) & (this.table.length - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	public E get(int idx) {
+	    return (E) this.elems[idx];
+	}
+
+	public int size() {
+	    return this.elems.length;
+	}
+
+	public int indexOf(Object obj) {
+	    if (this.table == null) {
+		return super.indexOf(obj);
+	    }
+	    int slot = hash(obj);
+	    int pos;
+	    while ((pos = this.table[slot]) != 0) {
+		if (Objects.equals(this.elems[pos - 1], obj)) {
+		    return pos - 1;
+		}
+		slot = (slot + 1) & (this.table.length - 1);
+	    }
+	    return -1;
+	}
+
+	public int lastIndexOf(Object obj) {
+	    return this.table == null ? super.lastIndexOf(obj) : indexOf(obj);
+	}
+
+	public boolean contains(Object obj) {
+	    return indexOf(obj) >= 0;
+	}
+
+	public Object[] toArray() {
+	    return this.elems.clone();
+	}
+    } // class FrozenList 
+
     /* -------------------------------------------------------------------- *
      * fields.                                                              *
      * -------------------------------------------------------------------- */
@@ -101,6 +524,15 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      */
     private final Comparator<? super E> innerCmp;
 
+    /**
+     * Whether {@link #innerCmp} is given by the ordering of a list 
+     * as created by {@link Comparators#getAsListed(List)}. 
+     * In this case, elements are searched by {@link List#indexOf(Object)} 
+     * because comparing already requires finding the elements in the list. 
+     * Otherwise, elements are searched by binary search. 
+     */
+    private final boolean isAsListed;
+
     /* -------------------------------------------------------------------- *
      * constructors.                                                        *
      * -------------------------------------------------------------------- */
@@ -108,9 +540,16 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
     /**
      * Creates a new <code>ListSet</code> with ordering as added 
      * in ascending ordering. 
+     * The backing list returned by {@link #getList()} 
+     * is indexed by a hash map, 
+     * so that {@link #add(Object)}, {@link #contains(Object)} 
+     * and <code>getList().indexOf(Object)</code> run in constant time 
+     * and so does the comparator returned by {@link #comparator()}. 
+     * Adding an element to the backing list which is already contained 
+     * throws an <code>IllegalArgumentException</code>. 
      */
     public static <E> ListSet<E> sortedAsAdded() {
-	return sortedAsListed(new ArrayList<E>());
+	return sortedAsListed(new HashIndexedList<E>());
     }
 
     /**
@@ -128,7 +567,7 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    if <code>list</code> is <code>null</code>. 
      */
     public static <E> ListSet<E> sortedAsListed(List<E> list) {
-	return new ListSet<E>(list, Comparators.getAsListed(list));
+	return new ListSet<E>(list, Comparators.getAsListed(list), false);
     }
 
     /**
@@ -149,13 +588,19 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    contains each element once only. 
      * @param cmp
      *    A comparator or <code>null</code>. 
+     * @param isSorted 
+     *    whether <code>list</code> is known to be sorted already, 
+     *    e.g. because it is a sublist of a sorted list. 
+     *    If not, <code>list</code> is sorted. 
      * @throws ClassCastException
      *    if <code>cmp==null</code> but E doesn not extend Comparable&lg;E&gt;.
      */
     @SuppressWarnings("unchecked")
-    private ListSet(List<E> list, Comparator<? super E> cmp) {
+    private ListSet(List<E> list, Comparator<? super E> cmp,
+		    boolean isSorted) {
 	this.list = list;
 	this.outerCmp = cmp;
+	this.isAsListed = Comparators.isAsListed(cmp);
 
 	// set innerCmp 
 	if (cmp == null) {
@@ -170,7 +615,9 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
 	} else {
 	    this.innerCmp = cmp;
 	}
-	Collections.sort(this.list, this.innerCmp);
+	if (!isSorted) {
+	    Collections.sort(this.list, this.innerCmp);
+	}
 
 	
 	/*
@@ -265,7 +712,46 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    If null, the natural ordering of the elements will be used. 
      */
     public ListSet(Comparator<? super E> cmp) {
-	this(new ArrayList<E>(), cmp);
+	this(new ArrayList<E>(), cmp, true);
+    }
+
+    /**
+     * Constructs a new, empty set, 
+     * sorted according to the specified comparator <code>cmp</code> 
+     * as described for {@link #ListSet(Comparator)} 
+     * and backed by the list created by <code>listFactory</code>. 
+     * This allows to choose a storage strategy: 
+     * Whereas adding and removing elements of a large set 
+     * requires shifting the elements behind in an {@link ArrayList} 
+     * which is the default, 
+     * for a {@link ChunkedList} this requires logarithmic time only. 
+     *
+     * @param cmp 
+     *    the comparator that will be used to order this set. 
+     *    If null, the natural ordering of the elements will be used. 
+     * @param listFactory 
+     *    creates the list backing this set which must be empty. 
+     * @throws IllegalArgumentException 
+     *    if the list created by <code>listFactory</code> is not empty. 
+     */
+    public ListSet(Comparator<? super E> cmp,
+		   Supplier<? extends List<E>> listFactory) {
+	this(checkEmpty(listFactory.get()), cmp, true);
+    }
+
+    /**
+     * Returns <code>list</code> if it is empty. 
+     *
+     * @throws IllegalArgumentException 
+     *    if <code>list</code> is not empty. 
+     */
+    private static <E> List<E> checkEmpty(List<E> list) {
+	if (!list.isEmpty()) {
+	    throw new IllegalArgumentException
+		("Expected an empty list but found " + list.size() 
+		 + " elements. ");
+	}
+	return list;
     }
 
     /**
@@ -292,6 +778,32 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      * methods.                                                             *
      * -------------------------------------------------------------------- */
 
+    /**
+     * Returns an immutable copy of this set 
+     * with the same elements, ordering and comparator. 
+     * The elements are stored in an array. 
+     * For a set sorted as listed, the array is indexed by a hash table, 
+     * so that {@link #contains(Object)} runs in constant time; 
+     * otherwise it is searched with respect to the comparator as before, 
+     * because elements equal with respect to the comparator 
+     * need not be equal with respect to <code>equals</code>. 
+     * All methods modifying the copy or its views 
+     * throw an <code>UnsupportedOperationException</code> 
+     * if they would change it. 
+     * For a set sorted as listed like {@link #sortedAsAdded()}, 
+     * the comparator of the copy is given by its own list of elements. 
+     *
+     * @return 
+     *    an immutable copy of this set. 
+     */
+    public ListSet<E> freeze() {
+	FrozenList<E> frozen = new FrozenList<E>(this.list.toArray(),
+						 this.isAsListed);
+	Comparator<? super E> cmp = this.isAsListed
+	    ? Comparators.getAsListed(frozen) : this.outerCmp;
+	return new ListSet<E>(frozen, cmp, true);
+    }
+
     /**
      * Returns a list backing this set, 
      * so changes in the returned list are reflected in this set, 
@@ -336,20 +848,32 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    <code>true</code> if this set contains the specified element.
      */
      public boolean contains(Object obj) {
-	 // if (isEmpty()) {
-	 //     return false;
-	 // }
-	 // if (!this.list.get(0).getClass().isInstance(obj)) {
-	 //     return false;
-	 // }
-	 // E eObj = (E)obj;
-
-	 // int lastIdx = this.list.size()-1;
-	 // return this.innerCmp.compare(this.list.get(0      ), eObj) <= 0
-	 //     && this.innerCmp.compare(this.list.get(lastIdx), eObj) >= 0;
+	return search(obj) >= 0;
+    }
 
-	//return obj == null : containsNull : this.list.contains(obj);
-	 return this.list.contains(obj);
+    /**
+     * Returns the index of <code>obj</code> in {@link #list} 
+     * if this set contains <code>obj</code> and a negative number otherwise. 
+     * Unless {@link #isAsListed}, this is found by binary search 
+     * with respect to {@link #innerCmp}. 
+     *
+     * @param obj 
+     *    an arbitrary object. 
+     * @return 
+     *    the index of <code>obj</code> in {@link #list} 
+     *    or a negative number if <code>obj</code> is not contained. 
+     */
+    @SuppressWarnings("unchecked")
+    private int search(Object obj) {
+	if (this.isAsListed) {
+	    return this.list.indexOf(obj);
+	}
+	try {
+	    return Collections.binarySearch(this.list, (E) obj, this.innerCmp);
+	} catch (ClassCastException | NullPointerException e) {
+	    // obj is not comparable with the elements and so not contained 
+	    return -1;
+	}
     }
 
     /**
@@ -436,6 +960,14 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    element.
      */
     public boolean add(E obj) {
+	if (this.list instanceof HashIndexedList) {
+	    // sorted as added: new elements are at the end 
+	    if (this.list.contains(obj)) {
+		return false;
+	    }
+	    this.list.add(obj);
+	    return true;
+	}
 	int index = Collections.binarySearch(this.list, obj, this.innerCmp);
 	if (index >= 0) {
 	    return false;
@@ -461,7 +993,12 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    <code>true</code> if the set contained the specified element. 
      */
     public boolean remove(Object obj) {
-	return this.list.remove(obj);
+	int idx = search(obj);
+	if (idx < 0) {
+	    return false;
+	}
+	this.list.remove(idx);
+	return true;
     }
 
     /*----------------------------------------------------------------------*/
@@ -481,32 +1018,26 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      *    <code>true</code> if this set contains all of the elements 
      *    of the specified collection. 
      */
+    @SuppressWarnings("unchecked")
     public boolean containsAll(Collection<?> coll) {
-	// if (isSortedWithSameComparator(coll)) {
-	//     // ***** here more efficient code would be possible 
-	//     int min = 0;
-	//     int sup = this.list.size();
-	//     int index;
-	//     Iterator<?> iter = coll.iterator();
-	//     E elem;
-	//     while (iter.hasNext()) {
-	// 	try { /// **** not so good implementation. 
-	// 	    elem = (E)iter.next();
-	// 	} catch (ClassCastException cce) {
-	// 	    return false;
-	// 	}
-
-	// 	index = Collections.binarySearch(this.list.subList(min,sup),
-	// 					 elem,
-	// 					 this.innerCmp);
-	// 	//index = this.cmp.search(this.list.subList(min,sup),o);
-	// 	if (index < 0) {
-	// 	    return false;
-	// 	}
-	// 	min = index+1;
-	//     }
-	//     return true;
-	// } // same comparator 
+	if (!this.isAsListed && isSortedWithSameComparator(coll)) {
+	    // linear merge 
+	    Iterator<E> iter = this.list.iterator();
+	    int res;
+	    for (Object obj : coll) {
+		res = 1;
+		while (res > 0) {
+		    if (!iter.hasNext()) {
+			return false;
+		    }
+		    res = this.innerCmp.compare((E) obj, iter.next());
+		}
+		if (res < 0) {
+		    return false;
+		}
+	    }
+	    return true;
+	} // same comparator 
 
 	Iterator<?> iter = coll.iterator();
 	while (iter.hasNext()) {
@@ -723,15 +1254,59 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      * @see #remove
      */
     public boolean retainAll(Collection<?> coll) {
-/*
-	if (isSortedWithSameComparator(coll)) {
-	    // ***** here more efficient code would be possible 
+	if (!this.isAsListed && isSortedWithSameComparator(coll)) {
+	    return filterMerged(coll, true);
 	}
-*/
-	// **** not ideal if this and coll are both sorted! 
 	return this.list.retainAll(coll);
     }
 
+    /**
+     * Retains the elements of this set 
+     * which are contained in <code>coll</code> 
+     * if <code>keepCommon</code> is set 
+     * and those not contained otherwise. 
+     * This is done in linear time by merging 
+     * and by moving the retained elements to the front of {@link #list}. 
+     *
+     * @param coll 
+     *    a sorted set with the same comparator as this set. 
+     * @param keepCommon 
+     *    whether to retain the elements of this set 
+     *    contained in <code>coll</code> or those not contained. 
+     * @return 
+     *    <code>true</code> if this set changed as a result of the call. 
+     */
+    @SuppressWarnings("unchecked")
+    private boolean filterMerged(Collection<?> coll, boolean keepCommon) {
+	assert isSortedWithSameComparator(coll);
+	Iterator<?> iter = coll.iterator();
+	boolean hasOther = iter.hasNext();
+	E other = hasOther ? (E) iter.next() : null;
+	int size = this.list.size();
+	int write = 0;
+	E elem;
+	int res;
+	for (int read = 0; read < size; read++) {
+	    elem = this.list.get(read);
+	    res = 1;
+	    while (hasOther && (res = this.innerCmp.compare(elem, other)) > 0) {
+		hasOther = iter.hasNext();
+		other = hasOther ? (E) iter.next() : null;
+	    }
+	    if ((hasOther && res == 0) == keepCommon) {
+		if (write != read) {
+		    this.list.set(write, elem);
+		}
+		write++;
+	    }
+	}
+	if (write == size) {
+	    return false;
+	}
+	this.list.subList(write, size).clear();
+	return true;
+    }
+
     /**
      * Removes from this set all of its elements 
      * that are contained in the specified collection. 
@@ -747,7 +1322,9 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
      * @see #remove
      */
     public boolean removeAll(Collection<?> coll) {
-	// **** not ideal if this and coll are both sorted! 
+	if (!this.isAsListed && isSortedWithSameComparator(coll)) {
+	    return filterMerged(coll, false);
+	}
 	return this.list.removeAll(coll);
     }
 
@@ -770,6 +1347,11 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
 
     // also used in {@link ListMap} 
     int obj2idx(E obj) {
+	if (this.list instanceof HashIndexedList) {
+	    // elements not contained are maximal 
+	    int idx = this.list.indexOf(obj);
+	    return idx < 0 ? size() : idx;
+	}
 	int idx = Collections.binarySearch(this.list, obj, this.innerCmp);
 	if (idx < 0) {
 	    idx = -idx - 1;
@@ -783,7 +1365,9 @@ public final class ListSet<E> extends AbstractSet<E> implements SortedSet<E> {
     // no failure when trying to compile subSetIdx renamed in subSet  
     // although this should give name clash when invoked with E=Integer 
     ListSet<E> subSetIdx(int fromIdx, int toIdx) {
-	return new ListSet<E>(this.list.subList(fromIdx, toIdx), this.outerCmp);
+	// a sublist of a sorted list is sorted 
+	return new ListSet<E>(this.list.subList(fromIdx, toIdx),
+			      this.outerCmp, true);
     }
 
     // api-docs inherited from SortedSet 
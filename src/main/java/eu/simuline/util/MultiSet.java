@@ -4,7 +4,11 @@ package eu.simuline.util;
 import java.util.Collection;
 import java.util.Set;
 import java.util.Map;
+import java.util.List;
 import java.util.Iterator; // for docs only 
+import java.util.Spliterator;
+
+import java.util.stream.Stream;
 
 /**
  * Represents a set with multiplicities. 
@@ -172,6 +176,25 @@ public interface MultiSet<T> extends Iterable<T> {
      */
     int getMaxMult();
 
+    /**
+     * Returns the <code>k</code> elements with highest multiplicities 
+     * in descending order of multiplicities, 
+     * or all elements if there are less than <code>k</code>. 
+     * Among elements with equal multiplicities, the order is not specified. 
+     * For <code>k == 1</code> this is in line with 
+     * {@link #getObjWithMaxMult()}. 
+     *
+     * @param k 
+     *    the maximal number of elements to be returned. 
+     * @return 
+     *    a list of <code>min(k, size())</code> elements 
+     *    with highest multiplicities in descending order. 
+     *    The list is not backed by this <code>MultiSet</code>. 
+     * @throws IllegalArgumentException 
+     *    if <code>k</code> is negative. 
+     */
+    List<T> topK(int k);
+
     /**
      * Returns the multiplicity 
      * with which the given object occurs within this set. 
@@ -242,6 +265,48 @@ public interface MultiSet<T> extends Iterable<T> {
      */
     MultiSetIterator<T> iterator();
 
+    /**
+     * Returns a spliterator over the elements of this <code>MultiSet</code> 
+     * which emits each element exactly once, ignoring its multiplicity. 
+     * The spliterator reports {@link Spliterator#DISTINCT} 
+     * and splits the underlying data structure 
+     * so that parallel streams scale. 
+     * Whether it is late-binding, fail-fast or weakly consistent 
+     * depends on the implementation as for {@link #iterator()}. 
+     *
+     * @return 
+     *    a <code>Spliterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    Spliterator<T> spliterator();
+
+    /**
+     * Returns a sequential stream 
+     * of the elements of this <code>MultiSet</code> 
+     * based on {@link #spliterator()}, 
+     * which emits each element exactly once, ignoring its multiplicity. 
+     * For a parallel stream, invoke {@link Stream#parallel()}. 
+     *
+     * @return 
+     *    a sequential <code>Stream</code> over the elements of this set. 
+     */
+    Stream<T> stream();
+
+    /**
+     * Returns a sequential stream 
+     * of the entries of this <code>MultiSet</code> 
+     * mapping each element to its multiplicity 
+     * as {@link #getSetWithMults()} does. 
+     * This allows aggregations taking multiplicities into account 
+     * without looking up each element. 
+     * For a parallel stream, invoke {@link Stream#parallel()}. 
+     *
+     * @return 
+     *    a sequential <code>Stream</code> 
+     *    over the entries of this set with multiplicities. 
+     */
+    Stream<Map.Entry<T, Multiplicity>> entryStream();
+
     /**
      * Returns an array containing all of the elements 
      * in this <code>MultiSet</code> exactly once, ignoring its multiplicity. 
@@ -0,0 +1,649 @@
+
+package eu.simuline.util;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.StreamCorruptedException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+
+/**
+ * A compact binary format for {@link MultiSet}s 
+ * with a pluggable {@link ElementCodec} for the elements. 
+ * The format consists of 
+ * <ul> 
+ * <li> 
+ * a byte which is {@link #SORTED} if the elements are delta-encoded 
+ * and <code>0</code> otherwise, 
+ * <li> 
+ * the number of pairwise different elements as a varint, 
+ * <li> 
+ * for each element the element as encoded by the {@link ElementCodec} 
+ * followed by its multiplicity as a varint. 
+ * </ul> 
+ * Varints are unsigned in little endian order with seven bits per byte, 
+ * the highest bit signifying that further bytes follow. 
+ * <p>
+ * If a {@link SortedMultiSet} is written, 
+ * each element is encoded relative to its predecessor 
+ * as described for {@link ElementCodec}: 
+ * {@link #INTEGERS} and {@link #LONGS} write the difference 
+ * and {@link #STRINGS} the length of the common prefix and the rest. 
+ * <p>
+ * Multi-sets are written through {@link WritableByteChannel}s 
+ * and read through {@link ReadableByteChannel}s 
+ * or from memory-mapped files. 
+ * Reading adds the elements one by one to a given multi-set 
+ * without intermediate collections. 
+ *
+ * @param <T>
+ *    the class of the elements of the multi-sets. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class MultiSetCodec<T> {
+
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Writes and reads single elements of multi-sets. 
+     * Each element is passed with its predecessor 
+     * which is <code>null</code> for the first element 
+     * and for multi-sets which are not sorted. 
+     * Implementations may encode an element relative to its predecessor 
+     * if that is not <code>null</code>. 
+     *
+     * @param <T>
+     *    the class of the elements. 
+     */
+    public interface ElementCodec<T> {
+
+	/**
+	 * Writes <code>elem</code> to <code>out</code> 
+	 * possibly relative to <code>prev</code>. 
+	 *
+	 * @param prev 
+	 *    the element written before or <code>null</code>. 
+	 * @param elem 
+	 *    the element to be written which is not <code>null</code>. 
+	 * @param out 
+	 *    the output to write to. 
+	 * @throws IOException 
+	 *    if writing fails. 
+	 */
+	void write(T prev, T elem, Output out) throws IOException;
+
+	/**
+	 * Reads an element from <code>in</code> 
+	 * written by {@link #write(Object, Object, Output)} 
+	 * with the same predecessor <code>prev</code>. 
+	 *
+	 * @param prev 
+	 *    the element read before or <code>null</code>. 
+	 * @param in 
+	 *    the input to read from. 
+	 * @return 
+	 *    the element read. 
+	 * @throws IOException 
+	 *    if reading fails or the data are malformed. 
+	 */
+	T read(T prev, Input in) throws IOException;
+    } // interface ElementCodec 
+
+    /**
+     * Buffers bytes to be written to a {@link WritableByteChannel}. 
+     */
+    public static final class Output {
+
+	/**
+	 * The buffer in write mode. 
+	 */
+	private final ByteBuffer buf;
+
+	/**
+	 * The channel the content of {@link #buf} is flushed to. 
+	 */
+	private final WritableByteChannel channel;
+
+	Output(WritableByteChannel channel) {
+	    this.buf = ByteBuffer.allocate(BUFFER_SIZE);
+	    this.channel = channel;
+	}
+
+	/**
+	 * Makes room for <code>num</code> bytes in {@link #buf} 
+	 * which may not exceed its capacity. 
+	 */
+	private void ensure(int num) throws IOException {
+	    if (this.buf.remaining() < num) {
+		flush();
+	    }
+	}
+
+	/**
+	 * Writes the content of {@link #buf} to {@link #channel}. 
+	 */
+	void flush() throws IOException {
+	    this.buf.flip();
+	    while (this.buf.hasRemaining()) {
+		this.channel.write(this.buf);
+	    }
+	    this.buf.clear();
+	}
+
+	/**
+	 * Writes the lowest eight bits of <code>val</code>. 
+	 */
+	public void writeByte(int val) throws IOException {
+	    ensure(1);
+	    this.buf.put((byte) val);
+	}
+
+	/**
+	 * Writes <code>val</code> as an unsigned varint 
+	 * using between one and ten bytes. 
+	 */
+	public void writeVarLong(long val) throws IOException {
+	    ensure(10);
+	    while ((val & ~0x7FL) != 0) {
+		this.buf.put((byte) (val & 0x7F | 0x80));
+		val >>>= 7;
+	    }
+	    this.buf.put((byte) val);
+	}
+
+	/**
+	 * Writes the non-negative <code>val</code> as an unsigned varint 
+	 * using between one and five bytes. 
+	 */
+	public void writeVarInt(int val) throws IOException {
+	    writeVarLong(val & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes the given bytes. 
+	 */
+	public void writeBytes(byte[] bytes) throws IOException {
+	    int off = 0;
+	    int len;
+	    while (off < bytes.length) {
+		if (!this.buf.hasRemaining()) {
+		    flush();
+		}
+		len = Math.min(bytes.length - off, this.buf.remaining());
+		this.buf.put(bytes, off, len);
+		off += len;
+	    }
+	}
+    } // class Output 
+
+    /**
+     * Reads bytes from a buffer 
+     * which is either refilled from a {@link ReadableByteChannel}, 
+     * or replaced by the next region of a file mapped into memory, 
+     * or covers all data. 
+     */
+    public static final class Input {
+
+	/**
+	 * The buffer in read mode. 
+	 */
+	private ByteBuffer buf;
+
+	/**
+	 * The channel to refill {@link #buf} from 
+	 * or <code>null</code> if {@link #buf} is not refilled. 
+	 */
+	private final ReadableByteChannel channel;
+
+	/**
+	 * The file the next region of which is mapped into {@link #buf} 
+	 * or <code>null</code> if {@link #buf} is not replaced. 
+	 */
+	private final FileChannel file;
+
+	/**
+	 * The size of {@link #file}. 
+	 */
+	private final long fileSize;
+
+	/**
+	 * The position in {@link #file} of the next region to be mapped. 
+	 */
+	private long filePos;
+
+	Input(ReadableByteChannel channel) {
+	    this.buf = ByteBuffer.allocate(BUFFER_SIZE);
+	    this.buf.flip();
+	    this.channel = channel;
+	    this.file = null;
+	    this.fileSize = 0;
+	}
+
+	Input(ByteBuffer buf) {
+	    this.buf = buf;
+	    this.channel = null;
+	    this.file = null;
+	    this.fileSize = 0;
+	}
+
+	Input(FileChannel file) throws IOException {
+	    this.buf = ByteBuffer.allocate(0);
+	    this.channel = null;
+	    this.file = file;
+	    this.fileSize = file.size();
+	    this.filePos = 0;
+	}
+
+	/**
+	 * Makes {@link #buf} contain at least one byte. 
+	 *
+	 * @throws EOFException 
+	 *    if there is no further byte. 
+	 */
+	private void require() throws IOException {
+	    if (this.buf.hasRemaining()) {
+		return;
+	    }
+	    if (this.file != null && this.filePos < this.fileSize) {
+		long len = Math.min(this.fileSize - this.filePos, MAX_REGION);
+		this.buf = this.file.map(FileChannel.MapMode.READ_ONLY,
+					 this.filePos, len);
+		this.filePos += len;
+		return;
+	    }
+	    if (this.channel != null) {
+		this.buf.clear();
+		int num;
+		do {
+		    num = this.channel.read(this.buf);
+		} while (num == 0);
+		this.buf.flip();
+		if (num > 0) {
+		    return;
+		}
+	    }
+	    throw new EOFException("Unexpected end of data. ");
+	}
+
+	/**
+	 * Reads a byte as an <code>int</code> between 0 and 255. 
+	 */
+	public int readByte() throws IOException {
+	    require();
+	    return this.buf.get() & 0xFF;
+	}
+
+	/**
+	 * Reads an unsigned varint 
+	 * written by {@link Output#writeVarLong(long)}. 
+	 *
+	 * @throws StreamCorruptedException 
+	 *    if the varint does not fit into a <code>long</code>. 
+	 */
+	public long readVarLong() throws IOException {
+	    long res = 0;
+	    int cByte;
+	    for (int shift = 0; shift < 63; shift += 7) {
+		cByte = readByte();
+		res |= (long) (cByte & 0x7F) << shift;
+		if ((cByte & 0x80) == 0) {
+		    return res;
+		}
+	    }
+	    // the tenth byte holds bit 63 only 
+	    cByte = readByte();
+	    if ((cByte & ~0x01) != 0) {
+		throw new StreamCorruptedException
+		    ("Varint exceeds long range. ");
+	    }
+	    return res | (long) cByte << 63;
+	}
+
+	/**
+	 * Reads an unsigned varint 
+	 * written by {@link Output#writeVarInt(int)}. 
+	 *
+	 * @throws StreamCorruptedException 
+	 *    if the varint does not fit into a non-negative <code>int</code>. 
+	 */
+	public int readVarInt() throws IOException {
+	    int res = 0;
+	    int cByte;
+	    for (int shift = 0; shift < 28; shift += 7) {
+		cByte = readByte();
+		res |= (cByte & 0x7F) << shift;
+		if ((cByte & 0x80) == 0) {
+		    return res;
+		}
+	    }
+	    // the fifth byte holds bits 28 to 30 as bit 31 is the sign 
+	    cByte = readByte();
+	    if ((cByte & ~0x07) != 0) {
+		throw new StreamCorruptedException
+		    ("Varint exceeds int range. ");
+	    }
+	    return res | cByte << 28;
+	}
+
+	/**
+	 * Reads <code>len</code> bytes. 
+	 * As <code>len</code> may stem from corrupt data, 
+	 * the result grows only as bytes are read, 
+	 * so that a length exceeding the data 
+	 * causes an <code>EOFException</code> 
+	 * rather than an <code>OutOfMemoryError</code>. 
+	 *
+	 * @param len 
+	 *    the non-negative number of bytes to be read. 
+	 */
+	public byte[] readBytes(int len) throws IOException {
+	    byte[] res = new byte[Math.min(len, BUFFER_SIZE)];
+	    int off = 0;
+	    int num;
+	    while (off < len) {
+		require();
+		if (off == res.length) {
+		    res = Arrays.copyOf(res, (int) Math.min(len,
+							   2L * off));
+		}
+		num = Math.min(res.length - off, this.buf.remaining());
+		this.buf.get(res, off, num);
+		off += num;
+	    }
+	    return res;
+	}
+    } // class Input 
+
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The first byte of the format if the elements are delta-encoded. 
+     */
+    public static final int SORTED = 1;
+
+    /**
+     * The size of the buffers used for channels. 
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * The maximal number of bytes of a file mapped into memory at once. 
+     */
+    private static final int MAX_REGION = 1 << 28;
+
+    /**
+     * Encodes {@link Integer}s as zigzag varints, 
+     * if possible the difference to the predecessor. 
+     */
+    public static final ElementCodec<Integer> INTEGERS =
+	new ElementCodec<Integer>() {
+	    public void write(Integer prev, Integer elem, Output out)
+		throws IOException {
+		out.writeVarLong(zigZag(prev == null
+					? elem : (long) elem - prev));
+	    }
+
+	    public Integer read(Integer prev, Input in) throws IOException {
+		long val = unZigZag(in.readVarLong());
+		return (int) (prev == null ? val : prev + val);
+	    }
+	};
+
+    /**
+     * Encodes {@link Long}s as zigzag varints, 
+     * if possible the difference to the predecessor. 
+     * Differences may overflow, but are decoded correctly nevertheless. 
+     */
+    public static final ElementCodec<Long> LONGS =
+	new ElementCodec<Long>() {
+	    public void write(Long prev, Long elem, Output out)
+		throws IOException {
+		out.writeVarLong(zigZag(prev == null ? elem : elem - prev));
+	    }
+
+	    public Long read(Long prev, Input in) throws IOException {
+		long val = unZigZag(in.readVarLong());
+		return prev == null ? val : prev + val;
+	    }
+	};
+
+    /**
+     * Encodes {@link String}s in UTF-8 preceded by the length in bytes. 
+     * If there is a predecessor, 
+     * only the part after the common prefix is encoded 
+     * preceded by the length of that prefix in chars. 
+     */
+    public static final ElementCodec<String> STRINGS =
+	new ElementCodec<String>() {
+	    public void write(String prev, String elem, Output out)
+		throws IOException {
+		int common = 0;
+		if (prev != null) {
+		    int max = Math.min(prev.length(), elem.length());
+		    while (common < max
+			   && prev.charAt(common) == elem.charAt(common)) {
+			common++;
+		    }
+		    // do not split a surrogate pair 
+		    if (common > 0
+			&& Character.isHighSurrogate(elem.charAt(common - 1))) {
+			common--;
+		    }
+		    out.writeVarInt(common);
+		}
+		byte[] bytes = elem.substring(common)
+		    .getBytes(StandardCharsets.UTF_8);
+		out.writeVarInt(bytes.length);
+		out.writeBytes(bytes);
+	    }
+
+	    public String read(String prev, Input in) throws IOException {
+		int common = 0;
+		if (prev != null) {
+		    common = in.readVarInt();
+		    if (common > prev.length()) {
+			throw new StreamCorruptedException
+			    ("Common prefix " + common + 
+			     " exceeds length of \"" + prev + "\". ");
+		    }
+		}
+		String rest = new String(in.readBytes(in.readVarInt()),
+					 StandardCharsets.UTF_8);
+		return prev == null ? rest : prev.substring(0, common) + rest;
+	    }
+	};
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Writes and reads the elements of the multi-sets. 
+     */
+    private final ElementCodec<T> elemCodec;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates a codec for multi-sets 
+     * with elements encoded by <code>elemCodec</code>. 
+     *
+     * @param elemCodec 
+     *    an element codec, e.g. {@link #INTEGERS} or {@link #STRINGS}. 
+     */
+    public MultiSetCodec(ElementCodec<T> elemCodec) {
+	this.elemCodec = elemCodec;
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Returns the zigzag encoding of <code>val</code> 
+     * mapping numbers with small absolute value to small unsigned ones. 
+     */
+    static long zigZag(long val) {
+	return (val << 1) ^ (val >> 63);
+    }
+
+    /**
+     * Inverse of {@link #zigZag(long)}. 
+     */
+    static long unZigZag(long val) {
+	return (val >>> 1) ^ -(val & 1);
+    }
+
+    /**
+     * Writes <code>mSet</code> to <code>channel</code>. 
+     * The elements are delta-encoded 
+     * if <code>mSet</code> is a {@link SortedMultiSet}. 
+     * The channel is not closed. 
+     *
+     * @param mSet 
+     *    the multi-set to be written which may not contain <code>null</code>. 
+     * @param channel 
+     *    the channel to write to. 
+     * @throws IOException 
+     *    if writing fails. 
+     */
+    public void write(MultiSet<? extends T> mSet, WritableByteChannel channel)
+	throws IOException {
+	Output out = new Output(channel);
+	boolean isSorted = mSet instanceof SortedMultiSet;
+	out.writeByte(isSorted ? SORTED : 0);
+	out.writeVarInt(mSet.size());
+	MultiSetIterator<? extends T> iter = mSet.iterator();
+	T prev = null;
+	T elem;
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    this.elemCodec.write(prev, elem, out);
+	    out.writeVarInt(iter.getMult());
+	    if (isSorted) {
+		prev = elem;
+	    }
+	}
+	out.flush();
+    }
+
+    /**
+     * Writes <code>mSet</code> to the file given by <code>path</code> 
+     * which is created or truncated. 
+     *
+     * @param mSet 
+     *    the multi-set to be written which may not contain <code>null</code>. 
+     * @param path 
+     *    the path of the file to write to. 
+     * @throws IOException 
+     *    if writing fails. 
+     * @see #write(MultiSet, WritableByteChannel) 
+     */
+    public void write(MultiSet<? extends T> mSet, Path path)
+	throws IOException {
+	try (FileChannel channel =
+	     FileChannel.open(path,
+			      StandardOpenOption.CREATE,
+			      StandardOpenOption.TRUNCATE_EXISTING,
+			      StandardOpenOption.WRITE)) {
+	    write(mSet, channel);
+	}
+    }
+
+    /**
+     * Reads a multi-set from <code>in</code> 
+     * and adds its elements with their multiplicities to <code>target</code>. 
+     */
+    private <M extends MultiSet<T>> M read(Input in, M target)
+	throws IOException {
+	int flags = in.readByte();
+	if ((flags & ~SORTED) != 0) {
+	    throw new StreamCorruptedException
+		("Unknown format " + flags + ". ");
+	}
+	boolean isSorted = flags == SORTED;
+	int size = in.readVarInt();
+	T prev = null;
+	T elem;
+	int mult;
+	for (int i = 0; i < size; i++) {
+	    elem = this.elemCodec.read(prev, in);
+	    mult = in.readVarInt();
+	    if (mult <= 0) {
+		throw new StreamCorruptedException
+		    ("Found non-positive multiplicity " + mult + ". ");
+	    }
+	    target.addWithMult(elem, mult);
+	    if (isSorted) {
+		prev = elem;
+	    }
+	}
+	return target;
+    }
+
+    /**
+     * Reads a multi-set from <code>channel</code> 
+     * and adds its elements with their multiplicities to <code>target</code> 
+     * one by one as they are decoded. 
+     * Exactly the bytes written by 
+     * {@link #write(MultiSet, WritableByteChannel)} are consumed 
+     * only if the channel contains nothing else: 
+     * bytes following the multi-set may be read into a buffer. 
+     * The channel is not closed. 
+     *
+     * @param channel 
+     *    the channel to read from. 
+     * @param target 
+     *    the multi-set to add the elements read to. 
+     * @return 
+     *    <code>target</code>. 
+     * @throws IOException 
+     *    if reading fails or the data are malformed. 
+     *    In this case, <code>target</code> may be modified partially. 
+     */
+    public <M extends MultiSet<T>> M read(ReadableByteChannel channel,
+					  M target) throws IOException {
+	return read(new Input(channel), target);
+    }
+
+    /**
+     * Reads a multi-set from the file given by <code>path</code> 
+     * which is mapped into memory region by region, 
+     * so that also files of several gigabytes can be read, 
+     * and adds its elements with their multiplicities to <code>target</code>. 
+     *
+     * @param path 
+     *    the path of the file to read from. 
+     * @param target 
+     *    the multi-set to add the elements read to. 
+     * @return 
+     *    <code>target</code>. 
+     * @throws IOException 
+     *    if reading fails or the data are malformed. 
+     *    In this case, <code>target</code> may be modified partially. 
+     * @see #read(ReadableByteChannel, MultiSet) 
+     */
+    public <M extends MultiSet<T>> M read(Path path, M target)
+	throws IOException {
+	try (FileChannel channel = FileChannel.open(path,
+						    StandardOpenOption.READ)) {
+	    return read(new Input(channel), target);
+	}
+    }
+}
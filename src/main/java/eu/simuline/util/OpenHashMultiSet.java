@@ -0,0 +1,2168 @@
+
+package eu.simuline.util;
+
+import eu.simuline.util.MultiSet.Multiplicity;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.Map;
+import java.util.AbstractSet;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+
+import java.util.function.Consumer;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Represents a set with multiplicities 
+ * based on an open addressing hash table with linear probing. 
+ * Unlike {@link HashMultiSet}, this implementation 
+ * does not store a {@link Multiplicity} object for each element: 
+ * The elements are kept in an array {@link #keys} 
+ * and the multiplicities in a parallel array {@link #mults} of ints. 
+ * So there is neither a map entry nor a multiplicity object 
+ * per element, 
+ * and adding an element which is already present allocates nothing. 
+ * <p>
+ * Note that this kind of set does not support <code>null</code> elements. 
+ * <p>
+ * The methods {@link #getMultiplicityObj(Object)}, {@link #getMap()} 
+ * and {@link #getSetWithMults()} and also 
+ * {@link MultiSetIterator#getMultObj()} of the iterator 
+ * are supported through views created on demand: 
+ * the {@link Multiplicity}s returned 
+ * read and write the multiplicity of their element in this multi-set. 
+ * Unlike the ones of {@link AbstractMultiSet}, 
+ * they do not survive removal of their element. 
+ * <p>
+ * <strong>Note that this implementation is not synchronized.</strong> 
+ * The iterators returned by this class are fail-fast: 
+ * if the set of elements is modified 
+ * at any time after the iterator is created, 
+ * in any way except through the iterator itself, 
+ * the iterator throws a {@link ConcurrentModificationException}. 
+ * Merely changing the multiplicity of an element already present 
+ * is not considered a modification in this sense. 
+ *
+ * @param <T>
+ *    the class of the elements of this multi-set. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class OpenHashMultiSet<T> implements MultiSet<T> {
+
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * A {@link Multiplicity} which is a view 
+     * on the multiplicity of {@link #key} in the enclosing multi-set. 
+     * Instances are created on demand only. 
+     */
+    private final class MultiplicityView implements Multiplicity {
+
+	/**
+	 * The element the multiplicity of which is represented. 
+	 */
+	private final T key;
+
+	MultiplicityView(T key) {
+	    this.key = key;
+	}
+
+	/**
+	 * Returns the index of {@link #key} in {@link #keys}. 
+	 *
+	 * @throws IllegalStateException 
+	 *    if {@link #key} has been removed from the enclosing multi-set. 
+	 */
+	private int slot() {
+	    int slot = indexOf(this.key);
+	    if (slot < 0) {
+		throw new IllegalStateException
+		    ("Element " + this.key + 
+		     " is no longer in this MultiSet. ");
+	    }
+	    return slot;
+	}
+
+	/**
+	 * Sets the multiplicity of {@link #key} 
+	 * to the specified value. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    if <code>mult</code> is not strictly positive. 
+	 * @throws IllegalStateException 
+	 *    if {@link #key} has been removed from the enclosing multi-set. 
+	 */
+	public int set(int mult) {
+	    if (mult <= 0) {
+		throw new IllegalArgumentException
+		    ("Expected non-negative multiplicity; found " + 
+		     mult + ". ");
+	    }
+	    return setSlot(slot(), mult);
+	}
+
+	/**
+	 * Adds the specified multiplicity (which may well be negative) 
+	 * to the multiplicity of {@link #key}. 
+	 *
+	 * @throws IllegalArgumentException 
+	 *    if the resulting multiplicity is not strictly positive. 
+	 * @throws IllegalStateException 
+	 *    if {@link #key} has been removed from the enclosing multi-set. 
+	 */
+	public int add(int mult) {
+	    return addToSlot(slot(), mult);
+	}
+
+	/**
+	 * Returns the multiplicity of {@link #key} 
+	 * which is <code>0</code> if it has been removed. 
+	 */
+	public int get() {
+	    return getMultiplicity(this.key);
+	}
+
+	public int compareTo(Multiplicity mult) {
+	    return this.get() - mult.get();
+	}
+
+	// api-docs provided by javadoc. 
+	public String toString() {
+	    return "Multiplicity " + get();
+	}
+
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Multiplicity)) {
+		return false;
+	    }
+	    return ((Multiplicity) obj).get() == this.get();
+	}
+
+	// api-docs provided by javadoc. 
+	public int hashCode() {
+	    return get();
+	}
+    } // class MultiplicityView 
+
+    /**
+     * An entry mapping an element of the enclosing multi-set 
+     * to a {@link MultiplicityView} on its multiplicity. 
+     */
+    private final class EntryView implements Map.Entry<T, Multiplicity> {
+
+	/**
+	 * The key of this entry which is an element of the multi-set. 
+	 */
+	private final T key;
+
+	EntryView(T key) {
+	    this.key = key;
+	}
+
+	public T getKey() {
+	    return this.key;
+	}
+
+	public Multiplicity getValue() {
+	    return new MultiplicityView(this.key);
+	}
+
+	/**
+	 * Sets the multiplicity of the key to the one wrapped by 
+	 * <code>value</code> and returns the old multiplicity 
+	 * as a detached {@link Multiplicity}. 
+	 */
+	public Multiplicity setValue(Multiplicity value) {
+	    return AbstractMultiSet.MultiplicityImpl
+		.create(new MultiplicityView(this.key).set(value.get()));
+	}
+
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Map.Entry)) {
+		return false;
+	    }
+	    Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+	    return this.key.equals(other.getKey())
+		&& getValue().equals(other.getValue());
+	}
+
+	public int hashCode() {
+	    return this.key.hashCode() ^ getMultiplicity(this.key);
+	}
+
+	public String toString() {
+	    return this.key + "=" + getValue();
+	}
+    } // class EntryView 
+
+    /**
+     * The iterator over the slots of {@link #keys} 
+     * returned by {@link OpenHashMultiSet#iterator()}. 
+     * Besides the methods of {@link MultiSetIterator} 
+     * it provides {@link #lastSlot()} used by the views. 
+     */
+    private final class MultiSetIteratorImpl implements MultiSetIterator<T> {
+
+	/* ---------------------------------------------------------------- *
+	 * fields.                                                          *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * The index in {@link #keys} of the next element to be returned 
+	 * or the length of {@link #keys} if there is no such element. 
+	 */
+	private int nextSlot;
+
+	/**
+	 * The index in {@link #keys} of the element returned last 
+	 * by {@link #next()} or <code>-1</code> 
+	 * if {@link #next()} has not yet been invoked 
+	 * or the element returned by the last invocation of {@link #next()} 
+	 * has been removed in the meantime 
+	 * invoking a method of this iterator (instance). 
+	 */
+	private int lastSlot;
+
+	/**
+	 * The value of {@link #modCount} this iterator expects. 
+	 */
+	private int expModCount;
+
+	/* ---------------------------------------------------------------- *
+	 * constructors.                                                    *
+	 * ---------------------------------------------------------------- */
+
+	MultiSetIteratorImpl() {
+	    this.expModCount = OpenHashMultiSet.this.modCount;
+	    this.nextSlot = nextLive(0);
+	    this.lastSlot = -1;
+	}
+
+	/* ---------------------------------------------------------------- *
+	 * methods.                                                         *
+	 * ---------------------------------------------------------------- */
+
+	private void checkModCount() {
+	    if (this.expModCount != OpenHashMultiSet.this.modCount) {
+		throw new ConcurrentModificationException();
+	    }
+	}
+
+	public boolean hasNext() {
+	    return this.nextSlot < OpenHashMultiSet.this.keys.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T next() {
+	    checkModCount();
+	    if (!hasNext()) {
+		throw new NoSuchElementException();
+	    }
+	    this.lastSlot = this.nextSlot;
+	    this.nextSlot = nextLive(this.nextSlot + 1);
+	    return (T) OpenHashMultiSet.this.keys[this.lastSlot];
+	}
+
+	/**
+	 * Returns the slot of the element returned last by {@link #next()}. 
+	 *
+	 * @throws IllegalStateException 
+	 *    if there is no such element as described for {@link #lastSlot}. 
+	 */
+	int lastSlot() {
+	    checkModCount();
+	    if (this.lastSlot == -1) {
+		// no message as for method remove() 
+		throw new IllegalStateException();
+	    }
+	    return this.lastSlot;
+	}
+
+	public void remove() {
+	    // throws IllegalStateException if no longer present 
+	    removeSlot(lastSlot());
+	    this.expModCount = OpenHashMultiSet.this.modCount;
+	    this.lastSlot = -1;
+	}
+
+	public int getMult() {
+	    return OpenHashMultiSet.this.mults[lastSlot()];
+	}
+
+	@SuppressWarnings("unchecked")
+	public Multiplicity getMultObj() {
+	    return new MultiplicityView((T) OpenHashMultiSet.this
+					.keys[lastSlot()]);
+	}
+
+	public int setMult(int mult) {
+	    // may throw IllegalStateException 
+	    int slot = lastSlot();
+	    int oldMult = OpenHashMultiSet.this.mults[slot];
+	    if (mult == 0) {
+		remove();
+		return oldMult;
+	    }
+	    if (mult < 0) {
+		throw new IllegalArgumentException
+		    ("Expected non-negative multiplicity; found " + 
+		     mult + ". ");
+	    }
+	    setSlot(slot, mult);
+	    return oldMult;
+	}
+
+	public int removeMult(int mult) {
+	    // may throw IllegalStateException 
+	    int slot = lastSlot();
+	    int oldMult = OpenHashMultiSet.this.mults[slot];
+	    if (mult == oldMult) {
+		remove();
+		return oldMult;
+	    }
+	    // may throw an IllegalArgumentException 
+	    addToSlot(slot, -mult);
+	    return oldMult;
+	}
+    } // class MultiSetIteratorImpl 
+
+    /**
+     * A spliterator over a range of slots of {@link #keys} 
+     * emitting an object for each occupied slot. 
+     * Splitting halves the range of slots. 
+     * Like the iterators, spliterators are fail-fast: 
+     * if the set of elements is modified 
+     * after the first element is emitted, 
+     * a {@link ConcurrentModificationException} is thrown 
+     * on a best-effort basis. 
+     *
+     * @param <E>
+     *    the class of the objects emitted for the slots. 
+     */
+    private abstract class SlotSpliterator<E> implements Spliterator<E> {
+
+	/* ---------------------------------------------------------------- *
+	 * fields.                                                          *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * The next slot to be examined. 
+	 */
+	private int slot;
+
+	/**
+	 * The slot after the last one to be examined. 
+	 */
+	private final int fence;
+
+	/**
+	 * The number of elements in the slots still to be examined 
+	 * if this spliterator has not been split; 
+	 * otherwise an estimate. 
+	 */
+	private int est;
+
+	/**
+	 * Whether {@link #est} is exact, 
+	 * i.e. whether this spliterator has never been split 
+	 * and is not the result of splitting. 
+	 */
+	private boolean isSized;
+
+	/**
+	 * The value of {@link #modCount} this spliterator expects. 
+	 */
+	private final int expModCount;
+
+	/* ---------------------------------------------------------------- *
+	 * constructors.                                                    *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * Creates a spliterator over all slots. 
+	 */
+	SlotSpliterator() {
+	    this(0, OpenHashMultiSet.this.keys.length,
+		 OpenHashMultiSet.this.size, true,
+		 OpenHashMultiSet.this.modCount);
+	}
+
+	SlotSpliterator(int origin, int fence, int est,
+			boolean isSized, int expModCount) {
+	    this.slot = origin;
+	    this.fence = fence;
+	    this.est = est;
+	    this.isSized = isSized;
+	    this.expModCount = expModCount;
+	}
+
+	/* ---------------------------------------------------------------- *
+	 * methods.                                                         *
+	 * ---------------------------------------------------------------- */
+
+	/**
+	 * Returns the object to be emitted for the occupied slot given. 
+	 */
+	abstract E elementAt(int slot);
+
+	/**
+	 * Returns a spliterator of the same kind as this one 
+	 * for the given range of slots. 
+	 */
+	abstract SlotSpliterator<E> create(int origin, int fence,
+					   int est, int expModCount);
+
+	private void checkModCount() {
+	    if (this.expModCount != OpenHashMultiSet.this.modCount) {
+		throw new ConcurrentModificationException();
+	    }
+	}
+
+	public boolean tryAdvance(Consumer<? super E> action) {
+	    if (action == null) {
+		throw new NullPointerException();
+	    }
+	    checkModCount();
+	    int[] mults = OpenHashMultiSet.this.mults;
+	    while (this.slot < this.fence) {
+		if (mults[this.slot] != 0) {
+		    this.est--;
+		    action.accept(elementAt(this.slot++));
+		    checkModCount();
+		    return true;
+		}
+		this.slot++;
+	    }
+	    return false;
+	}
+
+	public void forEachRemaining(Consumer<? super E> action) {
+	    if (action == null) {
+		throw new NullPointerException();
+	    }
+	    checkModCount();
+	    int[] mults = OpenHashMultiSet.this.mults;
+	    for (; this.slot < this.fence; this.slot++) {
+		if (mults[this.slot] != 0) {
+		    action.accept(elementAt(this.slot));
+		}
+	    }
+	    this.est = 0;
+	    checkModCount();
+	}
+
+	public Spliterator<E> trySplit() {
+	    int mid = (this.slot + this.fence) >>> 1;
+	    if (mid <= this.slot) {
+		return null;
+	    }
+	    int origin = this.slot;
+	    this.slot = mid;
+	    this.est >>>= 1;
+	    this.isSized = false;
+	    return create(origin, mid, this.est, this.expModCount);
+	}
+
+	public long estimateSize() {
+	    return this.est;
+	}
+
+	public int characteristics() {
+	    return (this.isSized ? Spliterator.SIZED : 0)
+		| Spliterator.DISTINCT | Spliterator.NONNULL;
+	}
+    } // class SlotSpliterator 
+
+    /**
+     * The spliterator returned by {@link OpenHashMultiSet#spliterator()}. 
+     */
+    private final class KeySpliterator extends SlotSpliterator<T> {
+
+	KeySpliterator() {
+	    super();
+	}
+
+	KeySpliterator(int origin, int fence, int est, int expModCount) {
+	    super(origin, fence, est, false, expModCount);
+	}
+
+	@SuppressWarnings("unchecked")
+	T elementAt(int slot) {
+	    return (T) OpenHashMultiSet.this.keys[slot];
+	}
+
+	SlotSpliterator<T> create(int origin, int fence,
+				  int est, int expModCount) {
+	    return new KeySpliterator(origin, fence, est, expModCount);
+	}
+    } // class KeySpliterator 
+
+    /**
+     * The spliterator underlying {@link OpenHashMultiSet#entryStream()} 
+     * emitting {@link EntryView}s. 
+     */
+    private final class EntrySpliterator
+	extends SlotSpliterator<Map.Entry<T, Multiplicity>> {
+
+	EntrySpliterator() {
+	    super();
+	}
+
+	EntrySpliterator(int origin, int fence, int est, int expModCount) {
+	    super(origin, fence, est, false, expModCount);
+	}
+
+	@SuppressWarnings("unchecked")
+	Map.Entry<T, Multiplicity> elementAt(int slot) {
+	    return new EntryView((T) OpenHashMultiSet.this.keys[slot]);
+	}
+
+	SlotSpliterator<Map.Entry<T, Multiplicity>>
+	    create(int origin, int fence, int est, int expModCount) {
+	    return new EntrySpliterator(origin, fence, est, expModCount);
+	}
+    } // class EntrySpliterator 
+
+    /**
+     * The view returned by {@link OpenHashMultiSet#getSet()}. 
+     */
+    private final class SetView extends AbstractSet<T> {
+
+	public Iterator<T> iterator() {
+	    return OpenHashMultiSet.this.iterator();
+	}
+
+	public int size() {
+	    return OpenHashMultiSet.this.size;
+	}
+
+	public boolean contains(Object obj) {
+	    return obj != null && indexOf(obj) >= 0;
+	}
+
+	public boolean remove(Object obj) {
+	    return obj != null && OpenHashMultiSet.this.remove(obj);
+	}
+
+	public void clear() {
+	    OpenHashMultiSet.this.clear();
+	}
+    } // class SetView 
+
+    /**
+     * The view returned by {@link OpenHashMultiSet#getSetWithMults()}. 
+     */
+    private final class EntrySetView
+	extends AbstractSet<Map.Entry<T, Multiplicity>> {
+
+	public Iterator<Map.Entry<T, Multiplicity>> iterator() {
+	    final MultiSetIterator<T> iter = OpenHashMultiSet.this.iterator();
+	    return new Iterator<Map.Entry<T, Multiplicity>>() {
+		public boolean hasNext() {
+		    return iter.hasNext();
+		}
+		public Map.Entry<T, Multiplicity> next() {
+		    return new EntryView(iter.next());
+		}
+		public void remove() {
+		    iter.remove();
+		}
+	    };
+	}
+
+	public int size() {
+	    return OpenHashMultiSet.this.size;
+	}
+
+	/**
+	 * Returns the slot of the key of <code>obj</code> 
+	 * if <code>obj</code> is an entry 
+	 * with a key in this multi-set and the according multiplicity; 
+	 * else <code>-1</code>. 
+	 */
+	private int slotOf(Object obj) {
+	    if (!(obj instanceof Map.Entry)) {
+		return -1;
+	    }
+	    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+	    if (entry.getKey() == null
+		|| !(entry.getValue() instanceof Multiplicity)) {
+		return -1;
+	    }
+	    int slot = indexOf(entry.getKey());
+	    if (slot < 0 || OpenHashMultiSet.this.mults[slot]
+		!= ((Multiplicity) entry.getValue()).get()) {
+		return -1;
+	    }
+	    return slot;
+	}
+
+	public boolean contains(Object obj) {
+	    return slotOf(obj) >= 0;
+	}
+
+	public boolean remove(Object obj) {
+	    int slot = slotOf(obj);
+	    if (slot < 0) {
+		return false;
+	    }
+	    removeSlot(slot);
+	    return true;
+	}
+
+	public void clear() {
+	    OpenHashMultiSet.this.clear();
+	}
+    } // class EntrySetView 
+
+    /**
+     * The view returned by {@link OpenHashMultiSet#getMap()}. 
+     * Lookup is delegated to the hash table of the enclosing multi-set. 
+     * Values returned by {@link #put(Object, Multiplicity)} 
+     * and by {@link #remove(Object)} are detached from this multi-set. 
+     */
+    private final class MapView extends AbstractMap<T, Multiplicity> {
+
+	public Set<Map.Entry<T, Multiplicity>> entrySet() {
+	    return getSetWithMults();
+	}
+
+	public Set<T> keySet() {
+	    return getSet();
+	}
+
+	public int size() {
+	    return OpenHashMultiSet.this.size;
+	}
+
+	public boolean containsKey(Object key) {
+	    return key != null && indexOf(key) >= 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Multiplicity get(Object key) {
+	    if (key == null || indexOf(key) < 0) {
+		return null;
+	    }
+	    return new MultiplicityView((T) key);
+	}
+
+	public Multiplicity put(T key, Multiplicity value) {
+	    int oldMult = setMultiplicity(key, value.get());
+	    return oldMult == 0
+		? null : AbstractMultiSet.MultiplicityImpl.create(oldMult);
+	}
+
+	public Multiplicity remove(Object key) {
+	    int slot = key == null ? -1 : indexOf(key);
+	    if (slot < 0) {
+		return null;
+	    }
+	    int oldMult = OpenHashMultiSet.this.mults[slot];
+	    removeSlot(slot);
+	    return AbstractMultiSet.MultiplicityImpl.create(oldMult);
+	}
+
+	public void clear() {
+	    OpenHashMultiSet.this.clear();
+	}
+    } // class MapView 
+
+    /**
+     * An index of the slots of the hash table by their multiplicities, 
+     * optionally maintained by an {@link OpenHashMultiSet}. 
+     * The slots with the same multiplicity form a {@link Bucket}, 
+     * and the buckets form a list ascending in the multiplicities. 
+     * So the minimal and the maximal multiplicity 
+     * and the according elements are available in constant time 
+     * and the <code>k</code> elements with highest multiplicity 
+     * in time linear in <code>k</code>. 
+     * <p>
+     * Changing a multiplicity by one, 
+     * as when counting elements one by one, 
+     * takes constant time. 
+     * In general, changing a multiplicity takes time linear 
+     * in the number of buckets between old and new multiplicity. 
+     */
+    private static final class MultIndex {
+
+	/**
+	 * The slots with a common multiplicity {@link #mult}. 
+	 * The slots are linked via {@link MultIndex#nextInBucket} 
+	 * and {@link MultIndex#prevInBucket}. 
+	 */
+	private static final class Bucket {
+
+	    /**
+	     * The multiplicity common to all slots in this bucket. 
+	     */
+	    private int mult;
+
+	    /**
+	     * The first slot in this bucket 
+	     * or <code>-1</code> if this bucket is empty. 
+	     */
+	    private int head;
+
+	    /**
+	     * The bucket with the next lower multiplicity 
+	     * or <code>null</code> if there is no such bucket. 
+	     */
+	    private Bucket prev;
+
+	    /**
+	     * The bucket with the next higher multiplicity 
+	     * or <code>null</code> if there is no such bucket. 
+	     */
+	    private Bucket next;
+	} // class Bucket 
+
+	/**
+	 * The successor of each slot in its bucket 
+	 * or <code>-1</code> for the last slot. 
+	 */
+	private int[] nextInBucket;
+
+	/**
+	 * The predecessor of each slot in its bucket 
+	 * or <code>-1</code> for the first slot. 
+	 */
+	private int[] prevInBucket;
+
+	/**
+	 * The bucket of each slot containing an element 
+	 * and <code>null</code> for the other slots. 
+	 */
+	private Bucket[] bucketOf;
+
+	/**
+	 * The bucket with minimal multiplicity 
+	 * or <code>null</code> if there is no element. 
+	 */
+	private Bucket min;
+
+	/**
+	 * The bucket with maximal multiplicity 
+	 * or <code>null</code> if there is no element. 
+	 */
+	private Bucket max;
+
+	/**
+	 * A bucket no longer in use which is reused by {@link #bucketFor}, 
+	 * or <code>null</code>. 
+	 * This avoids allocation when counting up 
+	 * the element with maximal multiplicity one by one. 
+	 */
+	private Bucket spare;
+
+	MultIndex(int capacity) {
+	    this.nextInBucket = new int   [capacity];
+	    this.prevInBucket = new int   [capacity];
+	    this.bucketOf     = new Bucket[capacity];
+	}
+
+	/**
+	 * Returns the bucket for multiplicity <code>mult</code> 
+	 * creating it if necessary. 
+	 * The search starts at <code>from</code> 
+	 * which may be any bucket in the list 
+	 * or <code>null</code> if the list is empty. 
+	 */
+	private Bucket bucketFor(Bucket from, int mult) {
+	    Bucket cur = from;
+	    Bucket prev = null;
+	    Bucket next = null;
+	    if (cur != null) {
+		if (cur.mult < mult) {
+		    while (cur.next != null && cur.next.mult <= mult) {
+			cur = cur.next;
+		    }
+		    if (cur.mult == mult) {
+			return cur;
+		    }
+		    prev = cur;
+		    next = cur.next;
+		} else {
+		    while (cur.prev != null && cur.prev.mult >= mult) {
+			cur = cur.prev;
+		    }
+		    if (cur.mult == mult) {
+			return cur;
+		    }
+		    prev = cur.prev;
+		    next = cur;
+		}
+	    }
+	    // Here, the new bucket is to be linked between prev and next 
+	    Bucket res = this.spare;
+	    if (res == null) {
+		res = new Bucket();
+	    } else {
+		this.spare = null;
+	    }
+	    res.mult = mult;
+	    res.head = -1;
+	    res.prev = prev;
+	    res.next = next;
+	    if (prev == null) {
+		this.min = res;
+	    } else {
+		prev.next = res;
+	    }
+	    if (next == null) {
+		this.max = res;
+	    } else {
+		next.prev = res;
+	    }
+	    return res;
+	}
+
+	/**
+	 * Returns a bucket to start the search for <code>mult</code> at 
+	 * which is either {@link #min} or {@link #max}. 
+	 */
+	private Bucket start(int mult) {
+	    if (this.min == null) {
+		return null;
+	    }
+	    return mult - this.min.mult <= this.max.mult - mult
+		? this.min : this.max;
+	}
+
+	/**
+	 * Links <code>slot</code> into <code>bucket</code>. 
+	 */
+	private void link(int slot, Bucket bucket) {
+	    int head = bucket.head;
+	    this.nextInBucket[slot] = head;
+	    this.prevInBucket[slot] = -1;
+	    if (head != -1) {
+		this.prevInBucket[head] = slot;
+	    }
+	    bucket.head = slot;
+	    this.bucketOf[slot] = bucket;
+	}
+
+	/**
+	 * Unlinks <code>slot</code> from its bucket and returns that bucket 
+	 * leaving it in the list even if it becomes empty. 
+	 */
+	private Bucket unlink(int slot) {
+	    Bucket bucket = this.bucketOf[slot];
+	    int prev = this.prevInBucket[slot];
+	    int next = this.nextInBucket[slot];
+	    if (prev == -1) {
+		bucket.head = next;
+	    } else {
+		this.nextInBucket[prev] = next;
+	    }
+	    if (next != -1) {
+		this.prevInBucket[next] = prev;
+	    }
+	    this.bucketOf[slot] = null;
+	    return bucket;
+	}
+
+	/**
+	 * Removes <code>bucket</code> from the list if it is empty. 
+	 */
+	private void dropIfEmpty(Bucket bucket) {
+	    if (bucket.head != -1) {
+		return;
+	    }
+	    if (bucket.prev == null) {
+		this.min = bucket.next;
+	    } else {
+		bucket.prev.next = bucket.next;
+	    }
+	    if (bucket.next == null) {
+		this.max = bucket.prev;
+	    } else {
+		bucket.next.prev = bucket.prev;
+	    }
+	    bucket.prev = null;
+	    bucket.next = null;
+	    this.spare = bucket;
+	}
+
+	/**
+	 * Adds <code>slot</code> newly occupied 
+	 * by an element with multiplicity <code>mult</code>. 
+	 */
+	void insert(int slot, int mult) {
+	    link(slot, bucketFor(start(mult), mult));
+	}
+
+	/**
+	 * Removes <code>slot</code> the element of which is removed. 
+	 */
+	void remove(int slot) {
+	    dropIfEmpty(unlink(slot));
+	}
+
+	/**
+	 * Notifies that the multiplicity at <code>slot</code> 
+	 * changed to <code>mult</code>. 
+	 */
+	void change(int slot, int mult) {
+	    Bucket old = this.bucketOf[slot];
+	    if (old.mult == mult) {
+		return;
+	    }
+	    unlink(slot);
+	    // old is still in the list and serves as starting point 
+	    link(slot, bucketFor(old, mult));
+	    dropIfEmpty(old);
+	}
+
+	/**
+	 * Removes all slots. 
+	 */
+	void clear() {
+	    Arrays.fill(this.bucketOf, null);
+	    this.min = null;
+	    this.max = null;
+	}
+
+	/**
+	 * Moves each slot <code>i</code> to <code>newSlotOf[i]</code> 
+	 * in a hash table of length <code>capacity</code>. 
+	 * The buckets are retained. 
+	 */
+	void relocate(int[] newSlotOf, int capacity) {
+	    int[] oldNext = this.nextInBucket;
+	    this.nextInBucket = new int   [capacity];
+	    this.prevInBucket = new int   [capacity];
+	    this.bucketOf     = new Bucket[capacity];
+	    for (Bucket bucket = this.min; bucket != null; bucket = bucket.next) {
+		int slot = bucket.head;
+		bucket.head = -1;
+		for (; slot != -1; slot = oldNext[slot]) {
+		    link(newSlotOf[slot], bucket);
+		}
+	    }
+	}
+
+	/**
+	 * Returns a slot with maximal multiplicity 
+	 * or <code>-1</code> if there is no element. 
+	 */
+	int maxSlot() {
+	    return this.max == null ? -1 : this.max.head;
+	}
+
+	/**
+	 * Returns a slot with minimal multiplicity 
+	 * or <code>-1</code> if there is no element. 
+	 */
+	int minSlot() {
+	    return this.min == null ? -1 : this.min.head;
+	}
+
+	/**
+	 * Writes into <code>slots</code> 
+	 * the slots of the <code>slots.length</code> elements 
+	 * with highest multiplicities in descending order. 
+	 * The length of <code>slots</code> may not exceed the number of elements. 
+	 */
+	void topSlots(int[] slots) {
+	    int idx = 0;
+	    for (Bucket bucket = this.max; idx < slots.length;
+		 bucket = bucket.prev) {
+		for (int slot = bucket.head;
+		     slot != -1 && idx < slots.length;
+		     slot = this.nextInBucket[slot]) {
+		    slots[idx++] = slot;
+		}
+	    }
+	}
+    } // class MultIndex 
+
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The minimal and default length of the arrays 
+     * {@link #keys} and {@link #mults}. 
+     * Like all lengths of these arrays, this is a power of two. 
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * The maximal length of the arrays {@link #keys} and {@link #mults}. 
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Marks a slot of {@link #keys} the element of which has been removed. 
+     * Such a slot does not terminate a probe sequence 
+     * but may be reused when adding an element. 
+     */
+    private static final Object REMOVED = new Object();
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The hash table of the elements of this multi-set. 
+     * Each entry is either <code>null</code> for a free slot, 
+     * {@link #REMOVED} for a slot the element of which was removed 
+     * or an element of this multi-set. 
+     * The length is a power of two. 
+     */
+    private Object[] keys;
+
+    /**
+     * The multiplicities of the elements in {@link #keys} 
+     * at the according positions. 
+     * For slots not occupied by an element, the multiplicity is 0; 
+     * else it is strictly positive. 
+     */
+    private int[] mults;
+
+    /**
+     * The number of elements of this multi-set 
+     * which is the number of slots in {@link #keys} 
+     * which are neither <code>null</code> nor {@link #REMOVED}. 
+     */
+    private int size;
+
+    /**
+     * The number of slots in {@link #keys} 
+     * which are not <code>null</code>. 
+     * This is {@link #size} plus the number of removed elements. 
+     */
+    private int used;
+
+    /**
+     * The index of the slots by multiplicity 
+     * or <code>null</code> if this multi-set is not indexed. 
+     * If present, it is updated whenever a multiplicity changes. 
+     *
+     * @see #OpenHashMultiSet(int, boolean) 
+     */
+    private final MultIndex index;
+
+    /**
+     * The number of modifications of the set of elements of this multi-set. 
+     * This is used to make iterators fail-fast. 
+     */
+    private int modCount;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates a new, empty <code>MultiSet</code> 
+     * which can hold <code>expSize</code> elements 
+     * without growing its hash table 
+     * and which maintains an index by multiplicity 
+     * if <code>indexMults</code> is set. 
+     * <p>
+     * The index makes {@link #getMaxMult()}, {@link #getObjWithMaxMult()}, 
+     * {@link #getMinMult()} and {@link #getObjWithMinMult()} 
+     * run in constant time 
+     * and {@link #topK(int)} in time linear in its argument. 
+     * The cost is additional memory per slot of the hash table 
+     * and some overhead whenever a multiplicity changes: 
+     * Changing a multiplicity by one, as when counting one by one, 
+     * still runs in constant time. 
+     * Setting an arbitrary multiplicity takes time linear 
+     * in the number of different multiplicities 
+     * between the old and the new one. 
+     *
+     * @param expSize 
+     *    the expected number of pairwise different elements. 
+     * @param indexMults 
+     *    whether to maintain an index by multiplicity. 
+     * @throws IllegalArgumentException 
+     *    if <code>expSize</code> is negative. 
+     */
+    public OpenHashMultiSet(int expSize, boolean indexMults) {
+	if (expSize < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative size; found " + expSize + ". ");
+	}
+	int capacity = capacityFor(expSize);
+	this.keys  = new Object[capacity];
+	this.mults = new int   [capacity];
+	this.index = indexMults ? new MultIndex(capacity) : null;
+	this.size = 0;
+	this.used = 0;
+	this.modCount = 0;
+    }
+
+    /**
+     * Creates a new, empty <code>MultiSet</code> 
+     * which can hold <code>expSize</code> elements 
+     * without growing its hash table. 
+     * This multi-set is not indexed by multiplicity. 
+     *
+     * @param expSize 
+     *    the expected number of pairwise different elements. 
+     * @throws IllegalArgumentException 
+     *    if <code>expSize</code> is negative. 
+     */
+    public OpenHashMultiSet(int expSize) {
+	this(expSize, false);
+    }
+
+    /**
+     * Creates a new, empty <code>MultiSet</code>. 
+     */
+    public OpenHashMultiSet() {
+	this(0);
+    }
+
+    /**
+     * Copy constructor. 
+     *
+     * @param other 
+     *    another <code>MultiSet</code> instance. 
+     */
+    public OpenHashMultiSet(MultiSet<? extends T> other) {
+	this(other.size());
+	addAll(other);
+    }
+
+    /**
+     * Creates a multi set with the elements of <code>sSet</code> 
+     * and all elements with multiplicity <code>1</code>. 
+     *
+     * @param  sSet 
+     *    some instance of a set. 
+     */
+    public OpenHashMultiSet(Set<? extends T> sSet) {
+	this(sSet.size());
+	addAll(sSet);
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Returns the minimal length of the hash table 
+     * such that <code>num</code> elements do not exceed the load factor 
+     * <code>3/4</code>. 
+     * This is a power of two at least {@link #MIN_CAPACITY}. 
+     */
+    private static int capacityFor(int num) {
+	int capacity = MIN_CAPACITY;
+	while (capacity - (capacity >> 2) <= num) {
+	    if (capacity == MAX_CAPACITY) {
+		throw new IllegalStateException
+		    ("Cannot hold " + num + " elements. ");
+	    }
+	    capacity <<= 1;
+	}
+	return capacity;
+    }
+
+    /**
+     * Returns the slot of the hash table 
+     * where the probe sequence of <code>obj</code> starts. 
+     * The hash code is spread by Fibonacci hashing 
+     * so that also the high bits affect the slot. 
+     *
+     * @throws NullPointerException 
+     *    for <code>obj == null</code>. 
+     */
+    private int startSlot(Object obj) {
+	int hash = obj.hashCode() * 0x9E3779B9;
+	return (hash ^ (hash >>> 16)) & (this.keys.length - 1);
+    }
+
+    /**
+     * Returns the slot in {@link #keys} containing <code>obj</code> 
+     * or <code>-1</code> if <code>obj</code> is not in this multi-set. 
+     *
+     * @throws NullPointerException 
+     *    for <code>obj == null</code>. 
+     */
+    private int indexOf(Object obj) {
+	Object[] keys = this.keys;
+	int mask = keys.length - 1;
+	int slot = startSlot(obj);
+	Object cand;
+	while ((cand = keys[slot]) != null) {
+	    if (cand == obj || (cand != REMOVED && cand.equals(obj))) {// NOPMD 
+		return slot;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	return -1;
+    }
+
+    /**
+     * Returns the slot in {@link #keys} containing <code>obj</code> 
+     * if <code>obj</code> is in this multi-set; 
+     * else <code>-slot-1</code>, 
+     * where <code>slot</code> is the slot to insert <code>obj</code>. 
+     * This is the first removed slot on the probe sequence 
+     * or the free slot terminating it. 
+     *
+     * @throws NullPointerException 
+     *    for <code>obj == null</code>. 
+     */
+    private int indexOrInsertionSlot(Object obj) {
+	Object[] keys = this.keys;
+	int mask = keys.length - 1;
+	int slot = startSlot(obj);
+	int free = -1;
+	Object cand;
+	while ((cand = keys[slot]) != null) {
+	    if (cand == REMOVED) {// NOPMD 
+		if (free == -1) {
+		    free = slot;
+		}
+	    } else if (cand == obj || cand.equals(obj)) {// NOPMD 
+		return slot;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	return -(free == -1 ? slot : free) - 1;
+    }
+
+    /**
+     * Puts <code>obj</code> which is not in this multi-set 
+     * into <code>slot</code> with multiplicity <code>mult</code>, 
+     * where <code>slot</code> is obtained 
+     * from {@link #indexOrInsertionSlot(Object)}. 
+     * Rehashes if the load factor is exceeded. 
+     */
+    private void insert(int slot, Object obj, int mult) {
+	assert mult > 0;
+	if (this.keys[slot] == null) {
+	    this.used++;
+	}
+	this.keys [slot] = obj;
+	this.mults[slot] = mult;
+	if (this.index != null) {
+	    this.index.insert(slot, mult);
+	}
+	this.size++;
+	this.modCount++;
+	if (this.used > this.keys.length - (this.keys.length >> 2)) {
+	    rehash(capacityFor(this.size << 1));
+	}
+    }
+
+    /**
+     * Removes the element at <code>slot</code> from this multi-set. 
+     */
+    private void removeSlot(int slot) {
+	if (this.index != null) {
+	    this.index.remove(slot);
+	}
+	this.keys [slot] = REMOVED;
+	this.mults[slot] = 0;
+	this.size--;
+	this.modCount++;
+	if (this.size == 0 && this.used > (this.keys.length >> 2)) {
+	    // no element left, so no probe sequence to be preserved; 
+	    // as at least a quarter of the slots were occupied 
+	    // since the last cleanup, its cost is amortized 
+	    Arrays.fill(this.keys, null);
+	    this.used = 0;
+	}
+    }
+
+    /**
+     * Adds <code>mult</code> which may well be negative 
+     * to the multiplicity at <code>slot</code> 
+     * and returns the new multiplicity. 
+     * Behaves like {@link AbstractMultiSet.MultiplicityImpl#add(int)}. 
+     *
+     * @throws IllegalArgumentException 
+     *    if the resulting multiplicity is not strictly positive. 
+     *    In particular, this is thrown on overflow. 
+     */
+    private int addToSlot(int slot, int mult) {
+	int oldMult = this.mults[slot];
+	int newMult = oldMult + mult;
+	if (newMult <= 0) {
+	    if (newMult == 0 && mult < 0) {
+		throw new IllegalStateException
+		    ("should not occur: removed element implicitely. " );
+	    }
+	    throw new IllegalArgumentException
+		("Resulting multiplicity " + 
+		 oldMult + " + " + mult + 
+		 " should be non-negative. ");
+	}
+	setSlot(slot, newMult);
+	return newMult;
+    }
+
+    /**
+     * Sets the multiplicity at <code>slot</code> 
+     * to the strictly positive value <code>mult</code> 
+     * and returns the old multiplicity. 
+     */
+    private int setSlot(int slot, int mult) {
+	assert mult > 0;
+	int oldMult = this.mults[slot];
+	this.mults[slot] = mult;
+	if (this.index != null) {
+	    this.index.change(slot, mult);
+	}
+	return oldMult;
+    }
+
+    /**
+     * Rebuilds the hash table with length <code>capacity</code>, 
+     * dropping all removed slots. 
+     */
+    private void rehash(int capacity) {
+	Object[] oldKeys  = this.keys;
+	int   [] oldMults = this.mults;
+	Object[] newKeys  = new Object[capacity];
+	int   [] newMults = new int   [capacity];
+	int[] newSlotOf = this.index == null ? null : new int[oldKeys.length];
+	int mask = capacity - 1;
+	this.keys = newKeys;
+	Object cand;
+	int slot;
+	for (int i = 0; i < oldKeys.length; i++) {
+	    cand = oldKeys[i];
+	    if (cand == null || cand == REMOVED) {// NOPMD 
+		continue;
+	    }
+	    slot = startSlot(cand);
+	    while (newKeys[slot] != null) {
+		slot = (slot + 1) & mask;
+	    }
+	    newKeys [slot] = cand;
+	    newMults[slot] = oldMults[i];
+	    if (newSlotOf != null) {
+		newSlotOf[i] = slot;
+	    }
+	}
+	this.mults = newMults;
+	this.used = this.size;
+	if (this.index != null) {
+	    this.index.relocate(newSlotOf, capacity);
+	}
+    }
+
+    /**
+     * Returns the first slot from <code>slot</code> on 
+     * which contains an element of this multi-set, 
+     * or the length of {@link #keys} if there is no such slot. 
+     */
+    private int nextLive(int slot) {
+	Object[] keys = this.keys;
+	while (slot < keys.length
+	       && (keys[slot] == null || keys[slot] == REMOVED)) {// NOPMD 
+	    slot++;
+	}
+	return slot;
+    }
+
+    // Query Operations 
+
+    /**
+     * Returns the number of pairwise different elements 
+     * in this <code>MultiSet</code>. 
+     *
+     * @return 
+     *    the number of elements in this <code>MultiSet</code> 
+     *    each multiple element counted as a single one. 
+     * @see #sizeWithMult() 
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Returns the number of elements 
+     * in this <code>MultiSet</code> counted with multiplicities. 
+     * If this <code>MultiSet</code> 
+     * contains more than <code>Integer.MAX_VALUE</code> elements, 
+     * returns <code>Integer.MAX_VALUE</code>. 
+     *
+     * @return 
+     *    the number of elements in this <code>MultiSet</code> 
+     *    counted with multiplicities, 
+     *    provided this does not exceed {@link Integer#MAX_VALUE}; 
+     *    otherwise just {@link Integer#MAX_VALUE}. 
+     * @see #size() 
+     */
+    public int sizeWithMult() {
+	long result = 0;
+	for (int mult : this.mults) {
+	    result += mult;
+	}
+	assert result >= 0;
+	return (int) Math.min(result, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+	return this.size == 0;
+    }
+
+    /**
+     * Returns the slot of an element with maximal multiplicity 
+     * or <code>-1</code> if this set is empty. 
+     */
+    private int getMaxSlot() {
+	if (this.index != null) {
+	    return this.index.maxSlot();
+	}
+	int maxSlot = -1;
+	int maxVal = 0;
+	for (int i = 0; i < this.mults.length; i++) {
+	    if (maxVal < this.mults[i]) {
+		maxSlot = i;
+		maxVal = this.mults[i];
+	    }
+	}
+	return maxSlot;
+    }
+
+    /**
+     * Returns the slot of an element with minimal multiplicity 
+     * or <code>-1</code> if this set is empty. 
+     */
+    private int getMinSlot() {
+	if (this.index != null) {
+	    return this.index.minSlot();
+	}
+	int minSlot = -1;
+	int minVal = Integer.MAX_VALUE;
+	for (int i = 0; i < this.mults.length; i++) {
+	    if (this.mults[i] != 0 && this.mults[i] <= minVal) {
+		minSlot = i;
+		minVal = this.mults[i];
+	    }
+	}
+	return minSlot;
+    }
+
+    /**
+     * Returns one of the elements in this multiple set 
+     * with maximal multiplicity. 
+     * The return value is <code>null</code> 
+     * if and only if this set is empty. 
+     * If this multi-set is indexed by multiplicity, 
+     * this runs in constant time. 
+     *
+     * @return 
+     *    a <code>Object o != null</code> with maximal multiplicity 
+     *    or <code>null</code> if this multiple set is empty. 
+     * @see #isEmpty 
+     */
+    @SuppressWarnings("unchecked")
+    public T getObjWithMaxMult() {
+	int slot = getMaxSlot();
+	return slot == -1 ? null : (T) this.keys[slot];
+    }
+
+    /**
+     * Returns the maximal multiplicity of an element in this set. 
+     * In particular for empty sets returns <code>0</code>. 
+     *
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is the maximal mutliplicity of an element in this set. 
+     *    In particular this is <code>0</code> 
+     *    if and only if this set is empty. 
+     */
+    public int getMaxMult() {
+	int slot = getMaxSlot();
+	return slot == -1 ? 0 : this.mults[slot];
+    }
+
+    /**
+     * Returns one of the elements in this multiple set 
+     * with minimal multiplicity. 
+     * The return value is <code>null</code> 
+     * if and only if this set is empty. 
+     * If this multi-set is indexed by multiplicity, 
+     * this runs in constant time. 
+     *
+     * @return 
+     *    a <code>Object o != null</code> with minimal multiplicity 
+     *    or <code>null</code> if this multiple set is empty. 
+     * @see #getObjWithMaxMult() 
+     */
+    @SuppressWarnings("unchecked")
+    public T getObjWithMinMult() {
+	int slot = getMinSlot();
+	return slot == -1 ? null : (T) this.keys[slot];
+    }
+
+    /**
+     * Returns the minimal multiplicity of an element in this set. 
+     * In particular for empty sets returns <code>0</code>. 
+     * If this multi-set is indexed by multiplicity, 
+     * this runs in constant time. 
+     *
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is the minimal mutliplicity of an element in this set. 
+     *    In particular this is <code>0</code> 
+     *    if and only if this set is empty. 
+     * @see #getMaxMult() 
+     */
+    public int getMinMult() {
+	int slot = getMinSlot();
+	return slot == -1 ? 0 : this.mults[slot];
+    }
+
+    /**
+     * Returns the <code>k</code> elements with highest multiplicities 
+     * in descending order of multiplicities, 
+     * or all elements if there are less than <code>k</code>. 
+     * Among elements with equal multiplicities, the order is not specified. 
+     * If this multi-set is indexed by multiplicity, 
+     * this runs in time linear in <code>k</code>; 
+     * otherwise it requires a pass through the hash table 
+     * maintaining a heap of size <code>k</code>. 
+     *
+     * @param k 
+     *    the maximal number of elements to be returned. 
+     * @return 
+     *    a list of <code>min(k, size())</code> elements 
+     *    with highest multiplicities in descending order. 
+     * @throws IllegalArgumentException 
+     *    if <code>k</code> is negative. 
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> topK(int k) {
+	if (k < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative number; found " + k + ". ");
+	}
+	int[] slots = new int[Math.min(k, this.size)];
+	if (this.index != null) {
+	    this.index.topSlots(slots);
+	} else if (slots.length != 0) {
+	    final int[] mults = this.mults;
+	    // heap of slots with least multiplicity on top 
+	    PriorityQueue<Integer> heap = new PriorityQueue<Integer>
+		(slots.length, new Comparator<Integer>() {
+			public int compare(Integer slot1, Integer slot2) {
+			    return mults[slot1] - mults[slot2];
+			}
+		    });
+	    for (int slot = nextLive(0);
+		 slot < this.keys.length;
+		 slot = nextLive(slot + 1)) {
+		if (heap.size() < slots.length) {
+		    heap.add(slot);
+		} else if (mults[heap.peek()] < mults[slot]) {
+		    heap.poll();
+		    heap.add(slot);
+		}
+	    }
+	    for (int idx = slots.length - 1; idx >= 0; idx--) {
+		slots[idx] = heap.poll();
+	    }
+	}
+	List<T> res = new ArrayList<T>(slots.length);
+	for (int slot : slots) {
+	    res.add((T) this.keys[slot]);
+	}
+	return res;
+    }
+
+    /**
+     * Returns the multiplicity 
+     * with which the given object occurs within this set. 
+     * This does not allocate any object. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is the mutliplicity of the given element in this set. 
+     *    In particular this is <code>0</code> if and only if 
+     *    <code>obj</code> is an instance which is not in this set. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     * @see #setMultiplicity(Object, int) 
+     * @see #getMultiplicityObj(Object) 
+     */
+    public int getMultiplicity(Object obj) {
+	// throws NullPointerException for obj==null 
+	int slot = indexOf(obj);
+	return slot < 0 ? 0 : this.mults[slot];
+    }
+
+    /**
+     * Returns a view on the multiplicity of the given object in this set 
+     * or <code>null</code>. 
+     * Note that the view is created on demand. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    If <code>obj</code> is an instance which is in this set, 
+     *    a multiplicity object wrapping the multiplicity is returned. 
+     *    If <code>obj</code> is an instance which is not in this set, 
+     *    <code>null</code> is returned. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     * @see #getMultiplicity(Object) 
+     */
+    @SuppressWarnings("unchecked")
+    public Multiplicity getMultiplicityObj(Object obj) {
+	// throws NullPointerException for obj==null 
+	return indexOf(obj) < 0 ? null : new MultiplicityView((T) obj);
+    }
+
+    /**
+     * Returns <code>true</code> if this <code>MultiSet</code> 
+     * contains the specified element. 
+     *
+     * @param obj 
+     *    element (not <code>null</code>) 
+     *    whose presence in this <code>MultiSet</code> is to be tested. 
+     * @return 
+     *    <code>true</code> if this <code>MultiSet</code> 
+     *    contains the specified element. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     */
+    public boolean contains(Object obj) {
+	// throws NullPointerException for obj==null 
+	return indexOf(obj) >= 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * There are no guarantees concerning the order 
+     * in which the elements are returned. 
+     * The iterator supports all modifying methods. 
+     *
+     * @return 
+     *    an <code>Iterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    public MultiSetIterator<T> iterator() {
+	return new MultiSetIteratorImpl();
+    }
+
+    /**
+     * Returns a spliterator over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * The spliterator splits the hash table into halves 
+     * and is fail-fast like the iterator. 
+     *
+     * @return 
+     *    a <code>Spliterator</code> over the elements in this collection 
+     *    considering each element exactly once ignoring its multiplicity. 
+     */
+    public Spliterator<T> spliterator() {
+	return new KeySpliterator();
+    }
+
+    public Stream<T> stream() {
+	return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a sequential stream 
+     * of the entries of this <code>MultiSet</code> 
+     * mapping each element to a view on its multiplicity. 
+     * The underlying spliterator splits the hash table into halves. 
+     *
+     * @return 
+     *    a sequential <code>Stream</code> 
+     *    over the entries of this set with multiplicities. 
+     */
+    public Stream<Map.Entry<T, Multiplicity>> entryStream() {
+	return StreamSupport.stream(new EntrySpliterator(), false);
+    }
+
+    /**
+     * Returns an array containing all of the elements 
+     * in this <code>MultiSet</code> exactly once, ignoring its multiplicity. 
+     *
+     * @return 
+     *    an array containing all of the elements in this collection 
+     * @see #iterator 
+     */
+    public Object[] toArray() {
+	Object[] result = new Object[this.size];
+	int idx = 0;
+	for (int slot = nextLive(0);
+	     slot < this.keys.length;
+	     slot = nextLive(slot + 1)) {
+	    result[idx++] = this.keys[slot];
+	}
+	return result;
+    }
+
+    /**
+     * Returns an array containing all of the elements 
+     * in this <code>MultiSet</code>; 
+     * the runtime type of the returned array is that of the specified array. 
+     * For details see {@link MultiSet#toArray(Object[])}. 
+     *
+     * @param arr 
+     *    the array into which the elements of this <code>MultiSet</code> 
+     *    are to be stored, if it is big enough; 
+     *    otherwise, a new array of the same runtime type 
+     *    is allocated for this purpose. 
+     * @return 
+     *    an array containing each elements of this <code>MultiSet</code> 
+     *    exactly once. 
+     * @throws ArrayStoreException 
+     *    the runtime type of the specified array is not a supertype 
+     *    of the runtime type of every element in this <code>MultiSet</code>. 
+     * @throws NullPointerException 
+     *    if the specified array is <code>null</code>. 
+     */
+    public T[] toArray(T[] arr) {
+	return getSet().toArray(arr);
+    }
+
+    // Modification Operations 
+
+    /**
+     * Adds <code>obj</code> to this <code>MultiSet</code> 
+     * and returns the new multiplicity of this object. 
+     * In other words, increments the multiplicity of <code>obj</code> by one. 
+     *
+     * @param obj 
+     *    a <code>Object</code>. 
+     *    Note that this object may not be <code>null</code>. 
+     * @return 
+     *    a strictly positive <code>int</code> value: 
+     *    the new multiplicity of <code>obj</code>. 
+     * @throws NullPointerException 
+     *    if the specified element is null. 
+     */
+    public int addWithMult(T obj) {
+	// throws NullPointerException for obj==null 
+	return addWithMult(obj, 1);
+    }
+
+    /**
+     * Increases the multiplicity of <code>obj</code> 
+     * in this <code>MultiSet</code> 
+     * by the specified value <code>addMult</code> 
+     * and returns the new multiplicity of this object. 
+     * If <code>obj</code> is already present, this does not allocate. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param addMult 
+     *    a non-negative integer specifying the multiplicity 
+     *    with which <code>obj</code> is to be added. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the new multiplicity of <code>obj</code>. 
+     * @throws IllegalArgumentException 
+     *    for <code>addMult &lt; 0</code> 
+     *    and if the new multiplicity would overflow. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code> provided <code>addMult &ge; 0</code>. 
+     */
+    public int addWithMult(T obj, int addMult) {
+	if (addMult < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative multiplicity; found " + 
+		 addMult + ". ");
+	}
+	// throws NullPointerException for obj==null 
+	int slot = indexOrInsertionSlot(obj);
+	if (slot < 0) {
+	    // Here, this element is not in this set 
+	    if (addMult != 0) {
+		insert(-slot - 1, obj, addMult);
+	    }
+	    return addMult;
+	}
+	// Here, obj is already in this set. 
+	return addToSlot(slot, addMult);
+    }
+
+    /**
+     * Adds <code>obj</code> to this <code>MultiSet</code>. 
+     * In other words, increments the multiplicity of <code>obj</code> by one. 
+     *
+     * @param obj 
+     *    element the multiplicity of which in this <code>MultiSet</code> 
+     *    is to be increased by one. 
+     *    Note that this may not be <code>null</code>. 
+     * @return 
+     *    <code>true</code> if and only if 
+     *    the multiplicity of the specified element 
+     *    was <code>0</code> before the call of this method. 
+     * @throws NullPointerException 
+     *    if the specified element is <code>null</code>. 
+     */
+    public boolean add(T obj) {
+	// throws NullPointerException for obj==null 
+	return addWithMult(obj, 1) == 1;
+    }
+
+    /**
+     * Decrements the multiplicity of <code>obj</code> 
+     * in this <code>MultiSet</code> if it is present and 
+     * returns the <em>old</em> multiplicity of <code>obj</code>; 
+     * If this is <code>0</code> returns 
+     * without altering this <code>MultiSet</code>. 
+     *
+     * @param obj 
+     *    a <code>Object</code>. 
+     *    Note that this object may not be <code>null</code>. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the old multiplicity of <code>obj</code> 
+     *    before a potential modification of this <code>MultiSet</code>. 
+     * @throws NullPointerException 
+     *    if the specified element is null. 
+     */
+    public int removeWithMult(Object obj) {
+	// throws NullPointerException for obj==null 
+	return removeWithMult(obj, 1);
+    }
+
+    /**
+     * Decreases the multiplicity of <code>obj</code> 
+     * in this <code>MultiSet</code> 
+     * by the specified value <code>removeMult</code> if possible 
+     * and returns the <em>old</em> multiplicity of <code>obj</code>. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param removeMult 
+     *    a non-negative integer specifying the multiplicity 
+     *    with which <code>obj</code> is to be removed. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the old multiplicity of <code>obj</code> 
+     *    before a potential modification of this <code>MultiSet</code>. 
+     * @throws NullPointerException 
+     *    for <code>obj == null</code>. 
+     * @throws IllegalArgumentException 
+     *    for <code>removeMult &lt; 0</code> and also if 
+     *    <code>removeMult - obj.getMultiplicity() &lt; 0</code>. 
+     */
+    public int removeWithMult(Object obj, int removeMult) {
+	if (removeMult < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative multiplicity; found " + 
+		 removeMult + ". ");
+	}
+
+	// throws NullPointerException for obj==null 
+	int slot = indexOf(obj);
+	if (slot < 0) {
+	    if (removeMult != 0) {
+		throw new IllegalArgumentException
+		    ("Tried to remove object " + obj + 
+		     " which is not in this MultiSet. ");
+	    }
+	    return 0;
+	}
+	// return value is old multiplicity 
+	int ret = this.mults[slot];
+	if (ret == removeMult) {
+	    removeSlot(slot);
+	} else {
+	    addToSlot(slot, -removeMult);
+	}
+	return ret;
+    }
+
+    /**
+     * Removes <em>all</em> instances of the specified element from this 
+     * <code>MultiSet</code>, if it is present with nontrivial multiplicity. 
+     *
+     * @param obj 
+     *    element which is to be removed from this <code>MultiSet</code>. 
+     * @return 
+     *    <code>true</code> if and only if this <code>MultiSet</code> changed 
+     *    as a result of the call. 
+     * @throws NullPointerException 
+     *    if the specified element is <code>null</code>. 
+     */
+    public boolean remove(Object obj) {
+	// throws NullPointerException for obj==null 
+	int slot = indexOf(obj);
+	if (slot < 0) {
+	    return false;
+	}
+	removeSlot(slot);
+	return true;
+    }
+
+    /**
+     * Sets the multiplicity of <code>obj</code> to the value 
+     * specified by <code>mult</code>. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param newMult 
+     *    a non-negative <code>int</code> value. 
+     * @return 
+     *    the old multiplicity of <code>obj</code> 
+     *    as a non-negative <code>int</code> value. 
+     * @throws IllegalArgumentException 
+     *   if either <code>obj == null</code> or <code>mult &le; 0</code>. 
+     * @see #getMultiplicity(Object) 
+     */
+    public int setMultiplicity(T obj, int newMult) {
+	if (obj == null) {
+	    throw new IllegalArgumentException
+		("Found null element. ");
+	}
+	if (newMult < 0) {
+	    throw new IllegalArgumentException
+		("Found negative multiplicity " + newMult + ". ");
+	}
+
+	int slot = indexOrInsertionSlot(obj);
+	if (slot < 0) {
+	    if (newMult != 0) {
+		insert(-slot - 1, obj, newMult);
+	    }
+	    return 0;
+	}
+	if (newMult == 0) {
+	    int oldMult = this.mults[slot];
+	    removeSlot(slot);
+	    return oldMult;
+	}
+	return setSlot(slot, newMult);
+    }
+
+    // Bulk Operations 
+
+    /**
+     * Returns <code>true</code> if this <code>MultiSet</code> 
+     * contains all of the elements in the specified collection 
+     * with strictly positive multiplicity. 
+     *
+     * @param  coll 
+     *    collection to be checked for containment 
+     *    in this <code>MultiSet</code>. 
+     * @return 
+     *    <code>true</code> if this <code>MultiSet</code> 
+     *    contains all of the elements in the specified collection. 
+     * @throws NullPointerException 
+     *    if the specified collection contains one or more null elements. 
+     * @throws NullPointerException 
+     *    if the specified collection is <code>null</code>. 
+     * @see #contains(Object) 
+     */
+    public boolean containsAll(Collection<?> coll) {
+	for (Object cand : coll) {
+	    // throws NullPointerException if cand == null 
+	    if (!contains(cand)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Adds <code>mvs</code> elementwise to this multi set 
+     * increasing multiplicities 
+     * and returns whether this caused a change 
+     * of the underlying set. 
+     *
+     * @param mvs 
+     *    a <code>MultiSet</code> object. 
+     * @return 
+     *    returns whether adding changed this <code>MultiSet</code> 
+     *    interpreted as a set. 
+     */
+    public boolean addAll(MultiSet<? extends T> mvs) {
+	int oldSize = this.size;
+	MultiSetIterator<? extends T> iter = mvs.iterator();
+	while (iter.hasNext()) {
+	    addWithMult(iter.next(), iter.getMult());
+	}
+	return this.size != oldSize;
+    }
+
+    /**
+     * Adds <code>set</code> elementwise to this multi set 
+     * increasing multiplicities 
+     * and returns whether this caused a change 
+     * of the underlying set. 
+     *
+     * @param set 
+     *    a <code>Set</code> object. 
+     * @return 
+     *    returns whether adding changed this <code>MultiSet</code> 
+     *    interpreted as a set. 
+     */
+    public boolean addAll(Set<? extends T> set) {
+	int oldSize = this.size;
+	for (T cand : set) {
+	    addWithMult(cand, 1);
+	}
+	return this.size != oldSize;
+    }
+
+    /**
+     * Removes all this <code>MultiSet</code>'s elements 
+     * that are also contained in the specified collection. 
+     *
+     * @param coll 
+     *    elements to be removed from this <code>MultiSet</code>. 
+     * @return 
+     *    <code>true</code> if this <code>MultiSet</code> 
+     *    changed as a result of the call. 
+     * @throws NullPointerException 
+     *    if the specified collection is <code>null</code>. 
+     * @see #remove(Object) 
+     */
+    public boolean removeAll(Collection<?> coll) {
+	boolean thisChanged = false;
+	for (Object cand : coll) {
+	    // throws NullPointerException if cand == null 
+	    thisChanged |= remove(cand);
+	}
+	return thisChanged;
+    }
+
+    /**
+     * Retains only the elements in this <code>MultiSet</code> 
+     * that are contained in the specified collection. 
+     *
+     * @param coll 
+     *    elements to be retained in this <code>MultiSet</code>. 
+     * @return 
+     *    <code>true</code> if this <code>MultiSet</code> changed 
+     *    as a result of the call. 
+     * @throws NullPointerException 
+     *    if the specified collection is <code>null</code>. 
+     * @see #remove(Object) 
+     */
+    public boolean retainAll(Collection<?> coll) {
+	boolean result = false;
+	for (int slot = nextLive(0);
+	     slot < this.keys.length;
+	     slot = nextLive(slot + 1)) {
+	    if (!coll.contains(this.keys[slot])) {
+		removeSlot(slot);
+		result = true;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Removes all of the elements from this <code>MultiSet</code>. 
+     * This <code>MultiSet</code> will be empty after this method returns. 
+     * The capacity of the hash table is not reduced. 
+     */
+    public void clear() {
+	Arrays.fill(this.keys,  null);
+	Arrays.fill(this.mults, 0);
+	if (this.index != null) {
+	    this.index.clear();
+	}
+	this.size = 0;
+	this.used = 0;
+	this.modCount++;
+    }
+
+    /**
+     * Returns a view of the underlying set of this <code>MultiSet</code>. 
+     * The set supports removal but no adding of elements. 
+     *
+     * @return 
+     *    the <code>Set</code> containing exactly the objects 
+     *    with strictly positive multiplicity in this <code>MultiSet</code>. 
+     */
+    public Set<T> getSet() {
+	return new SetView();
+    }
+
+    /**
+     * Returns a view of the underlying map of this <code>MultiSet</code> 
+     * as a map mapping each entry to its multiplicity. 
+     * The values are views on the multiplicities in this multi-set 
+     * created on demand. 
+     */
+    public Map<T, Multiplicity> getMap() {
+	return new MapView();
+    }
+
+    /**
+     * Returns a Set view of the mapping 
+     * from the element of this <code>MultiSet</code> 
+     * to the according multiplicities. 
+     * For details see {@link MultiSet#getSetWithMults()}. 
+     */
+    public Set<Map.Entry<T, Multiplicity>> getSetWithMults() {
+	return new EntrySetView();
+    }
+
+    public String toString() {
+	return "<MultiSet>" + getMap() + "</MultiSet>";
+    }
+
+    /**
+     * Returns <code>true</code> if and only if <code>obj</code> 
+     * is also a <code>MultiSet</code> 
+     * and contains the same elements with the same multiplicities 
+     * as this one. 
+     *
+     * @param obj 
+     *    an <code>Object</code>, possibly <code>null</code>. 
+     * @return 
+     *    a <code>true</code> if and only if <code>obj</code> 
+     *    is also a <code>MultiSet</code> 
+     *    and contains the same elements with the same multiplicities 
+     *    as this one. 
+     */
+    public boolean equals(Object obj) {
+	if (!(obj instanceof MultiSet)) {
+	    return false;
+	}
+	MultiSet<?> other = (MultiSet<?>) obj;
+	if (other.size() != this.size) {
+	    return false;
+	}
+	for (int slot = nextLive(0);
+	     slot < this.keys.length;
+	     slot = nextLive(slot + 1)) {
+	    if (other.getMultiplicity(this.keys[slot]) != this.mults[slot]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    public int hashCode() {
+	int result = 0;
+	for (int slot = nextLive(0);
+	     slot < this.keys.length;
+	     slot = nextLive(slot + 1)) {
+	    result += this.keys[slot].hashCode() * this.mults[slot];
+	}
+	return result;
+    }
+}
@@ -0,0 +1,258 @@
+
+package eu.simuline.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list stored in a growable circular array 
+ * like a {@link java.util.ArrayDeque} but with positional access. 
+ * It is intended as storage for {@link TwoSidedList}s 
+ * which grow and shrink at both ends. 
+ * Thus <code>get</code>, <code>set</code>, 
+ * adding and removing at both ends run in (amortized) constant time, 
+ * whereas for an {@link java.util.ArrayList} 
+ * adding and removing at the beginning requires linear time. 
+ * Adding and removing at other positions 
+ * moves the elements on the shorter side only. 
+ * This class permits all elements including <code>null</code>. 
+ * <p>
+ * Sublists, iterators and the like are inherited from {@link AbstractList} 
+ * and are based on positional access. 
+ * Like these, this implementation is not synchronized. 
+ *
+ * @param <E>
+ *    the class of the elements of this list. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class RingBufferList<E> extends AbstractList<E>
+    implements RandomAccess {
+
+    /* -------------------------------------------------------------------- *
+     * class constants.                                                     *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The capacity of a list created by {@link #RingBufferList()}. 
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The circular array holding the element with index <code>i</code> 
+     * at position <code>(head + i) % elems.length</code> 
+     * and <code>null</code> at all positions not occupied by an element. 
+     */
+    private Object[] elems;
+
+    /**
+     * The position of the element with index <code>0</code> 
+     * in {@link #elems}. 
+     */
+    private int head;
+
+    /**
+     * The number of elements of this list. 
+     */
+    private int size;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates an empty list. 
+     */
+    public RingBufferList() {
+	this.elems = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a list containing the elements of the specified collection 
+     * in the order they are returned by its iterator. 
+     *
+     * @param coll 
+     *    the collection whose elements are to be placed into this list. 
+     */
+    public RingBufferList(Collection<? extends E> coll) {
+	this.elems = coll.toArray(new Object[Math.max(coll.size(), 1)]);
+	this.size = coll.size();
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    private void checkIndex(int idx, int sup) {
+	if (idx < 0 || idx >= sup) {
+	    throw new IndexOutOfBoundsException
+		("Index " + idx + " not within size " + size() + ". ");
+	}
+    }
+
+    /**
+     * Returns the position in {@link #elems} 
+     * of the element with index <code>idx</code> 
+     * for <code>-elems.length &lt;= idx &lt; elems.length</code>. 
+     */
+    private int pos(int idx) {
+	int res = this.head + idx;
+	int cap = this.elems.length;
+	if (res >= cap) {
+	    return res - cap;
+	}
+	return res < 0 ? res + cap : res;
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, 
+     * to ensure that it can hold at least the number of elements 
+     * specified by the minimum capacity argument. 
+     *
+     * @param minCapacity 
+     *    the desired minimum capacity. 
+     */
+    public void ensureCapacity(int minCapacity) {
+	int cap = this.elems.length;
+	if (minCapacity <= cap) {
+	    return;
+	}
+	Object[] res = new Object[Math.max(minCapacity, cap + (cap >> 1))];
+	int first = Math.min(this.size, cap - this.head);
+	System.arraycopy(this.elems, this.head, res, 0, first);
+	System.arraycopy(this.elems, 0, res, first, this.size - first);
+	this.elems = res;
+	this.head = 0;
+    }
+
+    /**
+     * Makes room for <code>num</code> elements at index <code>idx</code> 
+     * moving the elements on the shorter side 
+     * and increases {@link #size} accordingly. 
+     * The positions made free are not cleared. 
+     */
+    private void openGap(int idx, int num) {
+	ensureCapacity(this.size + num);
+	if (idx < this.size - idx) {
+	    this.head = pos(-num);
+	    for (int i = 0; i < idx; i++) {
+		this.elems[pos(i)] = this.elems[pos(i + num)];
+	    }
+	} else {
+	    for (int i = this.size - 1; i >= idx; i--) {
+		this.elems[pos(i + num)] = this.elems[pos(i)];
+	    }
+	}
+	this.size += num;
+    }
+
+    /**
+     * Removes the <code>num</code> elements 
+     * starting with index <code>idx</code> 
+     * moving the elements on the shorter side 
+     * and decreases {@link #size} accordingly. 
+     */
+    private void closeGap(int idx, int num) {
+	int numAfter = this.size - idx - num;
+	if (idx < numAfter) {
+	    for (int i = idx - 1; i >= 0; i--) {
+		this.elems[pos(i + num)] = this.elems[pos(i)];
+	    }
+	    for (int i = 0; i < num; i++) {
+		this.elems[pos(i)] = null;
+	    }
+	    this.head = pos(num);
+	} else {
+	    for (int i = idx; i < idx + numAfter; i++) {
+		this.elems[pos(i)] = this.elems[pos(i + num)];
+	    }
+	    for (int i = idx + numAfter; i < this.size; i++) {
+		this.elems[pos(i)] = null;
+	    }
+	}
+	this.size -= num;
+    }
+
+    public int size() {
+	return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int idx) {
+	checkIndex(idx, this.size);
+	return (E) this.elems[pos(idx)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E set(int idx, E elem) {
+	checkIndex(idx, this.size);
+	int pos = pos(idx);
+	E res = (E) this.elems[pos];
+	this.elems[pos] = elem;
+	return res;
+    }
+
+    public boolean add(E elem) {
+	ensureCapacity(this.size + 1);
+	this.elems[pos(this.size)] = elem;
+	this.size++;
+	this.modCount++;
+	return true;
+    }
+
+    public void add(int idx, E elem) {
+	checkIndex(idx, this.size + 1);
+	openGap(idx, 1);
+	this.elems[pos(idx)] = elem;
+	this.modCount++;
+    }
+
+    public boolean addAll(int idx, Collection<? extends E> coll) {
+	checkIndex(idx, this.size + 1);
+	// copying first makes this work even if coll is a view on this list 
+	Object[] added = coll.toArray();
+	if (added.length == 0) {
+	    return false;
+	}
+	openGap(idx, added.length);
+	for (int i = 0; i < added.length; i++) {
+	    this.elems[pos(idx + i)] = added[i];
+	}
+	this.modCount++;
+	return true;
+    }
+
+    public boolean addAll(Collection<? extends E> coll) {
+	return addAll(this.size, coll);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E remove(int idx) {
+	checkIndex(idx, this.size);
+	E res = (E) this.elems[pos(idx)];
+	closeGap(idx, 1);
+	this.modCount++;
+	return res;
+    }
+
+    protected void removeRange(int fromIdx, int toIdx) {
+	if (fromIdx < toIdx) {
+	    closeGap(fromIdx, toIdx - fromIdx);
+	    this.modCount++;
+	}
+    }
+
+    public void clear() {
+	Arrays.fill(this.elems, null);
+	this.head = 0;
+	this.size = 0;
+	this.modCount++;
+    }
+} // class RingBufferList 
@@ -0,0 +1,682 @@
+
+package eu.simuline.util;
+
+import eu.simuline.util.MultiSet.Multiplicity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.Map;
+import java.util.AbstractSet;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
+import java.util.function.Function;
+
+import java.util.stream.Stream;
+
+/**
+ * Represents an approximate multi-set of bounded size 
+ * as it is used to find the most frequent elements of a stream 
+ * too large to be counted exactly. 
+ * This implements the Space-Saving algorithm 
+ * by Metwally, Agrawal and El Abbadi: 
+ * At most {@link #capacity()} elements are kept with a counter each. 
+ * If an element not present is added when this multi-set is full, 
+ * an element with minimal multiplicity <code>min</code> is evicted 
+ * and the new element takes over its counter: 
+ * it is inserted with multiplicity <code>min</code> plus the added one 
+ * and <code>min</code> is recorded as its overestimation 
+ * which is returned by {@link #getError(Object)}. 
+ * <p>
+ * So the multiplicity of an element in this set 
+ * is an upper bound for its true frequency in the stream 
+ * and {@link #getGuaranteedMult(Object)} is a lower bound. 
+ * Each element with true frequency 
+ * exceeding {@link #sizeWithMult()}<code>/</code>{@link #capacity()} 
+ * is guaranteed to be in this set. 
+ * Note that {@link #sizeWithMult()} is exact: 
+ * it is the length of the stream added so far. 
+ * Adding an element takes constant time, 
+ * because the counters are kept 
+ * in an {@link OpenHashMultiSet} indexed by multiplicity. 
+ * <p>
+ * Unlike a Count-Min sketch, 
+ * this structure keeps the elements themselves, 
+ * which is required for {@link #topK(int)} and iteration, 
+ * and uses space linear in the capacity only. 
+ * <p>
+ * Since counters are shared between evicted and new elements, 
+ * this multi-set supports adding elements and {@link #clear()} only. 
+ * All other modifying methods, also of the iterator 
+ * and of the views and of the multiplicity objects, 
+ * throw an {@link UnsupportedOperationException}. 
+ * Note that this kind of set does not support <code>null</code> elements. 
+ * <p>
+ * <strong>Note that this implementation is not synchronized.</strong> 
+ *
+ * @param <T>
+ *    the class of the elements of this multi-set. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class SpaceSavingMultiSet<T> implements MultiSet<T> {
+
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * A read only {@link Multiplicity} 
+     * reflecting the multiplicity of {@link #key} in the enclosing set. 
+     */
+    private final class MultiplicityView implements Multiplicity {
+
+	/**
+	 * The element the multiplicity of which is represented. 
+	 */
+	private final T key;
+
+	MultiplicityView(T key) {
+	    this.key = key;
+	}
+
+	/**
+	 * Throws an exception. 
+	 *
+	 * @throws UnsupportedOperationException 
+	 *    always. 
+	 */
+	public int set(int mult) {
+	    throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Throws an exception. 
+	 *
+	 * @throws UnsupportedOperationException 
+	 *    always. 
+	 */
+	public int add(int mult) {
+	    throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the multiplicity of {@link #key} 
+	 * which is <code>0</code> if it has been evicted. 
+	 */
+	public int get() {
+	    return SpaceSavingMultiSet.this.counts.getMultiplicity(this.key);
+	}
+
+	public int compareTo(Multiplicity other) {
+	    return get() - other.get();
+	}
+
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Multiplicity)) {
+		return false;
+	    }
+	    return get() == ((Multiplicity) obj).get();
+	}
+
+	public int hashCode() {
+	    return get();
+	}
+
+	public String toString() {
+	    return "Multiplicity " + get();
+	}
+    } // class MultiplicityView 
+
+    /**
+     * An iterator over the elements of the enclosing set 
+     * which does not support modification. 
+     */
+    private final class MultiSetIteratorImpl implements MultiSetIterator<T> {
+
+	/**
+	 * The iterator of {@link #counts} this one delegates to. 
+	 */
+	private final MultiSetIterator<T> wrapped;
+
+	/**
+	 * The element returned last by {@link #next()} 
+	 * or <code>null</code> if {@link #next()} has not yet been invoked. 
+	 */
+	private T last;
+
+	MultiSetIteratorImpl() {
+	    this.wrapped = SpaceSavingMultiSet.this.counts.iterator();
+	}
+
+	public boolean hasNext() {
+	    return this.wrapped.hasNext();
+	}
+
+	public T next() {
+	    this.last = this.wrapped.next();
+	    return this.last;
+	}
+
+	public int getMult() {
+	    return this.wrapped.getMult();
+	}
+
+	/**
+	 * Returns a read only view on the multiplicity 
+	 * of the element returned last by {@link #next()}. 
+	 *
+	 * @throws IllegalStateException 
+	 *    if {@link #next()} has not yet been invoked. 
+	 */
+	public Multiplicity getMultObj() {
+	    // throws IllegalStateException if appropriate 
+	    this.wrapped.getMult();
+	    return new MultiplicityView(this.last);
+	}
+
+	public void remove() {
+	    throw new UnsupportedOperationException();
+	}
+
+	public int setMult(int setMult) {
+	    throw new UnsupportedOperationException();
+	}
+
+	public int removeMult(int removeMult) {
+	    throw new UnsupportedOperationException();
+	}
+    } // class MultiSetIteratorImpl 
+
+    /* -------------------------------------------------------------------- *
+     * fields.                                                              *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * The maximal number of elements in this set. 
+     */
+    private final int capacity;
+
+    /**
+     * Maps the elements of this set to their (estimated) multiplicities. 
+     * This is indexed by multiplicity 
+     * to find an element to be evicted in constant time. 
+     */
+    private final OpenHashMultiSet<T> counts;
+
+    /**
+     * Maps the elements of this set 
+     * to the amount by which their multiplicities in {@link #counts} 
+     * may overestimate their frequencies. 
+     * Elements which were never inserted by evicting another one 
+     * are not contained. 
+     */
+    private final OpenHashMultiSet<T> errors;
+
+    /* -------------------------------------------------------------------- *
+     * constructors.                                                        *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Creates a new empty <code>SpaceSavingMultiSet</code> 
+     * with at most <code>capacity</code> elements. 
+     *
+     * @param capacity 
+     *    the maximal number of elements kept in this set. 
+     *    The greater this, the better the estimations. 
+     * @throws IllegalArgumentException 
+     *    if <code>capacity</code> is not strictly positive. 
+     */
+    public SpaceSavingMultiSet(int capacity) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException
+		("Expected positive capacity; found " + capacity + ". ");
+	}
+	this.capacity = capacity;
+	this.counts = new OpenHashMultiSet<T>(capacity, true);
+	this.errors = new OpenHashMultiSet<T>();
+    }
+
+    /* -------------------------------------------------------------------- *
+     * methods.                                                             *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * Returns the maximal number of elements kept in this set. 
+     *
+     * @return 
+     *    the capacity passed to the constructor. 
+     */
+    public int capacity() {
+	return this.capacity;
+    }
+
+    /**
+     * Returns the number of pairwise different elements 
+     * in this <code>MultiSet</code> 
+     * which is at most {@link #capacity()}. 
+     *
+     * @return 
+     *    the number of elements in this <code>MultiSet</code> 
+     *    each multiple element counted as a single one. 
+     * @see #sizeWithMult() 
+     */
+    public int size() {
+	return this.counts.size();
+    }
+
+    /**
+     * Returns the number of elements added to this <code>MultiSet</code> 
+     * counted with multiplicities. 
+     * Since an evicted element passes its multiplicity 
+     * to the element replacing it, this is exact. 
+     *
+     * @return 
+     *    the number of elements added to this <code>MultiSet</code> 
+     *    counted with multiplicities, 
+     *    provided this does not exceed {@link Integer#MAX_VALUE}; 
+     *    otherwise just {@link Integer#MAX_VALUE}. 
+     * @see #size() 
+     */
+    public int sizeWithMult() {
+	return this.counts.sizeWithMult();
+    }
+
+    public boolean isEmpty() {
+	return this.counts.isEmpty();
+    }
+
+    /**
+     * Returns one of the elements in this multiple set 
+     * with maximal multiplicity in constant time. 
+     * The return value is <code>null</code> 
+     * if and only if this set is empty. 
+     *
+     * @return 
+     *    a <code>Object o != null</code> with maximal multiplicity 
+     *    or <code>null</code> if this multiple set is empty. 
+     * @see #isEmpty 
+     */
+    public T getObjWithMaxMult() {
+	return this.counts.getObjWithMaxMult();
+    }
+
+    public int getMaxMult() {
+	return this.counts.getMaxMult();
+    }
+
+    /**
+     * Returns the <code>k</code> elements with highest multiplicities 
+     * in descending order of multiplicities, 
+     * or all elements if there are less than <code>k</code>, 
+     * in time linear in <code>k</code>. 
+     * Note that the multiplicities are estimations 
+     * as described in the class documentation. 
+     *
+     * @param k 
+     *    the maximal number of elements to be returned. 
+     * @return 
+     *    a list of <code>min(k, size())</code> elements 
+     *    with highest multiplicities in descending order. 
+     * @throws IllegalArgumentException 
+     *    if <code>k</code> is negative. 
+     */
+    public List<T> topK(int k) {
+	return this.counts.topK(k);
+    }
+
+    /**
+     * Returns the multiplicity of the given object in this set, 
+     * which is an upper bound for the number of times it has been added 
+     * if it is in this set. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is the estimated mutliplicity of the given element. 
+     *    This is <code>0</code> if <code>obj</code> is not in this set, 
+     *    either because it was never added or because it was evicted. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     * @see #getError(Object) 
+     * @see #getGuaranteedMult(Object) 
+     */
+    public int getMultiplicity(Object obj) {
+	// throws NullPointerException for obj==null 
+	return this.counts.getMultiplicity(obj);
+    }
+
+    /**
+     * Returns by how much the multiplicity of the given object 
+     * may overestimate the number of times it has been added 
+     * since it was inserted last. 
+     * This is the multiplicity of the element it evicted. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    a non-negative <code>int</code> value 
+     *    which is <code>0</code> if <code>obj</code> is not in this set 
+     *    or was inserted without evicting another element. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     */
+    public int getError(Object obj) {
+	// throws NullPointerException for obj==null 
+	return this.errors.getMultiplicity(obj);
+    }
+
+    /**
+     * Returns the number of times the given object has been added 
+     * at least. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @return 
+     *    {@link #getMultiplicity(Object)} minus {@link #getError(Object)}. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     */
+    public int getGuaranteedMult(Object obj) {
+	return getMultiplicity(obj) - getError(obj);
+    }
+
+    /**
+     * Returns a read only view on the multiplicity 
+     * of the given object in this set 
+     * or <code>null</code> if it is not in this set. 
+     *
+     * @param obj 
+     *    an <code>Object</code> and not null. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code>. 
+     */
+    @SuppressWarnings("unchecked")
+    public Multiplicity getMultiplicityObj(Object obj) {
+	// throws NullPointerException for obj==null 
+	return contains(obj) ? new MultiplicityView((T) obj) : null;
+    }
+
+    public boolean contains(Object obj) {
+	// throws NullPointerException for obj==null 
+	return this.counts.contains(obj);
+    }
+
+    /**
+     * Returns an iterator over the elements in this collection 
+     * which emits each element exactly once, 
+     * without regarding its multiplicity. 
+     * The iterator does not support modifying methods. 
+     */
+    public MultiSetIterator<T> iterator() {
+	return new MultiSetIteratorImpl();
+    }
+
+    public Spliterator<T> spliterator() {
+	return this.counts.spliterator();
+    }
+
+    public Stream<T> stream() {
+	return this.counts.stream();
+    }
+
+    /**
+     * Returns a sequential stream 
+     * of the entries of this <code>MultiSet</code> 
+     * mapping each element to a read only view on its multiplicity. 
+     */
+    public Stream<Map.Entry<T, Multiplicity>> entryStream() {
+	return this.counts.stream()
+	    .map(new Function<T, Map.Entry<T, Multiplicity>>() {
+		    public Map.Entry<T, Multiplicity> apply(T key) {
+			return new AbstractMap.SimpleImmutableEntry
+			    <T, Multiplicity>(key, new MultiplicityView(key));
+		    }
+		});
+    }
+
+    public Object[] toArray() {
+	return this.counts.toArray();
+    }
+
+    public T[] toArray(T[] arr) {
+	return this.counts.toArray(arr);
+    }
+
+    public int addWithMult(T obj) {
+	// throws NullPointerException for obj==null 
+	return addWithMult(obj, 1);
+    }
+
+    /**
+     * Adds <code>obj</code> with multiplicity <code>addMult</code> 
+     * and returns its new (estimated) multiplicity. 
+     * If <code>obj</code> is not in this set and this set is full, 
+     * an element with minimal multiplicity is evicted 
+     * and <code>obj</code> takes over its multiplicity. 
+     *
+     * @param obj 
+     *    an <code>Object</code> instance. 
+     * @param addMult 
+     *    a non-negative integer specifying the multiplicity 
+     *    with which <code>obj</code> is to be added. 
+     * @return 
+     *    a non-negative <code>int</code> value: 
+     *    the new multiplicity of <code>obj</code>. 
+     * @throws IllegalArgumentException 
+     *    for <code>addMult &lt; 0</code> 
+     *    and if the new multiplicity would overflow. 
+     * @throws NullPointerException 
+     *    for <code>obj==null</code> provided <code>addMult &ge; 0</code>. 
+     */
+    public int addWithMult(T obj, int addMult) {
+	if (addMult < 0) {
+	    throw new IllegalArgumentException
+		("Expected non-negative multiplicity; found " + 
+		 addMult + ". ");
+	}
+	if (addMult == 0
+	    || this.counts.size() < this.capacity
+	    || this.counts.contains(obj)) {
+	    // throws NullPointerException for obj==null 
+	    return this.counts.addWithMult(obj, addMult);
+	}
+	if (obj == null) {
+	    throw new NullPointerException();
+	}
+	// Here, obj is new and an element must be evicted. 
+	int min = this.counts.getMinMult();
+	if (min > Integer.MAX_VALUE - addMult) {
+	    throw new IllegalArgumentException
+		("Multiplicity overflow adding " + addMult + 
+		 " to " + min + ". ");
+	}
+	T evicted = this.counts.getObjWithMinMult();
+	this.counts.remove(evicted);
+	this.errors.remove(evicted);
+	this.counts.addWithMult(obj, min + addMult);
+	this.errors.addWithMult(obj, min);
+	return min + addMult;
+    }
+
+    public boolean add(T obj) {
+	// throws NullPointerException for obj==null 
+	boolean isNew = !contains(obj);
+	addWithMult(obj, 1);
+	// An evicting new element inherits the minimal count; 
+	// so the count returned does not tell whether obj is new. 
+	return isNew;
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public int removeWithMult(Object obj) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public int removeWithMult(Object obj, int removeMult) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public boolean remove(Object obj) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public int setMultiplicity(T obj, int newMult) {
+	throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(Collection<?> coll) {
+	return this.counts.containsAll(coll);
+    }
+
+    public boolean addAll(MultiSet<? extends T> mvs) {
+	int oldSize = size();
+	MultiSetIterator<? extends T> iter = mvs.iterator();
+	while (iter.hasNext()) {
+	    addWithMult(iter.next(), iter.getMult());
+	}
+	return size() != oldSize;
+    }
+
+    public boolean addAll(Set<? extends T> set) {
+	int oldSize = size();
+	for (T cand : set) {
+	    addWithMult(cand, 1);
+	}
+	return size() != oldSize;
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public boolean removeAll(Collection<?> coll) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Throws an exception. 
+     *
+     * @throws UnsupportedOperationException 
+     *    always. 
+     */
+    public boolean retainAll(Collection<?> coll) {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Removes all of the elements from this <code>MultiSet</code> 
+     * and forgets all errors. 
+     */
+    public void clear() {
+	this.counts.clear();
+	this.errors.clear();
+    }
+
+    /**
+     * Returns an unmodifiable view 
+     * of the underlying set of this <code>MultiSet</code>. 
+     */
+    public Set<T> getSet() {
+	return Collections.unmodifiableSet(this.counts.getSet());
+    }
+
+    /**
+     * Returns an unmodifiable view of the underlying map 
+     * of this <code>MultiSet</code> 
+     * mapping each element to a read only view on its multiplicity. 
+     */
+    public Map<T, Multiplicity> getMap() {
+	return new AbstractMap<T, Multiplicity>() {
+	    public Set<Map.Entry<T, Multiplicity>> entrySet() {
+		return getSetWithMults();
+	    }
+	    public int size() {
+		return SpaceSavingMultiSet.this.size();
+	    }
+	    public boolean containsKey(Object key) {
+		return SpaceSavingMultiSet.this.contains(key);
+	    }
+	    public Multiplicity get(Object key) {
+		return SpaceSavingMultiSet.this.getMultiplicityObj(key);
+	    }
+	};
+    }
+
+    /**
+     * Returns an unmodifiable set view of the mapping 
+     * from the element of this <code>MultiSet</code> 
+     * to read only views on their multiplicities. 
+     */
+    public Set<Map.Entry<T, Multiplicity>> getSetWithMults() {
+	return new AbstractSet<Map.Entry<T, Multiplicity>>() {
+	    public Iterator<Map.Entry<T, Multiplicity>> iterator() {
+		final Iterator<T> iter =
+		    SpaceSavingMultiSet.this.counts.iterator();
+		return new Iterator<Map.Entry<T, Multiplicity>>() {
+		    public boolean hasNext() {
+			return iter.hasNext();
+		    }
+		    public Map.Entry<T, Multiplicity> next() {
+			T key = iter.next();
+			return new AbstractMap.SimpleImmutableEntry
+			    <T, Multiplicity>(key, new MultiplicityView(key));
+		    }
+		};
+	    }
+	    public int size() {
+		return SpaceSavingMultiSet.this.size();
+	    }
+	};
+    }
+
+    public String toString() {
+	return "<MultiSet capacity=\"" + this.capacity + "\">" + 
+	    this.counts.getMap() + "</MultiSet>";
+    }
+
+    /**
+     * Returns <code>true</code> if and only if <code>obj</code> 
+     * is also a <code>MultiSet</code> 
+     * and contains the same elements with the same multiplicities 
+     * as this one. 
+     * Note that errors and capacity are not taken into account. 
+     */
+    public boolean equals(Object obj) {
+	return this.counts.equals(obj);
+    }
+
+    public int hashCode() {
+	return this.counts.hashCode();
+    }
+}
@@ -3,9 +3,18 @@ package eu.simuline.util;
 
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.SortedMap;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.Map;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Comparator;
+
+import java.util.function.IntBinaryOperator;
 import java.util.NoSuchElementException; // for javadoc only 
 
 /**
@@ -24,6 +33,80 @@ public final class TreeMultiSet<T>
     implements SortedMultiSet<T> {
 
 
+    /* -------------------------------------------------------------------- *
+     * inner classes.                                                       *
+     * -------------------------------------------------------------------- */
+
+    /**
+     * A sorted map given by a list of entries sorted by their keys 
+     * which supports the methods needed by {@link TreeMap#putAll(Map)} only. 
+     * For an empty tree map with the same comparator, 
+     * this builds the tree in linear time. 
+     *
+     * @param <K>
+     *    the class of the keys of this map. 
+     * @param <V>
+     *    the class of the values of this map. 
+     */
+    private static final class SortedEntries<K, V>
+	extends AbstractMap<K, V> implements SortedMap<K, V> {
+
+	/**
+	 * The entries of this map sorted by {@link #comp}. 
+	 */
+	private final List<Map.Entry<K, V>> entries;
+
+	/**
+	 * The comparator the keys of {@link #entries} are sorted by. 
+	 */
+	private final Comparator<? super K> comp;
+
+	SortedEntries(List<Map.Entry<K, V>> entries,
+		      Comparator<? super K> comp) {
+	    this.entries = entries;
+	    this.comp = comp;
+	}
+
+	public Set<Map.Entry<K, V>> entrySet() {
+	    return new AbstractSet<Map.Entry<K, V>>() {
+		public Iterator<Map.Entry<K, V>> iterator() {
+		    return SortedEntries.this.entries.iterator();
+		}
+		public int size() {
+		    return SortedEntries.this.entries.size();
+		}
+	    };
+	}
+
+	public int size() {
+	    return this.entries.size();
+	}
+
+	public Comparator<? super K> comparator() {
+	    return this.comp;
+	}
+
+	public K firstKey() {
+	    return this.entries.get(0).getKey();
+	}
+
+	public K lastKey() {
+	    return this.entries.get(this.entries.size() - 1).getKey();
+	}
+
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+	    throw new UnsupportedOperationException();
+	}
+
+	public SortedMap<K, V> headMap(K toKey) {
+	    throw new UnsupportedOperationException();
+	}
+
+	public SortedMap<K, V> tailMap(K fromKey) {
+	    throw new UnsupportedOperationException();
+	}
+    } // class SortedEntries 
+
     /* -------------------------------------------------------------------- *
      * constructors.                                                        *
      * -------------------------------------------------------------------- */
@@ -48,12 +131,14 @@ public final class TreeMultiSet<T>
 
     /**
      * Copy constructor. 
+     * The multiplicities are copied, not shared with <code>other</code>. 
      *
      * @param other 
      *    another <code>MultiSet</code> instance. 
      */
     public TreeMultiSet(MultiSet<? extends T> other) {
-	this(new TreeMap<T, Multiplicity>(other.getMap()));
+	this();
+	addAll(other);
     }
 
     /**
@@ -72,6 +157,93 @@ public final class TreeMultiSet<T>
      * methods.                                                             *
      * -------------------------------------------------------------------- */
 
+    /**
+     * Returns the multi-set 
+     * in which each element has the multiplicity <code>op(m1, m2)</code>, 
+     * where <code>m1</code> and <code>m2</code> are its multiplicities 
+     * in <code>ms1</code> and in <code>ms2</code>. 
+     * Elements for which this is not strictly positive are omitted. 
+     * Both multi-sets must be sorted by the same comparator: 
+     * then they are merged in time linear in their sizes 
+     * and also the result is built in linear time. 
+     *
+     * @param ms1 
+     *    a multi-set sorted by the same comparator as <code>ms2</code>. 
+     * @param ms2 
+     *    a multi-set sorted by the same comparator as <code>ms1</code>. 
+     * @param op 
+     *    defines the multiplicities of the result. 
+     *    For elements occurring in just one of the multi-sets, 
+     *    it is invoked with multiplicity <code>0</code> for the other one. 
+     * @return 
+     *    a new multi-set with the comparator of <code>ms1</code>. 
+     */
+    static <T> TreeMultiSet<T> merge(TreeMultiSet<T> ms1,
+				     TreeMultiSet<T> ms2,
+				     IntBinaryOperator op) {
+	Comparator<? super T> comp = ms1.comparator();
+	assert comp == null
+	    ? ms2.comparator() == null
+	    : comp.equals(ms2.comparator());
+	List<Map.Entry<T, Multiplicity>> merged =
+	    new ArrayList<Map.Entry<T, Multiplicity>>(ms1.size() + ms2.size());
+	Iterator<Map.Entry<T, Multiplicity>> iter1 =
+	    ms1.obj2mult.entrySet().iterator();
+	Iterator<Map.Entry<T, Multiplicity>> iter2 =
+	    ms2.obj2mult.entrySet().iterator();
+	Map.Entry<T, Multiplicity> entry1 = iter1.hasNext() ? iter1.next() : null;
+	Map.Entry<T, Multiplicity> entry2 = iter2.hasNext() ? iter2.next() : null;
+	T key;
+	int mult;
+	int cmp;
+	while (entry1 != null || entry2 != null) {
+	    if (entry1 == null) {
+		cmp = 1;
+	    } else if (entry2 == null) {
+		cmp = -1;
+	    } else {
+		cmp = compare(comp, entry1.getKey(), entry2.getKey());
+	    }
+
+	    if (cmp <= 0) {
+		key = entry1.getKey();
+		mult = op.applyAsInt(entry1.getValue().get(),
+				     cmp == 0 ? entry2.getValue().get() : 0);
+	    } else {
+		key = entry2.getKey();
+		mult = op.applyAsInt(0, entry2.getValue().get());
+	    }
+	    if (mult > 0) {
+		merged.add(new AbstractMap.SimpleImmutableEntry<T, Multiplicity>
+			   (key, MultiplicityImpl.create(mult)));
+	    }
+	    if (cmp <= 0) {
+		entry1 = iter1.hasNext() ? iter1.next() : null;
+	    }
+	    if (cmp >= 0) {
+		entry2 = iter2.hasNext() ? iter2.next() : null;
+	    }
+	}
+
+	TreeMap<T, Multiplicity> t2mult = new TreeMap<T, Multiplicity>(comp);
+	// linear time because sorted map with the same comparator 
+	t2mult.putAll(new SortedEntries<T, Multiplicity>(merged, comp));
+	return new TreeMultiSet<T>(t2mult);
+    }
+
+    /**
+     * Compares <code>obj1</code> with <code>obj2</code> 
+     * using <code>comp</code> or the natural ordering 
+     * if <code>comp</code> is <code>null</code> as {@link TreeMap} does. 
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(Comparator<? super T> comp,
+				   T obj1, T obj2) {
+	return comp == null
+	    ? ((Comparable<? super T>) obj1).compareTo(obj2)
+	    : comp.compare(obj1, obj2);
+    }
+
     /**
      * Returns the comparator used to order the elements in this set, 
      * or <code>null</code> 
@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.Collection;
 import java.util.ListIterator;
 import java.util.Iterator;
-import java.util.ArrayList;
 
 /**
  * Compared to a classical list,  
@@ -32,6 +31,10 @@ import java.util.ArrayList;
  * Essentially this two sided list wrapps a classical list. 
  * Various constructors allow to pass that list. 
  * This allows to determine the performance behavior. 
+ * The factory methods and {@link #TwoSidedList(int)} 
+ * use a {@link RingBufferList} 
+ * so that adding and removing at both ends 
+ * runs in amortized constant time. 
  * The signatures of the constructors 
  * generalize the constructors known 
  * from implementations of classical <code>List</code>s. 
@@ -243,7 +246,7 @@ public final class TwoSidedList<E> implements List<E> {
      */
     public static <E> TwoSidedList<E> create(List<? extends E> list, 
 					     int firstIndex) {
-	return new TwoSidedList<E>(new ArrayList<E>(list), firstIndex);
+	return new TwoSidedList<E>(new RingBufferList<E>(list), firstIndex);
     }
 
     /**
@@ -282,7 +285,7 @@ public final class TwoSidedList<E> implements List<E> {
      *    Changes to <code>list</code> do not influence this twosided list. 
      */
     public static <E> TwoSidedList<E> create(List<? extends E> list) {
-	return new TwoSidedList<E>(new ArrayList<E>(list));
+	return new TwoSidedList<E>(new RingBufferList<E>(list));
     }
 
     /**
@@ -313,7 +316,7 @@ public final class TwoSidedList<E> implements List<E> {
      *    another <code>TwoSidedList</code>. 
      */
     public static <E> TwoSidedList<E> create(TwoSidedList<? extends E> other) {
-	return new TwoSidedList<E>(new ArrayList<E>(other.list),
+	return new TwoSidedList<E>(new RingBufferList<E>(other.list),
 				   other.firstIndex);
     }
 
@@ -327,7 +330,7 @@ public final class TwoSidedList<E> implements List<E> {
      *    the index where this list starts growing. 
      */
     public TwoSidedList(int firstIndex) {
-	this(new ArrayList<E>(), firstIndex);
+	this(new RingBufferList<E>(), firstIndex);
     }
 
     /* -------------------------------------------------------------------- *
@@ -13,9 +13,12 @@
  * | {@link Benchmarker}        | perf.    | -      |
  * | {@link BitSetList}         | buffer   |        |               |             |
  * | {@link Caster}             |   -      | -      | -             |  -          |internal
+ * | {@link ChunkedList}        | -        | -      | -             |  -          |
  * | {@link CollectionsExt}     | multip   | -      | -             |  -          |
  * | {@link Comparators}        | l2ra     | -      | -             |  -          |
  * | {@link CyclicArrayList}    | graphDv  | -      | -             |  -          |
+ * | {@link CyclicDoubleList}   | -        | -      | -             |  -          |
+ * | {@link CyclicIntList}      | -        | -      | -             |  -          |
  * | {@link CyclicIterator}     | graphDv  | -      | -             |  -          |
  * | {@link CyclicList}         | graphDv  | -      | -             |  -          |
  * | {@link DataModel}          | fpga     | -      | -             |  -          |
@@ -30,8 +33,13 @@
  * | {@link MultiSet}           | x        | -      |   -           |  -          |
  * | {@link MultiSetIterator}   | x        | -      |   -           |  -          |
  * | {@link NotYetImplementedException} |- |               |             |
+ * | {@link OpenHashMultiSet}   | -        | -      | -             |  -          |
+ * | {@link SpaceSavingMultiSet}| -        | -      | -             |  -          |
+ * | {@link ConcurrentHashMultiSet}| -      | -      | -             |  -          |
+ * | {@link MultiSetCodec}      | -        | -      | -             |  -          |
  * |         PathFinder         | -        | -     |  -            |  -          |
  * | {@link RealRepresentation} | -        | -     |  -            |  -          |
+ * | {@link RingBufferList}     | -        | -     |  -            |  -          |
  * | {@link SoftEnum}           | -        | -     |  -            |  -          |
  * | {@link SortedMultiSet}     | x        | -     |   -           |  -          |
  * | {@link StringPool}         | -        | -     |  -            |  -          |
@@ -48,12 +56,28 @@
  * which is the base class of all concrete classes. 
  * There are two, {@link HashMultiSet} which is just a {@link MultiSet} 
  * and {@link TreeMultiSet} which is even a {@link SortedMultiSet}. 
+ * Besides, {@link OpenHashMultiSet} is a {@link MultiSet} 
+ * not based on a map but on an open hash table with <code>int</code>-counters. 
+ * The {@link SpaceSavingMultiSet} estimates multiplicities 
+ * of the most frequent elements of a stream in bounded space. 
+ * The {@link ConcurrentHashMultiSet} is a thread-safe {@link MultiSet} 
+ * with atomic counters. 
+ * A {@link MultiSetCodec} writes and reads {@link MultiSet}s 
+ * in a compact binary format. 
  * **** bad design: immutable. of TreeMultiSet set and of HashMultiSet
  * <li>
  * Cyclic lists: {@link CyclicList}, {@link CyclicArrayList} 
- * and {@link CyclicIterator}, and also {@link EmptyCyclicListException}
+ * and {@link CyclicIterator}, and also {@link EmptyCyclicListException}, 
+ * besides {@link CyclicIntList} and {@link CyclicDoubleList} 
+ * for elements of primitive type without boxing 
  * <li>
- * Two sided lists: {@link TwoSidedList}
+ * Two sided lists: {@link TwoSidedList} 
+ * by default backed by a {@link RingBufferList} 
+ * to add and remove at both ends in constant time. 
+ * <li>
+ * Sorted sets and maps based on lists: {@link ListSet} and {@link ListMap}, 
+ * where a {@link ListSet} may be backed by a {@link ChunkedList} 
+ * to add and remove in logarithmic time. 
  * <li>
  * Extension classes {@link CollectionsExt} and {@link ArraysExt} 
  * <li>
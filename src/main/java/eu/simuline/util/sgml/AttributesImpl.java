@@ -1,6 +1,6 @@
 package eu.simuline.util.sgml;
 
-import eu.simuline.util.ListMap;
+import java.util.Arrays;
 
 import org.xml.sax.Attributes;
 
@@ -8,6 +8,16 @@ import org.xml.sax.Attributes;
  * An **** partial **** implementation 
  * of the SAX-interface <code>Attributes</code> 
  * which allows attributes without values using {@link #NO_VALUE}. 
+ * <p>
+ * The names and the values are stored in flat arrays 
+ * which are reused for the next tag after {@link #clear()}. 
+ * For tags with few attributes, names are searched linearly; 
+ * for more than {@link #HASH_THRESHOLD} attributes 
+ * a hash index of the names is built, 
+ * so that adding and looking up an attribute takes constant time 
+ * even for tags with very many attributes. 
+ * As specified for SAX, an instance passed to a content handler 
+ * is valid only during the invocation of <code>startElement</code>. 
  *
  * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
  * @version 1.0
@@ -19,7 +29,7 @@ public final class AttributesImpl implements Attributes {
      * ----------------------------------------------------------------- */
 
     /**
-     * Used as a value in {@link #name2value} 
+     * Used as a value in {@link #values} 
      * to signify that the corresponding attribute has no value. 
      * This is much better than simply unsing <code>null</code>. 
      * The latter would not allow to rule out a multiple attribute 
@@ -30,41 +40,171 @@ public final class AttributesImpl implements Attributes {
 	 justification = "used for equality check")
     public static final String NO_VALUE = new String(""); // NOPMD
 
+    /**
+     * The type of all attributes as specified for SAX 
+     * if there is no declaration. 
+     */
+    private static final String CDATA = "CDATA";
+
+    /**
+     * The maximal number of attributes searched linearly. 
+     * For more attributes, {@link #index} is used. 
+     */
+    static final int HASH_THRESHOLD = 8;
+
+    /**
+     * The initial length of {@link #names} and of {@link #values}. 
+     */
+    private static final int INITIAL_LENGTH = 16;
+
     /* ----------------------------------------------------------------- *
      * fields                                                            *
      * ----------------------------------------------------------------- */
 
     /**
-     * Maps the name of an attribute to its value. 
-     * The name must be a string. 
+     * The names of the attributes from index <code>0</code> 
+     * to {@link #length} exclusively, which are pairwise distinct. 
+     */
+    private String[] names;
+
+    /**
+     * The values of the attributes with the names in {@link #names} 
+     * at the same index. 
      * If there is a value (which is mandatory in xml) 
-     * the value is also a string value. 
+     * the value is a string. 
      * Otherwise it is {@link #NO_VALUE}. 
      */
-    private final ListMap<String, String> name2value;
+    private String[] values;
+
+    /**
+     * The number of attributes. 
+     */
+    private int length;
+
+    /**
+     * The open hash table of the names with linear probing 
+     * which is valid only if {@link #indexed} is set. 
+     * Each slot contains the index of a name in {@link #names} 
+     * plus one, or <code>0</code> if it is free. 
+     * The length is a power of two 
+     * and at least twice the length of {@link #names}. 
+     */
+    private int[] index;
+
+    /**
+     * Whether {@link #index} contains all names, 
+     * which is the case if and only if 
+     * there are more than {@link #HASH_THRESHOLD} attributes. 
+     */
+    private boolean indexed;
 
     /* ----------------------------------------------------------------- *
      * constructors                                                      *
      * ----------------------------------------------------------------- */
 
     /**
-     * Creates a new empty <code>AttributesImpl</code> 
-     * which represents the given attribute list. 
-     *
-     * @param name2value 
-     *    a <code>ListMap</code> representing an attribute list, 
-     *    as specified for {@link #name2value}. 
+     * Creates a new empty <code>AttributesImpl</code>. 
      */
-    AttributesImpl(ListMap<String, String> name2value) {
-	this.name2value = name2value;
+    AttributesImpl() {
+	this.names  = new String[INITIAL_LENGTH];
+	this.values = new String[INITIAL_LENGTH];
+	this.length = 0;
+	this.index = null;
+	this.indexed = false;
     }
 
     /* ----------------------------------------------------------------- *
      * methods                                                           *
      * ----------------------------------------------------------------- */
+
+    /**
+     * Removes all attributes keeping the arrays for reuse. 
+     */
+    void clear() {
+	// drop references to the strings of the last tag 
+	Arrays.fill(this.names,  0, this.length, null);
+	Arrays.fill(this.values, 0, this.length, null);
+	this.length = 0;
+	this.indexed = false;
+    }
+
+    /**
+     * Adds an attribute with the given name and value 
+     * or replaces the value if there is already an attribute of that name. 
+     *
+     * @param name 
+     *     the name of the attribute. 
+     * @param value 
+     *     the value of the attribute or {@link #NO_VALUE}. 
+     * @return 
+     *     the value replaced 
+     *     or <code>null</code> if the attribute is new. 
+     */
+    String add(String name, String value) {
+	int idx = getIndex(name);
+	if (idx != -1) {
+	    // Here, the attribute has occured before. 
+	    String old = this.values[idx];
+	    this.values[idx] = value;
+	    return old;
+	}
+
+	if (this.length == this.names.length) {
+	    this.names  = Arrays.copyOf(this.names,  2 * this.length);
+	    this.values = Arrays.copyOf(this.values, 2 * this.length);
+	    this.indexed = false;
+	}
+	this.names [this.length] = name;
+	this.values[this.length] = value;
+	this.length++;
+	if (this.indexed) {
+	    insertIntoIndex(this.length - 1);
+	} else if (this.length > HASH_THRESHOLD) {
+	    buildIndex();
+	}
+	return null;
+    }
+
+    /**
+     * Returns the slot in {@link #index} for the given hash code. 
+     */
+    private int slot(int hash) {
+	// spread higher bits as the table length is a power of two 
+	return (hash ^ (hash >>> 16)) & (this.index.length - 1);
+    }
+
+    /**
+     * Fills {@link #index} with all names 
+     * creating it if it is too short. 
+     */
+    private void buildIndex() {
+	int minLength = 2 * this.names.length;
+	if (this.index == null || this.index.length < minLength) {
+	    this.index = new int[Integer.highestOneBit(minLength - 1) << 1];
+	} else {
+	    Arrays.fill(this.index, 0);
+	}
+	for (int i = 0; i < this.length; i++) {
+	    insertIntoIndex(i);
+	}
+	this.indexed = true;
+    }
+
+    /**
+     * Inserts the name with the given index in {@link #names} 
+     * into {@link #index}, provided it is not yet contained. 
+     */
+    private void insertIntoIndex(int idx) {
+	int slot = slot(this.names[idx].hashCode());
+	while (this.index[slot] != 0) {
+	    slot = (slot + 1) & (this.index.length - 1);
+	}
+	this.index[slot] = idx + 1;
+    }
+
     /**
      * Converts {@link #NO_VALUE} to <code>null</code> 
-     * simply casting other arguments to type <code>String</code>. 
+     * returning other arguments unchanged. 
      *
      * @param valueOrNot 
      *    a <code>String</code> or the object {@link #NO_VALUE}. 
@@ -74,11 +214,11 @@ public final class AttributesImpl implements Attributes {
      *    <li>
      *    <code>null</code> for <code>valueOrNot == NO_VALUE</code>. 
      *    <li>
-     *    <code>valueOrNot</code> itself casted to a string otherwise. 
+     *    <code>valueOrNot</code> itself otherwise. 
      *    </ul>
      */
-    private static String noValueToNull(Object valueOrNot) {
-	return valueOrNot == NO_VALUE ? null : (String) valueOrNot; // NOPMD
+    private static String noValueToNull(String valueOrNot) {
+	return valueOrNot == NO_VALUE ? null : valueOrNot; // NOPMD
     }
 
     /* ----------------------------------------------------------------- *
@@ -87,7 +227,7 @@ public final class AttributesImpl implements Attributes {
 
     // apidoc provided by javadoc. 
     public int getLength() {
-	return this.name2value.size();
+	return this.length;
     }
     public String getURI(int index) {
 	throw new eu.simuline.util.NotYetImplementedException();
@@ -96,34 +236,52 @@ public final class AttributesImpl implements Attributes {
 	throw new eu.simuline.util.NotYetImplementedException();
     }
     public String getQName(int index) {
-	throw new eu.simuline.util.NotYetImplementedException();
+	return index < 0 || index >= this.length ? null : this.names[index];
     }
     public String getType(int index) {
-	throw new eu.simuline.util.NotYetImplementedException();
+	return index < 0 || index >= this.length ? null : CDATA;
     }
     public String getValue(int index) {
-	throw new eu.simuline.util.NotYetImplementedException();
+	return index < 0 || index >= this.length
+	    ? null
+	    : noValueToNull(this.values[index]);
     }
     public int getIndex(String uri,
 			String localPart) {
 	throw new eu.simuline.util.NotYetImplementedException();
     }
     public int getIndex(String qName)  {
-	throw new eu.simuline.util.NotYetImplementedException();
+	if (!this.indexed) {
+	    for (int i = 0; i < this.length; i++) {
+		if (this.names[i].equals(qName)) {
+		    return i;
+		}
+	    }
+	    return -1;
+	}
+	int slot = slot(qName.hashCode());
+	int idx;
+	while ((idx = this.index[slot]) != 0) {
+	    if (this.names[idx - 1].equals(qName)) {
+		return idx - 1;
+	    }
+	    slot = (slot + 1) & (this.index.length - 1);
+	}
+	return -1;
     }
     public String getType(String uri,
 			  String localName) {
 	throw new eu.simuline.util.NotYetImplementedException();
     }
     public String getType(String qName) {
-	throw new eu.simuline.util.NotYetImplementedException();
+	return getIndex(qName) == -1 ? null : CDATA;
     }
     public String getValue(String uri,
 			   String localName) {
 	throw new eu.simuline.util.NotYetImplementedException();
     }
     public String getValue(String qName) {
-	return noValueToNull(this.name2value.get(qName));
+	return getValue(getIndex(qName));
     }
 
     public AttributesImpl toLowerCase() {
@@ -131,6 +289,13 @@ public final class AttributesImpl implements Attributes {
     }
 
     public String toString() {
-	return this.name2value.toString();
+	StringBuilder result = new StringBuilder();
+	result.append("<AttributesImpl>\n");
+	for (int i = 0; i < this.length; i++) {
+	    result.append("[" + this.names[i]
+			  + " => " + this.values[i] + "]\n");
+	}
+	result.append("</AttributesImpl>\n");
+	return result.toString();
     }
 } // class AttributesImpl 
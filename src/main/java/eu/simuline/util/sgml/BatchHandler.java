@@ -0,0 +1,28 @@
+package eu.simuline.util.sgml;
+
+import org.xml.sax.SAXException;
+
+/**
+ * A handler receiving many SAX events at once as an {@link EventBatch} 
+ * from a {@link BatchingHandler}. 
+ * This avoids a call and objects like strings for each event. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public interface BatchHandler {
+
+    /**
+     * Notifies the next events of a document in the order they occurred. 
+     * The batch is cleared and reused after this method returns, 
+     * so it must not be kept. 
+     * The last batch of a document ends with 
+     * {@link EventBatch#END_DOCUMENT}. 
+     *
+     * @param batch 
+     *    a non-empty batch of events. 
+     * @exception SAXException 
+     *    to stop parsing the document. 
+     */
+    void handleBatch(EventBatch batch) throws SAXException;
+} // BatchHandler
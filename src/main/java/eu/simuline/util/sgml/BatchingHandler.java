@@ -0,0 +1,183 @@
+package eu.simuline.util.sgml;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.Attributes;
+
+/**
+ * A <code>ContentHandler</code> which records the events 
+ * in a reused {@link EventBatch} 
+ * and passes them to a {@link BatchHandler} many at a time. 
+ * A batch is passed if it has at least a given number of events 
+ * or a given number of characters, and at the end of the document. 
+ * A start tag is never separated from its attributes. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class BatchingHandler implements ContentHandler {
+
+    /* --------------------------------------------------------------------- *
+     * fields                                                                *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The handler the batches are passed to. 
+     */
+    private final BatchHandler handler;
+
+    /**
+     * The batch of events recorded but not yet passed to {@link #handler}. 
+     */
+    private final EventBatch batch;
+
+    /**
+     * The number of events from which on {@link #batch} is passed. 
+     */
+    private final int maxEvents;
+
+    /**
+     * The number of characters from which on {@link #batch} is passed. 
+     */
+    private final int maxChars;
+
+    /* --------------------------------------------------------------------- *
+     * constructors                                                          *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Creates a new handler passing batches to the given one. 
+     *
+     * @param handler 
+     *    the handler the batches are passed to. 
+     * @param maxEvents 
+     *    the positive number of events from which on a batch is passed. 
+     * @param maxChars 
+     *    the positive number of characters from which on a batch is passed. 
+     */
+    public BatchingHandler(BatchHandler handler, int maxEvents, int maxChars) {
+	if (maxEvents <= 0 || maxChars <= 0) {
+	    throw new IllegalArgumentException
+		("Expected positive limits but found " + maxEvents
+		 + " events and " + maxChars + " characters. ");
+	}
+	this.handler = handler;
+	this.batch = new EventBatch();
+	this.maxEvents = maxEvents;
+	this.maxChars = maxChars;
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods                                                               *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Passes {@link #batch} to {@link #handler} and clears it 
+     * if it reached one of the limits. 
+     *
+     * @exception SAXException 
+     *    if the handler throws one. 
+     */
+    private void flushIfFull() throws SAXException {
+	if (this.batch.size() >= this.maxEvents
+	    || this.batch.getStoreLength() >= this.maxChars) {
+	    flush();
+	}
+    }
+
+    /**
+     * Passes {@link #batch} to {@link #handler} and clears it 
+     * if it contains events. 
+     *
+     * @exception SAXException 
+     *    if the handler throws one. 
+     */
+    private void flush() throws SAXException {
+	if (this.batch.size() == 0) {
+	    return;
+	}
+	try {
+	    this.handler.handleBatch(this.batch);
+	} finally {
+	    this.batch.clear();
+	}
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods implementing ContentHandler                                   *
+     * --------------------------------------------------------------------- */
+
+    public void setDocumentLocator(Locator locator) {
+	// is empty. 
+    }
+
+    public void startDocument() throws SAXException {
+	// discard the rest of a document which failed 
+	this.batch.clear();
+	this.batch.startDocument();
+	flushIfFull();
+    }
+
+    public void endDocument() throws SAXException {
+	this.batch.endDocument();
+	flush();
+    }
+
+    public void startPrefixMapping(String prefix,
+				   String uri)
+	throws SAXException {
+	// is empty. 
+    }
+
+    public void endPrefixMapping(String prefix)
+	throws SAXException {
+	// is empty. 
+    }
+
+    public void startElement(String namespaceURI,
+			     String localName,
+			     String qName,
+			     Attributes atts)
+	throws SAXException {
+	this.batch.startElement(namespaceURI, localName, qName, atts);
+	flushIfFull();
+    }
+
+    public void endElement(String namespaceURI,
+			   String localName,
+			   String qName)
+	throws SAXException {
+	this.batch.endElement(namespaceURI, localName, qName);
+	flushIfFull();
+    }
+
+    public void characters(char[] chr,
+			   int start,
+			   int length)
+	throws SAXException {
+	this.batch.characters(chr, start, length);
+	flushIfFull();
+    }
+
+    public void ignorableWhitespace(char[] chr,
+				    int start,
+				    int length)
+	throws SAXException {
+	this.batch.ignorableWhitespace(chr, start, length);
+	flushIfFull();
+    }
+
+    public void processingInstruction(String target,
+				      String data)
+	throws SAXException {
+	this.batch.processingInstruction(target, data);
+	flushIfFull();
+    }
+
+    public void skippedEntity(String name)
+	throws SAXException {
+	this.batch.skippedEntity(name);
+	flushIfFull();
+    }
+} // class BatchingHandler 
@@ -0,0 +1,245 @@
+package eu.simuline.util.sgml;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Locale;
+
+/**
+ * Detects the charset of an SGML document given as bytes 
+ * as done by {@link SGMLParser#parse(ByteBuffer, Charset)} and alike. 
+ * The charset is determined by the first applicable of the following: 
+ * <ul> 
+ * <li> 
+ * a byte order mark of UTF-8, UTF-16BE or UTF-16LE, 
+ * <li> 
+ * the first characters <code>&lt;?</code> of an xml declaration 
+ * encoded in UTF-16BE or UTF-16LE without byte order mark, 
+ * <li> 
+ * the <code>encoding</code> of an xml declaration 
+ * or the <code>charset</code> of a <code>meta</code>-tag 
+ * within the first {@link #PREFIX_LENGTH} bytes, 
+ * provided this is a legal name of a supported charset. 
+ * As the declaration was read as ascii, 
+ * a charset which is not ascii compatible like UTF-16 or UTF-32 
+ * is replaced by UTF-8 as done by html, 
+ * <li> 
+ * a default charset given by the caller. 
+ * </ul> 
+ * A detector has no state; 
+ * it is a class of its own only to keep the parser small. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+final class CharsetDetector {
+
+    /* --------------------------------------------------------------------- *
+     * class constants                                                       *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The number of bytes at the beginning of a document 
+     * searched for a declaration of the charset. 
+     */
+    static final int PREFIX_LENGTH = 1024;
+
+    /**
+     * The byte order mark of UTF-8. 
+     */
+    private static final byte[] BOM_UTF_8 = {
+	(byte) 0xEF, (byte) 0xBB, (byte) 0xBF
+    };
+
+    /**
+     * The byte order mark of UTF-16BE. 
+     */
+    private static final byte[] BOM_UTF_16BE = {(byte) 0xFE, (byte) 0xFF};
+
+    /**
+     * The byte order mark of UTF-16LE. 
+     */
+    private static final byte[] BOM_UTF_16LE = {(byte) 0xFF, (byte) 0xFE};
+
+    /**
+     * The characters <code>&lt;?</code> encoded in UTF-16BE. 
+     */
+    private static final byte[] DECL_UTF_16BE = {0, '<', 0, '?'};
+
+    /**
+     * The characters <code>&lt;?</code> encoded in UTF-16LE. 
+     */
+    private static final byte[] DECL_UTF_16LE = {'<', 0, '?', 0};
+
+    /**
+     * Characters occurring in declarations 
+     * which an ascii compatible charset decodes from their ascii bytes. 
+     */
+    private static final String ASCII_PROBE = 
+	"<?xml encoding=\"\"?><meta charset=''>;/ " 
+	+ "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_";
+
+    /* --------------------------------------------------------------------- *
+     * constructors                                                          *
+     * --------------------------------------------------------------------- */
+
+    private CharsetDetector() {
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods                                                               *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Returns whether the remaining bytes of <code>bytes</code> 
+     * start with <code>prefix</code>. 
+     */
+    private static boolean startsWith(ByteBuffer bytes, byte[] prefix) {
+	if (bytes.remaining() < prefix.length) {
+	    return false;
+	}
+	int pos = bytes.position();
+	for (int i = 0; i < prefix.length; i++) {
+	    if (bytes.get(pos + i) != prefix[i]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the charset of the document 
+     * given by the remaining bytes of <code>bytes</code> 
+     * and skips a byte order mark, if any. 
+     * Apart from the position, <code>bytes</code> is not modified. 
+     *
+     * @param bytes 
+     *    a buffer the remaining bytes of which 
+     *    are at least the first {@link #PREFIX_LENGTH} bytes of the document 
+     *    or the whole document if it is shorter. 
+     * @param defaultCharset 
+     *    the charset returned if no charset is detected. 
+     * @return 
+     *    the charset detected as described for this class. 
+     */
+    static Charset detect(ByteBuffer bytes, Charset defaultCharset) {
+	// byte order marks 
+	if (startsWith(bytes, BOM_UTF_8)) {
+	    bytes.position(bytes.position() + BOM_UTF_8.length);
+	    return StandardCharsets.UTF_8;
+	}
+	if (startsWith(bytes, BOM_UTF_16BE)) {
+	    bytes.position(bytes.position() + BOM_UTF_16BE.length);
+	    return StandardCharsets.UTF_16BE;
+	}
+	if (startsWith(bytes, BOM_UTF_16LE)) {
+	    bytes.position(bytes.position() + BOM_UTF_16LE.length);
+	    return StandardCharsets.UTF_16LE;
+	}
+
+	// xml declarations in UTF-16 without byte order mark 
+	if (startsWith(bytes, DECL_UTF_16BE)) {
+	    return StandardCharsets.UTF_16BE;
+	}
+	if (startsWith(bytes, DECL_UTF_16LE)) {
+	    return StandardCharsets.UTF_16LE;
+	}
+
+	// declarations in an ascii compatible charset 
+	int len = Math.min(bytes.remaining(), PREFIX_LENGTH);
+	char[] prefix = new char[len];
+	int pos = bytes.position();
+	for (int i = 0; i < len; i++) {
+	    prefix[i] = (char) (bytes.get(pos + i) & 0xFF);
+	}
+	String name = declaredCharset(new String(prefix)
+				      .toLowerCase(Locale.ENGLISH));
+	if (name == null) {
+	    return defaultCharset;
+	}
+	Charset declared;
+	try {
+	    if (!Charset.isSupported(name)) {
+		return defaultCharset;
+	    }
+	    declared = Charset.forName(name);
+	} catch (IllegalCharsetNameException e) {
+	    // a malformed declaration is ignored like an unknown charset 
+	    return defaultCharset;
+	}
+	return isAsciiCompatible(declared) 
+	    ? declared 
+	    : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Returns whether <code>charset</code> decodes 
+     * the ascii bytes of {@link #ASCII_PROBE} to the same characters. 
+     * Decoding is used because some charsets do not support encoding. 
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+	return ASCII_PROBE.equals
+	    (new String(ASCII_PROBE.getBytes(StandardCharsets.US_ASCII),
+			charset));
+    }
+
+    /**
+     * Returns the name of the charset declared in <code>prefix</code> 
+     * by an xml declaration or by a <code>meta</code>-tag, 
+     * or <code>null</code> if there is no such declaration. 
+     *
+     * @param prefix 
+     *    the beginning of a document converted to lower case. 
+     */
+    private static String declaredCharset(String prefix) {
+	int start;
+	int end;
+	if (prefix.startsWith("<?xml")) {
+	    end = prefix.indexOf("?>");
+	    start = prefix.indexOf("encoding");
+	    if (start == -1 || end == -1 || start > end) {
+		return null;
+	    }
+	    start = prefix.indexOf('=', start);
+	} else {
+	    // search the meta-tags for the first one declaring a charset 
+	    end = 0;
+	    do {
+		start = prefix.indexOf("<meta", end);
+		if (start == -1) {
+		    return null;
+		}
+		end = prefix.indexOf('>', start);
+		if (end == -1) {
+		    return null;
+		}
+		start = prefix.indexOf("charset", start);
+	    } while (start == -1 || start > end);
+	    start = prefix.indexOf('=', start);
+	}
+	if (start == -1 || start > end) {
+	    return null;
+	}
+
+	// Here, start is the index of '=' before the name. 
+	start++;
+	while (start < end && (Character.isWhitespace(prefix.charAt(start))
+			       || prefix.charAt(start) == '"'
+			       || prefix.charAt(start) == '\'')) {
+	    start++;
+	}
+	int stop = start;
+	char chr;
+	while (stop < end) {
+	    chr = prefix.charAt(stop);
+	    if (Character.isWhitespace(chr)
+		|| chr == '"' || chr == '\'' || chr == ';' || chr == '/') {
+		break;
+	    }
+	    stop++;
+	}
+	return stop == start ? null : prefix.substring(start, stop);
+    }
+} // class CharsetDetector 
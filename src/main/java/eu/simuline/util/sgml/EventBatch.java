@@ -0,0 +1,395 @@
+package eu.simuline.util.sgml;
+
+import java.util.Arrays;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.Attributes;
+
+/**
+ * Records SAX events compactly in columns of primitive arrays, 
+ * as an alternative to {@link SavingHandler} 
+ * which creates a string for each event. 
+ * Each event is given by its type, e.g. {@link #START_ELEMENT}, 
+ * and a range of characters in a store shared by all events, 
+ * given by an offset and a length. 
+ * Events with more than one string are recorded as several events: 
+ * a start tag is followed by an {@link #ATTRIBUTE_NAME} 
+ * and an {@link #ATTRIBUTE_VALUE} for each attribute 
+ * and a processing instruction is followed by its {@link #PI_DATA}. 
+ * Consecutive {@link #CHARACTERS} are merged into a single event. 
+ * <p>
+ * Recording creates no objects except when the arrays grow, 
+ * and after {@link #clear()} the arrays are reused. 
+ * A {@link BatchingHandler} uses this class 
+ * to pass many events at once to a {@link BatchHandler}. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class EventBatch implements ContentHandler {
+
+    /* --------------------------------------------------------------------- *
+     * class constants                                                       *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The type of the start of a document with no characters. 
+     */
+    public static final byte START_DOCUMENT = 0;
+
+    /**
+     * The type of the end of a document with no characters. 
+     */
+    public static final byte END_DOCUMENT = 1;
+
+    /**
+     * The type of a start tag with the qualified name as characters. 
+     * This is followed by an {@link #ATTRIBUTE_NAME} 
+     * and an {@link #ATTRIBUTE_VALUE} for each attribute. 
+     */
+    public static final byte START_ELEMENT = 2;
+
+    /**
+     * The type of the name of an attribute of the preceding start tag. 
+     */
+    public static final byte ATTRIBUTE_NAME = 3;
+
+    /**
+     * The type of the value of the attribute with the preceding name. 
+     * If the attribute has no value, the length is <code>-1</code>. 
+     */
+    public static final byte ATTRIBUTE_VALUE = 4;
+
+    /**
+     * The type of an end tag with the qualified name as characters. 
+     */
+    public static final byte END_ELEMENT = 5;
+
+    /**
+     * The type of text. 
+     */
+    public static final byte CHARACTERS = 6;
+
+    /**
+     * The type of ignorable whitespace. 
+     */
+    public static final byte IGNORABLE_WHITESPACE = 7;
+
+    /**
+     * The type of a processing instruction with the target as characters. 
+     * This is followed by its {@link #PI_DATA}. 
+     */
+    public static final byte PROCESSING_INSTRUCTION = 8;
+
+    /**
+     * The type of the data of the preceding processing instruction. 
+     */
+    public static final byte PI_DATA = 9;
+
+    /**
+     * The type of a skipped entity with the name as characters. 
+     */
+    public static final byte SKIPPED_ENTITY = 10;
+
+    /**
+     * The initial number of events which can be stored. 
+     */
+    private static final int INITIAL_EVENTS = 256;
+
+    /**
+     * The initial number of characters which can be stored. 
+     */
+    private static final int INITIAL_CHARS = 4096;
+
+    /* --------------------------------------------------------------------- *
+     * fields                                                                *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The types of the events from index <code>0</code> 
+     * to {@link #size} exclusively. 
+     */
+    private byte[] types;
+
+    /**
+     * The offsets in {@link #store} of the characters of the events. 
+     */
+    private int[] offsets;
+
+    /**
+     * The numbers of characters of the events. 
+     */
+    private int[] lengths;
+
+    /**
+     * The number of events recorded. 
+     */
+    private int size;
+
+    /**
+     * The characters of all events from index <code>0</code> 
+     * to {@link #storeLength} exclusively. 
+     */
+    private char[] store;
+
+    /**
+     * The number of characters in {@link #store}. 
+     */
+    private int storeLength;
+
+    /* --------------------------------------------------------------------- *
+     * constructors                                                          *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Creates a new batch without events. 
+     */
+    public EventBatch() {
+	this.types   = new byte[INITIAL_EVENTS];
+	this.offsets = new int [INITIAL_EVENTS];
+	this.lengths = new int [INITIAL_EVENTS];
+	this.size = 0;
+	this.store = new char[INITIAL_CHARS];
+	this.storeLength = 0;
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods                                                               *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Returns the number of events recorded. 
+     *
+     * @return 
+     *    the number of events recorded. 
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Returns the number of characters of all events recorded. 
+     *
+     * @return 
+     *    the number of characters in the store. 
+     */
+    public int getStoreLength() {
+	return this.storeLength;
+    }
+
+    /**
+     * Returns the type of the event with the given index. 
+     *
+     * @param idx 
+     *    the index of an event which is less than {@link #size()}. 
+     * @return 
+     *    the type of the event, e.g. {@link #START_ELEMENT}. 
+     */
+    public byte getType(int idx) {
+	return this.types[idx];
+    }
+
+    /**
+     * Returns the offset in {@link #getChars()} 
+     * of the characters of the event with the given index. 
+     *
+     * @param idx 
+     *    the index of an event which is less than {@link #size()}. 
+     * @return 
+     *    the offset of the characters of the event. 
+     */
+    public int getOffset(int idx) {
+	return this.offsets[idx];
+    }
+
+    /**
+     * Returns the number of characters of the event with the given index. 
+     *
+     * @param idx 
+     *    the index of an event which is less than {@link #size()}. 
+     * @return 
+     *    the number of characters of the event 
+     *    or <code>-1</code> for an attribute without value. 
+     */
+    public int getLength(int idx) {
+	return this.lengths[idx];
+    }
+
+    /**
+     * Returns the store of the characters of all events. 
+     * The array is valid only until the next event is recorded 
+     * and must not be modified. 
+     *
+     * @return 
+     *    the array holding the characters of the events. 
+     */
+    public char[] getChars() {
+	return this.store;
+    }
+
+    /**
+     * Returns the characters of the event with the given index as a string. 
+     * This is for convenience only, as it creates a string. 
+     *
+     * @param idx 
+     *    the index of an event which is less than {@link #size()}. 
+     * @return 
+     *    the characters of the event 
+     *    or <code>null</code> for an attribute without value. 
+     */
+    public String getText(int idx) {
+	return this.lengths[idx] == -1
+	    ? null
+	    : new String(this.store, this.offsets[idx], this.lengths[idx]);
+    }
+
+    /**
+     * Removes all events keeping the arrays for reuse. 
+     */
+    public void clear() {
+	this.size = 0;
+	this.storeLength = 0;
+    }
+
+    /**
+     * Records an event of the given type 
+     * with characters from the given array. 
+     */
+    private void add(byte type, char[] chr, int start, int length) {
+	int offset = appendChars(length);
+	System.arraycopy(chr, start, this.store, offset, length);
+	addEvent(type, offset, length);
+    }
+
+    /**
+     * Records an event of the given type with the characters of the string 
+     * or with length <code>-1</code> if the string is <code>null</code>. 
+     */
+    private void add(byte type, String str) {
+	if (str == null) {
+	    addEvent(type, 0, -1);
+	    return;
+	}
+	int length = str.length();
+	int offset = appendChars(length);
+	str.getChars(0, length, this.store, offset);
+	addEvent(type, offset, length);
+    }
+
+    /**
+     * Reserves <code>length</code> characters at the end of {@link #store} 
+     * and returns the offset of the first one. 
+     */
+    private int appendChars(int length) {
+	int offset = this.storeLength;
+	int minLength = offset + length;
+	if (minLength > this.store.length) {
+	    this.store = Arrays.copyOf(this.store,
+				       Math.max(minLength,
+						2 * this.store.length));
+	}
+	this.storeLength = minLength;
+	return offset;
+    }
+
+    /**
+     * Records an event with characters already in {@link #store}. 
+     */
+    private void addEvent(byte type, int offset, int length) {
+	if (this.size == this.types.length) {
+	    int newLength = 2 * this.size;
+	    this.types   = Arrays.copyOf(this.types,   newLength);
+	    this.offsets = Arrays.copyOf(this.offsets, newLength);
+	    this.lengths = Arrays.copyOf(this.lengths, newLength);
+	}
+	this.types  [this.size] = type;
+	this.offsets[this.size] = offset;
+	this.lengths[this.size] = length;
+	this.size++;
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods implementing ContentHandler                                   *
+     * --------------------------------------------------------------------- */
+
+    public void setDocumentLocator(Locator locator) {
+	// is empty. 
+    }
+
+    public void startDocument() throws SAXException {
+	addEvent(START_DOCUMENT, this.storeLength, 0);
+    }
+
+    public void endDocument() throws SAXException {
+	addEvent(END_DOCUMENT, this.storeLength, 0);
+    }
+
+    public void startPrefixMapping(String prefix,
+				   String uri)
+	throws SAXException {
+	// is empty. 
+    }
+
+    public void endPrefixMapping(String prefix)
+	throws SAXException {
+	// is empty. 
+    }
+
+    public void startElement(String namespaceURI,
+			     String localName,
+			     String qName,
+			     Attributes atts)
+	throws SAXException {
+	add(START_ELEMENT, qName);
+	int num = atts.getLength();
+	for (int i = 0; i < num; i++) {
+	    add(ATTRIBUTE_NAME,  atts.getQName(i));
+	    add(ATTRIBUTE_VALUE, atts.getValue(i));
+	}
+    }
+
+    public void endElement(String namespaceURI,
+			   String localName,
+			   String qName)
+	throws SAXException {
+	add(END_ELEMENT, qName);
+    }
+
+    public void characters(char[] chr,
+			   int start,
+			   int length)
+	throws SAXException {
+	int last = this.size - 1;
+	if (last >= 0
+	    && this.types[last] == CHARACTERS
+	    && this.offsets[last] + this.lengths[last] == this.storeLength) {
+	    // merge with the preceding characters 
+	    int offset = appendChars(length);
+	    System.arraycopy(chr, start, this.store, offset, length);
+	    this.lengths[last] += length;
+	    return;
+	}
+	add(CHARACTERS, chr, start, length);
+    }
+
+    public void ignorableWhitespace(char[] chr,
+				    int start,
+				    int length)
+	throws SAXException {
+	add(IGNORABLE_WHITESPACE, chr, start, length);
+    }
+
+    public void processingInstruction(String target,
+				      String data)
+	throws SAXException {
+	add(PROCESSING_INSTRUCTION, target);
+	add(PI_DATA, data);
+    }
+
+    public void skippedEntity(String name)
+	throws SAXException {
+	add(SKIPPED_ENTITY, name);
+    }
+} // class EventBatch 
@@ -2,21 +2,48 @@
 
 package eu.simuline.util.sgml;
 
-import eu.simuline.util.ListMap;
-
 import java.io.Reader;
+import java.io.InputStream;
 import java.io.IOException;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
-import java.util.Locale;
 
 /**
  * A rudimentary <code>SGML</code> parser with something like a SAX-api. 
+ * <p>
+ * All state of a parse is kept in the parser instance 
+ * and is reset by each invocation of {@link #parse(Reader)}, 
+ * so a parser may be reused for parsing one document after the other 
+ * and even reuses its buffer. 
+ * Distinct instances share no mutable state 
+ * and thus may parse in parallel, 
+ * whereas a single instance is not thread-safe. 
+ * To parse many documents concurrently, 
+ * each thread may borrow a parser from an {@link SGMLParserPool}. 
+ * <p>
+ * Instead of reading a document from a reader, 
+ * the document may also be fed in chunks 
+ * by {@link #feed(char[], int, int)} and ended by {@link #finish()}, 
+ * e.g. as it arrives from a non-blocking channel. 
+ * A document given as bytes, e.g. by a stream or a file, 
+ * is decoded in chunks which are fed to the parser 
+ * after its charset is detected. 
  *
  * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
  * @version 1.0
@@ -105,9 +132,9 @@ public final class SGMLParser {
 
 
     /**
-     * An **** partial **** implementation 
-     * of the SAX-interface <code>Attributes</code> 
-     * which allows to set name-value-pairs by method {@link #addAttribute}. 
+     * Collects the attributes of a start tag by method {@link #addAttribute} 
+     * notifying multiple attributes. 
+     * A parser has a single instance which is cleared for each start tag. 
      */
     class AttributesWrapper {
 
@@ -116,9 +143,9 @@ public final class SGMLParser {
 	 * ----------------------------------------------------------------- */
 
 	/**
-	 * See {@link AttributesImpl#name2value}. 
+	 * The attributes collected which are reused for each start tag. 
 	 */
-	private final ListMap<String, String> name2value;
+	private final AttributesImpl attributes;
 
 	/* ----------------------------------------------------------------- *
 	 * constructors                                                      *
@@ -129,7 +156,7 @@ public final class SGMLParser {
 	 * which represents an empty attribute list. 
 	 */
 	AttributesWrapper() {
-	    this.name2value = new ListMap<String, String>();
+	    this.attributes = new AttributesImpl();
 	}
 
 	/* ----------------------------------------------------------------- *
@@ -149,8 +176,7 @@ public final class SGMLParser {
 	 *     this is {@link AttributesImpl#NO_VALUE}. 
 	 */
 	void addAttribute(String attName, String attValue) {
-	    String oldAttValue = this.name2value
-		.put(attName, attValue);
+	    String oldAttValue = this.attributes.add(attName, attValue);
 	    if (oldAttValue != null) {
 		// Here, the attribute has occured before. 
 		SGMLParser.this.parseExceptionHandler
@@ -159,8 +185,15 @@ public final class SGMLParser {
 	    }
  	}
 
+	/**
+	 * Removes all attributes collected before. 
+	 */
+	void clear() {
+	    this.attributes.clear();
+	}
+
 	Attributes getAttributes() {
-	    return new AttributesImpl(this.name2value);
+	    return this.attributes;
 	}
     } // class AttributesWrapper 
 
@@ -186,75 +219,172 @@ public final class SGMLParser {
     } // interface CharTester 
 
     /**
-     * Tests for blank, <code>/</code>, <code>&gt;</code>. 
+     * A stateless <code>CharTester</code> given by a set of characters 
+     * optionally including whitespace and optionally negated. 
+     * The test is looked up in a table for ascii characters, 
+     * only for other characters {@link Character#isWhitespace(char)} 
+     * is invoked, if at all. 
+     * Besides, {@link Buffer#readArray} scans 
+     * by {@link #indexIn(char[], int, int)} 
+     * without invoking {@link #testChar(char)} for each character. 
      */
-    private static final CharTester TEST_BLANK_GT_SLASH = new CharTester() {
+    static final class CharClass implements CharTester {
+
+	/**
+	 * The number of ascii characters, i.e. the length of {@link #ascii}. 
+	 */
+	private static final int NUM_ASCII = 128;
+
+	/**
+	 * Whether the ascii character given by the index passes the test. 
+	 */
+	private final boolean[] ascii;
+
+	/**
+	 * Whether whitespace is in the set of characters. 
+	 */
+	private final boolean whitespace;
+
+	/**
+	 * Whether the test is negated: 
+	 * if so, the characters not in the set pass the test. 
+	 */
+	private final boolean negate;
+
+	/**
+	 * The single character passing the test 
+	 * or <code>-1</code> if there is no such character. 
+	 */
+	private final int single;
+
+	/**
+	 * Creates a new character class. 
+	 *
+	 * @param chars 
+	 *    the ascii characters in the set. 
+	 * @param whitespace 
+	 *    whether whitespace is in the set of characters. 
+	 * @param negate 
+	 *    whether the characters not in the set pass the test. 
+	 */
+	CharClass(String chars, boolean whitespace, boolean negate) {
+	    this.whitespace = whitespace;
+	    this.negate = negate;
+	    this.ascii = new boolean[NUM_ASCII];
+	    for (char chr = 0; chr < NUM_ASCII; chr++) {
+		this.ascii[chr] = negate 
+		    ^ (chars.indexOf(chr) >= 0 
+		       || whitespace && Character.isWhitespace(chr));
+	    }
+	    this.single = chars.length() == 1 && !whitespace && !negate
+		? chars.charAt(0) 
+		: -1;
+	}
+
+	/**
+	 * Returns whether the given character which is no ascii character 
+	 * passes the test. 
+	 */
+	private boolean testNonAscii(char chr) {
+	    return this.negate 
+		^ (this.whitespace && Character.isWhitespace(chr));
+	}
+
 	public boolean testChar(char chr) {
-	    return Character.isWhitespace(chr) 
-		|| chr == '/' 
-		|| chr == '>';
+	    return chr < NUM_ASCII ? this.ascii[chr] : testNonAscii(chr);
+	}
+
+	/**
+	 * Returns the index of the first character in <code>chars</code> 
+	 * between <code>from</code> inclusively 
+	 * and <code>to</code> exclusively passing this test. 
+	 *
+	 * @param chars 
+	 *    an array of characters. 
+	 * @param from 
+	 *    the index of the first character tested. 
+	 * @param to 
+	 *    the index after the last character tested. 
+	 * @return 
+	 *    the index of the first character passing this test 
+	 *    or <code>to</code> if there is no such character. 
+	 */
+	int indexIn(char[] chars, int from, int to) {
+	    if (this.single != -1) {
+		return indexOf(chars, (char) this.single, from, to);
+	    }
+	    boolean[] table = this.ascii;
+	    char chr;
+	    for (int i = from; i < to; i++) {
+		chr = chars[i];
+		if (chr < NUM_ASCII ? table[chr] : testNonAscii(chr)) {
+		    return i;
+		}
+	    }
+	    return to;
 	}
-    };
+
+	/**
+	 * Returns the index of the first occurrence of <code>chr</code> 
+	 * in <code>chars</code> between <code>from</code> inclusively 
+	 * and <code>to</code> exclusively. 
+	 * This simple loop is well optimized by the just in time compiler. 
+	 *
+	 * @param chars 
+	 *    an array of characters. 
+	 * @param chr 
+	 *    the character to be searched for. 
+	 * @param from 
+	 *    the index of the first character tested. 
+	 * @param to 
+	 *    the index after the last character tested. 
+	 * @return 
+	 *    the index of the first occurrence of <code>chr</code> 
+	 *    or <code>to</code> if there is no such character. 
+	 */
+	static int indexOf(char[] chars, char chr, int from, int to) {
+	    for (int i = from; i < to; i++) {
+		if (chars[i] == chr) {
+		    return i;
+		}
+	    }
+	    return to;
+	}
+    } // class CharClass 
 
     /**
-     * Tests for blank or <code>&gt;</code>. 
+     * Tests for blank, <code>/</code>, <code>&gt;</code>. 
      */
-    private static final CharTester TEST_BLANK_GT = new CharTester() {
-	public boolean testChar(char chr) {
-	    return Character.isWhitespace(chr) 
-		|| chr == '>';
-	}
-    };
+    private static final CharClass TEST_BLANK_GT_SLASH = 
+	new CharClass("/>", true, false);
 
-    /*
-     * Tests for <code>/</code> or <code>&gt;</code>. 
+    /**
+     * Tests for blank or <code>&gt;</code>. 
      */
-/*
-    private static final CharTester TEST_GT_SLASH = new CharTester() {
-	    public boolean testChar(char ch) {
-		return ch == '/' 
-		    || ch == '>';
-	    }
-	};
-*/
+    private static final CharClass TEST_BLANK_GT = 
+	new CharClass(">", true, false);
 
     /**
      * Tests for <code>&lt;</code>. 
      */
-    private static final CharTester TEST_LT = new CharTester() {
-	    public boolean testChar(char chr) {
-		return chr == '<';
-	    }
-	};
+    private static final CharClass TEST_LT = new CharClass("<", false, false);
 
     /**
      * Tests for <code>&gt;</code>. 
      */
-    private static final CharTester TEST_GT = new CharTester() {
-	    public boolean testChar(char chr) {
-		return chr == '>';
-	    }
-	};
+    private static final CharClass TEST_GT = new CharClass(">", false, false);
 
     /**
      * Tests for <code>=</code> and for <code>&gt;</code>. 
      */
-    private static final CharTester TEST_BLANK_EQUALS_GT = new CharTester() {
-	    public boolean testChar(char chr) {
-		return Character.isWhitespace(chr) 
-		    || chr == '='
-		    || chr == '>';
-	    }
-	};
+    private static final CharClass TEST_BLANK_EQUALS_GT = 
+	new CharClass("=>", true, false);
 
     /**
      * Tests for whitespace. 
      */
-    private static final CharTester TEST_NO_WHITESPACE = new CharTester() {
-	    public boolean testChar(char chr) {
-		return !Character.isWhitespace(chr);
-	    }
-	};
+    private static final CharClass TEST_NO_WHITESPACE = 
+	new CharClass("", true, true);
 
     /**
      * Tests for quote both for<code>'</code> and for <code>"</code>. 
@@ -268,52 +398,62 @@ public final class SGMLParser {
 	};
 */
 
-    /*
+    /**
      * Tests for end of comment <code>--></code>. 
      * This tests for a sequence of characters 
      * and confirms after having read the last one. 
+     * Since this tester has a state, 
+     * each parser has its own instance {@link #testEndOfComment}. 
      */
-    private static final CharTester TEST_END_OF_COMMENT = new CharTester() {
-
-	    /**
-	     * Contains the sequence <code>--></code> 
-	     * representing the end of a comment. 
-	     */
-	    static final String END_OF_COMMENT = "-->";
-
-	    /**
-	     * Contains the index in {@link #END_OF_COMMENT} 
-	     * which is to be compared next by {@link #testChar}. 
-	     */
-	    private int index = 0;
-
-	    /**
-	     * Returns whether the last characters tested 
-	     * are <code>--></code>. 
-	     *
-	     * @param chr 
-	     *    a <code>char</code>. 
-	     * @return
-	     *    whether the last characters tested 
-	     *    including <code>char</code> are <code>--></code>. 
-	     *    In particular, if less than three characters are read 
-	     *    this is <code>false</code>. 
-	     */
-	    public boolean testChar(char chr) {		
-		if (END_OF_COMMENT.charAt(this.index) == chr) {
-		    this.index++;
-		    if (this.index == END_OF_COMMENT.length() - 1) {
-			this.index = 0;
-			return true;
-		    } else {
-			return false;
-		    }
-		} else {
+    static class EndOfCommentTester implements CharTester {
+
+	/**
+	 * Contains the sequence <code>--></code> 
+	 * representing the end of a comment. 
+	 */
+	static final String END_OF_COMMENT = "-->";
+
+	/**
+	 * Contains the index in {@link #END_OF_COMMENT} 
+	 * which is to be compared next by {@link #testChar}. 
+	 */
+	private int index = 0;
+
+	/**
+	 * Forgets about the characters tested so far. 
+	 * This is invoked at the beginning of each comment. 
+	 */
+	void reset() {
+	    this.index = 0;
+	}
+
+	/**
+	 * Returns whether the last characters tested 
+	 * are <code>--></code>. 
+	 *
+	 * @param chr 
+	 *    a <code>char</code>. 
+	 * @return
+	 *    whether the last characters tested 
+	 *    including <code>char</code> are <code>--></code>. 
+	 *    In particular, if less than three characters are read 
+	 *    this is <code>false</code>. 
+	 */
+	public boolean testChar(char chr) {
+	    if (END_OF_COMMENT.charAt(this.index) == chr) {
+		this.index++;
+		if (this.index == END_OF_COMMENT.length() - 1) {
 		    this.index = 0;
+		    return true;
+		} else {
 		    return false;
 		}
+	    } else {
+		this.index = 0;
+		return false;
 	    }
-	}; // TEST_END_OF_COMMENT 
+	}
+    } // class EndOfCommentTester 
 
     /**
      * A <code>CharTester</code> which allows to specify 
@@ -349,15 +489,6 @@ public final class SGMLParser {
 	}
     } // SpecCharTester 
 
-    /**
-     * Tests for a specified character. 
-     * This is used for quotes which allow the cases 
-     * <code>'</code> and <code>"</code>. 
-     *
-     * @see XMLsGMLspecifica#parseAttribute
-     */
-    private static final SpecCharTester TEST_SPEC = new SpecCharTester();
-
     /**
      * Class which buffers the read stream. 
      */
@@ -369,8 +500,9 @@ public final class SGMLParser {
 
 	/**
 	 * The reader buffered. 
+	 * This is replaced by {@link #reset(Reader)}. 
 	 */
-	private final Reader reader;
+	private Reader reader;
 
 	/**
 	 * The current buffer. 
@@ -422,16 +554,27 @@ public final class SGMLParser {
 	 *    if an error occurs 
 	 */
 	Buffer(Reader reader, int length) throws IOException {
-	    this.reader = reader;
 	    this.bufferArray = new char[length];
-	    this.start = 0;
-	    this.end = this.start; // signifies: reading necessary. 
+	    reset(reader);
 	}
 
 	/* ----------------------------------------------------------------- *
 	 * methods                                                           *
 	 * ----------------------------------------------------------------- */
 
+	/**
+	 * Makes this buffer buffer the given reader from the beginning 
+	 * reusing {@link #bufferArray}. 
+	 *
+	 * @param reader 
+	 *    the <code>Reader</code> to be buffered 
+	 *    or <code>null</code> to release the reader buffered so far. 
+	 */
+	final void reset(Reader reader) {
+	    this.reader = reader;
+	    this.start = 0;
+	    this.end = this.start; // signifies: reading necessary. 
+	}
 
 	/**
 	 * Returns whether this buffer is currently empty. 
@@ -514,25 +657,40 @@ public final class SGMLParser {
 		}
 	    }
 
-	    for (int i = this.start; i < this.end; i++) {
-		if (charTester.testChar(this.bufferArray[i])) {
-		    // found match described by charTester 
-		    this.newStart = i;
-		    return this.newStart - this.start;
+	    // find the first match described by charTester 
+	    // or this.end if the test always fails 
+	    if (charTester instanceof CharClass) {
+		this.newStart = ((CharClass) charTester)
+		    .indexIn(this.bufferArray, this.start, this.end);
+	    } else if (charTester instanceof SpecCharTester) {
+		this.newStart = CharClass
+		    .indexOf(this.bufferArray,
+			     ((SpecCharTester) charTester).chr,
+			     this.start, this.end);
+	    } else {
+		this.newStart = this.end;
+		for (int i = this.start; i < this.end; i++) {
+		    if (charTester.testChar(this.bufferArray[i])) {
+			this.newStart = i;
+			break;
+		    }
 		}
 	    }
-            // Here, the test always failed. 
-	    this.newStart = this.end;
-	    return this.end - this.start;
+	    return this.newStart - this.start;
 	}
 
 	/**
-	 * Describe <code>readStringBuffer</code> method here.
+	 * Appends the characters starting with the current one 
+	 * until one passes <code>charTester</code> to <code>res</code>. 
+	 * Since <code>res</code> is typically reused, 
+	 * this creates no object except when the buffer is refilled. 
 	 *
+	 * @param res 
+	 *    the <code>StringBuilder</code> the characters are appended to. 
 	 * @param charTester 
 	 *    a <code>CharTester</code> which determines 
 	 *    the first character not read 
-	 *    into the resulting <code>StringBuffer</code>. 
+	 *    into <code>res</code>. 
 	 * @param elementName
 	 *    a <code>String</code> which determines 
 	 *    the element under consideration. 
@@ -544,20 +702,21 @@ public final class SGMLParser {
 	 *    {@link #ATTR_NAME}, {@link #WHITESP_IN_ATTR} 
 	 *    and {@link #ATTR_VALUE}. ****** comment and &lt;!element missing. 
 	 * @return 
-	 *    a <code>StringBuffer</code> containing characters 
+	 *    <code>res</code> with the characters 
 	 *    starting with the current one until one 
-	 *    <code>charTester</code> returns <code>true</code>. 
+	 *    <code>charTester</code> returns <code>true</code> appended. 
 	 * @exception IOException 
 	 *    if an io-error occurs
 	 * @exception SAXParseException 
 	 *    if the parser faces the end of the stream 
 	 *    while scanning the current element. 
 	 */
-	StringBuffer readStringBuffer(CharTester charTester, 
-				      String elementName) 
+	StringBuilder readStringBuilder(StringBuilder res,
+					CharTester charTester, 
+					String elementName) 
 	    throws IOException, SAXParseException {
 
-	    StringBuffer qName = new StringBuffer();
+	    StringBuilder qName = res;
 	    int numRead = 0;
 	    do {
 		numRead = readArray(charTester);
@@ -576,6 +735,44 @@ public final class SGMLParser {
 	    return qName;
 	}
 
+	/**
+	 * Skips the characters starting with the current one 
+	 * until one passes <code>charTester</code>. 
+	 * Unlike {@link #readStringBuilder}, 
+	 * this only scans the buffer without copying the characters; 
+	 * so the message of an exception 
+	 * gives just the number of characters skipped. 
+	 *
+	 * @param charTester 
+	 *    a <code>CharTester</code> which determines 
+	 *    the first character not skipped. 
+	 * @param elementName
+	 *    a <code>String</code> which determines 
+	 *    the element under consideration 
+	 *    as for {@link #readStringBuilder}. 
+	 * @exception IOException 
+	 *    if an io-error occurs
+	 * @exception SAXParseException 
+	 *    if the parser faces the end of the stream 
+	 *    while scanning the current element. 
+	 */
+	void skip(CharTester charTester, String elementName) 
+	    throws IOException, SAXParseException {
+	    long numSkipped = 0;
+	    int numRead;
+	    do {
+		numRead = readArray(charTester);
+		if (numRead == -1) {
+		    throw new SAXParseException
+			("End of stream while scanning " 
+			 + elementName + ". " 
+			 + "Skipped " + numSkipped + " characters. ", null);
+		}
+		getStartAndMove();
+		numSkipped += numRead;
+	    } while (isEmpty());
+	}
+
 	/**
 	 * Returns the buffer of <code>char</code>s. 
 	 *
@@ -618,6 +815,62 @@ public final class SGMLParser {
 	}
     } // class Buffer
 
+    /**
+     * A reader of a portion of a <code>char</code>-array 
+     * which may be reused for another portion by {@link #reset}. 
+     * Unlike a <code>java.io.CharArrayReader</code>, 
+     * this is neither synchronized nor needs to be created for each portion. 
+     */
+    static final class ArrayReader extends Reader {
+
+	/**
+	 * The array read from. 
+	 */
+	private char[] chars;
+
+	/**
+	 * The index of the next character in {@link #chars} to be read. 
+	 */
+	private int pos;
+
+	/**
+	 * The index in {@link #chars} after the last character to be read. 
+	 */
+	private int end;
+
+	/**
+	 * Makes this reader read <code>chars</code> 
+	 * from index <code>from</code> inclusively 
+	 * to index <code>end</code> exclusively. 
+	 *
+	 * @param chars 
+	 *    the array to be read. 
+	 * @param from 
+	 *    the index of the first character to be read. 
+	 * @param end 
+	 *    the index after the last character to be read. 
+	 */
+	void reset(char[] chars, int from, int end) {
+	    this.chars = chars;
+	    this.pos = from;
+	    this.end = end;
+	}
+
+	public int read(char[] cbuf, int off, int len) {
+	    if (this.pos == this.end) {
+		return -1;
+	    }
+	    int num = Math.min(len, this.end - this.pos);
+	    System.arraycopy(this.chars, this.pos, cbuf, off, num);
+	    this.pos += num;
+	    return num;
+	}
+
+	public void close() {
+	    this.chars = null;
+	}
+    } // class ArrayReader 
+
     /**
      * Provides a bunch of methods fpr parsing 
      * with implementations specific to xml and sgml. 
@@ -673,13 +926,14 @@ public final class SGMLParser {
 	    throws IOException, SAXException {
 	    String attName;
 	    String attValue;
-	    StringBuffer qName;
+	    StringBuilder qName = SGMLParser.this.chars;
 
 	    // Parse attribute name 
-	    qName = SGMLParser.this.buffer.
-		readStringBuffer(TEST_BLANK_EQUALS_GT, ATTR_NAME);
-	    qName.insert(0, (char) SGMLParser.this.currChar);
-	    attName = qName.toString().toLowerCase(Locale.ENGLISH);
+	    qName.setLength(0);
+	    qName.append((char) SGMLParser.this.currChar);
+	    SGMLParser.this.buffer.
+		readStringBuilder(qName, TEST_BLANK_EQUALS_GT, ATTR_NAME);
+	    attName = SGMLParser.this.symbols.intern(qName, true);
 //System.out.println("attName: |"+attName+"|");
 
 	    // Here, the attribute may have a value or not. 
@@ -689,8 +943,8 @@ public final class SGMLParser {
 	    SGMLParser.this.currChar = 
 		SGMLParser.this.buffer.readChar(); //NOPMD
 	    if (Character.isWhitespace((char) SGMLParser.this.currChar)) {
-		qName = SGMLParser.this.buffer.
-		    readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+		SGMLParser.this.buffer.
+		    skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 		SGMLParser.this.currChar = 
 		    SGMLParser.this.buffer.readChar(); //NOPMD
 	    }
@@ -706,8 +960,8 @@ public final class SGMLParser {
 	    // Here, clearly a value must follow 
 
 	    // Skip whitespaces 
-	    qName = SGMLParser.this.buffer.
-		readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+	    SGMLParser.this.buffer.
+		skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 	    SGMLParser.this.currChar = 
 		SGMLParser.this.buffer.readChar(); //NOPMD
 
@@ -718,15 +972,17 @@ public final class SGMLParser {
 		case '"':
 		    // the attribute value is quoted. 
 		    char quote = (char) SGMLParser.this.currChar;
-		    TEST_SPEC.setChar(quote);
+		    SGMLParser.this.testQuote.setChar(quote);
 		    //SGMLParser.this.currChar = 
 		    //	SGMLParser.this.buffer.readChar();
 
 //System.out.println("quote@@"+SGMLParser.this.currChar);
-		    qName = new StringBuffer();
+		    qName.setLength(0);
 		    while (true) {
-			qName.append(SGMLParser.this.buffer.
-				     readStringBuffer(TEST_SPEC, ATTR_VALUE));
+			SGMLParser.this.buffer.
+			    readStringBuilder(qName,
+					      SGMLParser.this.testQuote,
+					      ATTR_VALUE);
 			if (qName.length() != 0 
 			    && qName.charAt(qName.length() - 1) == '\\') {
 			    qName.setCharAt(qName.length() - 1, quote);
@@ -741,9 +997,10 @@ public final class SGMLParser {
 		default:
 //System.out.println("no quote@@"+SGMLParser.this.currChar);
 		    // the attribute value is not quoted. 
-		    qName = SGMLParser.this.buffer.
-			readStringBuffer(TEST_BLANK_GT, ATTR_VALUE);
-		    qName.insert(0, (char) SGMLParser.this.currChar);
+		    qName.setLength(0);
+		    qName.append((char) SGMLParser.this.currChar);
+		    SGMLParser.this.buffer.
+			readStringBuilder(qName, TEST_BLANK_GT, ATTR_VALUE);
 		    break;
 	    }
 	    // read the character after the attribute value 
@@ -781,9 +1038,10 @@ public final class SGMLParser {
 //System.out.println("comment!");
 
 	    int numRead = 0;
+	    SGMLParser.this.testEndOfComment.reset();
 	    do {
 		numRead = SGMLParser.this.buffer
-		    .readArray(TEST_END_OF_COMMENT);
+		    .readArray(SGMLParser.this.testEndOfComment);
 		if (numRead == -1) {
 		    StringBuffer qName = new StringBuffer();
 		    qName.append(SGMLParser.this.buffer.getChars(),
@@ -826,13 +1084,14 @@ public final class SGMLParser {
 	    throws IOException, SAXException {
 	    String attName;
 	    String attValue;
-	    StringBuffer qName;
+	    StringBuilder qName = SGMLParser.this.chars;
 
 	    // Parse attribute name 
-	    qName = SGMLParser.this.buffer.
-		readStringBuffer(TEST_BLANK_EQUALS_GT, ATTR_NAME);
-	    qName.insert(0, (char) SGMLParser.this.currChar);
-	    attName = qName.toString();
+	    qName.setLength(0);
+	    qName.append((char) SGMLParser.this.currChar);
+	    SGMLParser.this.buffer.
+		readStringBuilder(qName, TEST_BLANK_EQUALS_GT, ATTR_NAME);
+	    attName = SGMLParser.this.symbols.intern(qName, false);
 //System.out.println("attName: |"+attName+"|");
 
 	    // Here, the attribute may have a value or not. 
@@ -842,8 +1101,8 @@ public final class SGMLParser {
 	    SGMLParser.this.currChar = 
 		SGMLParser.this.buffer.readChar(); //NOPMD
 	    if (Character.isWhitespace((char) SGMLParser.this.currChar)) {
-		qName = SGMLParser.this.buffer.
-		    readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+		SGMLParser.this.buffer.
+		    skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 		SGMLParser.this.currChar = 
 		    SGMLParser.this.buffer.readChar(); //NOPMD
 	    }
@@ -859,8 +1118,8 @@ public final class SGMLParser {
 
 
 	    // Skip whitespaces 
-	    qName = SGMLParser.this.buffer.
-		readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+	    SGMLParser.this.buffer.
+		skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 	    SGMLParser.this.currChar = 
 		SGMLParser.this.buffer.readChar(); //NOPMD
 
@@ -872,15 +1131,17 @@ public final class SGMLParser {
 		case '"':
 		    // the attribute value is quoted. 
 		    char quote = (char) SGMLParser.this.currChar;
-		    TEST_SPEC.setChar(quote);
+		    SGMLParser.this.testQuote.setChar(quote);
 		    //SGMLParser.this.currChar = 
 		    //	SGMLParser.this.buffer.readChar();
 
 //System.out.println("quote@@"+SGMLParser.this.currChar);
-		    qName = new StringBuffer();
+		    qName.setLength(0);
 		    while (true) {
-			qName.append(SGMLParser.this.buffer.
-				     readStringBuffer(TEST_SPEC, ATTR_VALUE));
+			SGMLParser.this.buffer.
+			    readStringBuilder(qName,
+					      SGMLParser.this.testQuote,
+					      ATTR_VALUE);
 			if (qName.length() != 0 
 			    && qName.charAt(qName.length() - 1) == '\\') {
 			    qName.setCharAt(qName.length() - 1, quote);
@@ -912,7 +1173,7 @@ public final class SGMLParser {
 	    throws IOException, SAXException {
 	    // ******** comments will not work that way!!!*****
 
-	    SGMLParser.this.buffer.readStringBuffer(TEST_GT, PROC_INSTR);
+	    SGMLParser.this.buffer.skip(TEST_GT, PROC_INSTR);
 	    //**** comment
 	    // Here, also the empty processing instruction or comment 
 	    // would be possible. 
@@ -929,8 +1190,7 @@ public final class SGMLParser {
 	public void parseExtProcessingInstruction() 
 	    throws IOException, SAXException {
 
-	    //StringBuffer qName = 
-	    SGMLParser.this.buffer.readStringBuffer(TEST_GT, PROC_INSTR);
+	    SGMLParser.this.buffer.skip(TEST_GT, PROC_INSTR);
 	    // Here, also the empty processing instruction would be possible. 
 	
 	    //this.buffer.getStart();
@@ -958,49 +1218,101 @@ public final class SGMLParser {
      */
     private static final int BUFFER_SIZE = 999999;
 
-    // for notification of a sax parse exception with Buffer.readStringBuffer. 
+    // for notification of a sax parse exception with Buffer.readStringBuilder. 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String START_TAG = "start tag";
 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String END_TAG = "end tag";
 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String PROC_INSTR = "processing instruction";
 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String ATTR_NAME = "attribute name";
 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String WHITESP_IN_ATTR = "whitespace in attribute";
 
     /**
      * Short string representation of the object currently parsed. 
      * Contains the specific part of the message of the exception 
-     * that may be thrown by {@link SGMLParser.Buffer#readStringBuffer}. 
+     * that may be thrown by {@link SGMLParser.Buffer#readStringBuilder}. 
      */
     private static final String ATTR_VALUE = "attribute value";
 
+    /**
+     * The initial length of {@link #pending}. 
+     */
+    private static final int INITIAL_PENDING = 1024;
+
+    /**
+     * A value of {@link #unitKind} signifying that there is no unit. 
+     */
+    private static final int UNIT_NONE = 0;
+
+    /**
+     * A value of {@link #unitKind} signifying a unit 
+     * of which too few characters are known to determine its kind. 
+     */
+    private static final int UNIT_UNKNOWN = 1;
+
+    /**
+     * A value of {@link #unitKind} signifying a tag 
+     * which ends with the first <code>&gt;</code> 
+     * outside a quoted attribute value. 
+     */
+    private static final int UNIT_TAG = 2;
+
+    /**
+     * A value of {@link #unitKind} signifying an end tag or declaration 
+     * which ends with the first <code>&gt;</code>. 
+     */
+    private static final int UNIT_PLAIN = 3;
+
+    /**
+     * A value of {@link #unitKind} signifying a comment 
+     * which ends with <code>--&gt;</code>. 
+     */
+    private static final int UNIT_COMMENT = 4;
+
+    /**
+     * The length of {@link #decoded} 
+     * which is the maximal length of a chunk fed when parsing bytes. 
+     */
+    private static final int DECODED_LENGTH = 8192;
+
+    /**
+     * The length of {@link #undecoded} 
+     * which is at least {@link CharsetDetector#PREFIX_LENGTH}. 
+     */
+    private static final int UNDECODED_LENGTH = 8192;
+
+    /**
+     * The maximal length of a region of a file mapped into memory at once. 
+     */
+    private static final int MAX_REGION = 1 << 28;
+
     /* --------------------------------------------------------------------- *
      * fields                                                                *
      * --------------------------------------------------------------------- */
@@ -1028,9 +1340,139 @@ public final class SGMLParser {
 
     /**
      * The buffer of the input stream. 
+     * This is created by the first invocation of {@link #parse(Reader)} 
+     * and reused by subsequent ones. 
      */
     private Buffer buffer;
 
+    /**
+     * Tests for a specified character. 
+     * This is used for quotes which allow the cases 
+     * <code>'</code> and <code>"</code>. 
+     *
+     * @see XMLsGMLspecifica#parseAttribute
+     */
+    private final SpecCharTester testQuote = new SpecCharTester();
+
+    /**
+     * Tests for the end of a comment. 
+     *
+     * @see XMLsGMLspecifica#parseCommentElemTypeDecl
+     */
+    private final EndOfCommentTester testEndOfComment = 
+	new EndOfCommentTester();
+
+    /**
+     * The characters of the name of a tag or attribute 
+     * or of the value of an attribute currently parsed. 
+     * This is reused for all names and values 
+     * and the names are converted into strings by {@link #symbols}. 
+     */
+    private final StringBuilder chars = new StringBuilder();
+
+    /**
+     * The names of the tags and attributes found so far. 
+     * Since these are kept from one parse to the next, 
+     * reusing a parser for similar documents 
+     * creates almost no string for names at all. 
+     */
+    private final SymbolTable symbols = new SymbolTable();
+
+    // fields for feeding a document in chunks 
+
+    /**
+     * Whether a document is fed by {@link #feed(char[], int, int)} 
+     * which is not yet finished by {@link #finish()}. 
+     */
+    private boolean feeding;
+
+    /**
+     * The characters fed but not yet parsed 
+     * which form the beginning of a generalized tag, i.e. a unit, 
+     * not completed by the chunks fed so far, 
+     * from index <code>0</code> to {@link #pendingLen} exclusively. 
+     * This is reused for all chunks and grows if necessary. 
+     */
+    private char[] pending = new char[INITIAL_PENDING];
+
+    /**
+     * The number of characters in {@link #pending}. 
+     */
+    private int pendingLen;
+
+    /**
+     * The kind of the unit scanned: 
+     * {@link #UNIT_NONE} if there is none, 
+     * {@link #UNIT_UNKNOWN} if this is not yet known 
+     * and else one of {@link #UNIT_TAG}, {@link #UNIT_PLAIN} 
+     * and {@link #UNIT_COMMENT}. 
+     */
+    private int unitKind = UNIT_NONE;
+
+    /**
+     * The number of characters of the unit scanned so far. 
+     * This is needed only while the kind of the unit is not yet known. 
+     */
+    private int scanPos;
+
+    /**
+     * The number of consecutive <code>-</code> scanned last 
+     * within the body of a comment. 
+     */
+    private int scanDashes;
+
+    /**
+     * The quote of the attribute value scanned 
+     * or <code>0</code> if not scanning a quoted attribute value. 
+     */
+    private char scanQuote;
+
+    /**
+     * Whether the last character scanned which is no whitespace 
+     * is <code>=</code> so that a quote starts an attribute value. 
+     */
+    private boolean scanAfterEq;
+
+    /**
+     * Reads units from a chunk or from {@link #pending} for {@link #buffer}. 
+     */
+    private final ArrayReader unitReader = new ArrayReader();
+
+    /**
+     * The characters copied from a <code>CharBuffer</code> 
+     * without accessible array 
+     * or <code>null</code> if there was no such buffer yet. 
+     */
+    private char[] copied;
+
+    /**
+     * Collects the attributes of the current start tag. 
+     * This is reused for all start tags. 
+     */
+    private final AttributesWrapper attributesWrapper = 
+	new AttributesWrapper();
+
+    // fields for parsing bytes 
+
+    /**
+     * The decoder used for the last document given as bytes 
+     * or <code>null</code> if there was none. 
+     * This is reused for the next document in the same charset. 
+     */
+    private CharsetDecoder decoder;
+
+    /**
+     * The characters decoded but not yet fed 
+     * or <code>null</code> if no document was given as bytes yet. 
+     */
+    private CharBuffer decoded;
+
+    /**
+     * The bytes read from an input stream but not yet decoded 
+     * or <code>null</code> if no document was given as a stream yet. 
+     */
+    private ByteBuffer undecoded;
+
     /* --------------------------------------------------------------------- *
      * constructors                                                          *
      * --------------------------------------------------------------------- */
@@ -1066,6 +1508,8 @@ public final class SGMLParser {
 
     /**
      * Parses the given <code>InputStream</code>. 
+     * This may be invoked repeatedly, 
+     * also after a previous parse failed with an exception. 
      *
      * @param reader 
      *     an <code>Reader</code> sequentializing an SGML document. 
@@ -1075,8 +1519,251 @@ public final class SGMLParser {
      *    if an error with the sgml-syntax occurs. 
      */
     public void parse(Reader reader) throws IOException, SAXException {
+	if (this.buffer == null) {
+	    this.buffer = new Buffer(reader, BUFFER_SIZE);
+	} else {
+	    this.buffer.reset(reader);
+	}
+	try {
+	    parseDocument();
+	} finally {
+	    // do not keep the reader after parsing 
+	    this.buffer.reset(null);
+	}
+    }
+
+    /**
+     * Parses the document given by the bytes of the given stream. 
+     * The charset is detected from a byte order mark 
+     * or from an xml declaration or a <code>meta</code>-tag 
+     * at the beginning of the document, 
+     * as described for {@link CharsetDetector}. 
+     * The bytes are read and decoded in small chunks 
+     * which are fed to this parser as by {@link #feed(CharBuffer)}. 
+     * Thus neither the bytes nor the characters of the document 
+     * are buffered as a whole. 
+     * This may be invoked repeatedly, 
+     * also after a previous parse failed with an exception. 
+     *
+     * @param input 
+     *    a stream of bytes of an SGML document. 
+     * @param defaultCharset 
+     *    the charset used if none is detected. 
+     * @exception IOException 
+     *     if an error reading the stream occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void parse(InputStream input, Charset defaultCharset) 
+	throws IOException, SAXException {
+	if (this.undecoded == null) {
+	    this.undecoded = ByteBuffer.allocate(UNDECODED_LENGTH);
+	}
+	ByteBuffer bytes = this.undecoded;
+	bytes.clear();
+	boolean success = false;
+	try {
+	    boolean endOfInput = fill(input, bytes);
+	    bytes.flip();
+	    CharsetDecoder dec = 
+		decoder(CharsetDetector.detect(bytes, defaultCharset));
+	    while (true) {
+		decodeAndFeed(dec, bytes, endOfInput);
+		if (endOfInput) {
+		    break;
+		}
+		// keep the bytes of a character split by the chunk 
+		bytes.compact();
+		endOfInput = fill(input, bytes);
+		bytes.flip();
+	    }
+	    finish();
+	    success = true;
+	} finally {
+	    if (!success) {
+		resetFeeding();
+	    }
+	}
+    }
+
+    /**
+     * Reads bytes from <code>input</code> into <code>bytes</code> 
+     * until it is full or the end of the stream is reached. 
+     *
+     * @return 
+     *    whether the end of the stream is reached. 
+     * @exception IOException 
+     *     if an error reading the stream occurs. 
+     */
+    private static boolean fill(InputStream input, ByteBuffer bytes) 
+	throws IOException {
+	int num;
+	while (bytes.hasRemaining()) {
+	    num = input.read(bytes.array(),
+			     bytes.arrayOffset() + bytes.position(),
+			     bytes.remaining());
+	    if (num == -1) {
+		return true;
+	    }
+	    bytes.position(bytes.position() + num);
+	}
+	return false;
+    }
+
+    /**
+     * Parses the document given by the remaining bytes of the given buffer, 
+     * e.g. a direct buffer or a file mapped into memory. 
+     * The charset is detected as described for 
+     * {@link #parse(InputStream, Charset)} 
+     * and the bytes are decoded in small chunks. 
+     * Afterwards, the buffer has no remaining bytes. 
+     *
+     * @param bytes 
+     *    a buffer with an SGML document as remaining bytes. 
+     * @param defaultCharset 
+     *    the charset used if none is detected. 
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void parse(ByteBuffer bytes, Charset defaultCharset) 
+	throws IOException, SAXException {
+	boolean success = false;
+	try {
+	    CharsetDecoder dec = 
+		decoder(CharsetDetector.detect(bytes, defaultCharset));
+	    decodeAndFeed(dec, bytes, true);
+	    finish();
+	    success = true;
+	} finally {
+	    if (!success) {
+		resetFeeding();
+	    }
+	}
+    }
+
+    /**
+     * Parses the document given by the bytes of the given file 
+     * which is mapped into memory region by region. 
+     * Thus even files of several gigabytes are parsed 
+     * without copying them into the heap. 
+     * The charset is detected as described for 
+     * {@link #parse(InputStream, Charset)}. 
+     *
+     * @param file 
+     *    the path of a file containing an SGML document. 
+     * @param defaultCharset 
+     *    the charset used if none is detected. 
+     * @exception IOException 
+     *     if an error reading the file occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void parse(Path file, Charset defaultCharset) 
+	throws IOException, SAXException {
+	boolean success = false;
+	try (FileChannel channel = FileChannel.open(file,
+						    StandardOpenOption.READ)) {
+	    long size = channel.size();
+	    long pos = 0;
+	    MappedByteBuffer region = channel
+		.map(FileChannel.MapMode.READ_ONLY, 0,
+		     Math.min(size, MAX_REGION));
+	    CharsetDecoder dec = 
+		decoder(CharsetDetector.detect(region, defaultCharset));
+	    boolean last;
+	    while (true) {
+		last = pos + region.limit() == size;
+		decodeAndFeed(dec, region, last);
+		if (last) {
+		    break;
+		}
+		// the next region starts with the bytes not yet decoded 
+		pos += region.position();
+		region = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+				     Math.min(size - pos, MAX_REGION));
+	    }
+	    finish();
+	    success = true;
+	} finally {
+	    if (!success) {
+		resetFeeding();
+	    }
+	}
+    }
+
+    /**
+     * Returns a decoder for the given charset 
+     * replacing malformed input and unmappable characters 
+     * like an <code>InputStreamReader</code>. 
+     * This is {@link #decoder} if it decodes this charset. 
+     */
+    private CharsetDecoder decoder(Charset charset) {
+	if (this.decoder == null || !this.decoder.charset().equals(charset)) {
+	    this.decoder = charset.newDecoder()
+		.onMalformedInput(CodingErrorAction.REPLACE)
+		.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	} else {
+	    this.decoder.reset();
+	}
+	return this.decoder;
+    }
+
+    /**
+     * Decodes the remaining bytes of <code>bytes</code> 
+     * and feeds the characters to this parser 
+     * in chunks of at most {@link #DECODED_LENGTH} characters. 
+     * Unless <code>endOfInput</code> is set, 
+     * the bytes of an incomplete character at the end remain. 
+     *
+     * @param dec 
+     *    the decoder of the document. 
+     * @param bytes 
+     *    the next bytes of the document. 
+     * @param endOfInput 
+     *    whether <code>bytes</code> ends the document. 
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    private void decodeAndFeed(CharsetDecoder dec,
+			       ByteBuffer bytes,
+			       boolean endOfInput) 
+	throws IOException, SAXException {
+	if (this.decoded == null) {
+	    this.decoded = CharBuffer.allocate(DECODED_LENGTH);
+	}
+	CharBuffer chars = this.decoded;
+	CoderResult result;
+	do {
+	    chars.clear();
+	    result = dec.decode(bytes, chars, endOfInput);
+	    chars.flip();
+	    feed(chars);
+	} while (result.isOverflow());
+	if (endOfInput) {
+	    do {
+		chars.clear();
+		result = dec.flush(chars);
+		chars.flip();
+		feed(chars);
+	    } while (result.isOverflow());
+	}
+    }
 
-	this.buffer = new Buffer(reader, BUFFER_SIZE);
+    /**
+     * Parses the document from {@link #buffer} 
+     * which is reset to the beginning of a new reader. 
+     *
+     * @exception IOException 
+     *     if an error reading the stream occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    private void parseDocument() throws IOException, SAXException {
+	this.currChar = -1;
 	int numRead = this.buffer.readArray(TEST_LT);
 	// notify handler that first part of document was successfully read. 
 	this.contentHandler.startDocument();
@@ -1132,7 +1819,10 @@ public final class SGMLParser {
      *    if an error with the sgml-syntax occurs. 
      */
     void parseEndTag() throws IOException, SAXException {
-	StringBuffer qName = this.buffer.readStringBuffer(TEST_GT, END_TAG);
+	this.chars.setLength(0);
+	String qName = this.symbols
+	    .intern(this.buffer.readStringBuilder(this.chars, TEST_GT, END_TAG),
+		    !isXMLParser());
 	// Here, also the empty tag would be possible. 
 	
 	//this.buffer.getStart();
@@ -1141,7 +1831,7 @@ public final class SGMLParser {
 	//assert this.currChar == '>';
 	this.contentHandler.endElement(null,
 				       null,
-				       qName.toString());
+				       qName);
 	this.currChar = this.buffer.readChar();
     }
 /*
@@ -1182,21 +1872,26 @@ this.handler.processingInstruction(null, null);
 	}
 
 
-	StringBuffer qName = this.buffer
-	    .readStringBuffer(TEST_BLANK_GT_SLASH, START_TAG);
-	qName.insert(0, (char) this.currChar);
+	this.chars.setLength(0);
+	this.chars.append((char) this.currChar);
+	this.buffer
+	    .readStringBuilder(this.chars, TEST_BLANK_GT_SLASH, START_TAG);
+	// intern right now because parsing attributes reuses chars. 
+	// For html, the name is converted to lower case 
+	// which makes the conversion in SGMLFilter trivial. 
+	String qName = this.symbols.intern(this.chars, !isXMLParser());
 	// Here, also the empty tag would be possible. 
 //System.out.println("start tag: |"+qName+"|");
 
 	// Skip whitespaces 
 	this.currChar = this.buffer.readChar();
 	while (Character.isWhitespace((char) this.currChar)) {
-	    this.buffer.
-		readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+	    this.buffer.skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 	    this.currChar = this.buffer.readChar();
 	}
 
-	AttributesWrapper attributesWrapper = new AttributesWrapper();
+	AttributesWrapper attributesWrapper = this.attributesWrapper;
+	attributesWrapper.clear();
 	// Here, either /, > or an attribute occurs
 //System.out.println("this.currChar: |"+(char)this.currChar+"|");
 	while (this.currChar != '/' && this.currChar != '>') {
@@ -1205,8 +1900,7 @@ this.handler.processingInstruction(null, null);
 
 	    // Skip whitespaces 
 	    while (Character.isWhitespace((char) this.currChar)) {
-		this.buffer
-		    .readStringBuffer(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
+		this.buffer.skip(TEST_NO_WHITESPACE, WHITESP_IN_ATTR);
 		this.currChar = this.buffer.readChar();
 	    }
 	} // end parsing attribute list 
@@ -1238,16 +1932,16 @@ this.handler.processingInstruction(null, null);
 
 		this.contentHandler.startElement(null,
 						 null,
-						 qName.toString(),
+						 qName,
 						 attributes);
 		this.contentHandler.endElement(null,
 					       null,
-					       qName.toString());
+					       qName);
 		break;
 	    case '>':
 		this.contentHandler.startElement(null,
 						 null,
-						 qName.toString(),
+						 qName,
 						 attributes);
 		break;
 	    default:
@@ -1302,6 +1996,329 @@ this.handler.processingInstruction(null, null);
 	return 1;
     }
 
+    /**
+     * Feeds the next chunk of a document to this parser. 
+     * This is an alternative to {@link #parse(Reader)} 
+     * for documents arriving in chunks, e.g. from a non-blocking channel. 
+     * The first chunk of a document starts the document, 
+     * and {@link #finish()} ends it. 
+     * <p>
+     * All text and all tags, comments and so on completed by the chunk 
+     * are notified to the content handler before this method returns, 
+     * where text may be notified in pieces. 
+     * A unit, i.e. a tag, comment and so on, 
+     * which is not completed by the chunk 
+     * is kept until completed by subsequent chunks. 
+     * Text and units within the chunk are notified directly from the chunk; 
+     * only the beginning of a single unit not completed is copied 
+     * and the chunk is not referenced after this method returns. 
+     * <p>
+     * Unlike {@link #parse(Reader)}, feeding notifies all of the text. 
+     * If an exception is thrown, the document is discarded 
+     * and the next chunk fed starts a new document. 
+     * Feeding and {@link #parse(Reader)} must not be interleaved. 
+     *
+     * @param chunk 
+     *    an array containing the chunk of the document. 
+     * @param off 
+     *    the index of the first character of the chunk. 
+     * @param len 
+     *    the number of characters of the chunk. 
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void feed(char[] chunk, int off, int len) 
+	throws IOException, SAXException {
+	boolean success = false;
+	try {
+	    if (!this.feeding) {
+		this.feeding = true;
+		this.contentHandler.startDocument();
+	    }
+	    int pos = off;
+	    int end = off + len;
+	    int unitEnd;
+	    if (this.unitKind != UNIT_NONE) {
+		// complete the unit begun in a previous chunk 
+		unitEnd = scanUnit(chunk, pos, end);
+		if (unitEnd == -1) {
+		    appendPending(chunk, pos, end);
+		    success = true;
+		    return;
+		}
+		appendPending(chunk, pos, unitEnd + 1);
+		parseUnit(this.pending, 0, this.pendingLen);
+		this.pendingLen = 0;
+		pos = unitEnd + 1;
+	    }
+
+	    // Here, no unit is begun. 
+	    while (pos < end) {
+		if (chunk[pos] != SYMB_TAG) {
+		    // text up to the next unit or to the end of the chunk 
+		    unitEnd = TEST_LT.indexIn(chunk, pos, end);
+		    this.contentHandler.characters(chunk, pos, unitEnd - pos);
+		    pos = unitEnd;
+		    continue;
+		}
+		// Here, a new unit starts 
+		this.unitKind = UNIT_UNKNOWN;
+		this.scanPos = 0;
+		this.scanQuote = 0;
+		this.scanAfterEq = false;
+		unitEnd = scanUnit(chunk, pos, end);
+		if (unitEnd == -1) {
+		    // keep the beginning of the unit for the next chunk 
+		    appendPending(chunk, pos, end);
+		    break;
+		}
+		parseUnit(chunk, pos, unitEnd + 1);
+		pos = unitEnd + 1;
+	    }
+	    success = true;
+	} finally {
+	    if (!success) {
+		resetFeeding();
+	    }
+	}
+    }
+
+    /**
+     * Feeds the remaining characters of the given buffer to this parser 
+     * as described for {@link #feed(char[], int, int)}. 
+     * Afterwards, the buffer has no remaining characters. 
+     * The characters are copied only if the buffer has no accessible array. 
+     *
+     * @param chunk 
+     *    a buffer with the chunk of the document as remaining characters. 
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void feed(CharBuffer chunk) throws IOException, SAXException {
+	if (chunk.hasArray()) {
+	    int pos = chunk.position();
+	    chunk.position(chunk.limit());
+	    feed(chunk.array(), chunk.arrayOffset() + pos, chunk.limit() - pos);
+	    return;
+	}
+	if (this.copied == null) {
+	    this.copied = new char[DECODED_LENGTH];
+	}
+	int len;
+	do {
+	    len = Math.min(chunk.remaining(), this.copied.length);
+	    chunk.get(this.copied, 0, len);
+	    feed(this.copied, 0, len);
+	} while (chunk.hasRemaining());
+    }
+
+    /**
+     * Ends the document fed by {@link #feed(char[], int, int)}. 
+     * Afterwards, this parser is ready for the next document. 
+     *
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if the document ends within a unit, e.g. a tag. 
+     */
+    public void finish() throws IOException, SAXException {
+	if (!this.feeding) {
+	    // the document is empty 
+	    this.contentHandler.startDocument();
+	}
+	boolean complete = this.unitKind == UNIT_NONE;
+	String rest = new String(this.pending, 0, this.pendingLen);
+	resetFeeding();
+	if (!complete) {
+	    throw new SAXParseException
+		("End of stream while scanning \"" + rest + QUOTE_DOT, null);
+	}
+	this.contentHandler.endDocument();
+    }
+
+    /**
+     * Discards the document fed so far 
+     * keeping {@link #pending} for reuse. 
+     */
+    private void resetFeeding() {
+	this.feeding = false;
+	this.pendingLen = 0;
+	this.unitKind = UNIT_NONE;
+    }
+
+    /**
+     * Discards a document fed but not finished 
+     * and releases the reader buffered, if any, 
+     * so that the next document starts afresh. 
+     * This is invoked by {@link SGMLParserPool#release(SGMLParser)}. 
+     */
+    void reset() {
+	resetFeeding();
+	this.buffer.reset(null);
+    }
+
+    /**
+     * Appends the characters of <code>chars</code> 
+     * from index <code>from</code> inclusively 
+     * to index <code>to</code> exclusively 
+     * to {@link #pending} which grows if necessary. 
+     */
+    private void appendPending(char[] chars, int from, int to) {
+	int len = to - from;
+	int minLen = this.pendingLen + len;
+	if (minLen > this.pending.length) {
+	    char[] newPending = 
+		new char[Math.max(minLen, 2 * this.pending.length)];
+	    System.arraycopy(this.pending, 0, newPending, 0, this.pendingLen);
+	    this.pending = newPending;
+	}
+	System.arraycopy(chars, from, this.pending, this.pendingLen, len);
+	this.pendingLen = minLen;
+    }
+
+    /**
+     * Scans the unit for its end 
+     * continuing with the characters of <code>chars</code> 
+     * from index <code>from</code> inclusively 
+     * to index <code>to</code> exclusively. 
+     * The state of the scan is kept in {@link #unitKind}, 
+     * {@link #scanPos}, {@link #scanQuote}, {@link #scanAfterEq} 
+     * and {@link #scanDashes} 
+     * so that scanning resumes with the next chunk 
+     * where it stopped with the previous one. 
+     * If the end is found, {@link #unitKind} is {@link #UNIT_NONE}. 
+     *
+     * @return 
+     *    the index in <code>chars</code> 
+     *    of the final <code>&gt;</code> of the unit 
+     *    or <code>-1</code> if the unit is not yet complete. 
+     */
+    private int scanUnit(char[] chars, int from, int to) {
+	char chr;
+	for (int i = from; i < to; i++) {
+	    chr = chars[i];
+	    if (this.unitKind == UNIT_UNKNOWN) {
+		// determine the kind from the first characters 
+		switch (this.scanPos++) {
+		    case 0:
+			// the leading '<' 
+			continue;
+		    case 1:
+			switch (chr) {
+			    case '/':
+				this.unitKind = UNIT_PLAIN;
+				continue;
+			    case '!':
+				// whether this is a comment is not yet known 
+				continue;
+			    case '?':
+				this.unitKind = isXMLParser() 
+				    ? UNIT_PLAIN : UNIT_TAG;
+				break;
+			    default:
+				this.unitKind = UNIT_TAG;
+				break;
+			}
+			break;
+		    case 2:
+			if (chr == SYMB_COMMENT) {
+			    continue;
+			}
+			this.unitKind = UNIT_PLAIN;
+			break;
+		    default:
+			if (chr == SYMB_COMMENT) {
+			    // "<!--" starts the comment 
+			    this.unitKind = UNIT_COMMENT;
+			    this.scanDashes = 0;
+			    continue;
+			}
+			this.unitKind = UNIT_PLAIN;
+			break;
+		}
+	    }
+
+	    // Here, the kind is known and chr is to be scanned. 
+	    switch (this.unitKind) {
+		case UNIT_PLAIN:
+		    if (chr == '>') {
+			this.unitKind = UNIT_NONE;
+			return i;
+		    }
+		    break;
+		case UNIT_COMMENT:
+		    if (chr == SYMB_COMMENT) {
+			this.scanDashes++;
+		    } else if (chr == '>' && this.scanDashes >= 2) {
+			// "<!-->" does not end the comment 
+			this.unitKind = UNIT_NONE;
+			return i;
+		    } else {
+			this.scanDashes = 0;
+		    }
+		    break;
+		default:
+		    // UNIT_TAG 
+		    if (this.scanQuote != 0) {
+			if (chr == this.scanQuote) {
+			    this.scanQuote = 0;
+			}
+		    } else if (chr == '>') {
+			this.unitKind = UNIT_NONE;
+			return i;
+		    } else if (chr == SYMB_EQ) {
+			this.scanAfterEq = true;
+		    } else if (this.scanAfterEq 
+			       && (chr == '"' || chr == '\'')) {
+			this.scanQuote = chr;
+			this.scanAfterEq = false;
+		    } else if (!Character.isWhitespace(chr)) {
+			this.scanAfterEq = false;
+		    }
+		    break;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Parses the complete unit in <code>chars</code> 
+     * from index <code>start</code> inclusively 
+     * to index <code>end</code> exclusively 
+     * notifying the handler. 
+     *
+     * @param chars 
+     *    the array containing the unit. 
+     * @param start 
+     *    the index of the leading <code>&lt;</code> of the unit. 
+     * @param end 
+     *    the index after the final <code>&gt;</code> of the unit. 
+     * @exception IOException 
+     *     if an error occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    private void parseUnit(char[] chars, int start, int end) 
+	throws IOException, SAXException {
+	// the unit without the leading '<' 
+	this.unitReader.reset(chars, start + 1, end);
+	if (this.buffer == null) {
+	    this.buffer = new Buffer(this.unitReader, BUFFER_SIZE);
+	} else {
+	    this.buffer.reset(this.unitReader);
+	}
+	try {
+	    parseTagOrPI();
+	} finally {
+	    this.buffer.reset(null);
+	    this.unitReader.close();
+	}
+    }
+
     /**
      * Sets {@link #contentHandler}. 
      *
@@ -0,0 +1,132 @@
+package eu.simuline.util.sgml;
+
+import java.io.Reader;
+import java.io.IOException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * A thread-safe pool of {@link SGMLParser}s 
+ * to parse many documents in parallel. 
+ * Since an {@link SGMLParser} is not thread-safe 
+ * but may be reused for one document after the other, 
+ * each thread borrows a parser by {@link #acquire()}, 
+ * parses one or more documents and returns it by {@link #release}. 
+ * As parsers are reused, so are their buffers. 
+ * The simplest way to use a pool is {@link #parse}. 
+ * <p>
+ * A pool creates parsers on demand, 
+ * so it holds at most as many parsers 
+ * as threads have borrowed a parser at the same time. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class SGMLParserPool {
+
+    /* --------------------------------------------------------------------- *
+     * fields                                                                *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Whether the parsers of this pool are xml-parsers. 
+     *
+     * @see SGMLParser#parseXML(boolean) 
+     */
+    private final boolean xml;
+
+    /**
+     * The parsers not currently borrowed. 
+     */
+    private final Queue<SGMLParser> idle;
+
+    /* --------------------------------------------------------------------- *
+     * constructors                                                          *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Creates a new empty pool of parsers. 
+     *
+     * @param xml 
+     *    whether the parsers of this pool are xml-parsers 
+     *    or html-parsers. 
+     */
+    public SGMLParserPool(boolean xml) {
+	this.xml = xml;
+	this.idle = new ConcurrentLinkedQueue<SGMLParser>();
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods                                                               *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Returns a parser which is not used by any other thread 
+     * until it is returned by {@link #release}. 
+     * The parser has the default handlers 
+     * and is an xml-parser if this pool was created to be one. 
+     *
+     * @return 
+     *    an idle parser of this pool or a new one if there is none. 
+     */
+    public SGMLParser acquire() {
+	SGMLParser parser = this.idle.poll();
+	if (parser == null) {
+	    parser = new SGMLParser();
+	    parser.parseXML(this.xml);
+	}
+	return parser;
+    }
+
+    /**
+     * Returns the given parser to this pool 
+     * resetting its handlers to the default ones 
+     * and discarding a document fed but not finished. 
+     * The parser must not be used by the caller afterwards. 
+     *
+     * @param parser 
+     *    a parser obtained by {@link #acquire()}. 
+     */
+    public void release(SGMLParser parser) {
+	parser.reset();
+	parser.parseXML(this.xml);
+	parser.setContentHandler(new SGMLParser.TrivialContentHandler());
+	parser.setExceptionHandler(new ParseExceptionHandler.Impl());
+	this.idle.offer(parser);
+    }
+
+    /**
+     * Parses the given document with a parser borrowed from this pool 
+     * notifying the given handlers. 
+     * This may be invoked by many threads concurrently. 
+     *
+     * @param reader 
+     *    a <code>Reader</code> sequentializing an SGML document. 
+     * @param contentHandler 
+     *    the <code>ContentHandler</code> notified about the document. 
+     * @param peHandler 
+     *    the <code>ParseExceptionHandler</code> notified about 
+     *    errors which are no <code>SAXException</code>s. 
+     * @exception IOException 
+     *    if an error reading the stream occurs. 
+     * @exception SAXException 
+     *    if an error with the sgml-syntax occurs. 
+     */
+    public void parse(Reader reader,
+		      ContentHandler contentHandler,
+		      ParseExceptionHandler peHandler)
+	throws IOException, SAXException {
+	SGMLParser parser = acquire();
+	try {
+	    parser.setContentHandler(contentHandler);
+	    parser.setExceptionHandler(peHandler);
+	    parser.parse(reader);
+	} finally {
+	    release(parser);
+	}
+    }
+} // class SGMLParserPool 
@@ -0,0 +1,202 @@
+package eu.simuline.util.sgml;
+
+import java.util.Locale;
+
+/**
+ * A table of symbols, i.e. canonical strings, 
+ * used by an {@link SGMLParser} for the names of tags and attributes. 
+ * The method {@link #intern(CharSequence, boolean)} 
+ * looks up the characters of a sequence which is typically reused 
+ * and creates a string only if the symbol is not yet in the table. 
+ * Since documents use few distinct names, 
+ * parsing a document thus creates almost no strings for names. 
+ * <p>
+ * The table is bounded by {@link #MAX_SYMBOLS} 
+ * so that documents with arbitrary names cannot exhaust memory: 
+ * if the table is full, new names are no longer stored. 
+ * Like a parser, a symbol table is not thread-safe. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+final class SymbolTable {
+
+    /* --------------------------------------------------------------------- *
+     * class constants                                                       *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The initial length of {@link #symbols} which is a power of two. 
+     */
+    private static final int INITIAL_LENGTH = 64;
+
+    /**
+     * The maximal number of symbols stored in a table. 
+     */
+    static final int MAX_SYMBOLS = 4096;
+
+    /* --------------------------------------------------------------------- *
+     * fields                                                                *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * The open hash table of symbols with linear probing 
+     * where free slots are <code>null</code>. 
+     * The length is a power of two 
+     * and at least twice the number of symbols {@link #size}. 
+     */
+    private String[] symbols;
+
+    /**
+     * The number of symbols in {@link #symbols}. 
+     */
+    private int size;
+
+    /* --------------------------------------------------------------------- *
+     * constructors                                                          *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Creates a new empty symbol table. 
+     */
+    SymbolTable() {
+	this.symbols = new String[INITIAL_LENGTH];
+	this.size = 0;
+    }
+
+    /* --------------------------------------------------------------------- *
+     * methods                                                               *
+     * --------------------------------------------------------------------- */
+
+    /**
+     * Returns the number of symbols in this table. 
+     *
+     * @return 
+     *    the number of symbols in this table. 
+     */
+    int size() {
+	return this.size;
+    }
+
+    /**
+     * Returns the character at the given index of the given sequence, 
+     * converted to lower case if so specified. 
+     * Only ascii characters are converted. 
+     */
+    private static char charAt(CharSequence seq, int idx, boolean toLower) {
+	char chr = seq.charAt(idx);
+	return toLower && chr >= 'A' && chr <= 'Z'
+	    ? (char) (chr + ('a' - 'A'))
+	    : chr;
+    }
+
+    /**
+     * Returns the slot in {@link #symbols} for the given hash code. 
+     */
+    private int slot(int hash) {
+	// spread higher bits as the table length is a power of two 
+	return (hash ^ (hash >>> 16)) & (this.symbols.length - 1);
+    }
+
+    /**
+     * Returns the canonical string with the characters of <code>seq</code> 
+     * converted to lower case if <code>toLower</code> is set. 
+     * The result is equal to 
+     * <code>seq.toString().toLowerCase(Locale.ENGLISH)</code> 
+     * and to <code>seq.toString()</code>, respectively. 
+     * The sequence is neither modified nor kept by this table 
+     * and so it may be reused by the caller. 
+     *
+     * @param seq 
+     *    a sequence of characters. 
+     * @param toLower 
+     *    whether to convert the characters of <code>seq</code> 
+     *    to lower case. 
+     * @return 
+     *    a string equal to the one described above 
+     *    which is the same object for equal strings 
+     *    unless the table is full. 
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    String intern(CharSequence seq, boolean toLower) {
+	int len = seq.length();
+	int hash = 0;
+	char chr;
+	for (int i = 0; i < len; i++) {
+	    chr = charAt(seq, i, toLower);
+	    if (toLower && chr > 0x7F) {
+		// conversion beyond ascii may even change the length 
+		return intern(seq.toString().toLowerCase(Locale.ENGLISH),
+			      false);
+	    }
+	    // same hash code as String.hashCode() of the result 
+	    hash = 31 * hash + chr;
+	}
+
+	int idx = slot(hash);
+	String sym;
+	while ((sym = this.symbols[idx]) != null) {
+	    if (sym.hashCode() == hash && equals(sym, seq, toLower)) {
+		return sym;
+	    }
+	    idx = (idx + 1) & (this.symbols.length - 1);
+	}
+
+	// Here, the symbol is not in the table. 
+	if (toLower) {
+	    char[] chars = new char[len];
+	    for (int i = 0; i < len; i++) {
+		chars[i] = charAt(seq, i, true);
+	    }
+	    sym = new String(chars);
+	} else {
+	    sym = seq.toString();
+	}
+	if (this.size < MAX_SYMBOLS) {
+	    this.symbols[idx] = sym;
+	    this.size++;
+	    if (2 * this.size > this.symbols.length) {
+		rehash();
+	    }
+	}
+	return sym;
+    }
+
+    /**
+     * Returns whether <code>sym</code> has the same characters 
+     * as <code>seq</code> converted to lower case 
+     * if <code>toLower</code> is set. 
+     */
+    private static boolean equals(String sym,
+				  CharSequence seq,
+				  boolean toLower) {
+	int len = seq.length();
+	if (sym.length() != len) {
+	    return false;
+	}
+	for (int i = 0; i < len; i++) {
+	    if (sym.charAt(i) != charAt(seq, i, toLower)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Doubles the length of {@link #symbols}. 
+     */
+    private void rehash() {
+	String[] old = this.symbols;
+	this.symbols = new String[2 * old.length];
+	int idx;
+	for (String sym : old) {
+	    if (sym != null) {
+		idx = slot(sym.hashCode());
+		while (this.symbols[idx] != null) {
+		    idx = (idx + 1) & (this.symbols.length - 1);
+		}
+		this.symbols[idx] = sym;
+	    }
+	}
+    }
+} // class SymbolTable 
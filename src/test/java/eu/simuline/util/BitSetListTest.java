@@ -20,6 +20,10 @@ import java.util.BitSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.PrimitiveIterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
 
 /**
  * Describe class TestBitSetList here.
@@ -66,6 +70,12 @@ public class BitSetListTest {
 	@Test public void testGet() {
 	    BitSetListTest.TEST.testGet();	    
 	}
+	@Test public void testBits() {
+	    BitSetListTest.TEST.testBits();	
+	}
+	@Test public void testBulk() {
+	    BitSetListTest.TEST.testBulk();	
+	}
     }
 
 
@@ -328,6 +338,208 @@ assertEquals(4,bitSetList.size());
 
     }
 
+    // returns a list of random bits and fills cmp with the same bits 
+    static BitSetList random(Random rand, int len, List<Integer> cmp) {
+	BitSetList res = new BitSetList();
+	int bit;
+	for (int i = 0; i < len; i++) {
+	    bit = rand.nextInt(2);
+	    res.add(bit);
+	    cmp.add(bit);
+	}
+	return res;
+    }
+
+    public void testBits() {
+	Random rand = new Random(1);
+	List<Integer> listCmp = new ArrayList<Integer>();
+	BitSetList bitSetList = random(rand, 200, listCmp);
+
+	// getBit and bitIterator 
+	PrimitiveIterator.OfInt iter = bitSetList.bitIterator();
+	for (int i = 0; i < listCmp.size(); i++) {
+	    assertEquals(listCmp.get(i).intValue(), bitSetList.getBit(i));
+	    assertEquals(listCmp.get(i).intValue(), iter.nextInt());
+	}
+	assertTrue(!iter.hasNext());
+	try {
+	    iter.nextInt();
+	    fail("Exception expected");
+	} catch (NoSuchElementException e) {
+	    // ok 
+	}
+	try {
+	    bitSetList.getBit(200);
+	    fail("Exception expected");
+	} catch (IndexOutOfBoundsException e) {
+	    // ok 
+	}
+
+	// clear is a structural modification 
+	iter = bitSetList.bitIterator();
+	iter.nextInt();
+	bitSetList.clear();
+	try {
+	    iter.nextInt();
+	    fail("Exception expected");
+	} catch (ConcurrentModificationException e) {
+	    // ok 
+	}
+	// bitIterator across blocks of words ending with cleared words 
+	listCmp.clear();
+	bitSetList = new BitSetList();
+	int bit;
+	for (int i = 0; i < 10000; i++) {
+	    bit = (i / 1000) % 2 == 0 ? 0 : rand.nextInt(2);
+	    bitSetList.add(bit);
+	    listCmp.add(bit);
+	}
+	iter = bitSetList.bitIterator();
+	for (int i = 0; i < listCmp.size(); i++) {
+	    assertEquals(listCmp.get(i).intValue(), iter.nextInt());
+	}
+	assertTrue(!iter.hasNext());
+	assertEquals(listCmp.hashCode(), bitSetList.hashCode());
+
+	listCmp.clear();
+	bitSetList = random(rand, 200, listCmp);
+
+	// getBits 
+	long word;
+	for (int nBits = 0; nBits <= 64; nBits++) {
+	    word = bitSetList.getBits(100, nBits);
+	    for (int i = 0; i < 64; i++) {
+		assertEquals(i < nBits ? listCmp.get(100 + i).intValue() : 0,
+			     (int) (word >>> i) & 1);
+	    }
+	}
+	try {
+	    bitSetList.getBits(150, 51);
+	    fail("Exception expected");
+	} catch (IndexOutOfBoundsException e) {
+	    assertEquals("Range [150, 201) not within size 200. ",
+			 e.getMessage());
+	}
+
+	// addBits 
+	bitSetList = new BitSetList();
+	listCmp.clear();
+	for (int nBits = 0; nBits <= 64; nBits++) {
+	    word = rand.nextLong();
+	    bitSetList.addBits(word, nBits);
+	    for (int i = 0; i < nBits; i++) {
+		listCmp.add((int) (word >>> i) & 1);
+	    }
+	}
+	bitSetList.addBits(-1L, 64);
+	bitSetList.addBits(-1L, 3);
+	for (int i = 0; i < 67; i++) {
+	    listCmp.add(1);
+	}
+	assertEquals(listCmp, bitSetList);
+	assertEquals(-1L, bitSetList.getBits(bitSetList.size() - 65, 64));
+	try {
+	    bitSetList.addBits(0L, 65);
+	    fail("Exception expected");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Expected between 0 and 64 bits; found 65. ",
+			 e.getMessage());
+	}
+
+	// setBit and setBits 
+	bitSetList.setBit(3, 1);
+	listCmp.set(3, 1);
+	bitSetList.setBits(10, 80, 0);
+	bitSetList.setBits(20, 30, 1);
+	for (int i = 10; i < 80; i++) {
+	    listCmp.set(i, i >= 20 && i < 30 ? 1 : 0);
+	}
+	assertEquals(listCmp, bitSetList);
+	try {
+	    bitSetList.setBit(3, 2);
+	    fail("Exception expected");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Expected bit 0 or 1; found 2. ", e.getMessage());
+	}
+
+	// removal clears bits beyond size 
+	bitSetList = new BitSetList();
+	bitSetList.addBits(-1L, 10);
+	bitSetList.remove(9);
+	bitSetList.remove(0);
+	assertEquals(8, bitSetList.cardinality());
+	assertEquals(8, bitSetList.length1());
+	bitSetList.add(0, 0);
+	assertEquals(9, bitSetList.length1());
+	assertEquals(0, bitSetList.getBit(0));
+
+	// bitIterator is fail-fast 
+	iter = bitSetList.bitIterator();
+	iter.nextInt();
+	bitSetList.addBits(1L, 1);
+	try {
+	    iter.nextInt();
+	    fail("Exception expected");
+	} catch (ConcurrentModificationException e) {
+	    // ok 
+	}
+    } // testBits() 
+
+    public void testBulk() {
+	Random rand = new Random(2);
+	List<Integer> cmp1 = new ArrayList<Integer>();
+	List<Integer> cmp2 = new ArrayList<Integer>();
+	BitSetList list1 = random(rand, 300, cmp1);
+	BitSetList list2 = random(rand, 250, cmp2);
+
+	// and, or, xor, not 
+	list1.and(list2, 17, 200);
+	list1.or (list2, 70, 140);
+	list1.xor(list2, 0, 90);
+	list1.not(5, 299);
+	for (int i = 0; i < 300; i++) {
+	    int bit = cmp1.get(i);
+	    if (i >= 17 && i < 200) {
+		bit &= cmp2.get(i);
+	    }
+	    if (i >= 70 && i < 140) {
+		bit |= cmp2.get(i);
+	    }
+	    if (i < 90) {
+		bit ^= cmp2.get(i);
+	    }
+	    if (i >= 5 && i < 299) {
+		bit ^= 1;
+	    }
+	    cmp1.set(i, bit);
+	}
+	assertEquals(cmp1, list1);
+	assertEquals(cmp2, list2);
+	assertEquals(300, list1.size());
+	try {
+	    list1.and(list2, 0, 251);
+	    fail("Exception expected");
+	} catch (IndexOutOfBoundsException e) {
+	    assertEquals("Range [0, 251) not within size 250. ",
+			 e.getMessage());
+	}
+	list2.xor(list2, 0, 250);
+	assertEquals(0, list2.cardinality());
+	list2.not(100, 150);
+	for (int i = 0; i < 250; i++) {
+	    cmp2.set(i, i >= 100 && i < 150 ? 1 : 0);
+	}
+	assertEquals(cmp2, list2);
+
+	// appendAll 
+	list1.appendAll(list2);
+	cmp1.addAll(cmp2);
+	list1.appendAll(list1);
+	cmp1.addAll(new ArrayList<Integer>(cmp1));
+	assertEquals(cmp1, list1);
+	assertEquals(cmp1.hashCode(), list1.hashCode());
+    } // testBulk() 
+
     /* -------------------------------------------------------------------- *
      * framework.                                                           *
      * -------------------------------------------------------------------- */
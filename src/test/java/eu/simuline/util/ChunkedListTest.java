@@ -0,0 +1,156 @@
+
+package eu.simuline.util;
+
+import eu.simuline.testhelpers.Actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+import java.util.function.Supplier;
+
+@RunWith(Suite.class)
+@SuiteClasses({ChunkedListTest.TestAll.class})
+public class ChunkedListTest {
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    static final ChunkedListTest TEST = new ChunkedListTest();
+
+    public static class TestAll {
+	@Test public void testAddRemove() {
+	    ChunkedListTest.TEST.testAddRemove();
+	}
+	@Test public void testListSet() {
+	    ChunkedListTest.TEST.testListSet();
+	}
+    } // class TestAll
+
+    /* -------------------------------------------------------------------- *
+     * methods for tests.                                                   *
+     * -------------------------------------------------------------------- */
+
+    public void testAddRemove() {
+	Random rand = new Random(3);
+	List<Integer> cmp = new ArrayList<Integer>();
+	List<Integer> list = new ChunkedList<Integer>();
+	int idx;
+
+	// random insertions, growing several levels 
+	for (int i = 0; i < 100000; i++) {
+	    idx = rand.nextInt(cmp.size() + 1);
+	    cmp .add(idx, i);
+	    list.add(idx, i);
+	}
+	assertEquals(cmp, list);
+
+	// positional access 
+	for (int i = 0; i < 1000; i++) {
+	    idx = rand.nextInt(cmp.size());
+	    assertEquals(cmp.get(idx), list.get(idx));
+	    assertEquals(cmp.set(idx, -i), list.set(idx, -i));
+	}
+	try {
+	    list.get(cmp.size());
+	    fail("Exception expected");
+	} catch (IndexOutOfBoundsException e) {
+	    assertEquals("Index 100000 not within size 100000. ",
+			 e.getMessage());
+	}
+
+	// random removals and insertions, shrinking nodes 
+	for (int i = 0; i < 90000; i++) {
+	    idx = rand.nextInt(cmp.size());
+	    assertEquals(cmp.remove(idx), list.remove(idx));
+	    if (i % 3 == 0) {
+		idx = rand.nextInt(cmp.size() + 1);
+		cmp .add(idx, null);
+		list.add(idx, null);
+	    }
+	}
+	assertEquals(cmp, list);
+
+	// views 
+	list.subList(100, 20000).clear();
+	cmp .subList(100, 20000).clear();
+	assertEquals(cmp, list);
+	while (!cmp.isEmpty()) {
+	    assertEquals(cmp.remove(0), list.remove(0));
+	}
+	assertTrue(list.isEmpty());
+	list.add(0, 1);
+	list.clear();
+	assertEquals(0, list.size());
+    } // testAddRemove 
+
+    public void testListSet() {
+	Supplier<List<Integer>> factory = new Supplier<List<Integer>>() {
+	    public List<Integer> get() {
+		return new ChunkedList<Integer>();
+	    }
+	};
+	ListSet<Integer> listSet = 
+	    new ListSet<Integer>((Comparator<Integer>) null, factory);
+	assertTrue(listSet.getList() instanceof ChunkedList);
+
+	// random order insertions into a large set 
+	Random rand = new Random(4);
+	TreeSet<Integer> cmp = new TreeSet<Integer>();
+	int num = 200000;
+	int elem;
+	for (int i = 0; i < num; i++) {
+	    elem = rand.nextInt(num);
+	    assertEquals(cmp.add(elem), listSet.add(elem));
+	}
+	assertEquals(new ArrayList<Integer>(cmp), listSet.getList());
+
+	// random order removals and views 
+	for (int i = 0; i < num / 2; i++) {
+	    elem = rand.nextInt(num);
+	    assertEquals(cmp.remove(elem), listSet.remove(elem));
+	}
+	assertEquals(new ArrayList<Integer>(cmp), listSet.getList());
+	assertEquals(cmp.headSet(num / 3).size(), 
+		     listSet.headSet(num / 3).size());
+	assertEquals(cmp.tailSet(num / 3).first(), 
+		     listSet.tailSet(num / 3).first());
+
+	// the factory must create an empty list 
+	factory = new Supplier<List<Integer>>() {
+	    public List<Integer> get() {
+		List<Integer> res = new ChunkedList<Integer>();
+		res.add(2);
+		res.add(1);
+		return res;
+	    }
+	};
+	try {
+	    new ListSet<Integer>((Comparator<Integer>) null, factory);
+	    fail("Exception expected");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Expected an empty list but found 2 elements. ",
+			 e.getMessage());
+	}
+    } // testListSet 
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    public static void main(String[] args) {
+	Actions.runFromMain();
+    }
+}
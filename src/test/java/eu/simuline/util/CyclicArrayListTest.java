@@ -21,7 +21,11 @@ import org.junit.runners.Suite.SuiteClasses;
 
 
 import java.util.List;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.function.Consumer;
 
 
 @RunWith(Suite.class)
@@ -67,6 +71,18 @@ public class CyclicArrayListTest {
 	@Test public void testGetInverse() {
 	    CyclicArrayListTest.TEST.testGetInverse();	    
 	}
+	@Test public void testCycle() {
+	    CyclicArrayListTest.TEST.testCycle();
+	}
+	@Test public void testHashCodeCyclic() {
+	    CyclicArrayListTest.TEST.testHashCodeCyclic();
+	}
+	@Test public void testForEachFrom() {
+	    CyclicArrayListTest.TEST.testForEachFrom();
+	}
+	@Test public void testAddAllIterator() {
+	    CyclicArrayListTest.TEST.testAddAllIterator();
+	}
     } // class TestAll
 
 
@@ -1320,6 +1336,190 @@ public class CyclicArrayListTest {
 
     } // testGetInverse 
 
+    public void testCycle() {
+	CyclicArrayList<Integer> cal1, cal2, cal3;
+	List<Integer> ref;
+
+	cal1 = new CyclicArrayList<Integer>();
+	for (int i = 0; i < 5; i++) {
+	    cal1.add(i);
+	}
+	// views share storage but modifications are not visible 
+	cal2 = cal1.cycle(2);
+	cal3 = cal2.getInverse();
+	assertEquals(Arrays.asList(2, 3, 4, 0, 1), cal2.asList());
+	assertEquals(Arrays.asList(1, 0, 4, 3, 2), cal3.asList());
+	assertEquals(Arrays.asList(4, 3, 2, 1, 0), cal3.asList(2));
+	assertEquals(Arrays.asList(2, 3, 4, 0, 1), cal3.getInverse().asList());
+	cal2.set(0, 7);
+	assertEquals(2, cal1.get(2).intValue());
+	assertEquals(2, cal3.get(-1).intValue());
+	cal3.add(0, 8);
+	assertEquals(Arrays.asList(8, 1, 0, 4, 3, 2), cal3.asList());
+	assertEquals(Arrays.asList(7, 3, 4, 0, 1), cal2.asList());
+	assertEquals(Arrays.asList(0, 1, 2, 3, 4), cal1.asList());
+	cal3 = cal1.getInverse();
+	cal1.clear();
+	assertEquals(5, cal3.size());
+	assertEquals(cal3, cal3.materialize());
+	assertEquals(Arrays.asList(4, 3, 2, 1, 0), cal3.asList());
+
+	// asList is a view 
+	ref = cal3.asList(1);
+	cal3.remove(0);
+	assertEquals(Arrays.asList(2, 1, 0, 3), ref);
+	try {
+	    ref.set(0, 5);
+	    fail("Exception expected. ");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+
+	// ring buffer against a list 
+	cal1 = new CyclicArrayList<Integer>();
+	ref = new ArrayList<Integer>();
+	for (int i = 0; i < 1000; i++) {
+	    int idx = (i * 7) % (ref.size() + 1);
+	    cal1.add(idx, i);
+	    ref.add(idx, i);
+	    if (i % 3 == 0) {
+		idx = (i * 5) % ref.size();
+		assertEquals(ref.remove(idx), cal1.remove(idx));
+	    }
+	    if (i % 10 == 0) {
+		cal1 = cal1.cycle(i).getInverse().getInverse().cycle(-i);
+	    }
+	    if (i % 100 == 0) {
+		// insertion wrapping around the end 
+		cal1.addAll(ref.size() + 2, Arrays.asList(-1, -2, -3));
+		ref.addAll(0, Arrays.asList(-2, -3));
+		ref.add(-1);
+		assertEquals(Arrays.asList(-1, -2, -3), 
+			     cal1.asList(-1).subList(0, 3));
+		// insertion in the middle 
+		idx = i % ref.size();
+		cal1.addAll(idx, Arrays.asList(-4, -5));
+		ref.addAll(idx, Arrays.asList(-4, -5));
+	    }
+	}
+	assertEquals(ref, cal1.asList());
+	assertEquals(new CyclicArrayList<Integer>(ref), cal1);
+	Assert.assertArraysEquals(ref.toArray(), cal1.toArray());
+    } // testCycle 
+
+    public void testHashCodeCyclic() {
+	CyclicArrayList<Integer> cal1, cal2;
+
+	// periodic lists require backtracking 
+	cal1 = new CyclicArrayList<Integer>(new Integer[] {
+		0, 0, 1, 0, 0, 1, 0, 0, 2});
+	for (int i = 0; i < cal1.size(); i++) {
+	    cal2 = new CyclicArrayList<Integer>(cal1.asList(i));
+	    assertTrue(cal1.equalsCyclic(cal2));
+	    assertTrue(cal2.equalsCyclic(cal1));
+	    assertTrue(cal1.getInverse().equalsCyclic(cal2.getInverse()));
+	    assertEquals(cal1.hashCodeCyclic(), cal2.hashCodeCyclic());
+	    cal2.set(i, 3);
+	    assertTrue(!cal1.equalsCyclic(cal2));
+	}
+	cal1 = new CyclicArrayList<Integer>(new Integer[] {0, 0, 0, 1});
+	cal2 = new CyclicArrayList<Integer>(new Integer[] {0, 0, 1, 1});
+	assertTrue(!cal1.equalsCyclic(cal2));
+	cal1 = new CyclicArrayList<Integer>(new Integer[] {null, 1, null});
+	cal2 = new CyclicArrayList<Integer>(new Integer[] {1, null, null});
+	assertTrue(cal1.equalsCyclic(cal2));
+	assertEquals(cal1.hashCodeCyclic(), cal2.hashCodeCyclic());
+	assertTrue(new CyclicArrayList<Integer>()
+		   .equalsCyclic(new CyclicArrayList<Integer>()));
+
+	// permutations which are no rotations 
+	// shall have different hash codes in general 
+	Set<Integer> hashCodes = new HashSet<Integer>();
+	int numPerms = 0;
+	Integer[] perm = new Integer[] {0, 1, 2, 3, 4, 5};
+	for (int i = 1; i < perm.length; i++) {
+	    for (int j = i + 1; j < perm.length; j++) {
+		Integer[] swapped = perm.clone();
+		swapped[i] = perm[j];
+		swapped[j] = perm[i];
+		hashCodes.add(new CyclicArrayList<Integer>(swapped)
+			      .hashCodeCyclic());
+		numPerms++;
+	    }
+	}
+	assertEquals(numPerms, hashCodes.size());
+    } // testHashCodeCyclic 
+
+    public void testForEachFrom() {
+	CyclicArrayList<Integer> cal;
+	final List<Integer> visited = new ArrayList<Integer>();
+	Consumer<Integer> collect = new Consumer<Integer>() {
+		public void accept(Integer elem) {
+		    visited.add(elem);
+		}
+	    };
+
+	cal = new CyclicArrayList<Integer>();
+	cal.forEachFrom(3, collect);
+	assertTrue(visited.isEmpty());
+	for (int i = 0; i < 5; i++) {
+	    cal.add(i);
+	}
+	cal.forEachFrom(-2, collect);
+	assertEquals(Arrays.asList(3, 4, 0, 1, 2), visited);
+	visited.clear();
+	cal.cycle(1).getInverse().forEachFrom(7, collect);
+	assertEquals(Arrays.asList(3, 2, 1, 0, 4), visited);
+    } // testForEachFrom 
+
+    public void testAddAllIterator() {
+	CyclicArrayList<Integer> cal;
+	List<Integer> ref;
+
+	cal = new CyclicArrayList<Integer>(new Integer[] {0, 1, 2, 3});
+	cal.addAll(2, Arrays.asList(5, 6, 7).iterator());
+	assertEquals(Arrays.asList(0, 1, 5, 6, 7, 2, 3), cal.asList());
+	// insert at the end 
+	cal.addAll(-1, Arrays.asList(8, 9).iterator());
+	assertEquals(Arrays.asList(0, 1, 5, 6, 7, 2, 3, 8, 9), cal.asList());
+	cal.addAll(3, new ArrayList<Integer>().iterator());
+	assertEquals(9, cal.size());
+
+	// iterating over this list itself 
+	cal = new CyclicArrayList<Integer>(new Integer[] {0, 1, 2});
+	cal.addAll(1, cal.cyclicIterator(2));
+	assertEquals(Arrays.asList(0, 2, 0, 1, 1, 2), cal.asList());
+	cal.replace(-1, cal.cyclicIterator(0));
+	assertEquals(Arrays.asList(0, 2, 0, 1, 1, 0, 2, 0, 1, 1, 2), 
+		     cal.asList());
+	cal.replace(0, Arrays.asList(7, 8));
+	assertEquals(Arrays.asList(7, 8, 2, 0, 1, 1, 0, 2, 0, 1, 1, 2), 
+		     cal.asList());
+	try {
+	    cal.replace(0, new ArrayList<Integer>().iterator());
+	    fail("Exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    // ok 
+	}
+
+	// insertion of many elements into a long list 
+	cal = new CyclicArrayList<Integer>();
+	ref = new ArrayList<Integer>();
+	for (int i = 0; i < 1000; i++) {
+	    cal.add(i);
+	    ref.add(i);
+	}
+	for (int i = 0; i < 10; i++) {
+	    List<Integer> added = new ArrayList<Integer>();
+	    for (int j = 0; j < 100; j++) {
+		added.add(-i * 100 - j);
+	    }
+	    cal.addAll(i * 97, added.iterator());
+	    ref.addAll(i * 97, added);
+	}
+	assertEquals(ref, cal.asList());
+    } // testAddAllIterator 
+
     /* -------------------------------------------------------------------- *
      * framework.                                                           *
      * -------------------------------------------------------------------- */
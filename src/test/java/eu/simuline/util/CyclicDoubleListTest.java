@@ -0,0 +1,217 @@
+
+package eu.simuline.util;
+
+import eu.simuline.testhelpers.Actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.DoubleConsumer;
+
+@RunWith(Suite.class)
+@SuiteClasses({CyclicDoubleListTest.TestAll.class})
+public class CyclicDoubleListTest {
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    static final CyclicDoubleListTest TEST = new CyclicDoubleListTest();
+
+    public static class TestAll {
+	@Test public void testGetSet() {
+	    CyclicDoubleListTest.TEST.testGetSet();
+	}
+	@Test public void testAddRemove() {
+	    CyclicDoubleListTest.TEST.testAddRemove();
+	}
+	@Test public void testForEachFrom() {
+	    CyclicDoubleListTest.TEST.testForEachFrom();
+	}
+	@Test public void testEquals() {
+	    CyclicDoubleListTest.TEST.testEquals();
+	}
+    } // class TestAll
+
+    /* -------------------------------------------------------------------- *
+     * methods for tests.                                                   *
+     * -------------------------------------------------------------------- */
+
+    // asserts that cdl has the elements of cmp in the same order 
+    static void assertElems(List<Double> cmp, CyclicDoubleList cdl) {
+	assertEquals(cmp.size(), cdl.size());
+	assertEquals(cmp.isEmpty(), cdl.isEmpty());
+	double[] elems = cdl.toArray(0);
+	for (int i = 0; i < cmp.size(); i++) {
+	    assertEquals(cmp.get(i), elems[i], 0.0);
+	}
+    }
+
+    public void testGetSet() {
+	CyclicDoubleList cdl = new CyclicDoubleList();
+	List<Double> cmp = new ArrayList<Double>();
+	for (int i = 0; i < 7; i++) {
+	    cmp.add(0.5 * i);
+	    cdl.add(0.5 * i);
+	}
+
+	// negative and wrapping indices 
+	for (int idx = -30; idx < 30; idx++) {
+	    assertEquals(cmp.get(Math.floorMod(idx, 7)), cdl.get(idx), 0.0);
+	    assertEquals(Math.floorMod(idx, 7), cdl.shiftIndex(idx));
+	}
+	assertEquals(3.0, cdl.get(-1), 0.0);
+	assertEquals(0.0, cdl.get(7), 0.0);
+	assertEquals(0.5 * Math.floorMod(Integer.MAX_VALUE, 7),
+		     cdl.get(Integer.MAX_VALUE), 0.0);
+	assertEquals(0.5 * Math.floorMod(Integer.MIN_VALUE, 7),
+		     cdl.get(Integer.MIN_VALUE), 0.0);
+
+	for (int idx = -30; idx < 30; idx += 3) {
+	    assertEquals(cmp.set(Math.floorMod(idx, 7), idx + 0.25),
+			 cdl.set(idx, idx + 0.25), 0.0);
+	}
+	assertElems(cmp, cdl);
+	assertEquals(cmp.get(6), cdl.set(-1, 4.5), 0.0);
+	assertEquals(4.5, cdl.get(6), 0.0);
+
+	// an empty list has no valid index 
+	cdl = new CyclicDoubleList();
+	try {
+	    cdl.get(0);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+	try {
+	    cdl.set(-1, 3.0);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+    } // testGetSet 
+
+    public void testAddRemove() {
+	Random rand = new Random(4);
+	CyclicDoubleList cdl = new CyclicDoubleList();
+	List<Double> cmp = new ArrayList<Double>();
+	int idx;
+	double val;
+
+	// add interprets the index modulo the size plus one 
+	cdl.add(5, 1.0);
+	cdl.add(2.0);
+	cdl.add(-1, 3.0);
+	cdl.add(0, 0.0);
+	cdl.add(5, 4.0);
+	assertArrayEquals(new double[] {4.0, 0.0, 1.0, 2.0, 3.0},
+			  cdl.toArray(0), 0.0);
+
+	// remove interprets the index modulo the size 
+	assertEquals(3.0, cdl.remove(-1), 0.0);
+	assertEquals(4.0, cdl.remove(4), 0.0);
+	assertEquals(2.0, cdl.remove(-4), 0.0);
+	assertArrayEquals(new double[] {0.0, 1.0}, cdl.toArray(0), 0.0);
+	cdl.clear();
+	assertTrue(cdl.isEmpty());
+	try {
+	    cdl.remove(0);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+
+	// random insertions and removals growing the array 
+	for (int i = 0; i < 3000; i++) {
+	    idx = rand.nextInt(6 * cmp.size() + 2) - 3 * cmp.size() - 1;
+	    val = rand.nextDouble();
+	    switch (rand.nextInt(4)) {
+	    case 0:
+		cmp.add(val);
+		cdl.add(val);
+		break;
+	    case 1:
+		cmp.add(Math.floorMod(idx, cmp.size() + 1), val);
+		cdl.add(idx, val);
+		break;
+	    case 2:
+		if (!cmp.isEmpty()) {
+		    assertEquals(cmp.remove(Math.floorMod(idx, cmp.size())),
+				 cdl.remove(idx), 0.0);
+		}
+		break;
+	    default:
+		cmp.add(0, val);
+		cdl.add(0, val);
+		break;
+	    }
+	    assertElems(cmp, cdl);
+	}
+    } // testAddRemove 
+
+    public void testForEachFrom() {
+	CyclicDoubleList cdl = new CyclicDoubleList();
+	for (int i = 0; i < 20; i++) {
+	    cdl.add(0.5 * i);
+	}
+	assertEquals(20, cdl.size());
+	assertEquals(4.5, cdl.get(9), 0.0);
+	assertEquals(9.5, cdl.get(-1), 0.0);
+	final List<Double> visited = new ArrayList<Double>();
+	DoubleConsumer collect = new DoubleConsumer() {
+		public void accept(double elem) {
+		    visited.add(elem);
+		}
+	    };
+	cdl.forEachFrom(-5, collect);
+	assertEquals(20, visited.size());
+	for (int i = 0; i < 20; i++) {
+	    assertEquals(0.5 * ((i + 15) % 20), visited.get(i), 0.0);
+	}
+	assertArrayEquals(cdl.toArray(15),
+			  new CyclicDoubleList(cdl.toArray(-5)).toArray(0),
+			  0.0);
+
+	// nothing is performed for an empty list 
+	cdl.clear();
+	visited.clear();
+	cdl.forEachFrom(3, collect);
+	assertTrue(visited.isEmpty());
+	assertEquals(0, cdl.toArray(3).length);
+    } // testForEachFrom 
+
+    public void testEquals() {
+	CyclicDoubleList cdl = new CyclicDoubleList();
+	for (int i = 0; i < 20; i++) {
+	    cdl.add(0.5 * i);
+	}
+	assertEquals(new CyclicDoubleList(cdl.toArray(0)), cdl);
+	assertEquals(new CyclicDoubleList(cdl.toArray(0)).hashCode(),
+		     cdl.hashCode());
+	assertTrue(!new CyclicDoubleList(cdl.toArray(1)).equals(cdl));
+
+	// elements are compared like Doubles 
+	assertTrue(!new CyclicDoubleList(0.0)
+		   .equals(new CyclicDoubleList(-0.0)));
+	assertEquals(new CyclicDoubleList(Double.NaN),
+		     new CyclicDoubleList(Double.NaN));
+    } // testEquals 
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    public static void main(String[] args) {
+	Actions.runFromMain();
+    }
+}
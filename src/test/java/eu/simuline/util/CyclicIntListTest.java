@@ -0,0 +1,197 @@
+
+package eu.simuline.util;
+
+import eu.simuline.testhelpers.Actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+@RunWith(Suite.class)
+@SuiteClasses({CyclicIntListTest.TestAll.class})
+public class CyclicIntListTest {
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    static final CyclicIntListTest TEST = new CyclicIntListTest();
+
+    public static class TestAll {
+	@Test public void testGetSet() {
+	    CyclicIntListTest.TEST.testGetSet();
+	}
+	@Test public void testAddRemove() {
+	    CyclicIntListTest.TEST.testAddRemove();
+	}
+	@Test public void testForEachFrom() {
+	    CyclicIntListTest.TEST.testForEachFrom();
+	}
+    } // class TestAll
+
+    /* -------------------------------------------------------------------- *
+     * methods for tests.                                                   *
+     * -------------------------------------------------------------------- */
+
+    // asserts that cil has the elements of cmp in the same order 
+    static void assertElems(List<Integer> cmp, CyclicIntList cil) {
+	assertEquals(cmp.size(), cil.size());
+	assertEquals(cmp.isEmpty(), cil.isEmpty());
+	int[] elems = cil.toArray(0);
+	for (int i = 0; i < cmp.size(); i++) {
+	    assertEquals(cmp.get(i).intValue(), elems[i]);
+	}
+    }
+
+    public void testGetSet() {
+	CyclicIntList cil = new CyclicIntList(0, 1, 2, 3, 4, 5, 6);
+	List<Integer> cmp = new ArrayList<Integer>();
+	for (int i = 0; i < 7; i++) {
+	    cmp.add(i);
+	}
+
+	// negative and wrapping indices 
+	for (int idx = -30; idx < 30; idx++) {
+	    assertEquals(cmp.get(Math.floorMod(idx, 7)).intValue(),
+			 cil.get(idx));
+	    assertEquals(Math.floorMod(idx, 7), cil.shiftIndex(idx));
+	}
+	assertEquals(6, cil.get(-1));
+	assertEquals(0, cil.get(7));
+	assertEquals(Math.floorMod(Integer.MAX_VALUE, 7),
+		     cil.get(Integer.MAX_VALUE));
+	assertEquals(Math.floorMod(Integer.MIN_VALUE, 7),
+		     cil.get(Integer.MIN_VALUE));
+
+	for (int idx = -30; idx < 30; idx += 3) {
+	    assertEquals(cmp.set(Math.floorMod(idx, 7), 100 + idx).intValue(),
+			 cil.set(idx, 100 + idx));
+	}
+	assertElems(cmp, cil);
+	assertEquals(cmp.get(6).intValue(), cil.set(-1, 42));
+	assertEquals(42, cil.get(6));
+
+	// an empty list has no valid index 
+	cil = new CyclicIntList();
+	try {
+	    cil.get(0);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+	try {
+	    cil.set(-1, 3);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+    } // testGetSet 
+
+    public void testAddRemove() {
+	Random rand = new Random(3);
+	CyclicIntList cil = new CyclicIntList();
+	List<Integer> cmp = new ArrayList<Integer>();
+	int idx;
+
+	// add interprets the index modulo the size plus one 
+	cil.add(5, 1);
+	cil.add(2);
+	cil.add(-1, 3);
+	cil.add(0, 0);
+	cil.add(5, 4);
+	assertArrayEquals(new int[] {4, 0, 1, 2, 3}, cil.toArray(0));
+	assertEquals(new CyclicIntList(4, 0, 1, 2, 3), cil);
+
+	// remove interprets the index modulo the size 
+	assertEquals(3, cil.remove(-1));
+	assertEquals(4, cil.remove(4));
+	assertEquals(2, cil.remove(-4));
+	assertArrayEquals(new int[] {0, 1}, cil.toArray(0));
+	cil.clear();
+	assertTrue(cil.isEmpty());
+	try {
+	    cil.remove(0);
+	    fail("Exception expected. ");
+	} catch (EmptyCyclicListException e) {
+	    // ok 
+	}
+
+	// random insertions and removals growing the array 
+	for (int i = 0; i < 3000; i++) {
+	    idx = rand.nextInt(6 * cmp.size() + 2) - 3 * cmp.size() - 1;
+	    switch (rand.nextInt(4)) {
+	    case 0:
+		cmp.add(i);
+		cil.add(i);
+		break;
+	    case 1:
+		cmp.add(Math.floorMod(idx, cmp.size() + 1), i);
+		cil.add(idx, i);
+		break;
+	    case 2:
+		if (!cmp.isEmpty()) {
+		    assertEquals(cmp.remove(Math.floorMod(idx, cmp.size()))
+				 .intValue(),
+				 cil.remove(idx));
+		}
+		break;
+	    default:
+		cmp.add(0, i);
+		cil.add(0, i);
+		break;
+	    }
+	    assertElems(cmp, cil);
+	}
+    } // testAddRemove 
+
+    public void testForEachFrom() {
+	CyclicIntList cil = new CyclicIntList(0, 1, 2);
+	cil.add(3);
+	cil.add(-1, 4);
+	cil.add(0, 5);
+	assertEquals(new CyclicIntList(5, 0, 1, 2, 3, 4), cil);
+	assertEquals(new CyclicIntList(5, 0, 1, 2, 3, 4).hashCode(),
+		     cil.hashCode());
+	assertEquals(0, cil.remove(7));
+	assertEquals(1, cil.set(1, 6));
+	assertArrayEquals(new int[] {2, 3, 4, 5, 6}, cil.toArray(2));
+	assertArrayEquals(new int[] {6, 2, 3, 4, 5}, cil.toArray(-4));
+	final int[] sum = new int[1];
+	IntConsumer shift = new IntConsumer() {
+		public void accept(int elem) {
+		    sum[0] = 10 * sum[0] + elem;
+		}
+	    };
+	cil.forEachFrom(3, shift);
+	assertEquals(34562, sum[0]);
+	sum[0] = 0;
+	cil.forEachFrom(-1, shift);
+	assertEquals(45623, sum[0]);
+
+	// nothing is performed for an empty list 
+	cil.clear();
+	sum[0] = 0;
+	cil.forEachFrom(-1, shift);
+	assertEquals(0, sum[0]);
+	assertEquals(0, cil.toArray(3).length);
+    } // testForEachFrom 
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    public static void main(String[] args) {
+	Actions.runFromMain();
+    }
+}
@@ -8,7 +8,7 @@ import eu.simuline.testhelpers.Assert;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
-//import static org.junit.Assert.fail;
+import static org.junit.Assert.fail;
 
 
 import org.junit.Ignore;
@@ -57,6 +57,14 @@ public class ListMapTest {
 	    ListMapTest.TEST.testGetPutRemove();	    
 	}
 
+	@Test public void testSubMap() {
+	    ListMapTest.TEST.testSubMap();	
+	}
+
+	@Test public void testFreeze() {
+	    ListMapTest.TEST.testFreeze();
+	}
+
     } // class TestAll
 
 
@@ -151,6 +159,100 @@ public class ListMapTest {
 	assertEquals(0, this.listMap.size());
     } // testGetPutRemove 
 
+    public void testSubMap() {
+	int num = 100000;
+	this.listMap = new ListMap<Integer,Integer>();
+	for (int i = num - 1; i >= 0; i--) {
+	    assertNull(this.listMap.put(i, -i));
+	}
+	for (int i = 0; i < num; i++) {
+	    assertEquals(-i, this.listMap.get(i).intValue());
+	}
+	assertEquals(num, this.listMap.size());
+
+	// views: keys are in descending ordering as added 
+	ListMap<Integer,Integer> head = this.listMap.headMap(num - 10);
+	ListMap<Integer,Integer> tail = this.listMap.tailMap(9);
+	assertEquals(9, head.size());
+	assertEquals(10, tail.size());
+	assertEquals(-num + 1, head.get(num - 1).intValue());
+	assertNull(head.get(num - 10));
+	assertNull(head.get(0));
+	assertTrue( tail.containsKey(0));
+	assertTrue(!tail.containsKey(10));
+
+	// nested views stay valid when modified through a subview 
+	ListMap<Integer,Integer> sub = head.tailMap(num - 5);
+	assertEquals(5, sub.size());
+	assertEquals(-num + 7, sub.remove(num - 7).intValue());
+	assertNull(sub.remove(num - 2));
+	assertEquals(4, sub.size());
+	assertEquals(8, head.size());
+	assertNull(sub.put(-1, 1));
+	assertEquals(5, sub.size());
+	assertEquals(9, head.size());
+	assertEquals(1, head.get(-1).intValue());
+	Assert.assertArraysEquals(new Object[] {
+		num - 5, num - 6, num - 8, num - 9, -1},
+	    sub.keySet().toArray());
+	assertEquals(num, this.listMap.size());
+	assertEquals(1, this.listMap.get(-1).intValue());
+	assertTrue(!this.listMap.containsKey(num - 7));
+	assertEquals(num - 1, this.listMap.firstKey().intValue());
+
+	// removal through the whole map shifts the positions 
+	assertEquals(0, this.listMap.remove(0).intValue());
+	assertEquals(-1, this.listMap.remove(1).intValue());
+	assertEquals(num - 2, this.listMap.size());
+	assertEquals(2, this.listMap.lastKey().intValue());
+	assertEquals(-2, this.listMap.get(2).intValue());
+    } // testSubMap 
+
+    public void testFreeze() {
+	this.listMap = new ListMap<Integer,Integer>();
+	for (int i = 0; i < 1000; i++) {
+	    this.listMap.put(999 - i, i);
+	}
+	this.listMap2 = this.listMap.freeze();
+	this.listMap.clear();
+	assertEquals(1000, this.listMap2.size());
+	for (int i = 0; i < 1000; i++) {
+	    assertEquals(999 - i, this.listMap2.get(i).intValue());
+	}
+	assertNull(this.listMap2.get(1000));
+	assertTrue( this.listMap2.containsKey(0));
+	assertTrue(!this.listMap2.containsKey(-1));
+	assertTrue( this.listMap2.containsValue(0));
+	assertEquals(999, this.listMap2.firstKey().intValue());
+	assertEquals(10, this.listMap2.tailMap(9).size());
+	assertEquals(990, this.listMap2.tailMap(9).get(9).intValue());
+
+	try {
+	    this.listMap2.put(0, 0);
+	    fail("Exception expected");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+	try {
+	    this.listMap2.put(-1, 0);
+	    fail("Exception expected");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+	try {
+	    this.listMap2.remove(0);
+	    fail("Exception expected");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+	try {
+	    this.listMap2.keySet().iterator().remove();
+	    fail("Exception expected");
+	} catch (IllegalStateException e) {
+	    // ok 
+	}
+    } // testFreeze 
+
 
     public void testKeySet() {
 	Set<Integer> keys;
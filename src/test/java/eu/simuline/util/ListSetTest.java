@@ -9,7 +9,7 @@ import eu.simuline.testhelpers.Assert;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
-//import static org.junit.Assert.fail;
+import static org.junit.Assert.fail;
 
 
 import org.junit.Test;
@@ -18,6 +18,9 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
 import static java.util.Arrays.asList;
 
 
@@ -49,6 +52,15 @@ public class ListSetTest {
 	@Test public void testSubSet() {
 	    ListSetTest.TEST.testSubSet();
 	}
+	@Test public void testSortedAsAdded() {
+	    ListSetTest.TEST.testSortedAsAdded();
+	}
+	@Test public void testMerge() {
+	    ListSetTest.TEST.testMerge();
+	}
+	@Test public void testFreeze() {
+	    ListSetTest.TEST.testFreeze();
+	}
     } // class TestAll
 
 
@@ -221,6 +233,192 @@ public class ListSetTest {
 
     } // testSubSet 
 
+    public void testSortedAsAdded() {
+	ListSet<Integer> listSet = ListSet.sortedAsAdded();
+	List<Integer> list = listSet.getList();
+
+	// large set built in linear time 
+	int num = 100000;
+	for (int i = 0; i < num; i++) {
+	    assertTrue(listSet.add((i * 7919) % num));
+	}
+	assertTrue(!listSet.add(7919));
+	assertEquals(num, listSet.size());
+	for (int i = 0; i < num; i++) {
+	    assertTrue(listSet.contains(i));
+	    assertEquals(i, list.indexOf((i * 7919) % num));
+	}
+	assertTrue(!listSet.contains(num));
+	assertEquals(-1, list.indexOf(num));
+
+	// comparator and views reflect the ordering as added 
+	assertEquals(0, listSet.first().intValue());
+	assertEquals(7919, list.get(1).intValue());
+	assertTrue(listSet.comparator().compare(7919, 0) > 0);
+	assertTrue(listSet.comparator().compare(num, 0) > 0);
+	Assert.assertArraysEquals(new Object[] {0, 7919},
+				  listSet.headSet(2 * 7919).toArray());
+	assertEquals(num - 1, listSet.tailSet(list.get(1)).size());
+	assertEquals(0, listSet.tailSet(num).size());
+
+	// removal updates the positions 
+	assertTrue(listSet.remove(7919));
+	assertTrue(!listSet.remove(7919));
+	assertEquals(1, list.indexOf(2 * 7919));
+	listSet.headSet(2 * 7919).clear();
+	assertEquals(0, list.indexOf(2 * 7919));
+	assertEquals(num - 2, listSet.size());
+
+	// the backing list rejects duplicates 
+	try {
+	    list.add(0, 2 * 7919);
+	    fail("Exception expected");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Element 15838 is already contained. ",
+			 e.getMessage());
+	}
+	list.set(0, 2 * 7919);
+	list.set(0, -1);
+	assertEquals(0, list.indexOf(-1));
+	assertTrue(!listSet.contains(2 * 7919));
+
+	listSet.clear();
+	assertTrue(listSet.isEmpty());
+	assertTrue(listSet.add(null));
+	assertTrue(listSet.contains(null));
+	assertTrue(!listSet.add(null));
+    } // testSortedAsAdded 
+
+    public void testMerge() {
+	ListSet<Integer> listSet1, listSet2;
+
+	// contains and remove by binary search 
+	listSet1 = new ListSet<Integer>(asList(new Integer[] {
+		    5, 3, 1, 7}));
+	assertTrue( listSet1.contains(3));
+	assertTrue(!listSet1.contains(4));
+	assertTrue(!listSet1.contains(null));
+	assertTrue(!((Set<?>) listSet1).contains(""));
+	assertTrue( listSet1.remove(3));
+	assertTrue(!listSet1.remove(3));
+	assertTrue(!listSet1.remove(null));
+	Assert.assertArraysEquals(new Object[] {1, 5, 7}, listSet1.toArray());
+
+	// large sets with natural ordering 
+	int num = 1000000;
+	List<Integer> list1 = new ArrayList<Integer>();
+	List<Integer> list2 = new ArrayList<Integer>();
+	for (int i = 0; i < num; i++) {
+	    list1.add(2 * i);
+	    list2.add(3 * i);
+	}
+	listSet1 = new ListSet<Integer>(list1);
+	listSet2 = new ListSet<Integer>(list2);
+	assertTrue(!listSet1.containsAll(listSet2));
+	assertTrue( listSet1.containsAll(listSet1.subSet(10, 100)));
+
+	// intersection 
+	assertTrue( listSet1.retainAll(listSet2));
+	assertEquals((num + 2) / 3, listSet1.size());
+	for (int i = 0; i < 1000; i++) {
+	    assertEquals(6 * i, listSet1.getList().get(i).intValue());
+	}
+	assertTrue(!listSet1.retainAll(listSet2));
+	assertTrue( listSet2.containsAll(listSet1));
+
+	// difference 
+	assertTrue( listSet2.removeAll(listSet1));
+	assertEquals(num - (num + 2) / 3, listSet2.size());
+	assertTrue(!listSet2.contains(6));
+	assertTrue( listSet2.contains(9));
+	assertTrue(!listSet2.removeAll(listSet1));
+	listSet1.addAll(listSet2);
+	// now all multiples of 3 
+	assertTrue( listSet1.removeAll(new ListSet<Integer>(listSet1
+							    .subSet(0, 100))));
+	assertEquals(102, listSet1.first().intValue());
+
+	// with a comparator differing from the one of the argument 
+	Comparator<Integer> cmp = new Comparator<Integer>() {
+	    public int compare(Integer o1,Integer o2) {
+		return -o1.compareTo(o2);
+	    }
+	};
+	listSet2 = new ListSet<Integer>(cmp);
+	listSet2.addAll(asList(new Integer[] {
+		    100, 102, 103, 0}));
+	assertTrue( listSet2.retainAll(listSet1));
+	Assert.assertArraysEquals(new Object[] {102}, listSet2.toArray());
+	assertTrue( listSet1.removeAll(listSet2));
+	assertTrue(!listSet1.contains(102));
+    } // testMerge 
+
+    public void testFreeze() {
+	ListSet<Integer> listSet, frozen;
+
+	// natural ordering 
+	listSet = new ListSet<Integer>(asList(new Integer[] {
+		    5, 3, 1, 7}));
+	frozen = listSet.freeze();
+	assertEquals(listSet, frozen);
+	Assert.assertArraysEquals(new Object[] {1, 3, 5, 7}, frozen.toArray());
+	assertTrue( frozen.contains(5));
+	assertTrue(!frozen.contains(4));
+	assertTrue(!((Set<?>) frozen).contains(""));
+	assertNull(frozen.comparator());
+	Assert.assertArraysEquals(new Object[] {3, 5},
+				  frozen.subSet(2, 6).toArray());
+	assertTrue(!frozen.add(5));
+	try {
+	    frozen.add(4);
+	    fail("Exception expected");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+	try {
+	    frozen.remove(5);
+	    fail("Exception expected");
+	} catch (UnsupportedOperationException e) {
+	    // ok 
+	}
+	// the original is independent 
+	listSet.add(4);
+	assertTrue(!frozen.contains(4));
+
+	// ordering as added 
+	listSet = ListSet.sortedAsAdded();
+	for (int i = 0; i < 10000; i++) {
+	    listSet.add((i * 37) % 10000);
+	}
+	listSet.add(null);
+	frozen = listSet.freeze();
+	listSet.clear();
+	assertEquals(10001, frozen.size());
+	for (int i = 0; i < 10000; i++) {
+	    assertTrue(frozen.contains(i));
+	    assertEquals(i, frozen.getList().indexOf((i * 37) % 10000));
+	}
+	assertTrue(frozen.contains(null));
+	assertTrue(frozen.comparator().compare(37, 0) > 0);
+	assertEquals(2, frozen.headSet(74).size());
+
+	// comparator inconsistent with equals 
+	ListSet<String> strSet =
+	    new ListSet<String>(String.CASE_INSENSITIVE_ORDER);
+	assertTrue( strSet.add("b"));
+	assertTrue( strSet.add("A"));
+	assertTrue(!strSet.add("a"));
+	assertTrue( strSet.contains("a"));
+	ListSet<String> strFrozen = strSet.freeze();
+	Assert.assertArraysEquals(new Object[] {"A", "b"},
+				  strFrozen.toArray());
+	assertTrue( strFrozen.contains("a"));
+	assertTrue( strFrozen.contains("B"));
+	assertTrue(!strFrozen.contains("c"));
+	assertTrue(!strFrozen.add("a"));
+	assertTrue( strFrozen.containsAll(asList(new String[] {"a", "B"})));
+    } // testFreeze 
+
     /* -------------------------------------------------------------------- *
      * framework.                                                           *
      * -------------------------------------------------------------------- */
@@ -17,7 +17,30 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import java.util.Map;
+import java.util.List;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.ArrayList;
+import java.util.Spliterator;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.StreamCorruptedException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @RunWith(Suite.class)
 @SuiteClasses({MultiSetTest.TestAll.class})
@@ -35,7 +58,13 @@ public class MultiSetTest {
 	MultiSetTest.TestBase.class,
 	MultiSetTest.TestQueries.class,
 	MultiSetTest.TestModifications.class,
-	MultiSetTest.TestIterator.class
+	MultiSetTest.TestIterator.class,
+	MultiSetTest.TestOpenHash.class,
+	MultiSetTest.TestTopK.class,
+	MultiSetTest.TestConcurrent.class,
+	MultiSetTest.TestAlgebra.class,
+	MultiSetTest.TestStream.class,
+	MultiSetTest.TestCodec.class
     })
     public static class TestAll {
     } // class TestAll 
@@ -100,6 +129,82 @@ public class MultiSetTest {
 
     } // class TestIterator 
 
+    public static class TestOpenHash {
+
+	@Test public void testOpenHashBasics() {
+	    MultiSetTest.TEST.testOpenHashBasics();	    
+	}
+
+	@Test public void testOpenHashIterator() {
+	    MultiSetTest.TEST.testOpenHashIterator();	    
+	}
+
+	@Test public void testOpenHashGrowth() {
+	    MultiSetTest.TEST.testOpenHashGrowth();	    
+	}
+
+	@Test public void testOpenHashMultIndex() {
+	    MultiSetTest.TEST.testOpenHashMultIndex();	    
+	}
+
+    } // class TestOpenHash 
+
+    public static class TestTopK {
+
+	@Test public void testTopK() {
+	    MultiSetTest.TEST.testTopK();	
+	}
+
+	@Test public void testSpaceSaving() {
+	    MultiSetTest.TEST.testSpaceSaving();	
+	}
+
+    } // class TestTopK 
+
+    public static class TestConcurrent {
+
+	@Test public void testConcurrentBasics() {
+	    MultiSetTest.TEST.testConcurrentBasics();	
+	}
+
+	@Test public void testConcurrentThreads() throws InterruptedException {
+	    MultiSetTest.TEST.testConcurrentThreads();	
+	}
+
+    } // class TestConcurrent 
+
+    public static class TestAlgebra {
+
+	@Test public void testAlgebra() {
+	    MultiSetTest.TEST.testAlgebra();	
+	}
+
+    } // class TestAlgebra 
+
+    public static class TestStream {
+
+	@Test public void testSpliterator() {
+	    MultiSetTest.TEST.testSpliterator();	
+	}
+
+	@Test public void testStreams() {
+	    MultiSetTest.TEST.testStreams();	
+	}
+
+    } // class TestStream 
+
+    public static class TestCodec {
+
+	@Test public void testCodecChannel() throws IOException {
+	    MultiSetTest.TEST.testCodecChannel();	
+	}
+
+	@Test public void testCodecFile() throws IOException {
+	    MultiSetTest.TEST.testCodecFile();	
+	}
+
+    } // class TestCodec 
+
     @Before public void setUp() {
 	testcase = 1;
 	repetition = 1;
@@ -861,6 +966,999 @@ public class MultiSetTest {
 
    } // testRemoveMultIter() 
 
+   void testOpenHashBasics() {
+	MultiSet<String> ms1;
+	MultiSet<String> cmp;
+
+	// testcase 1
+	//
+	// adding and removing 
+	//
+	ms1 = new OpenHashMultiSet<String>();
+	assertTrue(ms1.isEmpty());
+	assertNull(ms1.getObjWithMaxMult());
+	assertEquals(0, ms1.getMaxMult());
+	assertTrue( ms1.add("Element1"));
+	assertTrue(!ms1.add("Element1"));
+	assertEquals(5, ms1.addWithMult("Element1", 3));
+	assertEquals(2, ms1.addWithMult("Element2", 2));
+	assertEquals(0, ms1.addWithMult("Element3", 0));
+	assertEquals(2, ms1.size());
+	assertEquals(7, ms1.sizeWithMult());
+	assertEquals("Element1", ms1.getObjWithMaxMult());
+	assertEquals(5, ms1.getMaxMult());
+	assertEquals(5, ms1.removeWithMult("Element1", 2));
+	assertEquals(3, ms1.getMultiplicity("Element1"));
+	assertEquals(2, ms1.setMultiplicity("Element2", 0));
+	assertTrue(!ms1.contains("Element2"));
+	assertEquals(0, ms1.getMultiplicity("Element3"));
+	try {
+	    ms1.removeWithMult("Element1", 4);
+	    fail("IllegalArgumentException expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Resulting multiplicity " + 
+			 3 + " + " + (-4) + 
+			 " should be non-negative. ",
+			 e.getMessage());
+	}
+	try {
+	    ms1.add(null);
+	    fail("NullPointerException expected. ");
+	} catch (NullPointerException e) {
+	    // everything as expected. 
+	}
+
+	// testcase 2
+	//
+	// equality and hash code with other implementations 
+	//
+	ms1 = new OpenHashMultiSet<String>();
+	ms1.addWithMult("Element1", 3);
+	ms1.addWithMult("Element2", 2);
+	cmp = new TreeMultiSet<String>();
+	cmp.addWithMult("Element1", 3);
+	cmp.addWithMult("Element2", 2);
+	assertEquals(cmp, ms1);
+	assertEquals(ms1, cmp);
+	assertEquals(cmp.hashCode(), ms1.hashCode());
+	assertEquals(cmp, new HashMultiSet<String>(ms1));
+	assertEquals(ms1, new OpenHashMultiSet<String>(cmp));
+	cmp.add("Element2");
+	assertTrue(!cmp.equals(ms1));
+	assertTrue(!ms1.equals(cmp));
+
+	// testcase 3
+	//
+	// views write through 
+	//
+	ms1 = new OpenHashMultiSet<String>();
+	ms1.addWithMult("Element1", 3);
+	ms1.getMultiplicityObj("Element1").add(2);
+	assertEquals(5, ms1.getMultiplicity("Element1"));
+	ms1.getMap().remove("Element1");
+	assertTrue(ms1.isEmpty());
+
+	// testcase 4
+	//
+	// copies are independent 
+	//
+	ms1 = new OpenHashMultiSet<String>();
+	ms1.addWithMult("Element1", 3);
+	cmp = new HashMultiSet<String>(ms1);
+	cmp.add("Element1");
+	assertEquals(3, ms1.getMultiplicity("Element1"));
+	assertEquals(4, cmp.getMultiplicity("Element1"));
+   } // testOpenHashBasics() 
+
+   void testOpenHashIterator() {
+	MultiSet<String> ms1;
+	MultiSetIterator<String> iter;
+	String str;
+
+ 	ms1 = new OpenHashMultiSet<String>();
+	ms1.addWithMult("Element1", 3);
+	ms1.addWithMult("Element2", 2);
+
+	iter = ms1.iterator();
+	try {
+	    iter.getMult();
+	    fail("exception expected");
+	} catch (IllegalStateException e) {
+
+	}
+	while (iter.hasNext()) {
+	    str = iter.next();
+	    if ("Element1".equals(str)) {
+		assertEquals(3, iter.removeMult(1));
+		assertEquals(2, iter.getMult());
+		assertEquals(2, iter.setMult(4));
+	    } else {
+		assertEquals("Element2", str);
+		assertEquals(2, iter.removeMult(2));
+		try {
+		    iter.getMult();
+		    fail("exception expected");
+		} catch (IllegalStateException e) {
+
+		}
+	    }
+	}
+	try {
+	    iter.next();
+	    fail("exception expected");
+	} catch (NoSuchElementException e) {
+
+	}
+	assertEquals(4, ms1.getMultiplicity("Element1"));
+	assertTrue(!ms1.contains("Element2"));
+
+	iter = ms1.iterator();
+	ms1.add("Element3");
+	try {
+	    iter.next();
+	    fail("exception expected");
+	} catch (ConcurrentModificationException e) {
+
+	}
+   } // testOpenHashIterator() 
+
+   void testOpenHashGrowth() {
+	MultiSet<Integer> ms1 = new OpenHashMultiSet<Integer>();
+	MultiSet<Integer> cmp = new HashMultiSet<Integer>();
+
+	for (int i = 0; i < 10000; i++) {
+	    ms1.addWithMult(i % 3000, i % 7 + 1);
+	    cmp.addWithMult(i % 3000, i % 7 + 1);
+	    if (i % 5 == 0) {
+		ms1.remove((i * 13) % 3000);
+		cmp.remove((i * 13) % 3000);
+	    }
+	}
+	assertEquals(cmp.size(), ms1.size());
+	assertEquals(cmp, ms1);
+	assertEquals(cmp.sizeWithMult(), ms1.sizeWithMult());
+	assertEquals(cmp.getMaxMult(), ms1.getMaxMult());
+
+	ms1.clear();
+	assertTrue(ms1.isEmpty());
+	assertTrue(!ms1.iterator().hasNext());
+   } // testOpenHashGrowth() 
+
+   void testOpenHashMultIndex() {
+	OpenHashMultiSet<Integer> ms1 = new OpenHashMultiSet<Integer>(0, true);
+	OpenHashMultiSet<Integer> cmp = new OpenHashMultiSet<Integer>();
+	List<Integer> top;
+
+	// testcase 1
+	//
+	// empty set 
+	//
+	assertEquals(0, ms1.getMaxMult());
+	assertEquals(0, ms1.getMinMult());
+	assertNull(ms1.getObjWithMaxMult());
+	assertNull(ms1.getObjWithMinMult());
+	assertTrue(ms1.topK(3).isEmpty());
+
+	// testcase 2
+	//
+	// counting one by one and jumps, including rehashing 
+	//
+	Random rand = new Random(1234);
+	int elem;
+	for (int i = 0; i < 20000; i++) {
+	    elem = rand.nextInt(500);
+	    switch (rand.nextInt(6)) {
+	    case 0:
+		ms1.setMultiplicity(elem, rand.nextInt(40));
+		cmp.setMultiplicity(elem, ms1.getMultiplicity(elem));
+		break;
+	    case 1:
+		if (ms1.contains(elem)) {
+		    ms1.removeWithMult(elem);
+		    cmp.removeWithMult(elem);
+		}
+		break;
+	    case 2:
+		ms1.addWithMult(elem, 5);
+		cmp.addWithMult(elem, 5);
+		break;
+	    default:
+		ms1.add(elem);
+		cmp.add(elem);
+		break;
+	    }
+	    assertEquals(cmp.getMaxMult(), ms1.getMaxMult());
+	    assertEquals(cmp.getMinMult(), ms1.getMinMult());
+	    assertEquals(ms1.getMaxMult(), 
+			 ms1.getMultiplicity(ms1.getObjWithMaxMult()));
+	    assertEquals(ms1.getMinMult(), 
+			 ms1.getMultiplicity(ms1.getObjWithMinMult()));
+	}
+	assertEquals(cmp, ms1);
+
+	// testcase 3
+	//
+	// top k with and without index 
+	//
+	top = ms1.topK(10);
+	assertEquals(10, top.size());
+	for (int i = 0; i < top.size(); i++) {
+	    assertEquals(cmp.getMultiplicity(cmp.topK(10).get(i)), 
+			 ms1.getMultiplicity(top.get(i)));
+	}
+	for (int i = 1; i < top.size(); i++) {
+	    assertTrue(ms1.getMultiplicity(top.get(i - 1)) 
+		       >= ms1.getMultiplicity(top.get(i)));
+	}
+	assertEquals(ms1.size(), ms1.topK(ms1.size() + 1).size());
+
+	// testcase 4
+	//
+	// modification via iterator 
+	//
+	MultiSetIterator<Integer> iter = ms1.iterator();
+	while (iter.hasNext()) {
+	    iter.next();
+	    iter.setMult(1);
+	}
+	assertEquals(1, ms1.getMaxMult());
+	ms1.getMultiplicityObj(ms1.getObjWithMinMult()).set(100);
+	assertEquals(100, ms1.getMaxMult());
+	ms1.clear();
+	assertEquals(0, ms1.getMaxMult());
+   } // testOpenHashMultIndex() 
+
+   void testTopK() {
+	MultiSet<String> ms1 = new TreeMultiSet<String>();
+	List<String> top;
+
+	// testcase 1 
+	// 
+	// empty set and illegal argument 
+	// 
+	assertTrue(ms1.topK(0).isEmpty());
+	assertTrue(ms1.topK(2).isEmpty());
+	try {
+	    ms1.topK(-1);
+	    fail("exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Expected non-negative number; found -1. ",
+			 e.getMessage());
+	}
+
+	// testcase 2 
+	// 
+	// order of multiplicities 
+	// 
+	ms1.addWithMult("a", 3);
+	ms1.addWithMult("b", 7);
+	ms1.addWithMult("c", 1);
+	ms1.addWithMult("d", 5);
+	top = ms1.topK(3);
+	assertEquals(Arrays.asList(new String[] {"b", "d", "a"}), top);
+	assertEquals(ms1.getObjWithMaxMult(), ms1.topK(1).get(0));
+	assertEquals(4, ms1.topK(10).size());
+	assertEquals("c", ms1.topK(4).get(3));
+
+	// testcase 3 
+	// 
+	// same result for HashMultiSet and OpenHashMultiSet 
+	// 
+	assertEquals(top, new HashMultiSet<String>(ms1).topK(3));
+	assertEquals(top, new OpenHashMultiSet<String>(ms1).topK(3));
+   } // testTopK() 
+
+   void testSpaceSaving() {
+	SpaceSavingMultiSet<Integer> ms1;
+	MultiSet<Integer> cmp;
+
+	// testcase 1 
+	// 
+	// illegal capacity 
+	// 
+	try {
+	    new SpaceSavingMultiSet<Integer>(0);
+	    fail("exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Expected positive capacity; found 0. ",
+			 e.getMessage());
+	}
+
+	// testcase 2 
+	// 
+	// exact as long as capacity is not exceeded 
+	// 
+	ms1 = new SpaceSavingMultiSet<Integer>(4);
+	cmp = new HashMultiSet<Integer>();
+	for (int i = 0; i < 40; i++) {
+	    ms1.add(i % 4);
+	    cmp.add(i % 4);
+	}
+	assertEquals(cmp, ms1);
+	assertEquals(0, ms1.getError(2));
+	assertEquals(40, ms1.sizeWithMult());
+
+	// testcase 3 
+	// 
+	// eviction of an element with minimal multiplicity 
+	// 
+	ms1.addWithMult(0, 5);
+	// a new element is reported as new although it inherits a count 
+	assertTrue(ms1.add(7));
+	assertEquals(4, ms1.size());
+	assertEquals(46, ms1.sizeWithMult());
+	assertEquals(11, ms1.getMultiplicity(7));
+	assertEquals(10, ms1.getError(7));
+	assertEquals(1, ms1.getGuaranteedMult(7));
+	assertEquals(15, ms1.getMaxMult());
+	assertEquals(Integer.valueOf(0), ms1.topK(1).get(0));
+	assertTrue(!ms1.add(7));
+	assertEquals(12, ms1.getMultiplicity(7));
+
+	// testcase 4 
+	// 
+	// heavy hitters are found 
+	// 
+	ms1 = new SpaceSavingMultiSet<Integer>(50);
+	Random rand = new Random(4321);
+	cmp = new HashMultiSet<Integer>();
+	int elem;
+	for (int i = 0; i < 100000; i++) {
+	    elem = rand.nextInt(4) == 0 ? rand.nextInt(3) : rand.nextInt(1000);
+	    ms1.add(elem);
+	    cmp.add(elem);
+	}
+	assertEquals(cmp.sizeWithMult(), ms1.sizeWithMult());
+	assertEquals(new HashSet<Integer>(cmp.topK(3)),
+		     new HashSet<Integer>(ms1.topK(3)));
+	MultiSetIterator<Integer> iter = ms1.iterator();
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    assertTrue(ms1.getGuaranteedMult(elem) <= cmp.getMultiplicity(elem));
+	    assertTrue(cmp.getMultiplicity(elem) <= iter.getMult());
+	}
+
+	// testcase 5 
+	// 
+	// unsupported modifications 
+	// 
+	try {
+	    ms1.remove(1);
+	    fail("exception expected. ");
+	} catch (UnsupportedOperationException e) {
+	    assertNull(e.getMessage());
+	}
+	try {
+	    ms1.getMultiplicityObj(1).set(3);
+	    fail("exception expected. ");
+	} catch (UnsupportedOperationException e) {
+	    assertNull(e.getMessage());
+	}
+	iter = ms1.iterator();
+	iter.next();
+	try {
+	    iter.remove();
+	    fail("exception expected. ");
+	} catch (UnsupportedOperationException e) {
+	    assertNull(e.getMessage());
+	}
+	ms1.clear();
+	assertTrue(ms1.isEmpty());
+	assertEquals(0, ms1.getError(7));
+   } // testSpaceSaving() 
+
+   void testConcurrentBasics() {
+	ConcurrentHashMultiSet<String> ms1 =
+	    new ConcurrentHashMultiSet<String>();
+	MultiSet<String> cmp = new HashMultiSet<String>();
+	MultiSet.Multiplicity mult;
+
+	// testcase 1 
+	// 
+	// same behavior as HashMultiSet 
+	// 
+	assertTrue(ms1.isEmpty());
+	assertEquals(1, ms1.addWithMult("a"));
+	assertEquals(4, ms1.addWithMult("a", 3));
+	assertEquals(2, ms1.addWithMult("b", 2));
+	assertEquals(0, ms1.addWithMult("c", 0));
+	cmp.addWithMult("a", 4);
+	cmp.addWithMult("b", 2);
+	assertEquals(cmp, ms1);
+	assertEquals(ms1, cmp);
+	assertEquals(cmp.hashCode(), ms1.hashCode());
+	assertEquals(6, ms1.sizeWithMult());
+	assertEquals("a", ms1.getObjWithMaxMult());
+	assertEquals(4, ms1.getMaxMult());
+	assertEquals(cmp.topK(2), ms1.topK(2));
+
+	// testcase 2 
+	// 
+	// removal and exceptions 
+	// 
+	assertEquals(4, ms1.removeWithMult("a", 2));
+	assertEquals(2, ms1.removeWithMult("b", 2));
+	assertTrue(!ms1.contains("b"));
+	assertEquals(1, ms1.size());
+	try {
+	    ms1.removeWithMult("b");
+	    fail("exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Tried to remove object b which is not in this MultiSet. ",
+			 e.getMessage());
+	}
+	try {
+	    ms1.addWithMult("a", Integer.MAX_VALUE);
+	    fail("exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Resulting multiplicity 2 + " + Integer.MAX_VALUE + 
+			 " should be non-negative. ",
+			 e.getMessage());
+	}
+	try {
+	    ms1.addWithMult(null);
+	    fail("exception expected. ");
+	} catch (NullPointerException e) {
+	    // expected 
+	}
+
+	// testcase 3 
+	// 
+	// multiplicity objects die with removal of their element 
+	// 
+	mult = ms1.getMultiplicityObj("a");
+	assertEquals(5, mult.add(3));
+	assertEquals(5, ms1.getMultiplicity("a"));
+	assertEquals(5, ms1.setMultiplicity("a", 0));
+	assertNull(ms1.getMultiplicityObj("a"));
+	try {
+	    mult.add(1);
+	    fail("exception expected. ");
+	} catch (IllegalStateException e) {
+	    assertEquals("Element is no longer in this MultiSet. ",
+			 e.getMessage());
+	}
+	assertEquals(1, ms1.addWithMult("a"));
+	assertEquals(0, mult.get());
+
+	// testcase 4 
+	// 
+	// iterator 
+	// 
+	ms1.clear();
+	ms1.addWithMult("a", 3);
+	ms1.addWithMult("b", 2);
+	ms1.addWithMult("c", 1);
+	MultiSetIterator<String> iter = ms1.iterator();
+	String elem;
+	while (iter.hasNext()) {
+	    elem = iter.next();
+	    if ("a".equals(elem)) {
+		assertEquals(3, iter.setMult(5));
+	    } else if ("b".equals(elem)) {
+		assertEquals(2, iter.removeMult(2));
+		try {
+		    iter.getMult();
+		    fail("exception expected. ");
+		} catch (IllegalStateException e) {
+		    assertNull(e.getMessage());
+		}
+	    } else {
+		ms1.add("d");
+		iter.remove();
+	    }
+	}
+	try {
+	    iter.next();
+	    fail("exception expected. ");
+	} catch (NoSuchElementException e) {
+	    assertNull(e.getMessage());
+	}
+	assertEquals(5, ms1.getMultiplicity("a"));
+	assertTrue(!ms1.contains("b"));
+	assertTrue(!ms1.contains("c"));
+	assertEquals(1, ms1.getMultiplicity("d"));
+	assertEquals(2, ms1.getSet().size());
+	assertEquals(ms1.getMultiplicity("a"),
+		     ms1.getMap().get("a").get());
+	ms1.getSet().remove("d");
+	assertEquals(1, ms1.size());
+   } // testConcurrentBasics() 
+
+   /**
+    * Waits for all threads to finish 
+    * and rethrows the first failure of one of the threads, if any. 
+    */
+   private static void joinAll(Thread[] threads, Queue<Throwable> failures)
+	throws InterruptedException {
+	for (int i = 0; i < threads.length; i++) {
+	    threads[i].join();
+	}
+	Throwable first = failures.peek();
+	if (first instanceof Error) {
+	    throw (Error) first;
+	}
+	if (first instanceof RuntimeException) {
+	    throw (RuntimeException) first;
+	}
+	if (first != null) {
+	    throw new AssertionError("Worker thread failed. ", first);
+	}
+   }
+
+   void testConcurrentThreads() throws InterruptedException {
+	final ConcurrentHashMultiSet<Integer> ms1 =
+	    new ConcurrentHashMultiSet<Integer>();
+	final int numThreads = 8;
+	final int numAdds = 20000;
+	final Queue<Throwable> failures =
+	    new ConcurrentLinkedQueue<Throwable>();
+	Thread[] threads = new Thread[numThreads];
+
+	// testcase 1 
+	// 
+	// concurrent adding and removing loses no update 
+	// 
+	for (int i = 0; i < numThreads; i++) {
+	    final int num = i;
+	    threads[i] = new Thread() {
+		    public void run() {
+			try {
+			    for (int j = 0; j < numAdds; j++) {
+				ms1.add(j % 10);
+				if (num % 2 == 0) {
+				    ms1.add(-1);
+				    ms1.removeWithMult(-1);
+				}
+			    }
+			} catch (Throwable t) {
+			    failures.add(t);
+			}
+		    }
+		};
+	    threads[i].start();
+	}
+	joinAll(threads, failures);
+	assertEquals(10, ms1.size());
+	assertEquals(numThreads * numAdds, ms1.sizeWithMult());
+	for (int j = 0; j < 10; j++) {
+	    assertEquals(numThreads * numAdds / 10, ms1.getMultiplicity(j));
+	}
+
+	// testcase 2 
+	// 
+	// batches 
+	// 
+	ms1.clear();
+	for (int i = 0; i < numThreads; i++) {
+	    threads[i] = new Thread() {
+		    public void run() {
+			try {
+			    ConcurrentHashMultiSet<Integer>.Batch batch =
+				ms1.newBatch();
+			    for (int j = 0; j < numAdds; j++) {
+				batch.add(j % 10);
+				if (j % 1000 == 0) {
+				    batch.flush();
+				}
+			    }
+			    batch.flush();
+			} catch (Throwable t) {
+			    failures.add(t);
+			}
+		    }
+		};
+	    threads[i].start();
+	}
+	joinAll(threads, failures);
+	assertEquals(numThreads * numAdds, ms1.sizeWithMult());
+	for (int j = 0; j < 10; j++) {
+	    assertEquals(numThreads * numAdds / 10, ms1.getMultiplicity(j));
+	}
+   } // testConcurrentThreads() 
+
+   void testAlgebra() {
+	MultiSet<Integer> tree1 = new TreeMultiSet<Integer>();
+	MultiSet<Integer> tree2 = new TreeMultiSet<Integer>();
+	MultiSet<Integer> hash1, hash2, res;
+	MultiSet<Integer> expSum, expUnion, expInters, expDiff;
+	Random rand = new Random(2345);
+	int mult1, mult2;
+
+	// testcase 1 
+	// 
+	// empty operands 
+	// 
+	hash1 = new HashMultiSet<Integer>();
+	assertTrue(CollectionsExt.sum(tree1, tree2).isEmpty());
+	assertTrue(CollectionsExt.union(hash1, tree2).isEmpty());
+	assertTrue(CollectionsExt.intersection(tree1, hash1).isEmpty());
+	assertTrue(CollectionsExt.difference(hash1, hash1).isEmpty());
+
+	// testcase 2 
+	// 
+	// random operands compared elementwise 
+	// 
+	expSum    = new HashMultiSet<Integer>();
+	expUnion  = new HashMultiSet<Integer>();
+	expInters = new HashMultiSet<Integer>();
+	expDiff   = new HashMultiSet<Integer>();
+	for (int i = 0; i < 300; i++) {
+	    mult1 = rand.nextInt(3) == 0 ? 0 : rand.nextInt(10) + 1;
+	    mult2 = rand.nextInt(2) == 0 ? 0 : rand.nextInt(10) + 1;
+	    tree1.setMultiplicity(i, mult1);
+	    tree2.setMultiplicity(i, mult2);
+	    expSum   .setMultiplicity(i, mult1 + mult2);
+	    expUnion .setMultiplicity(i, Math.max(mult1, mult2));
+	    expInters.setMultiplicity(i, Math.min(mult1, mult2));
+	    expDiff  .setMultiplicity(i, Math.max(mult1 - mult2, 0));
+	}
+	hash1 = new HashMultiSet<Integer>(tree1);
+	hash2 = new OpenHashMultiSet<Integer>(tree2);
+
+	res = CollectionsExt.sum(tree1, tree2);
+	assertTrue(res instanceof TreeMultiSet);
+	assertEquals(expSum, res);
+	assertEquals(expSum, CollectionsExt.sum(hash1, hash2));
+	assertEquals(expSum, CollectionsExt.sum(hash2, tree1));
+
+	res = CollectionsExt.union(tree1, tree2);
+	assertTrue(res instanceof TreeMultiSet);
+	assertEquals(expUnion, res);
+	assertEquals(expUnion, CollectionsExt.union(hash1, hash2));
+	assertEquals(expUnion, CollectionsExt.union(hash2, tree1));
+
+	res = CollectionsExt.intersection(tree1, tree2);
+	assertTrue(res instanceof TreeMultiSet);
+	assertEquals(expInters, res);
+	assertEquals(expInters, CollectionsExt.intersection(hash1, hash2));
+	assertEquals(expInters, CollectionsExt.intersection(hash2, tree1));
+
+	res = CollectionsExt.difference(tree1, tree2);
+	assertTrue(res instanceof TreeMultiSet);
+	assertEquals(expDiff, res);
+	assertEquals(expDiff, CollectionsExt.difference(hash1, hash2));
+	assertEquals(expDiff, CollectionsExt.difference(tree1, hash2));
+
+	// operands are not modified 
+	assertEquals(hash1, tree1);
+	assertEquals(hash2, tree2);
+
+	// testcase 3 
+	// 
+	// intersection of a small with a large tree: lookups 
+	// 
+	tree2 = new TreeMultiSet<Integer>();
+	tree2.addWithMult(7, 3);
+	tree2.addWithMult(1000, 3);
+	res = CollectionsExt.intersection(tree1, tree2);
+	assertTrue(res instanceof TreeMultiSet);
+	assertEquals(Math.min(3, tree1.getMultiplicity(7)),
+		     res.getMultiplicity(7));
+	assertTrue(!res.contains(1000));
+	// a small tree with a large hash multi-set yields a hash multi-set 
+	res = CollectionsExt.intersection(tree2, hash1);
+	assertTrue(res instanceof HashMultiSet);
+	assertEquals(Math.min(3, hash1.getMultiplicity(7)),
+		     res.getMultiplicity(7));
+
+	// testcase 4 
+	// 
+	// overflow 
+	// 
+	tree2.setMultiplicity(7, Integer.MAX_VALUE);
+	tree1.setMultiplicity(7, 1);
+	try {
+	    CollectionsExt.sum(tree1, tree2);
+	    fail("exception expected. ");
+	} catch (IllegalArgumentException e) {
+	    assertEquals("Resulting multiplicity 1 + " + Integer.MAX_VALUE + 
+			 " should be non-negative. ",
+			 e.getMessage());
+	}
+   } // testAlgebra() 
+
+    /**
+     * Returns multi-sets of all kinds with the same content 
+     * consisting of <code>num</code> elements. 
+     */
+    static List<MultiSet<Integer>> allKinds(int num) {
+	List<MultiSet<Integer>> res = new ArrayList<MultiSet<Integer>>();
+	res.add(new HashMultiSet<Integer>());
+	res.add(new TreeMultiSet<Integer>());
+	res.add(new OpenHashMultiSet<Integer>());
+	res.add(new ConcurrentHashMultiSet<Integer>());
+	for (MultiSet<Integer> mSet : res) {
+	    for (int i = 0; i < num; i++) {
+		mSet.addWithMult(i, i % 7 + 1);
+	    }
+	}
+	res.add(CollectionsExt.getImmutableMultiSet(res.get(0)));
+	return res;
+    }
+
+   void testSpliterator() {
+	Spliterator<Integer> split1, split2;
+	final Set<Integer> found = new HashSet<Integer>();
+	Consumer<Integer> collect = new Consumer<Integer>() {
+		public void accept(Integer elem) {
+		    assertTrue(found.add(elem));
+		}
+	    };
+
+	for (MultiSet<Integer> mSet : allKinds(1000)) {
+	    // testcase 1 
+	    // 
+	    // characteristics and size 
+	    // 
+	    split1 = mSet.spliterator();
+	    assertTrue(split1.hasCharacteristics(Spliterator.DISTINCT));
+	    if (!(mSet instanceof ConcurrentHashMultiSet)) {
+		assertTrue(split1.hasCharacteristics(Spliterator.SIZED));
+		assertEquals(1000, split1.getExactSizeIfKnown());
+	    }
+
+	    // testcase 2 
+	    // 
+	    // splitting yields each element exactly once 
+	    // 
+	    found.clear();
+	    split2 = split1.trySplit();
+	    assertTrue(split2 != null);
+	    // one half may be empty for hash codes not spread 
+	    split1.tryAdvance(collect);
+	    split1.forEachRemaining(collect);
+	    split2.forEachRemaining(collect);
+	    assertTrue(!split1.tryAdvance(collect));
+	    assertEquals(found, mSet.getSet());
+	}
+
+	// testcase 3 
+	// 
+	// fail-fast for OpenHashMultiSet 
+	// 
+	final OpenHashMultiSet<Integer> ms1 = new OpenHashMultiSet<Integer>();
+	ms1.addWithMult(1, 2);
+	ms1.addWithMult(2, 2);
+	split1 = ms1.spliterator();
+	try {
+	    split1.forEachRemaining(new Consumer<Integer>() {
+		    public void accept(Integer elem) {
+			ms1.add(elem + 10);
+		    }
+		});
+	    fail("exception expected. ");
+	} catch (ConcurrentModificationException e) {
+	    assertNull(e.getMessage());
+	}
+   } // testSpliterator() 
+
+   void testStreams() {
+	long sum;
+	for (MultiSet<Integer> mSet : allKinds(10000)) {
+	    // testcase 1 
+	    // 
+	    // stream of elements, sequential and parallel 
+	    // 
+	    assertEquals(10000, mSet.stream().count());
+	    assertEquals(10000, mSet.stream().parallel().distinct().count());
+
+	    // testcase 2 
+	    // 
+	    // stream of entries 
+	    // 
+	    sum = mSet.entryStream().parallel()
+		.mapToLong(new ToLongFunction<Map.Entry<Integer,
+				   MultiSet.Multiplicity>>() {
+			public long applyAsLong(Map.Entry<Integer,
+						MultiSet.Multiplicity> entry) {
+			    assertEquals(mSet.getMultiplicity(entry.getKey()),
+					 entry.getValue().get());
+			    return entry.getValue().get();
+			}
+		    })
+		.sum();
+	    assertEquals(mSet.sizeWithMult(), sum);
+	}
+   } // testStreams() 
+
+    // writes mSet with codec and reads it back into target 
+    static <T> byte[] write(MultiSetCodec<T> codec, MultiSet<T> mSet)
+	throws IOException {
+	ByteArrayOutputStream bos = new ByteArrayOutputStream();
+	codec.write(mSet, Channels.newChannel(bos));
+	return bos.toByteArray();
+    }
+
+    static <T, M extends MultiSet<T>> M read(MultiSetCodec<T> codec,
+					     byte[] bytes,
+					     M target) throws IOException {
+	return codec.read(Channels.newChannel(new ByteArrayInputStream(bytes)),
+			  target);
+    }
+
+   void testCodecChannel() throws IOException {
+	MultiSetCodec<Integer> intCodec =
+	    new MultiSetCodec<Integer>(MultiSetCodec.INTEGERS);
+	byte[] bytes;
+	// testcase 1 
+	// 
+	// round trip for all kinds of multi-sets 
+	// 
+	List<MultiSet<Integer>> kinds = allKinds(10000);
+	kinds.get(0).addWithMult(Integer.MIN_VALUE, 3);
+	kinds.get(1).addWithMult(Integer.MIN_VALUE, 3);
+	kinds.get(1).addWithMult(Integer.MAX_VALUE, 1000000);
+	for (MultiSet<Integer> mSet : kinds) {
+	    bytes = write(intCodec, mSet);
+	    assertEquals(mSet, read(intCodec, bytes,
+				    new HashMultiSet<Integer>()));
+	    assertEquals(mSet, read(intCodec, bytes,
+				    new TreeMultiSet<Integer>()));
+	}
+
+	// testcase 2 
+	// 
+	// sorted multi-sets are delta-encoded 
+	// 
+	MultiSet<Integer> tree = new TreeMultiSet<Integer>();
+	for (int i = 0; i < 1000; i++) {
+	    tree.addWithMult(1000000 + 2 * i, 1);
+	}
+	bytes = write(intCodec, tree);
+	assertEquals(MultiSetCodec.SORTED, bytes[0]);
+	// flag, 2 bytes size, 3 bytes first, 1 byte for delta and mult 
+	assertEquals(1 + 2 + 3 + 1 + 999 * 2, bytes.length);
+	assertEquals(tree, read(intCodec, bytes,
+				new TreeMultiSet<Integer>()));
+
+	// testcase 3 
+	// 
+	// strings with common prefixes, also beyond the buffer size 
+	// 
+	MultiSetCodec<String> strCodec =
+	    new MultiSetCodec<String>(MultiSetCodec.STRINGS);
+	char[] longChars = new char[20000];
+	Arrays.fill(longChars, '\u00e4');
+	String longStr = new String(longChars);
+	MultiSet<String> strs = new TreeMultiSet<String>();
+	strs.addWithMult("", 2);
+	strs.addWithMult("abc", 1);
+	strs.addWithMult("abcd", 5);
+	strs.addWithMult("abd\ud83d\ude00", 1);
+	strs.addWithMult("abd\ud83d\ude01", 1);
+	strs.addWithMult(longStr, 7);
+	strs.addWithMult(longStr + "x", 7);
+	assertEquals(strs, read(strCodec, write(strCodec, strs),
+				new TreeMultiSet<String>()));
+	MultiSet<String> hStrs = new HashMultiSet<String>(strs);
+	assertEquals(hStrs, read(strCodec, write(strCodec, hStrs),
+				 new HashMultiSet<String>()));
+
+	// testcase 4 
+	// 
+	// longs 
+	// 
+	MultiSetCodec<Long> longCodec =
+	    new MultiSetCodec<Long>(MultiSetCodec.LONGS);
+	MultiSet<Long> longs = new TreeMultiSet<Long>();
+	longs.addWithMult(Long.MIN_VALUE, 1);
+	longs.addWithMult(-1L, 2);
+	longs.addWithMult(Long.MAX_VALUE, 3);
+	assertEquals(longs, read(longCodec, write(longCodec, longs),
+				 new TreeMultiSet<Long>()));
+
+	// testcase 5 
+	// 
+	// truncated and malformed data 
+	// 
+	bytes = write(intCodec, tree);
+	try {
+	    read(intCodec, Arrays.copyOf(bytes, bytes.length - 1),
+		 new HashMultiSet<Integer>());
+	    fail("exception expected. ");
+	} catch (EOFException e) {
+	    assertEquals("Unexpected end of data. ", e.getMessage());
+	}
+	try {
+	    read(intCodec, new byte[] {2, 0}, new HashMultiSet<Integer>());
+	    fail("exception expected. ");
+	} catch (StreamCorruptedException e) {
+	    assertEquals("Unknown format 2. ", e.getMessage());
+	}
+	try {
+	    read(intCodec, new byte[] {0, 1, 2, 0},
+		 new HashMultiSet<Integer>());
+	    fail("exception expected. ");
+	} catch (StreamCorruptedException e) {
+	    assertEquals("Found non-positive multiplicity 0. ",
+			 e.getMessage());
+	}
+	// size 2^31 and 2^32 - 1 overflow a non-negative int 
+	byte[][] overflows = {
+	    {0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08},
+	    {0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}
+	};
+	for (byte[] overflow : overflows) {
+	    try {
+		read(intCodec, overflow, new HashMultiSet<Integer>());
+		fail("exception expected. ");
+	    } catch (StreamCorruptedException e) {
+		assertEquals("Varint exceeds int range. ", e.getMessage());
+	    }
+	}
+	// size 2^31 - 1 is read, failing only for lack of elements 
+	try {
+	    read(intCodec,
+		 new byte[] {0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			     (byte) 0xFF, 0x07},
+		 new HashMultiSet<Integer>());
+	    fail("exception expected. ");
+	} catch (EOFException e) {
+	    assertEquals("Unexpected end of data. ", e.getMessage());
+	}
+	// a tenth byte beyond bit 63 overflows a long 
+	try {
+	    read(longCodec,
+		 new byte[] {0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			     (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			     (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x02},
+		 new HashMultiSet<Long>());
+	    fail("exception expected. ");
+	} catch (StreamCorruptedException e) {
+	    assertEquals("Varint exceeds long range. ", e.getMessage());
+	}
+	// a string of length 2^31 - 1 is not allocated in advance 
+	try {
+	    read(strCodec,
+		 new byte[] {0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			     (byte) 0xFF, 0x07, 'a', 'b'},
+		 new HashMultiSet<String>());
+	    fail("exception expected. ");
+	} catch (EOFException e) {
+	    assertEquals("Unexpected end of data. ", e.getMessage());
+	}
+   } // testCodecChannel() 
+
+   void testCodecFile() throws IOException {
+	MultiSetCodec<Integer> intCodec =
+	    new MultiSetCodec<Integer>(MultiSetCodec.INTEGERS);
+	Path path = Files.createTempFile("multiSet", ".bin");
+	try {
+	    for (MultiSet<Integer> mSet : allKinds(10000)) {
+		// testcase 1 
+		// 
+		// round trip via memory-mapped file 
+		// 
+		intCodec.write(mSet, path);
+		assertEquals(mSet, intCodec.read(path,
+						 new HashMultiSet<Integer>()));
+
+		// testcase 2 
+		// 
+		// file contents coincide with channel contents 
+		// 
+		assertTrue(Arrays.equals(write(intCodec, mSet),
+					 Files.readAllBytes(path)));
+	    }
+
+	    // testcase 3 
+	    // 
+	    // a truncated file 
+	    // 
+	    byte[] bytes = Files.readAllBytes(path);
+	    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+	    try {
+		intCodec.read(path, new HashMultiSet<Integer>());
+		fail("exception expected. ");
+	    } catch (EOFException e) {
+		assertEquals("Unexpected end of data. ", e.getMessage());
+	    }
+	} finally {
+	    Files.delete(path);
+	}
+   } // testCodecFile() 
+
     /* -------------------------------------------------------------------- *
      * framework.                                                           *
      * -------------------------------------------------------------------- */
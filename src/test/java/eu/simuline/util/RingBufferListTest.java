@@ -0,0 +1,152 @@
+
+package eu.simuline.util;
+
+import eu.simuline.testhelpers.Actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+@RunWith(Suite.class)
+@SuiteClasses({RingBufferListTest.TestAll.class})
+public class RingBufferListTest {
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    static final RingBufferListTest TEST = new RingBufferListTest();
+
+    public static class TestAll {
+	@Test public void testAddRemove() {
+	    RingBufferListTest.TEST.testAddRemove();
+	}
+	@Test public void testTwoSidedList() {
+	    RingBufferListTest.TEST.testTwoSidedList();
+	}
+    } // class TestAll
+
+    /* -------------------------------------------------------------------- *
+     * methods for tests.                                                   *
+     * -------------------------------------------------------------------- */
+
+    public void testAddRemove() {
+	Random rand = new Random(5);
+	List<Integer> cmp = new ArrayList<Integer>();
+	List<Integer> list = new RingBufferList<Integer>();
+	int idx;
+
+	// insertions at both ends and in the middle, growing the buffer 
+	for (int i = 0; i < 10000; i++) {
+	    switch (i % 3) {
+	    case 0:
+		cmp .add(0, i);
+		list.add(0, i);
+		break;
+	    case 1:
+		cmp .add(i);
+		list.add(i);
+		break;
+	    default:
+		idx = rand.nextInt(cmp.size() + 1);
+		cmp .add(idx, i);
+		list.add(idx, i);
+		break;
+	    }
+	}
+	assertEquals(cmp, list);
+
+	// positional access 
+	for (int i = 0; i < 1000; i++) {
+	    idx = rand.nextInt(cmp.size());
+	    assertEquals(cmp.get(idx), list.get(idx));
+	    assertEquals(cmp.set(idx, -i), list.set(idx, -i));
+	}
+	try {
+	    list.get(-1);
+	    fail("Exception expected");
+	} catch (IndexOutOfBoundsException e) {
+	    assertEquals("Index -1 not within size 10000. ", e.getMessage());
+	}
+
+	// removals at both ends and in the middle 
+	for (int i = 0; i < 3000; i++) {
+	    assertEquals(cmp.remove(0), list.remove(0));
+	    assertEquals(cmp.remove(cmp.size() - 1),
+			 list.remove(list.size() - 1));
+	    idx = rand.nextInt(cmp.size());
+	    assertEquals(cmp.remove(idx), list.remove(idx));
+	}
+	assertEquals(cmp, list);
+
+	// bulk operations and views 
+	cmp .addAll(10, Arrays.asList(1, 2, 3));
+	list.addAll(10, Arrays.asList(1, 2, 3));
+	cmp .addAll(cmp .size() - 5, cmp .subList(0, 20));
+	list.addAll(list.size() - 5, list.subList(0, 20));
+	cmp .subList(7, 200).clear();
+	list.subList(7, 200).clear();
+	cmp .subList(cmp .size() - 200, cmp .size() - 7).clear();
+	list.subList(list.size() - 200, list.size() - 7).clear();
+	assertEquals(cmp, list);
+	assertEquals(cmp, new RingBufferList<Integer>(cmp));
+	Iterator<Integer> iter = list.iterator();
+	while (iter.hasNext()) {
+	    if (iter.next() % 2 == 0) {
+		iter.remove();
+	    }
+	}
+	for (Integer num : list) {
+	    assertTrue(num % 2 != 0);
+	}
+	list.clear();
+	assertTrue(list.isEmpty());
+	list.add(0, 1);
+	assertEquals(Arrays.asList(1), list);
+    } // testAddRemove 
+
+    public void testTwoSidedList() {
+	TwoSidedList<Integer> tsList = new TwoSidedList<Integer>(0);
+	assertTrue(tsList.list() instanceof RingBufferList);
+	for (int i = 1; i <= 1000; i++) {
+	    tsList.addFirst(-i);
+	    tsList.addLast(i);
+	}
+	assertEquals(-1000, tsList.firstIndex());
+	assertEquals(  1000, tsList.minFreeIndex());
+	for (int i = -1000; i < 1000; i++) {
+	    assertEquals(i < 0 ? i : i + 1, tsList.get(i).intValue());
+	}
+	tsList.add(0, 0, TwoSidedList.Direction.Right2Left);
+	assertEquals(-1001, tsList.firstIndex());
+	assertEquals(0, tsList.get(0).intValue());
+	assertEquals(1, tsList.get(-1).intValue());
+	assertEquals(-1, tsList.get(-2).intValue());
+	tsList.remove(-1001, TwoSidedList.Direction.Right2Left);
+	assertEquals(-1000, tsList.firstIndex());
+	assertEquals(-999, tsList.get(-1000).intValue());
+
+	TwoSidedList<Integer> copy = TwoSidedList.create(tsList);
+	assertEquals(tsList, copy);
+	assertTrue(copy.list() instanceof RingBufferList);
+    } // testTwoSidedList 
+
+    /* -------------------------------------------------------------------- *
+     * framework.                                                           *
+     * -------------------------------------------------------------------- */
+
+    public static void main(String[] args) {
+	Actions.runFromMain();
+    }
+}
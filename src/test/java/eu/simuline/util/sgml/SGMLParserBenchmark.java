@@ -0,0 +1,105 @@
+package eu.simuline.util.sgml;
+
+import eu.simuline.util.Benchmarker;
+
+import java.io.StringReader;
+
+import java.util.Random;
+
+/**
+ * Measures the throughput of an {@link SGMLParser} 
+ * over a corpus of generated html documents. 
+ * This is no test but is run by {@link #main(String[])} 
+ * printing the throughput in million characters per second. 
+ *
+ * @author <a href="mailto:ernst.reissner@simuline.eu">Ernst Reissner</a>
+ * @version 1.0
+ */
+public final class SGMLParserBenchmark {
+
+    /**
+     * The number of documents of the corpus. 
+     */
+    private static final int NUM_DOCS = 200;
+
+    /**
+     * The number of times the corpus is parsed to warm up 
+     * and the number of times it is parsed while measuring, respectively. 
+     */
+    private static final int NUM_ROUNDS = 20;
+
+    private SGMLParserBenchmark() {
+    }
+
+    /**
+     * Returns a generated html document 
+     * with text, tags with attributes and comments. 
+     *
+     * @param rand 
+     *    the source of randomness. 
+     * @return 
+     *    a document of about 50 kilobytes. 
+     */
+    static String document(Random rand) {
+	String[] tags = {"p", "div", "span", "a", "td", "li"};
+	String[] words = {"lorem", "ipsum", "dolor", "sit", "amet",
+			  "consectetur", "adipiscing", "elit"};
+	StringBuilder res = new StringBuilder();
+	res.append("<!DOCTYPE html><html><head><title>Document</title>");
+	res.append("<!-- generated by SGMLParserBenchmark --></head><body>");
+	String tag;
+	while (res.length() < 50000) {
+	    tag = tags[rand.nextInt(tags.length)];
+	    res.append('<').append(tag)
+		.append(" class=\"c").append(rand.nextInt(10))
+		.append("\" id='i").append(rand.nextInt(1000))
+		.append("' title=t").append(rand.nextInt(100)).append('>');
+	    for (int i = rand.nextInt(40); i >= 0; i--) {
+		res.append(words[rand.nextInt(words.length)]);
+		res.append(rand.nextInt(8) == 0 ? "\n    " : " ");
+	    }
+	    res.append("</").append(tag).append(">\n");
+	}
+	res.append("</body></html>");
+	return res.toString();
+    }
+
+    /**
+     * Parses the corpus {@link #NUM_ROUNDS} times for warm up 
+     * and then measures parsing it {@link #NUM_ROUNDS} times again. 
+     *
+     * @param args 
+     *    ignored. 
+     * @throws Exception 
+     *    if parsing fails. 
+     */
+    public static void main(String[] args) throws Exception {
+	Random rand = new Random(0);
+	String[] corpus = new String[NUM_DOCS];
+	long numChars = 0;
+	for (int i = 0; i < NUM_DOCS; i++) {
+	    corpus[i] = document(rand);
+	    numChars += corpus[i].length();
+	}
+
+	SGMLParser parser = new SGMLParser();
+	for (int round = 0; round < NUM_ROUNDS; round++) {
+	    for (String doc : corpus) {
+		parser.parse(new StringReader(doc));
+	    }
+	}
+
+	Benchmarker.mtic();
+	for (int round = 0; round < NUM_ROUNDS; round++) {
+	    for (String doc : corpus) {
+		parser.parse(new StringReader(doc));
+	    }
+	}
+	Benchmarker.Snapshot snap = Benchmarker.mtoc();
+	double megaChars = numChars * NUM_ROUNDS / 1e6;
+	System.out.println("parsed " + megaChars + " million characters in "
+			   + snap.getTimeMs() + " ms: "
+			   + (1000 * megaChars / snap.getTimeMs())
+			   + " million characters per second. ");
+    }
+} // class SGMLParserBenchmark 
@@ -8,7 +8,7 @@ import eu.simuline.testhelpers.Accessor;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
-//import static org.junit.Assert.fail;
+import static org.junit.Assert.fail;
 
 
 import org.junit.Test;
@@ -18,12 +18,27 @@ import org.junit.runners.Suite.SuiteClasses;
 
 
 import org.xml.sax.SAXParseException;
+import org.xml.sax.Attributes;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @RunWith(Suite.class)
 @SuiteClasses({SGMLParserTest.TestAll.class})
@@ -42,6 +57,33 @@ public class SGMLParserTest {
 	@Test public void testParseTagOrPI() throws Exception {
 	    SGMLParserTest.TEST.testParseTagOrPI();
 	}
+	@Test public void testReuse() throws Exception {
+	    SGMLParserTest.TEST.testReuse();
+	}
+	@Test public void testPool() throws Exception {
+	    SGMLParserTest.TEST.testPool();
+	}
+	@Test public void testSymbolTable() throws Exception {
+	    SGMLParserTest.TEST.testSymbolTable();
+	}
+	@Test public void testCharClass() throws Exception {
+	    SGMLParserTest.TEST.testCharClass();
+	}
+	@Test public void testFeed() throws Exception {
+	    SGMLParserTest.TEST.testFeed();
+	}
+	@Test public void testCharsetDetector() throws Exception {
+	    SGMLParserTest.TEST.testCharsetDetector();
+	}
+	@Test public void testParseBytes() throws Exception {
+	    SGMLParserTest.TEST.testParseBytes();
+	}
+	@Test public void testEventBatch() throws Exception {
+	    SGMLParserTest.TEST.testEventBatch();
+	}
+	@Test public void testAttributes() throws Exception {
+	    SGMLParserTest.TEST.testAttributes();
+	}
     } // class TestAll
 
 
@@ -521,6 +563,18 @@ public class SGMLParserTest {
 			 e.getMessage());
 	}
 
+	// an unterminated processing instruction is skipped without copying 
+	reader = new StringReader("<?pi some data");
+	try {
+	    parser.parse(reader);
+	    fail("Exception expected. ");
+	} catch (SAXParseException e) {
+	    assertEquals("End of stream while scanning " 
+			 + "processing instruction. " 
+			 + "Skipped 12 characters. ",
+			 e.getMessage());
+	}
+
 
 	// testcase 5
 	// 
@@ -559,6 +613,566 @@ public class SGMLParserTest {
 
     } // testParseTagOrPI
 
+    /**
+     * Returns a document with quoted attributes and comments 
+     * depending on <code>num</code>. 
+     */
+    private static String document(int num) {
+	return "<A href=\"h" + num + "\" id='i" + num + "' id=\"j\">" 
+	    + "<!-- comment " + num + " -->" 
+	    + "<B" + num + " x='" + num + "'/>text</A>";
+    }
+
+    public void testReuse() throws Exception {
+	SGMLParser parser = new SGMLParser();
+	SavingHandler eventsSaver;
+	List<String> eventsCmp;
+
+	// a failing parse does not spoil the next one 
+	parser.parseXML(true);
+	parser.setContentHandler(new SavingHandler(true));
+	try {
+	    parser.parse(new StringReader("</HalfOfAnEndTa"));
+	    fail("Exception expected. ");
+	} catch (SAXParseException e) {
+	    assertEquals("End of stream while scanning end tag. " 
+			 + "Read so far: \"HalfOfAnEndTa\". ",
+			 e.getMessage());
+	}
+
+	parser.parseXML(false);
+	for (int i = 0; i < 3; i++) {
+	    eventsSaver = new SavingHandler(true);
+	    parser.setContentHandler(eventsSaver);
+	    parser.setExceptionHandler(eventsSaver);
+	    parser.parse(new StringReader(document(i)));
+	    eventsCmp = new ArrayList<String>();
+	    eventsCmp.add(SavingHandler.START_OF_DOCUMENT);
+	    eventsCmp.add("Found second value for attribute \"id\"; " 
+			  + "overwritten old value \"i" + i + "\"");
+	    eventsCmp.add("TS<a>");
+	    eventsCmp.add("TS<b" + i + ">");
+	    eventsCmp.add("TE</b" + i + ">");
+	    eventsCmp.add("TE</a>");
+	    eventsCmp.add(SavingHandler.  END_OF_DOCUMENT);
+	    assertEquals(eventsCmp, eventsSaver.getEvents());
+	}
+    } // testReuse 
+
+    public void testPool() throws Exception {
+	final int numDocs = 400;
+	final SGMLParserPool pool = new SGMLParserPool(false);
+
+	// sequential reference 
+	final List<List<String>> eventsCmp = new ArrayList<List<String>>();
+	SavingHandler eventsSaver;
+	for (int i = 0; i < numDocs; i++) {
+	    eventsSaver = new SavingHandler(true);
+	    pool.parse(new StringReader(document(i)), eventsSaver, eventsSaver);
+	    eventsCmp.add(eventsSaver.getEvents());
+	}
+
+	// parallel parsing 
+	ExecutorService exec = Executors.newFixedThreadPool(4);
+	List<Future<List<String>>> futures = 
+	    new ArrayList<Future<List<String>>>();
+	for (int i = 0; i < numDocs; i++) {
+	    final int num = i;
+	    futures.add(exec.submit(new Callable<List<String>>() {
+		    public List<String> call() throws Exception {
+			SavingHandler saver = new SavingHandler(true);
+			pool.parse(new StringReader(document(num)),
+				   saver, saver);
+			return saver.getEvents();
+		    }
+		}));
+	}
+	for (int i = 0; i < numDocs; i++) {
+	    assertEquals(eventsCmp.get(i), futures.get(i).get());
+	}
+	exec.shutdown();
+
+	// parsers are returned with default handlers 
+	SGMLParser parser = pool.acquire();
+	assertTrue(!parser.isXMLParser());
+	assertTrue(parser.getExceptionHandler() 
+		   instanceof ParseExceptionHandler.Impl);
+
+	// an unfinished fed document is discarded on release 
+	parser.feed("<p>hi<a href='x".toCharArray(), 0, 15);
+	pool.release(parser);
+	parser = pool.acquire();
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.setExceptionHandler(eventsSaver);
+	char[] chars = "<b>ok</b>".toCharArray();
+	parser.feed(chars, 0, chars.length);
+	parser.finish();
+	assertEquals(Arrays.asList(SavingHandler.START_OF_DOCUMENT,
+				   "TS<b>", "TE</b>",
+				   SavingHandler.END_OF_DOCUMENT),
+		     eventsSaver.getEvents());
+	pool.release(parser);
+    } // testPool 
+
+    public void testSymbolTable() throws Exception {
+	SymbolTable symbols = new SymbolTable();
+	StringBuilder chars = new StringBuilder("Name");
+
+	// interning without and with conversion to lower case 
+	String name = symbols.intern(chars, false);
+	assertEquals("Name", name);
+	assertTrue(name == symbols.intern(new StringBuilder("Name"), false));
+	String lName = symbols.intern(chars, true);
+	assertEquals("name", lName);
+	assertTrue(lName == symbols.intern("nAME", true));
+	assertTrue(lName == symbols.intern("name", false));
+	assertEquals(2, symbols.size());
+	assertEquals("\u00e4rger", symbols.intern("\u00c4RGER", true));
+	assertEquals("", symbols.intern("", true));
+
+	// the table is bounded 
+	for (int i = 0; i < 2 * SymbolTable.MAX_SYMBOLS; i++) {
+	    assertEquals("n" + i, symbols.intern("N" + i, true));
+	}
+	assertEquals(SymbolTable.MAX_SYMBOLS, symbols.size());
+	assertTrue(lName == symbols.intern("NAME", true));
+
+	// the parser interns names of tags and attributes 
+	final List<String> names = new ArrayList<String>();
+	SGMLParser parser = new SGMLParser();
+	parser.setContentHandler(new SGMLParser.TrivialContentHandler() {
+		public void startElement(String namespaceURI,
+					 String localName,
+					 String qName,
+					 Attributes atts) {
+		    names.add(qName);
+		    names.add(atts.getValue("href"));
+		}
+		public void endElement(String namespaceURI,
+				       String localName,
+				       String qName) {
+		    names.add(qName);
+		}
+	    });
+	parser.parse(new StringReader("<A HREF='x'>text</a>"));
+	parser.parse(new StringReader("<a href=y>text</A >"));
+	assertEquals(Arrays.asList("a", "x", "a", "a", "y", "a "), names);
+	assertTrue(names.get(0) == names.get(2));
+	assertTrue(names.get(0) == names.get(3));
+    } // testSymbolTable 
+
+    public void testCharClass() throws Exception {
+	SGMLParser.CharClass blankGtSlash = 
+	    new SGMLParser.CharClass("/>", true, false);
+	SGMLParser.CharClass noWhitespace = 
+	    new SGMLParser.CharClass("", true, true);
+	SGMLParser.CharClass lt = new SGMLParser.CharClass("<", false, false);
+
+	// the tables coincide with the definition for all characters 
+	for (char chr = 0; chr < Character.MAX_VALUE; chr++) {
+	    assertEquals(Character.isWhitespace(chr) 
+			 || chr == '/' || chr == '>',
+			 blankGtSlash.testChar(chr));
+	    assertEquals(!Character.isWhitespace(chr),
+			 noWhitespace.testChar(chr));
+	    assertEquals(chr == '<', lt.testChar(chr));
+	}
+
+	// scanning 
+	char[] chars = "ab\u2003c d/<e>".toCharArray();
+	assertEquals(2,  blankGtSlash.indexIn(chars, 0, chars.length));
+	assertEquals(6,  blankGtSlash.indexIn(chars, 5, chars.length));
+	assertEquals(4,  blankGtSlash.indexIn(chars, 3, 4));
+	assertEquals(3,  noWhitespace.indexIn(chars, 2, chars.length));
+	assertEquals(7,  lt.indexIn(chars, 0, chars.length));
+	assertEquals(7,  lt.indexIn(chars, 7, chars.length));
+	assertEquals(10, lt.indexIn(chars, 8, chars.length));
+    } // testCharClass 
+
+    public void testFeed() throws Exception {
+	SGMLParser parser = new SGMLParser();
+	SavingHandler eventsSaver;
+	String doc = document(7) 
+	    + "<!DOCTYPE html><!---->between<?pi data?>" 
+	    + "<c a=\"x>y\" b='>'/>end";
+	char[] chars = doc.toCharArray();
+
+	// events of parsing the whole document at once 
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.setExceptionHandler(eventsSaver);
+	parser.parse(new StringReader(doc));
+	List<String> eventsCmp = eventsSaver.getEvents();
+	assertEquals(Arrays.asList(SavingHandler.START_OF_DOCUMENT,
+				   "Found second value for attribute \"id\"; " 
+				   + "overwritten old value \"i7\"",
+				   "TS<a>", "TS<b7>", "TE</b7>", "TE</a>",
+				   "exc: ill letter in tag: ?", "TS<pi>",
+				   "TS<c>", "TE</c>",
+				   SavingHandler.END_OF_DOCUMENT),
+		     eventsCmp);
+
+	// feeding split at any position yields the same events and all text 
+	final StringBuilder text = new StringBuilder();
+	SGMLParser.TrivialContentHandler textSaver = 
+	    new SGMLParser.TrivialContentHandler() {
+		public void characters(char[] chr, int start, int length) {
+		    text.append(chr, start, length);
+		}
+	    };
+	for (int split = 0; split <= chars.length; split++) {
+	    eventsSaver = new SavingHandler(true);
+	    parser.setContentHandler(eventsSaver);
+	    parser.setExceptionHandler(eventsSaver);
+	    parser.feed(chars, 0, split);
+	    parser.feed(CharBuffer.wrap(chars, split, chars.length - split));
+	    parser.finish();
+	    assertEquals(eventsCmp, eventsSaver.getEvents());
+
+	    parser.setContentHandler(textSaver);
+	    parser.setExceptionHandler(new SavingHandler(true));
+	    text.setLength(0);
+	    parser.feed(CharBuffer.wrap(chars, 0, split));
+	    parser.feed(chars, split, chars.length - split);
+	    parser.finish();
+	    assertEquals("textbetweenend", text.toString());
+	}
+
+	// feeding single characters 
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.setExceptionHandler(eventsSaver);
+	for (int i = 0; i < chars.length; i++) {
+	    parser.feed(chars, i, 1);
+	}
+	parser.finish();
+	assertEquals(eventsCmp, eventsSaver.getEvents());
+
+	// a large document fed in a single chunk or from a read-only buffer 
+	// where parse(Reader) needs a character after each end tag 
+	StringBuilder large = new StringBuilder();
+	for (int i = 0; i < 160000; i++) {
+	    large.append("<p class=\"c\">t</p>\n");
+	}
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.parse(new StringReader(large.toString()));
+	eventsCmp = eventsSaver.getEvents();
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.feed(large.toString().toCharArray(), 0, large.length());
+	parser.finish();
+	assertEquals(eventsCmp, eventsSaver.getEvents());
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.feed(CharBuffer.wrap(large));
+	parser.finish();
+	assertEquals(eventsCmp, eventsSaver.getEvents());
+
+	// a document ending within a tag is discarded 
+	parser.feed("text<a href='".toCharArray(), 0, 13);
+	try {
+	    parser.finish();
+	    fail("Exception expected. ");
+	} catch (SAXParseException e) {
+	    assertEquals("End of stream while scanning \"<a href='\". ",
+			 e.getMessage());
+	}
+	eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.finish();
+	assertEquals(Arrays.asList(SavingHandler.START_OF_DOCUMENT,
+				   SavingHandler.END_OF_DOCUMENT),
+		     eventsSaver.getEvents());
+    } // testFeed 
+
+    public void testCharsetDetector() throws Exception {
+	Charset deflt = StandardCharsets.ISO_8859_1;
+	ByteBuffer bytes;
+
+	// byte order marks are skipped 
+	bytes = ByteBuffer.wrap(new byte[] {
+		(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<'});
+	assertEquals(StandardCharsets.UTF_8,
+		     CharsetDetector.detect(bytes, deflt));
+	assertEquals(3, bytes.position());
+	bytes = ByteBuffer
+	    .wrap("\uFEFF<a/>".getBytes(StandardCharsets.UTF_16BE));
+	assertEquals(StandardCharsets.UTF_16BE,
+		     CharsetDetector.detect(bytes, deflt));
+	assertEquals(2, bytes.position());
+	bytes = ByteBuffer
+	    .wrap("\uFEFF<a/>".getBytes(StandardCharsets.UTF_16LE));
+	assertEquals(StandardCharsets.UTF_16LE,
+		     CharsetDetector.detect(bytes, deflt));
+	assertEquals(2, bytes.position());
+
+	// declarations 
+	bytes = ByteBuffer.wrap("<?xml version='1.0'?>"
+				.getBytes(StandardCharsets.UTF_16LE));
+	assertEquals(StandardCharsets.UTF_16LE,
+		     CharsetDetector.detect(bytes, deflt));
+	assertEquals(0, bytes.position());
+	assertEquals(StandardCharsets.UTF_8, detect
+		     ("<?xml version=\"1.0\" encoding = \"utf-8\"?><a/>"));
+	assertEquals(deflt,
+		     detect("<?xml version=\"1.0\"?><a encoding='utf-8'/>"));
+	assertEquals(StandardCharsets.UTF_8, detect
+		     ("<html><head><meta name=viewport content=x>" 
+		      + "<META http-equiv=\"Content-Type\" " 
+		      + "content=\"text/html; charset=UTF-8\"></head>"));
+	assertEquals(StandardCharsets.UTF_8, detect("<meta charset=utf-8/>"));
+	assertEquals(deflt, detect("<meta charset='no-such-charset'>"));
+	// declarations read as ascii cannot declare a non-ascii charset 
+	assertEquals(StandardCharsets.UTF_8, detect("<meta charset=utf-16>"));
+	assertEquals(StandardCharsets.UTF_8, detect("<meta charset=UTF-16LE>"));
+	assertEquals(StandardCharsets.UTF_8,
+		     detect("<?xml version='1.0' encoding='UTF-16'?>"));
+	if (Charset.isSupported("UTF-32")) {
+	    assertEquals(StandardCharsets.UTF_8,
+			 detect("<meta charset=\"utf-32\">"));
+	}
+	assertEquals(Charset.forName("windows-1252"),
+		     detect("<meta charset=windows-1252>"));
+	assertEquals(deflt, detect("<meta content=\"text/html; " 
+				   + "charset=&quot;utf-8&quot;\">"));
+	assertEquals(deflt, detect("<?xml version='1.0' encoding='utf 8'?>"));
+	assertEquals(deflt, detect("<p>charset=utf-8</p>"));
+	assertEquals(deflt, detect(""));
+    } // testCharsetDetector 
+
+    /**
+     * Returns the charset detected for the given string 
+     * encoded in Latin-1 with Latin-1 as the default. 
+     */
+    private static Charset detect(String doc) {
+	return CharsetDetector
+	    .detect(ByteBuffer.wrap(doc.getBytes(StandardCharsets.ISO_8859_1)),
+		    StandardCharsets.ISO_8859_1);
+    }
+
+    public void testParseBytes() throws Exception {
+	SGMLParser parser = new SGMLParser();
+	final StringBuilder text = new StringBuilder();
+	SavingHandler eventsSaver = new SavingHandler(true);
+	parser.setContentHandler(eventsSaver);
+	parser.setExceptionHandler(eventsSaver);
+
+	// a document with multi-byte characters across several chunks 
+	StringBuilder docBuilder = new StringBuilder
+	    ("<html><head><meta charset=\"utf-8\"></head><body>");
+	for (int i = 0; i < 2000; i++) {
+	    docBuilder.append("<p title='\u00c4'>\u00e4rger \u20ac")
+		.append(i).append("</p>");
+	}
+	docBuilder.append("</body></html>");
+	String doc = docBuilder.toString();
+	parser.feed(doc.toCharArray(), 0, doc.length());
+	parser.finish();
+	List<String> eventsCmp = eventsSaver.getEvents();
+
+	SGMLParser.TrivialContentHandler textSaver = 
+	    new SGMLParser.TrivialContentHandler() {
+		public void characters(char[] chr, int start, int length) {
+		    text.append(chr, start, length);
+		}
+	    };
+	parser.setContentHandler(textSaver);
+	parser.feed(doc.toCharArray(), 0, doc.length());
+	parser.finish();
+	String textCmp = text.toString();
+	assertTrue(textCmp.startsWith("\u00e4rger \u20ac0\u00e4rger"));
+
+	byte[] utf8 = doc.getBytes(StandardCharsets.UTF_8);
+	Path file = Files.createTempFile("SGMLParserTest", ".html");
+	try {
+	    Files.write(file, utf8);
+	    for (int i = 0; i < 3; i++) {
+		eventsSaver = new SavingHandler(true);
+		parser.setContentHandler(eventsSaver);
+		parser.setExceptionHandler(eventsSaver);
+		parseBytes(parser, i, utf8, file);
+		assertEquals(eventsCmp, eventsSaver.getEvents());
+
+		parser.setContentHandler(textSaver);
+		text.setLength(0);
+		parseBytes(parser, i, utf8, file);
+		assertEquals(textCmp, text.toString());
+	    }
+	} finally {
+	    Files.delete(file);
+	}
+
+	// without declaration the default charset applies 
+	text.setLength(0);
+	byte[] utf8Umlaut = "<p>\u00e4</p>".getBytes(StandardCharsets.UTF_8);
+	parser.parse(new ByteArrayInputStream(utf8Umlaut),
+		     StandardCharsets.ISO_8859_1);
+	assertEquals("\u00c3\u00a4", text.toString());
+
+	// a malformed declaration does not break parsing 
+	text.setLength(0);
+	byte[] malformed = ("<meta content=\"text/html; " 
+			    + "charset=&quot;utf-8&quot;\">\u00e4")
+	    .getBytes(StandardCharsets.ISO_8859_1);
+	parser.parse(new ByteArrayInputStream(malformed),
+		     StandardCharsets.ISO_8859_1);
+	assertEquals("\u00e4", text.toString());
+    } // testParseBytes 
+
+    /**
+     * Returns the events of the given batch 
+     * as strings consisting of the type and the characters. 
+     */
+    private static List<String> events(EventBatch batch) {
+	List<String> res = new ArrayList<String>();
+	for (int i = 0; i < batch.size(); i++) {
+	    res.add(batch.getType(i) + ":" + batch.getText(i));
+	}
+	return res;
+    }
+
+    public void testEventBatch() throws Exception {
+	SGMLParser parser = new SGMLParser();
+	String doc = "<a href='h' id=i checked>one <b>two</b>three</a>";
+
+	// recording events in columns 
+	EventBatch batch = new EventBatch();
+	parser.setContentHandler(batch);
+	parser.feed(doc.toCharArray(), 0, doc.length());
+	parser.finish();
+	assertEquals(Arrays.asList(EventBatch.START_DOCUMENT + ":",
+				   EventBatch.START_ELEMENT   + ":a",
+				   EventBatch.ATTRIBUTE_NAME  + ":href",
+				   EventBatch.ATTRIBUTE_VALUE + ":h",
+				   EventBatch.ATTRIBUTE_NAME  + ":id",
+				   EventBatch.ATTRIBUTE_VALUE + ":i",
+				   EventBatch.ATTRIBUTE_NAME  + ":checked",
+				   EventBatch.ATTRIBUTE_VALUE + ":null",
+				   EventBatch.CHARACTERS      + ":one ",
+				   EventBatch.START_ELEMENT   + ":b",
+				   EventBatch.CHARACTERS      + ":two",
+				   EventBatch.END_ELEMENT     + ":b",
+				   EventBatch.CHARACTERS      + ":three",
+				   EventBatch.END_ELEMENT     + ":a",
+				   EventBatch.END_DOCUMENT    + ":"),
+		     events(batch));
+	assertEquals(-1, batch.getLength(7));
+	assertEquals("two",
+		     new String(batch.getChars(),
+				batch.getOffset(10),
+				batch.getLength(10)));
+	List<String> eventsCmp = events(batch);
+
+	// characters fed one by one are merged 
+	batch.clear();
+	for (int i = 0; i < doc.length(); i++) {
+	    parser.feed(doc.toCharArray(), i, 1);
+	}
+	parser.finish();
+	assertEquals(eventsCmp, events(batch));
+
+	// batching 
+	for (int maxEvents = 1; maxEvents < 20; maxEvents++) {
+	    final List<String> events = new ArrayList<String>();
+	    parser.setContentHandler(new BatchingHandler(new BatchHandler() {
+		    public void handleBatch(EventBatch batch) {
+			assertTrue(batch.size() > 0);
+			// a start tag is not separated from its attributes 
+			assertTrue(batch.getType(0) 
+				   != EventBatch.ATTRIBUTE_NAME);
+			events.addAll(events(batch));
+		    }
+		}, maxEvents, 8));
+	    parser.feed(doc.toCharArray(), 0, doc.length());
+	    parser.finish();
+	    assertEquals(eventsCmp, events);
+	}
+    } // testEventBatch 
+
+    public void testAttributes() throws Exception {
+	AttributesImpl atts = new AttributesImpl();
+
+	// few and many attributes, i.e. without and with hash index 
+	for (int num : new int[] {3, AttributesImpl.HASH_THRESHOLD + 1, 100}) {
+	    atts.clear();
+	    assertEquals(0, atts.getLength());
+	    for (int i = 0; i < num; i++) {
+		assertEquals(null, atts.add("n" + i, "v" + i));
+	    }
+	    assertEquals("v1", atts.add("n1", AttributesImpl.NO_VALUE));
+	    assertEquals(AttributesImpl.NO_VALUE, atts.add("n1", "w1"));
+	    assertEquals(num, atts.getLength());
+	    for (int i = 0; i < num; i++) {
+		assertEquals(i, atts.getIndex("n" + i));
+		assertEquals("n" + i, atts.getQName(i));
+		assertEquals(i == 1 ? "w1" : "v" + i, atts.getValue("n" + i));
+		assertEquals("CDATA", atts.getType(i));
+	    }
+	    assertEquals(-1, atts.getIndex("n" + num));
+	    assertEquals(null, atts.getValue("n" + num));
+	    assertEquals(null, atts.getQName(num));
+	}
+	atts.clear();
+	atts.add("n", AttributesImpl.NO_VALUE);
+	assertEquals(null, atts.getValue("n"));
+	assertEquals(-1, atts.getIndex("n1"));
+
+	// the parser notifies multiple attributes also for many attributes 
+	StringBuilder doc = new StringBuilder("<svg");
+	for (int i = 0; i < 50; i++) {
+	    doc.append(" data-").append(i).append("='").append(i).append('\'');
+	}
+	doc.append(" data-7=x><g a=b></g></svg>");
+	final List<String> values = new ArrayList<String>();
+	SavingHandler eventsSaver = new SavingHandler(true);
+	SGMLParser parser = new SGMLParser();
+	parser.setExceptionHandler(eventsSaver);
+	parser.setContentHandler(new SGMLParser.TrivialContentHandler() {
+		public void startElement(String namespaceURI,
+					 String localName,
+					 String qName,
+					 Attributes atts) {
+		    values.add(qName + atts.getLength() 
+			       + atts.getValue("data-7") 
+			       + atts.getValue("data-49"));
+		}
+	    });
+	parser.parse(new StringReader(doc.toString()));
+	assertEquals(Arrays.asList("svg50x49", "g1nullnull"), values);
+	assertEquals(Arrays.asList("Found second value for attribute " 
+				   + "\"data-7\"; overwritten old value \"7\""),
+		     eventsSaver.getEvents());
+    } // testAttributes 
+
+    /**
+     * Parses the document given by <code>bytes</code> 
+     * which is also the content of <code>file</code> 
+     * from a stream, a direct buffer or the file 
+     * depending on <code>kind</code>. 
+     */
+    private static void parseBytes(SGMLParser parser,
+				   int kind,
+				   byte[] bytes,
+				   Path file) throws Exception {
+	switch (kind) {
+	case 0:
+	    parser.parse(new ByteArrayInputStream(bytes),
+			 StandardCharsets.ISO_8859_1);
+	    break;
+	case 1:
+	    ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+	    buf.put(bytes).flip();
+	    parser.parse(buf, StandardCharsets.ISO_8859_1);
+	    assertTrue(!buf.hasRemaining());
+	    break;
+	default:
+	    parser.parse(file, StandardCharsets.ISO_8859_1);
+	    break;
+	}
+    }
+
     /* -------------------------------------------------------------------- *
      * framework.                                                           *
      * -------------------------------------------------------------------- */